@@ -0,0 +1,198 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec;
+
+/**
+ * The MQ arithmetic decoder shared by JBIG2 (ISO/IEC 14492, Annex E) and JPEG2000
+ * (ISO/IEC 15444-1, Annex C) decoders.
+ *
+ * <p>
+ * Context statistics are kept by the callers in {@code byte} arrays, every entry holds
+ * the index of the probability estimation state in the upper bits and the MPS value in the lowest bit.
+ */
+public final class MqDecoder {
+
+    private static final int[] QE = {
+            0x5601, 0x3401, 0x1801, 0x0AC1, 0x0521, 0x0221, 0x5601, 0x5401, 0x4801, 0x3801,
+            0x3001, 0x2401, 0x1C01, 0x1601, 0x5601, 0x5401, 0x5101, 0x4801, 0x3801, 0x3401,
+            0x3001, 0x2801, 0x2401, 0x2201, 0x1C01, 0x1801, 0x1601, 0x1401, 0x1201, 0x1101,
+            0x0AC1, 0x09C1, 0x08A1, 0x0521, 0x0441, 0x02A1, 0x0221, 0x0141, 0x0111, 0x0085,
+            0x0049, 0x0025, 0x0015, 0x0009, 0x0005, 0x0001, 0x5601
+    };
+
+    private static final byte[] NMPS = {
+            1, 2, 3, 4, 5, 38, 7, 8, 9, 10, 11, 12, 13, 29, 15, 16, 17, 18, 19, 20,
+            21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40,
+            41, 42, 43, 44, 45, 45, 46
+    };
+
+    private static final byte[] NLPS = {
+            1, 6, 9, 12, 29, 33, 6, 14, 14, 14, 17, 18, 20, 21, 14, 14, 15, 16, 17, 18,
+            19, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37,
+            38, 39, 40, 41, 42, 43, 46
+    };
+
+    private static final boolean[] SWITCH = {
+            true, false, false, false, false, false, true, false, false, false, false, false, false, false, true, false,
+            false, false, false, false, false, false, false, false, false, false, false, false, false, false, false,
+            false, false, false, false, false, false, false, false, false, false, false, false, false, false, false,
+            false
+    };
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+    private int chigh;
+    private int clow;
+    private int a;
+    private int ct;
+
+    /**
+     * Creates a decoder and initializes it with the first bytes of the given data.
+     *
+     * @param data  the buffer with the arithmetically coded data
+     * @param start the index of the first byte of the coded data
+     * @param end   the index after the last byte of the coded data, the decoder acts
+     *              as if the data is followed by {@code 0xFF} bytes
+     */
+    public MqDecoder(byte[] data, int start, int end) {
+        this.data = data;
+        this.end = end;
+        this.position = start;
+        // INITDEC, see E.3.5
+        chigh = byteAt(start);
+        clow = 0;
+        byteIn();
+        chigh = ((chigh << 7) & 0xffff) | ((clow >> 9) & 0x7f);
+        clow = (clow << 7) & 0xffff;
+        ct -= 7;
+        a = 0x8000;
+    }
+
+    /**
+     * Decodes a single bit using (and updating) the statistics of the given context.
+     *
+     * @param contexts the statistics array
+     * @param cx       the index of the context in the statistics array
+     * @return decoded bit
+     */
+    public int decodeBit(byte[] contexts, int cx) {
+        int state = contexts[cx];
+        int index = state >> 1;
+        int mps = state & 1;
+        int qe = QE[index];
+        int d;
+        int interval = a - qe;
+        if (chigh < qe) {
+            // LPS_EXCHANGE
+            if (interval < qe) {
+                d = mps;
+                index = NMPS[index];
+            } else {
+                d = 1 - mps;
+                if (SWITCH[index]) {
+                    mps = d;
+                }
+                index = NLPS[index];
+            }
+            interval = qe;
+        } else {
+            chigh -= qe;
+            if ((interval & 0x8000) != 0) {
+                a = interval;
+                return mps;
+            }
+            // MPS_EXCHANGE
+            if (interval < qe) {
+                d = 1 - mps;
+                if (SWITCH[index]) {
+                    mps = d;
+                }
+                index = NLPS[index];
+            } else {
+                d = mps;
+                index = NMPS[index];
+            }
+        }
+        // RENORMD
+        do {
+            if (ct == 0) {
+                byteIn();
+            }
+            interval <<= 1;
+            chigh = ((chigh << 1) & 0xffff) | ((clow >> 15) & 1);
+            clow = (clow << 1) & 0xffff;
+            ct--;
+        } while ((interval & 0x8000) == 0);
+        a = interval;
+        contexts[cx] = (byte) ((index << 1) | mps);
+        return d;
+    }
+
+    private void byteIn() {
+        // BYTEIN, see E.3.4
+        if (byteAt(position) == 0xff) {
+            if (byteAt(position + 1) > 0x8f) {
+                clow += 0xff00;
+                ct = 8;
+            } else {
+                position++;
+                clow += byteAt(position) << 9;
+                ct = 7;
+            }
+        } else {
+            position++;
+            clow += position < end ? byteAt(position) << 8 : 0xff00;
+            ct = 8;
+        }
+        if (clow > 0xffff) {
+            chigh += clow >> 16;
+            clow &= 0xffff;
+        }
+    }
+
+    private int byteAt(int index) {
+        return index < end ? data[index] & 0xff : 0xff;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+import com.itextpdf.io.codec.TIFFFaxDecoder;
+
+/**
+ * Generic region decoding procedure (ISO/IEC 14492, 6.2).
+ */
+final class GenericRegionDecoder {
+
+    // Contexts used to decode SLTP for templates 0-3, see 6.2.5.7
+    private static final int[] SLTP_CONTEXTS = {0x9B25, 0x0795, 0x00E5, 0x0195};
+
+    private static final int[] CONTEXT_SIZES = {1 << 16, 1 << 13, 1 << 10, 1 << 10};
+
+    // Nominal adaptive template pixel positions, pairs of (x, y) for every template
+    private static final int[][] NOMINAL_AT = {
+            {3, -1, -3, -1, 2, -2, -2, -2},
+            {3, -1},
+            {2, -1},
+            {2, -1}
+    };
+
+    // Context pixels for the nominal positions of adaptive pixels: the leftmost and the rightmost
+    // pixel of the two previous rows and the count of pixels taken from the current row
+    private static final int[][] WINDOWS = {
+            {-2, 2, -3, 3, 4},
+            {-1, 2, -2, 3, 3},
+            {-1, 1, -2, 2, 2},
+            {0, -1, -3, 2, 4}
+    };
+
+    private GenericRegionDecoder() {
+    }
+
+    static byte[] createContexts(int template) {
+        return new byte[CONTEXT_SIZES[template]];
+    }
+
+    static Jbig2Bitmap decodeMmr(byte[] data, int start, int end, int width, int height) {
+        byte[] compressed = new byte[end - start];
+        System.arraycopy(data, start, compressed, 0, compressed.length);
+        byte[] packed = new byte[((width + 7) >>> 3) * height];
+        TIFFFaxDecoder decoder = new TIFFFaxDecoder(1, width, height);
+        decoder.decodeT6(packed, compressed, 0, height, 0);
+        Jbig2Bitmap bitmap = new Jbig2Bitmap(width, height);
+        int bytesPerRow = (width + 7) >>> 3;
+        int[] words = bitmap.getWords();
+        int wordsPerRow = bitmap.getWordsPerRow();
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < bytesPerRow; i++) {
+                words[y * wordsPerRow + (i >>> 2)] |= (packed[y * bytesPerRow + i] & 0xff) << (24 - ((i & 3) << 3));
+            }
+        }
+        return bitmap;
+    }
+
+    static Jbig2Bitmap decode(MqDecoder decoder, byte[] contexts, int width, int height, int template,
+            boolean typicalPrediction, int[] at) {
+        return decode(decoder, contexts, width, height, template, typicalPrediction, at, null);
+    }
+
+    static Jbig2Bitmap decode(MqDecoder decoder, byte[] contexts, int width, int height, int template,
+            boolean typicalPrediction, int[] at, Jbig2Bitmap skip) {
+        Jbig2Bitmap bitmap = new Jbig2Bitmap(width, height);
+        boolean nominal = isNominal(template, at);
+        int ltp = 0;
+        for (int y = 0; y < height; y++) {
+            if (typicalPrediction) {
+                ltp ^= decoder.decodeBit(contexts, SLTP_CONTEXTS[template]);
+                if (ltp == 1) {
+                    bitmap.copyRow(y - 1, y);
+                    continue;
+                }
+            }
+            if (nominal && skip == null) {
+                decodeRowNominal(decoder, contexts, bitmap, y, WINDOWS[template]);
+            } else {
+                decodeRowGeneric(decoder, contexts, bitmap, y, template, at, skip);
+            }
+        }
+        return bitmap;
+    }
+
+    private static boolean isNominal(int template, int[] at) {
+        int[] nominal = NOMINAL_AT[template];
+        for (int i = 0; i < nominal.length; i++) {
+            if (at[i] != nominal[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * With the adaptive pixels in their nominal positions the context of every template is made of three
+     * horizontally adjacent runs of pixels: one from each of the two previous rows and one from the current row.
+     * These runs are kept in sliding windows which are shifted by a pixel per step, while the pixels entering
+     * the windows are taken from 32-bit chunks of the reference rows.
+     */
+    private static void decodeRowNominal(MqDecoder decoder, byte[] contexts, Jbig2Bitmap bitmap, int y,
+            int[] window) {
+        int width = bitmap.getWidth();
+        int lo2 = window[0];
+        int hi2 = window[1];
+        int lo1 = window[2];
+        int hi1 = window[3];
+        int currentLength = window[4];
+        int length2 = hi2 - lo2 + 1;
+        int length1 = hi1 - lo1 + 1;
+        int mask2 = (1 << length2) - 1;
+        int mask1 = (1 << length1) - 1;
+        int currentMask = (1 << currentLength) - 1;
+        int shift1 = currentLength;
+        int shift2 = currentLength + length1;
+
+        int window2 = length2 > 0 ? bitmap.getBits(lo2, y - 2) >>> (32 - length2) : 0;
+        int window1 = bitmap.getBits(lo1, y - 1) >>> (32 - length1);
+        int current = 0;
+        int chunk2 = 0;
+        int chunk1 = 0;
+        int word = 0;
+        for (int x = 0; x < width; x++) {
+            int bitIndex = x & 31;
+            if (bitIndex == 0) {
+                if (length2 > 0) {
+                    chunk2 = bitmap.getBits(x + hi2 + 1, y - 2);
+                }
+                chunk1 = bitmap.getBits(x + hi1 + 1, y - 1);
+            }
+            int bit = decoder.decodeBit(contexts, (window2 << shift2) | (window1 << shift1) | current);
+            word = (word << 1) | bit;
+            if (bitIndex == 31) {
+                bitmap.setWord(x >>> 5, y, word);
+                word = 0;
+            }
+            current = ((current << 1) | bit) & currentMask;
+            window2 = ((window2 << 1) | ((chunk2 >>> (31 - bitIndex)) & 1)) & mask2;
+            window1 = ((window1 << 1) | ((chunk1 >>> (31 - bitIndex)) & 1)) & mask1;
+        }
+        if ((width & 31) != 0) {
+            bitmap.setWord(width >>> 5, y, word << (32 - (width & 31)));
+        }
+    }
+
+    /**
+     * Decodes a row with the context bits placed exactly as described in 6.2.5.3, for arbitrary
+     * positions of the adaptive pixels. Pixels set in the skip bitmap, if any, are left white without decoding.
+     */
+    private static void decodeRowGeneric(MqDecoder decoder, byte[] contexts, Jbig2Bitmap bitmap, int y,
+            int template, int[] at, Jbig2Bitmap skip) {
+        int width = bitmap.getWidth();
+        for (int x = 0; x < width; x++) {
+            if (skip != null && skip.getPixel(x, y) != 0) {
+                continue;
+            }
+            int context;
+            switch (template) {
+                case 0:
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x - 2, y) << 1
+                            | bitmap.getPixel(x - 3, y) << 2
+                            | bitmap.getPixel(x - 4, y) << 3
+                            | bitmap.getPixel(x + at[0], y + at[1]) << 4
+                            | bitmap.getPixel(x + 2, y - 1) << 5
+                            | bitmap.getPixel(x + 1, y - 1) << 6
+                            | bitmap.getPixel(x, y - 1) << 7
+                            | bitmap.getPixel(x - 1, y - 1) << 8
+                            | bitmap.getPixel(x - 2, y - 1) << 9
+                            | bitmap.getPixel(x + at[2], y + at[3]) << 10
+                            | bitmap.getPixel(x + at[4], y + at[5]) << 11
+                            | bitmap.getPixel(x + 1, y - 2) << 12
+                            | bitmap.getPixel(x, y - 2) << 13
+                            | bitmap.getPixel(x - 1, y - 2) << 14
+                            | bitmap.getPixel(x + at[6], y + at[7]) << 15;
+                    break;
+                case 1:
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x - 2, y) << 1
+                            | bitmap.getPixel(x - 3, y) << 2
+                            | bitmap.getPixel(x + at[0], y + at[1]) << 3
+                            | bitmap.getPixel(x + 2, y - 1) << 4
+                            | bitmap.getPixel(x + 1, y - 1) << 5
+                            | bitmap.getPixel(x, y - 1) << 6
+                            | bitmap.getPixel(x - 1, y - 1) << 7
+                            | bitmap.getPixel(x - 2, y - 1) << 8
+                            | bitmap.getPixel(x + 2, y - 2) << 9
+                            | bitmap.getPixel(x + 1, y - 2) << 10
+                            | bitmap.getPixel(x, y - 2) << 11
+                            | bitmap.getPixel(x - 1, y - 2) << 12;
+                    break;
+                case 2:
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x - 2, y) << 1
+                            | bitmap.getPixel(x + at[0], y + at[1]) << 2
+                            | bitmap.getPixel(x + 1, y - 1) << 3
+                            | bitmap.getPixel(x, y - 1) << 4
+                            | bitmap.getPixel(x - 1, y - 1) << 5
+                            | bitmap.getPixel(x - 2, y - 1) << 6
+                            | bitmap.getPixel(x + 1, y - 2) << 7
+                            | bitmap.getPixel(x, y - 2) << 8
+                            | bitmap.getPixel(x - 1, y - 2) << 9;
+                    break;
+                default:
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x - 2, y) << 1
+                            | bitmap.getPixel(x - 3, y) << 2
+                            | bitmap.getPixel(x - 4, y) << 3
+                            | bitmap.getPixel(x + at[0], y + at[1]) << 4
+                            | bitmap.getPixel(x + 1, y - 1) << 5
+                            | bitmap.getPixel(x, y - 1) << 6
+                            | bitmap.getPixel(x - 1, y - 1) << 7
+                            | bitmap.getPixel(x - 2, y - 1) << 8
+                            | bitmap.getPixel(x - 3, y - 1) << 9;
+                    break;
+            }
+            bitmap.setPixel(x, y, decoder.decodeBit(contexts, context));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pattern dictionary (ISO/IEC 14492, 6.7) and halftone region (6.6) decoding procedures
+ * for arithmetically coded data.
+ */
+final class HalftoneRegionDecoder {
+
+    int width;
+    int height;
+    int template;
+    boolean enableSkip;
+    int combinationOperator;
+    int defaultPixel;
+    int gridWidth;
+    int gridHeight;
+    int gridX;
+    int gridY;
+    int gridVectorX;
+    int gridVectorY;
+    List<Jbig2Bitmap> patterns;
+
+    static List<Jbig2Bitmap> decodePatterns(MqDecoder decoder, int template, int patternWidth,
+            int patternHeight, int grayMax) {
+        int[] at = {-patternWidth, 0, -3, -1, 2, -2, -2, -2};
+        Jbig2Bitmap collective = GenericRegionDecoder.decode(decoder, GenericRegionDecoder.createContexts(template),
+                (grayMax + 1) * patternWidth, patternHeight, template, false, at);
+        return splitPatterns(collective, patternWidth, patternHeight, grayMax);
+    }
+
+    static List<Jbig2Bitmap> splitPatterns(Jbig2Bitmap collective, int patternWidth, int patternHeight,
+            int grayMax) {
+        List<Jbig2Bitmap> patterns = new ArrayList<>(grayMax + 1);
+        for (int i = 0; i <= grayMax; i++) {
+            patterns.add(collective.extract(i * patternWidth, 0, patternWidth, patternHeight));
+        }
+        return patterns;
+    }
+
+    Jbig2Bitmap decode(MqDecoder decoder) {
+        Jbig2Bitmap region = new Jbig2Bitmap(width, height);
+        if (defaultPixel != 0) {
+            region.fill(1);
+        }
+        Jbig2Bitmap pattern0 = patterns.get(0);
+        int patternWidth = pattern0.getWidth();
+        int patternHeight = pattern0.getHeight();
+        Jbig2Bitmap skip = null;
+        if (enableSkip) {
+            skip = new Jbig2Bitmap(gridWidth, gridHeight);
+            for (int m = 0; m < gridHeight; m++) {
+                for (int n = 0; n < gridWidth; n++) {
+                    int x = patternX(m, n);
+                    int y = patternY(m, n);
+                    if (x + patternWidth <= 0 || x >= width || y + patternHeight <= 0 || y >= height) {
+                        skip.setPixel(n, m, 1);
+                    }
+                }
+            }
+        }
+        int bitsPerPixel = SymbolDictionaryDecoder.codeLength(patterns.size());
+        int[] grayScale = decodeGrayScale(decoder, bitsPerPixel, skip);
+        for (int m = 0; m < gridHeight; m++) {
+            for (int n = 0; n < gridWidth; n++) {
+                int index = Math.min(grayScale[m * gridWidth + n], patterns.size() - 1);
+                region.compose(patterns.get(index), patternX(m, n), patternY(m, n), combinationOperator);
+            }
+        }
+        return region;
+    }
+
+    // Annex C.5
+    private int[] decodeGrayScale(MqDecoder decoder, int bitsPerPixel, Jbig2Bitmap skip) {
+        int[] at = {template <= 1 ? 3 : 2, -1, -3, -1, 2, -2, -2, -2};
+        byte[] contexts = GenericRegionDecoder.createContexts(template);
+        int[] values = new int[gridWidth * gridHeight];
+        Jbig2Bitmap previous = null;
+        for (int plane = bitsPerPixel - 1; plane >= 0; plane--) {
+            Jbig2Bitmap current = GenericRegionDecoder.decode(decoder, contexts, gridWidth, gridHeight, template,
+                    false, at, skip);
+            if (previous != null) {
+                // gray code decoding
+                current.compose(previous, 0, 0, Jbig2Bitmap.OP_XOR);
+            }
+            for (int m = 0; m < gridHeight; m++) {
+                for (int n = 0; n < gridWidth; n++) {
+                    values[m * gridWidth + n] |= current.getPixel(n, m) << plane;
+                }
+            }
+            previous = current;
+        }
+        return values;
+    }
+
+    private int patternX(int m, int n) {
+        return (int) (((long) gridX + (long) m * gridVectorY + (long) n * gridVectorX) >> 8);
+    }
+
+    private int patternY(int m, int n) {
+        return (int) (((long) gridY + (long) m * gridVectorX - (long) n * gridVectorY) >> 8);
+    }
+}
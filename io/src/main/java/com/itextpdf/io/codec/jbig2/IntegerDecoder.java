@@ -0,0 +1,96 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+
+/**
+ * The arithmetic integer decoding procedure (ISO/IEC 14492, A.2). Every instance holds the statistics
+ * of one procedure, e.g. IADH or IADW.
+ */
+final class IntegerDecoder {
+
+    /**
+     * The out-of-band value.
+     */
+    static final int OOB = Integer.MIN_VALUE;
+
+    private final byte[] contexts = new byte[512];
+    private int prev;
+
+    int decode(MqDecoder decoder) {
+        prev = 1;
+        int sign = readBits(decoder, 1);
+        int value;
+        if (readBits(decoder, 1) == 0) {
+            value = readBits(decoder, 2);
+        } else if (readBits(decoder, 1) == 0) {
+            value = readBits(decoder, 4) + 4;
+        } else if (readBits(decoder, 1) == 0) {
+            value = readBits(decoder, 6) + 20;
+        } else if (readBits(decoder, 1) == 0) {
+            value = readBits(decoder, 8) + 84;
+        } else if (readBits(decoder, 1) == 0) {
+            value = readBits(decoder, 12) + 340;
+        } else {
+            value = readBits(decoder, 32) + 4436;
+        }
+        if (sign == 0) {
+            return value;
+        }
+        return value > 0 ? -value : OOB;
+    }
+
+    private int readBits(MqDecoder decoder, int length) {
+        int value = 0;
+        int p = prev;
+        for (int i = 0; i < length; i++) {
+            int bit = decoder.decodeBit(contexts, p);
+            p = p < 256 ? (p << 1) | bit : ((((p << 1) | bit) & 511) | 256);
+            value = (value << 1) | bit;
+        }
+        prev = p;
+        return value;
+    }
+}
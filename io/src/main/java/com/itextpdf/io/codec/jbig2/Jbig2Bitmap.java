@@ -0,0 +1,332 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+/**
+ * A bi-level bitmap as produced by the JBIG2 decoding procedures.
+ *
+ * <p>
+ * Pixels are packed most significant bit first into 32-bit words, every row starts at a word
+ * boundary and 1 stands for a black pixel as in JBIG2 itself. Padding bits at the end of a row are always 0,
+ * so whole words can be combined and compared without masking the row tail.
+ */
+public final class Jbig2Bitmap {
+
+    /**
+     * OR combination operator, see ISO/IEC 14492, 7.4.1.5.
+     */
+    public static final int OP_OR = 0;
+
+    /**
+     * AND combination operator, see ISO/IEC 14492, 7.4.1.5.
+     */
+    public static final int OP_AND = 1;
+
+    /**
+     * XOR combination operator, see ISO/IEC 14492, 7.4.1.5.
+     */
+    public static final int OP_XOR = 2;
+
+    /**
+     * XNOR combination operator, see ISO/IEC 14492, 7.4.1.5.
+     */
+    public static final int OP_XNOR = 3;
+
+    /**
+     * REPLACE combination operator, see ISO/IEC 14492, 7.4.1.5.
+     */
+    public static final int OP_REPLACE = 4;
+
+    private final int width;
+    private int height;
+    private final int wordsPerRow;
+    private final int lastWordMask;
+    private int[] words;
+
+    /**
+     * Creates a new white bitmap.
+     *
+     * @param width  the width of the bitmap in pixels
+     * @param height the height of the bitmap in pixels
+     */
+    public Jbig2Bitmap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 31) >>> 5;
+        int tail = width & 31;
+        this.lastWordMask = tail == 0 ? -1 : -1 << (32 - tail);
+        this.words = new int[wordsPerRow * height];
+    }
+
+    /**
+     * Gets the width of the bitmap.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the bitmap.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the value of the pixel. Pixels outside of the bitmap are considered white.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return 1 for black pixel, 0 for white one
+     */
+    public int getPixel(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        return (words[y * wordsPerRow + (x >>> 5)] >>> (~x & 31)) & 1;
+    }
+
+    /**
+     * Sets the value of the pixel. Pixels outside of the bitmap are ignored.
+     *
+     * @param x     the column of the pixel
+     * @param y     the row of the pixel
+     * @param value 1 for black pixel, 0 for white one
+     */
+    public void setPixel(int x, int y, int value) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int index = y * wordsPerRow + (x >>> 5);
+        int bit = 1 << (~x & 31);
+        if (value == 0) {
+            words[index] &= ~bit;
+        } else {
+            words[index] |= bit;
+        }
+    }
+
+    /**
+     * Packs the bitmap into bytes, each row starting at a byte boundary, which is the layout
+     * of 1 bit per component image data in PDF.
+     *
+     * @param invert whether pixel values shall be inverted, i.e. whether 0 shall represent black
+     * @return packed bitmap data
+     */
+    public byte[] toByteArray(boolean invert) {
+        int bytesPerRow = (width + 7) >>> 3;
+        byte[] result = new byte[bytesPerRow * height];
+        int flip = invert ? 0xff : 0;
+        int lastByteMask = (0xff << ((8 - (width & 7)) & 7)) & 0xff;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * wordsPerRow;
+            int offset = y * bytesPerRow;
+            for (int i = 0; i < bytesPerRow; i++) {
+                int word = words[rowStart + (i >>> 2)];
+                result[offset + i] = (byte) ((word >>> (24 - ((i & 3) << 3))) ^ flip);
+            }
+            if (invert) {
+                // keep the padding bits of the last byte in the row unset
+                result[offset + bytesPerRow - 1] &= (byte) lastByteMask;
+            }
+        }
+        return result;
+    }
+
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    int[] getWords() {
+        return words;
+    }
+
+    /**
+     * Gets up to 32 pixels of a row starting at the given column, most significant bit first.
+     * Pixels outside of the bitmap are white.
+     */
+    int getBits(int x, int y) {
+        if (y < 0 || y >= height || x >= width || x <= -32) {
+            return 0;
+        }
+        int base = y * wordsPerRow;
+        if (x < 0) {
+            return words[base] >>> -x;
+        }
+        int index = x >>> 5;
+        int shift = x & 31;
+        int result = words[base + index] << shift;
+        if (shift != 0 && index + 1 < wordsPerRow) {
+            result |= words[base + index + 1] >>> (32 - shift);
+        }
+        return result;
+    }
+
+    void fill(int value) {
+        if (value == 0) {
+            java.util.Arrays.fill(words, 0);
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            java.util.Arrays.fill(words, base, base + wordsPerRow, -1);
+            words[base + wordsPerRow - 1] = lastWordMask;
+        }
+    }
+
+    void copyRow(int fromRow, int toRow) {
+        if (fromRow < 0) {
+            java.util.Arrays.fill(words, toRow * wordsPerRow, (toRow + 1) * wordsPerRow, 0);
+        } else {
+            System.arraycopy(words, fromRow * wordsPerRow, words, toRow * wordsPerRow, wordsPerRow);
+        }
+    }
+
+    /**
+     * Stores 32 decoded pixels, most significant bit first, at the given word of the row.
+     */
+    void setWord(int wordIndex, int y, int value) {
+        int mask = wordIndex == wordsPerRow - 1 ? lastWordMask : -1;
+        words[y * wordsPerRow + wordIndex] = value & mask;
+    }
+
+    /**
+     * Extends the bitmap to the new height, new rows are filled with the given pixel value.
+     */
+    void grow(int newHeight, int value) {
+        if (newHeight <= height) {
+            return;
+        }
+        int oldHeight = height;
+        int[] newWords = new int[wordsPerRow * newHeight];
+        System.arraycopy(words, 0, newWords, 0, words.length);
+        words = newWords;
+        height = newHeight;
+        if (value != 0) {
+            for (int y = oldHeight; y < newHeight; y++) {
+                int base = y * wordsPerRow;
+                java.util.Arrays.fill(words, base, base + wordsPerRow, -1);
+                words[base + wordsPerRow - 1] = lastWordMask;
+            }
+        }
+    }
+
+    /**
+     * Copies the rectangular area of the bitmap into the new bitmap.
+     */
+    Jbig2Bitmap extract(int x, int y, int w, int h) {
+        Jbig2Bitmap result = new Jbig2Bitmap(w, h);
+        for (int row = 0; row < h; row++) {
+            for (int i = 0; i < result.wordsPerRow; i++) {
+                result.setWord(i, row, getBits(x + (i << 5), y + row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Combines the given bitmap into this one, placing its upper left corner at (x, y).
+     * The combination is performed a word at a time: every source word is split between at most
+     * two destination words and applied under a mask, so no per-pixel work is done.
+     */
+    void compose(Jbig2Bitmap src, int x, int y, int op) {
+        int startRow = Math.max(0, -y);
+        int endRow = Math.min(src.height, height - y);
+        if (startRow >= endRow || x >= width || x + src.width <= 0) {
+            return;
+        }
+        int shift = x & 31;
+        int firstDstWord = x >> 5;
+        for (int row = startRow; row < endRow; row++) {
+            int srcBase = row * src.wordsPerRow;
+            int dstBase = (row + y) * wordsPerRow;
+            for (int i = 0; i < src.wordsPerRow; i++) {
+                int srcWord = src.words[srcBase + i];
+                int srcMask = i == src.wordsPerRow - 1 ? src.lastWordMask : -1;
+                int dstWord = firstDstWord + i;
+                if (shift == 0) {
+                    combineWord(dstBase, dstWord, srcWord, srcMask, op);
+                } else {
+                    combineWord(dstBase, dstWord, srcWord >>> shift, srcMask >>> shift, op);
+                    combineWord(dstBase, dstWord + 1, srcWord << (32 - shift), srcMask << (32 - shift), op);
+                }
+            }
+        }
+    }
+
+    private void combineWord(int dstBase, int dstWord, int value, int mask, int op) {
+        if (dstWord < 0 || dstWord >= wordsPerRow || mask == 0) {
+            return;
+        }
+        if (dstWord == wordsPerRow - 1) {
+            mask &= lastWordMask;
+        }
+        int index = dstBase + dstWord;
+        int dst = words[index];
+        int combined;
+        switch (op) {
+            case OP_AND:
+                combined = dst & value;
+                break;
+            case OP_XOR:
+                combined = dst ^ value;
+                break;
+            case OP_XNOR:
+                combined = ~(dst ^ value);
+                break;
+            case OP_REPLACE:
+                combined = value;
+                break;
+            case OP_OR:
+            default:
+                combined = dst | value;
+                break;
+        }
+        words[index] = (dst & ~mask) | (combined & mask);
+    }
+}
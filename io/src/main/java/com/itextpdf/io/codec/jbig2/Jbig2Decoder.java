@@ -0,0 +1,517 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.Jbig2SegmentReader;
+import com.itextpdf.io.codec.MqDecoder;
+import com.itextpdf.io.exceptions.IOException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoder of JBIG2 (ISO/IEC 14492) bi-level images.
+ *
+ * <p>
+ * Both the embedded stream organization used by the JBIG2Decode PDF filter and standalone JBIG2 files
+ * are supported. Generic regions (MMR and arithmetic coding, any template), generic refinement regions,
+ * arithmetically coded symbol dictionaries and text regions, including refinement and aggregation
+ * of symbols, pattern dictionaries and arithmetically coded halftone regions are decoded.
+ * Huffman coded symbol dictionaries and text regions are not supported.
+ */
+public final class Jbig2Decoder {
+
+    private static final byte[] FILE_HEADER_ID = {(byte) 0x97, 0x4A, 0x42, 0x32, 0x0D, 0x0A, 0x1A, 0x0A};
+
+    private static final long UNKNOWN_LENGTH = 0xffffffffL;
+
+    private static final int REGION_INFO_LENGTH = 17;
+
+    private final Map<Integer, Segment> segments = new HashMap<>();
+    private Jbig2Bitmap page;
+    private int pageDefaultPixel;
+    private boolean pageHeightUnknown;
+
+    private Jbig2Decoder() {
+    }
+
+    /**
+     * Decodes the image data of a JBIG2Decode filtered PDF stream, i.e. the JBIG2 embedded stream organization
+     * (see ISO/IEC 14492, D.3).
+     *
+     * @param data    the stream data
+     * @param globals the data of the JBIG2Globals stream, or {@code null} if there are no global segments
+     * @return the decoded page bitmap
+     */
+    public static Jbig2Bitmap decodeEmbedded(byte[] data, byte[] globals) {
+        Jbig2Decoder decoder = new Jbig2Decoder();
+        if (globals != null) {
+            decoder.processSegments(globals, readSegments(globals, 0, false), 0);
+        }
+        List<Segment> pageSegments = readSegments(data, 0, false);
+        decoder.processSegments(data, pageSegments, firstPage(pageSegments));
+        return decoder.getPage();
+    }
+
+    /**
+     * Decodes a page of a JBIG2 file in either the sequential or the random-access organization
+     * (see ISO/IEC 14492, D.1 and D.2).
+     *
+     * @param file       the JBIG2 file bytes
+     * @param pageNumber the number of the page to decode, starting with 1
+     * @return the decoded page bitmap
+     */
+    public static Jbig2Bitmap decodeFile(byte[] file, int pageNumber) {
+        for (int i = 0; i < FILE_HEADER_ID.length; i++) {
+            if (file.length <= i || file[i] != FILE_HEADER_ID[i]) {
+                throw new IOException("File header idstring is not good at byte {0}").setMessageParams(i);
+            }
+        }
+        int flags = file[8] & 0xff;
+        boolean sequential = (flags & 1) != 0;
+        boolean numberOfPagesKnown = (flags & 2) == 0;
+        int offset = numberOfPagesKnown ? 13 : 9;
+        Jbig2Decoder decoder = new Jbig2Decoder();
+        decoder.processSegments(file, readSegments(file, offset, !sequential), pageNumber);
+        return decoder.getPage();
+    }
+
+    private Jbig2Bitmap getPage() {
+        if (page == null) {
+            throw new IOException(IOException.Jbig2ImageException);
+        }
+        return page;
+    }
+
+    private static int firstPage(List<Segment> segments) {
+        int result = -1;
+        for (Segment segment : segments) {
+            if (segment.page > 0 && (result < 0 || segment.page < result)) {
+                result = segment.page;
+            }
+        }
+        return result;
+    }
+
+    private static List<Segment> readSegments(byte[] data, int offset, boolean randomAccess) {
+        List<Segment> result = new ArrayList<>();
+        int position = offset;
+        while (position < data.length) {
+            Segment segment = new Segment();
+            position = segment.readHeader(data, position);
+            result.add(segment);
+            if (!randomAccess) {
+                position = segment.locateData(data, position);
+            } else if (segment.type == Jbig2SegmentReader.END_OF_FILE) {
+                break;
+            }
+        }
+        if (randomAccess) {
+            for (Segment segment : result) {
+                position = segment.locateData(data, position);
+            }
+        }
+        return result;
+    }
+
+    private void processSegments(byte[] data, List<Segment> list, int pageNumber) {
+        for (Segment segment : list) {
+            if (segment.page != 0 && segment.page != pageNumber) {
+                continue;
+            }
+            segments.put(segment.number, segment);
+            switch (segment.type) {
+                case Jbig2SegmentReader.SYMBOL_DICTIONARY:
+                    decodeSymbolDictionary(data, segment);
+                    break;
+                case Jbig2SegmentReader.INTERMEDIATE_TEXT_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_TEXT_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_LOSSLESS_TEXT_REGION:
+                    storeRegion(segment, decodeTextRegion(data, segment));
+                    break;
+                case Jbig2SegmentReader.PATTERN_DICTIONARY:
+                    decodePatternDictionary(data, segment);
+                    break;
+                case Jbig2SegmentReader.INTERMEDIATE_HALFTONE_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_HALFTONE_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_LOSSLESS_HALFTONE_REGION:
+                    storeRegion(segment, decodeHalftoneRegion(data, segment));
+                    break;
+                case Jbig2SegmentReader.INTERMEDIATE_GENERIC_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_GENERIC_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_LOSSLESS_GENERIC_REGION:
+                    storeRegion(segment, decodeGenericRegion(data, segment));
+                    break;
+                case Jbig2SegmentReader.INTERMEDIATE_GENERIC_REFINEMENT_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_GENERIC_REFINEMENT_REGION:
+                case Jbig2SegmentReader.IMMEDIATE_LOSSLESS_GENERIC_REFINEMENT_REGION:
+                    storeRegion(segment, decodeRefinementRegion(data, segment));
+                    break;
+                case Jbig2SegmentReader.PAGE_INFORMATION:
+                    readPageInformation(data, segment);
+                    break;
+                case Jbig2SegmentReader.END_OF_STRIPE:
+                    if (page != null && pageHeightUnknown) {
+                        page.grow(readInt(data, segment.dataStart) + 1, pageDefaultPixel);
+                    }
+                    break;
+                case Jbig2SegmentReader.END_OF_PAGE:
+                case Jbig2SegmentReader.END_OF_FILE:
+                case Jbig2SegmentReader.PROFILES:
+                case Jbig2SegmentReader.TABLES:
+                case Jbig2SegmentReader.EXTENSION:
+                    break;
+                default:
+                    throw new IOException(IOException.Jbig2SegmentTypeIsNotSupported).setMessageParams(segment.type);
+            }
+        }
+    }
+
+    private void readPageInformation(byte[] data, Segment segment) {
+        int position = segment.dataStart;
+        int width = readInt(data, position);
+        long height = readInt(data, position + 4) & 0xffffffffL;
+        int flags = data[position + 16] & 0xff;
+        pageDefaultPixel = (flags >> 2) & 1;
+        pageHeightUnknown = height == UNKNOWN_LENGTH;
+        page = new Jbig2Bitmap(width, pageHeightUnknown ? 0 : (int) height);
+        if (pageDefaultPixel != 0) {
+            page.fill(1);
+        }
+    }
+
+    private void storeRegion(Segment segment, Jbig2Bitmap region) {
+        // intermediate region segments have odd types only for the lossless variants, see 7.3
+        boolean intermediate = segment.type == Jbig2SegmentReader.INTERMEDIATE_TEXT_REGION
+                || segment.type == Jbig2SegmentReader.INTERMEDIATE_HALFTONE_REGION
+                || segment.type == Jbig2SegmentReader.INTERMEDIATE_GENERIC_REGION
+                || segment.type == Jbig2SegmentReader.INTERMEDIATE_GENERIC_REFINEMENT_REGION;
+        if (intermediate) {
+            segment.region = region;
+            return;
+        }
+        if (page == null) {
+            throw new IOException(IOException.Jbig2ImageException);
+        }
+        if (pageHeightUnknown) {
+            page.grow(segment.regionY + region.getHeight(), pageDefaultPixel);
+        }
+        page.compose(region, segment.regionX, segment.regionY, segment.regionOperator);
+    }
+
+    private void decodeSymbolDictionary(byte[] data, Segment segment) {
+        int position = segment.dataStart;
+        int flags = readShort(data, position);
+        position += 2;
+        boolean huffman = (flags & 1) != 0;
+        boolean contextUsed = (flags & 0x100) != 0;
+        if (huffman || contextUsed) {
+            throw new IOException(IOException.Jbig2HuffmanCodingIsNotSupported);
+        }
+        SymbolDictionaryDecoder dictionary = new SymbolDictionaryDecoder();
+        dictionary.refinementAggregation = (flags & 2) != 0;
+        dictionary.template = (flags >> 10) & 3;
+        dictionary.refinementTemplate = (flags >> 12) & 1;
+        dictionary.at = readAdaptivePixels(data, position, dictionary.template == 0 ? 4 : 1);
+        position += dictionary.template == 0 ? 8 : 2;
+        if (dictionary.refinementAggregation && dictionary.refinementTemplate == 0) {
+            dictionary.refinementAt = readAdaptivePixels(data, position, 2);
+            position += 4;
+        }
+        dictionary.numberOfExportedSymbols = readInt(data, position);
+        dictionary.numberOfNewSymbols = readInt(data, position + 4);
+        position += 8;
+        dictionary.inputSymbols = collectSymbols(segment);
+        segment.symbols = dictionary.decode(new DecodingContext(data, position, segment.dataEnd));
+    }
+
+    private Jbig2Bitmap decodeTextRegion(byte[] data, Segment segment) {
+        int position = segment.readRegionInfo(data);
+        int flags = readShort(data, position);
+        position += 2;
+        if ((flags & 1) != 0) {
+            throw new IOException(IOException.Jbig2HuffmanCodingIsNotSupported);
+        }
+        TextRegionDecoder textRegion = new TextRegionDecoder();
+        textRegion.width = segment.regionWidth;
+        textRegion.height = segment.regionHeight;
+        textRegion.refine = (flags & 2) != 0;
+        textRegion.stripSize = 1 << ((flags >> 2) & 3);
+        textRegion.referenceCorner = (flags >> 4) & 3;
+        textRegion.transposed = (flags & 0x40) != 0;
+        textRegion.combinationOperator = (flags >> 7) & 3;
+        textRegion.defaultPixel = (flags >> 9) & 1;
+        textRegion.dsOffset = ((flags >> 10) & 0x1f) << 27 >> 27;
+        textRegion.refinementTemplate = (flags >> 15) & 1;
+        if (textRegion.refine && textRegion.refinementTemplate == 0) {
+            textRegion.refinementAt = readAdaptivePixels(data, position, 2);
+            position += 4;
+        }
+        textRegion.numberOfInstances = readInt(data, position);
+        position += 4;
+        textRegion.symbols = collectSymbols(segment);
+        textRegion.symbolCodeLength = SymbolDictionaryDecoder.codeLength(textRegion.symbols.size());
+        return textRegion.decode(new DecodingContext(data, position, segment.dataEnd));
+    }
+
+    private void decodePatternDictionary(byte[] data, Segment segment) {
+        int position = segment.dataStart;
+        int flags = data[position] & 0xff;
+        int patternWidth = data[position + 1] & 0xff;
+        int patternHeight = data[position + 2] & 0xff;
+        int grayMax = readInt(data, position + 3);
+        position += 7;
+        int template = (flags >> 1) & 3;
+        if ((flags & 1) != 0) {
+            Jbig2Bitmap collective = GenericRegionDecoder.decodeMmr(data, position, segment.dataEnd,
+                    (grayMax + 1) * patternWidth, patternHeight);
+            segment.symbols = HalftoneRegionDecoder.splitPatterns(collective, patternWidth, patternHeight, grayMax);
+        } else {
+            segment.symbols = HalftoneRegionDecoder.decodePatterns(
+                    new MqDecoder(data, position, segment.dataEnd), template, patternWidth, patternHeight,
+                    grayMax);
+        }
+    }
+
+    private Jbig2Bitmap decodeHalftoneRegion(byte[] data, Segment segment) {
+        int position = segment.readRegionInfo(data);
+        int flags = data[position++] & 0xff;
+        if ((flags & 1) != 0) {
+            throw new IOException(IOException.Jbig2MmrCodedHalftoneRegionsAreNotSupported);
+        }
+        HalftoneRegionDecoder halftone = new HalftoneRegionDecoder();
+        halftone.width = segment.regionWidth;
+        halftone.height = segment.regionHeight;
+        halftone.template = (flags >> 1) & 3;
+        halftone.enableSkip = (flags & 8) != 0;
+        halftone.combinationOperator = (flags >> 4) & 7;
+        halftone.defaultPixel = (flags >> 7) & 1;
+        halftone.gridWidth = readInt(data, position);
+        halftone.gridHeight = readInt(data, position + 4);
+        halftone.gridX = readInt(data, position + 8);
+        halftone.gridY = readInt(data, position + 12);
+        halftone.gridVectorX = readShort(data, position + 16);
+        halftone.gridVectorY = readShort(data, position + 18);
+        position += 20;
+        halftone.patterns = collectSymbols(segment);
+        if (halftone.patterns.isEmpty()) {
+            throw new IOException(IOException.Jbig2ImageException);
+        }
+        return halftone.decode(new MqDecoder(data, position, segment.dataEnd));
+    }
+
+    private Jbig2Bitmap decodeGenericRegion(byte[] data, Segment segment) {
+        int position = segment.readRegionInfo(data);
+        int flags = data[position++] & 0xff;
+        int height = segment.rowCount >= 0 ? segment.rowCount : segment.regionHeight;
+        if ((flags & 1) != 0) {
+            return GenericRegionDecoder.decodeMmr(data, position, segment.dataEnd, segment.regionWidth, height);
+        }
+        int template = (flags >> 1) & 3;
+        boolean typicalPrediction = (flags & 8) != 0;
+        int[] at = readAdaptivePixels(data, position, template == 0 ? 4 : 1);
+        position += template == 0 ? 8 : 2;
+        MqDecoder decoder = new MqDecoder(data, position, segment.dataEnd);
+        return GenericRegionDecoder.decode(decoder, GenericRegionDecoder.createContexts(template),
+                segment.regionWidth, height, template, typicalPrediction, at);
+    }
+
+    private Jbig2Bitmap decodeRefinementRegion(byte[] data, Segment segment) {
+        int position = segment.readRegionInfo(data);
+        int flags = data[position++] & 0xff;
+        int template = flags & 1;
+        boolean typicalPrediction = (flags & 2) != 0;
+        int[] at = null;
+        if (template == 0) {
+            at = readAdaptivePixels(data, position, 2);
+            position += 4;
+        }
+        Jbig2Bitmap reference = null;
+        for (int i = 0; i < segment.referredTo.length && reference == null; i++) {
+            Segment referred = segments.get(segment.referredTo[i]);
+            if (referred != null && referred.region != null) {
+                reference = referred.region;
+            }
+        }
+        if (reference == null) {
+            if (page == null) {
+                throw new IOException(IOException.Jbig2ImageException);
+            }
+            reference = page.extract(segment.regionX, segment.regionY, segment.regionWidth, segment.regionHeight);
+        }
+        MqDecoder decoder = new MqDecoder(data, position, segment.dataEnd);
+        return RefinementRegionDecoder.decode(decoder, RefinementRegionDecoder.createContexts(template),
+                segment.regionWidth, segment.regionHeight, template, reference, 0, 0, typicalPrediction, at);
+    }
+
+    private List<Jbig2Bitmap> collectSymbols(Segment segment) {
+        List<Jbig2Bitmap> symbols = new ArrayList<>();
+        for (int number : segment.referredTo) {
+            Segment referred = segments.get(number);
+            if (referred != null && referred.symbols != null) {
+                symbols.addAll(referred.symbols);
+            }
+        }
+        return symbols;
+    }
+
+    private static int[] readAdaptivePixels(byte[] data, int position, int count) {
+        int[] at = new int[count * 2];
+        for (int i = 0; i < at.length; i++) {
+            at[i] = data[position + i];
+        }
+        return at;
+    }
+
+    private static int readInt(byte[] data, int position) {
+        return (data[position] & 0xff) << 24 | (data[position + 1] & 0xff) << 16
+                | (data[position + 2] & 0xff) << 8 | data[position + 3] & 0xff;
+    }
+
+    private static int readShort(byte[] data, int position) {
+        return (data[position] & 0xff) << 8 | data[position + 1] & 0xff;
+    }
+
+    private static final class Segment {
+        int number;
+        int type;
+        int page;
+        int[] referredTo;
+        long dataLength;
+        int dataStart;
+        int dataEnd;
+        int rowCount = -1;
+
+        int regionWidth;
+        int regionHeight;
+        int regionX;
+        int regionY;
+        int regionOperator;
+
+        List<Jbig2Bitmap> symbols;
+        Jbig2Bitmap region;
+
+        /**
+         * Reads the segment header (see 7.2) and returns the position right after it.
+         */
+        int readHeader(byte[] data, int position) {
+            number = readInt(data, position);
+            int flags = data[position + 4] & 0xff;
+            type = flags & 0x3f;
+            boolean longPageAssociation = (flags & 0x40) != 0;
+            position += 5;
+            int count = (data[position] & 0xff) >> 5;
+            if (count == 7) {
+                count = readInt(data, position) & 0x1fffffff;
+                position += 4 + (count + 8) / 8;
+            } else if (count <= 4) {
+                position++;
+            } else {
+                throw new IOException(
+                        "Count of referred-to segments has forbidden value in the header for segment {0} starting at {1}")
+                        .setMessageParams(number, position);
+            }
+            referredTo = new int[count];
+            for (int i = 0; i < count; i++) {
+                if (number <= 256) {
+                    referredTo[i] = data[position] & 0xff;
+                    position++;
+                } else if (number <= 65536) {
+                    referredTo[i] = readShort(data, position);
+                    position += 2;
+                } else {
+                    referredTo[i] = readInt(data, position);
+                    position += 4;
+                }
+            }
+            if (longPageAssociation) {
+                page = readInt(data, position);
+                position += 4;
+            } else {
+                page = data[position] & 0xff;
+                position++;
+            }
+            dataLength = readInt(data, position) & 0xffffffffL;
+            return position + 4;
+        }
+
+        /**
+         * Sets the bounds of the segment data starting at the given position and returns the position after it.
+         */
+        int locateData(byte[] data, int position) {
+            dataStart = position;
+            if (dataLength != UNKNOWN_LENGTH) {
+                dataEnd = (int) Math.min(data.length, position + dataLength);
+                return dataEnd;
+            }
+            if (type != Jbig2SegmentReader.IMMEDIATE_GENERIC_REGION) {
+                throw new IOException(IOException.Jbig2ImageException);
+            }
+            // 7.2.7: the data of an immediate generic region of unknown length ends with
+            // a marker followed by the number of decoded rows
+            boolean mmr = (data[position + REGION_INFO_LENGTH] & 1) != 0;
+            int marker0 = mmr ? 0x00 : 0xff;
+            int marker1 = mmr ? 0x00 : 0xac;
+            for (int i = position + REGION_INFO_LENGTH + 1; i + 5 < data.length; i++) {
+                if ((data[i] & 0xff) == marker0 && (data[i + 1] & 0xff) == marker1) {
+                    rowCount = readInt(data, i + 2);
+                    dataEnd = i + 6;
+                    return dataEnd;
+                }
+            }
+            throw new IOException(IOException.Jbig2ImageException);
+        }
+
+        int readRegionInfo(byte[] data) {
+            regionWidth = readInt(data, dataStart);
+            regionHeight = readInt(data, dataStart + 4);
+            regionX = readInt(data, dataStart + 8);
+            regionY = readInt(data, dataStart + 12);
+            regionOperator = data[dataStart + 16] & 7;
+            return dataStart + REGION_INFO_LENGTH;
+        }
+    }
+}
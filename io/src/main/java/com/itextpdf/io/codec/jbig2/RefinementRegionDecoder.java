@@ -0,0 +1,131 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+
+/**
+ * Generic refinement region decoding procedure (ISO/IEC 14492, 6.3).
+ */
+final class RefinementRegionDecoder {
+
+    private static final int[] SLTP_CONTEXTS = {0x100, 0x40};
+
+    private static final int[] CONTEXT_SIZES = {1 << 13, 1 << 10};
+
+    private RefinementRegionDecoder() {
+    }
+
+    static byte[] createContexts(int template) {
+        return new byte[CONTEXT_SIZES[template]];
+    }
+
+    static Jbig2Bitmap decode(MqDecoder decoder, byte[] contexts, int width, int height, int template,
+            Jbig2Bitmap reference, int dx, int dy, boolean typicalPrediction, int[] at) {
+        Jbig2Bitmap bitmap = new Jbig2Bitmap(width, height);
+        int ltp = 0;
+        for (int y = 0; y < height; y++) {
+            if (typicalPrediction) {
+                ltp ^= decoder.decodeBit(contexts, SLTP_CONTEXTS[template]);
+            }
+            for (int x = 0; x < width; x++) {
+                int rx = x - dx;
+                int ry = y - dy;
+                if (ltp == 1) {
+                    int predicted = typicalPixel(reference, rx, ry);
+                    if (predicted >= 0) {
+                        bitmap.setPixel(x, y, predicted);
+                        continue;
+                    }
+                }
+                int context;
+                if (template == 0) {
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x + 1, y - 1) << 1
+                            | bitmap.getPixel(x, y - 1) << 2
+                            | bitmap.getPixel(x + at[0], y + at[1]) << 3
+                            | reference.getPixel(rx + 1, ry + 1) << 4
+                            | reference.getPixel(rx, ry + 1) << 5
+                            | reference.getPixel(rx - 1, ry + 1) << 6
+                            | reference.getPixel(rx + 1, ry) << 7
+                            | reference.getPixel(rx, ry) << 8
+                            | reference.getPixel(rx - 1, ry) << 9
+                            | reference.getPixel(rx + 1, ry - 1) << 10
+                            | reference.getPixel(rx, ry - 1) << 11
+                            | reference.getPixel(rx + at[2], ry + at[3]) << 12;
+                } else {
+                    context = bitmap.getPixel(x - 1, y)
+                            | bitmap.getPixel(x + 1, y - 1) << 1
+                            | bitmap.getPixel(x, y - 1) << 2
+                            | bitmap.getPixel(x - 1, y - 1) << 3
+                            | reference.getPixel(rx + 1, ry + 1) << 4
+                            | reference.getPixel(rx, ry + 1) << 5
+                            | reference.getPixel(rx + 1, ry) << 6
+                            | reference.getPixel(rx, ry) << 7
+                            | reference.getPixel(rx - 1, ry) << 8
+                            | reference.getPixel(rx, ry - 1) << 9;
+                }
+                bitmap.setPixel(x, y, decoder.decodeBit(contexts, context));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Checks whether the 3x3 neighbourhood of the reference pixel has a single color (TPGRPIX, see 6.3.5.6).
+     *
+     * @return the color of the neighbourhood or -1 if pixels differ
+     */
+    private static int typicalPixel(Jbig2Bitmap reference, int x, int y) {
+        int value = reference.getPixel(x, y);
+        for (int j = -1; j <= 1; j++) {
+            for (int i = -1; i <= 1; i++) {
+                if (reference.getPixel(x + i, y + j) != value) {
+                    return -1;
+                }
+            }
+        }
+        return value;
+    }
+}
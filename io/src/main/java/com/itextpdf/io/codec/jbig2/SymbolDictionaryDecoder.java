@@ -0,0 +1,165 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+import com.itextpdf.io.exceptions.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Symbol dictionary decoding procedure (ISO/IEC 14492, 6.5) for arithmetically coded dictionaries.
+ */
+final class SymbolDictionaryDecoder {
+
+    boolean refinementAggregation;
+    int template;
+    int[] at;
+    int refinementTemplate;
+    int[] refinementAt;
+    int numberOfExportedSymbols;
+    int numberOfNewSymbols;
+    List<Jbig2Bitmap> inputSymbols;
+
+    List<Jbig2Bitmap> decode(DecodingContext context) {
+        MqDecoder decoder = context.decoder;
+        int numberOfInputSymbols = inputSymbols.size();
+        int symbolCodeLength = codeLength(numberOfInputSymbols + numberOfNewSymbols);
+        List<Jbig2Bitmap> newSymbols = new ArrayList<>(numberOfNewSymbols);
+        int heightClassHeight = 0;
+        // 6.5.5
+        while (newSymbols.size() < numberOfNewSymbols) {
+            int deltaHeight = context.iadh.decode(decoder);
+            if (deltaHeight == IntegerDecoder.OOB) {
+                throw new IOException(IOException.Jbig2UnexpectedOutOfBandValue);
+            }
+            heightClassHeight += deltaHeight;
+            int symbolWidth = 0;
+            while (true) {
+                int deltaWidth = context.iadw.decode(decoder);
+                if (deltaWidth == IntegerDecoder.OOB) {
+                    break;
+                }
+                if (newSymbols.size() >= numberOfNewSymbols) {
+                    throw new IOException(IOException.Jbig2TooManySymbolInstances);
+                }
+                symbolWidth += deltaWidth;
+                if (symbolWidth < 0 || heightClassHeight < 0) {
+                    throw new IOException(IOException.Jbig2ImageException);
+                }
+                Jbig2Bitmap symbol;
+                if (!refinementAggregation) {
+                    symbol = GenericRegionDecoder.decode(decoder, context.getGenericContexts(template),
+                            symbolWidth, heightClassHeight, template, false, at);
+                } else {
+                    symbol = decodeAggregate(context, symbolWidth, heightClassHeight, symbolCodeLength, newSymbols);
+                }
+                newSymbols.add(symbol);
+            }
+        }
+        // 6.5.10
+        List<Jbig2Bitmap> exported = new ArrayList<>(numberOfExportedSymbols);
+        int total = numberOfInputSymbols + numberOfNewSymbols;
+        int index = 0;
+        boolean export = false;
+        while (index < total) {
+            int runLength = context.iaex.decode(decoder);
+            if (runLength == IntegerDecoder.OOB || runLength < 0 || index + runLength > total) {
+                throw new IOException(IOException.Jbig2ImageException);
+            }
+            if (export) {
+                for (int i = index; i < index + runLength; i++) {
+                    exported.add(i < numberOfInputSymbols ? inputSymbols.get(i)
+                            : newSymbols.get(i - numberOfInputSymbols));
+                }
+            }
+            index += runLength;
+            export = !export;
+        }
+        return exported;
+    }
+
+    static int codeLength(int numberOfSymbols) {
+        int length = 0;
+        while ((1L << length) < numberOfSymbols) {
+            length++;
+        }
+        return length;
+    }
+
+    // 6.5.8.2
+    private Jbig2Bitmap decodeAggregate(DecodingContext context, int width, int height, int symbolCodeLength,
+            List<Jbig2Bitmap> newSymbols) {
+        MqDecoder decoder = context.decoder;
+        int numberOfInstances = context.iaai.decode(decoder);
+        List<Jbig2Bitmap> symbols = new ArrayList<>(inputSymbols.size() + newSymbols.size());
+        symbols.addAll(inputSymbols);
+        symbols.addAll(newSymbols);
+        if (numberOfInstances > 1) {
+            TextRegionDecoder textRegion = new TextRegionDecoder();
+            textRegion.width = width;
+            textRegion.height = height;
+            textRegion.refine = true;
+            textRegion.numberOfInstances = numberOfInstances;
+            textRegion.symbols = symbols;
+            textRegion.symbolCodeLength = symbolCodeLength;
+            textRegion.refinementTemplate = refinementTemplate;
+            textRegion.refinementAt = refinementAt;
+            return textRegion.decode(context);
+        }
+        if (numberOfInstances != 1) {
+            throw new IOException(IOException.Jbig2ImageException);
+        }
+        // 6.5.8.2.2
+        int id = context.getSymbolIdDecoder(symbolCodeLength).decode(decoder);
+        int rdx = context.iardx.decode(decoder);
+        int rdy = context.iardy.decode(decoder);
+        if (id < 0 || id >= symbols.size()) {
+            throw new IOException(IOException.Jbig2SymbolIdIsOutOfRange).setMessageParams(id);
+        }
+        return RefinementRegionDecoder.decode(decoder, context.getRefinementContexts(refinementTemplate), width,
+                height, refinementTemplate, symbols.get(id), rdx, rdy, false, refinementAt);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.codec.MqDecoder;
+import com.itextpdf.io.exceptions.IOException;
+
+import java.util.List;
+
+/**
+ * Text region decoding procedure (ISO/IEC 14492, 6.4) for arithmetically coded text regions.
+ */
+final class TextRegionDecoder {
+
+    static final int CORNER_BOTTOMLEFT = 0;
+    static final int CORNER_TOPLEFT = 1;
+    static final int CORNER_BOTTOMRIGHT = 2;
+    static final int CORNER_TOPRIGHT = 3;
+
+    int width;
+    int height;
+    boolean refine;
+    int stripSize = 1;
+    int referenceCorner = CORNER_TOPLEFT;
+    boolean transposed;
+    int combinationOperator = Jbig2Bitmap.OP_OR;
+    int defaultPixel;
+    int dsOffset;
+    int numberOfInstances;
+    int refinementTemplate;
+    int[] refinementAt;
+    int symbolCodeLength;
+    List<Jbig2Bitmap> symbols;
+
+    Jbig2Bitmap decode(DecodingContext context) {
+        MqDecoder decoder = context.decoder;
+        SymbolIdDecoder iaid = context.getSymbolIdDecoder(symbolCodeLength);
+        Jbig2Bitmap region = new Jbig2Bitmap(width, height);
+        if (defaultPixel != 0) {
+            region.fill(1);
+        }
+        // 6.4.5
+        int stripT = -decodeValue(context.iadt, decoder) * stripSize;
+        int firstS = 0;
+        int instances = 0;
+        while (instances < numberOfInstances) {
+            stripT += decodeValue(context.iadt, decoder) * stripSize;
+            firstS += decodeValue(context.iafs, decoder);
+            int currentS = firstS;
+            while (true) {
+                if (instances >= numberOfInstances) {
+                    throw new IOException(IOException.Jbig2TooManySymbolInstances);
+                }
+                int currentT = stripSize == 1 ? 0 : decodeValue(context.iait, decoder);
+                int t = stripT + currentT;
+                int id = iaid.decode(decoder);
+                if (id < 0 || id >= symbols.size()) {
+                    throw new IOException(IOException.Jbig2SymbolIdIsOutOfRange).setMessageParams(id);
+                }
+                Jbig2Bitmap symbol = symbols.get(id);
+                if (refine && decodeValue(context.iari, decoder) != 0) {
+                    int rdw = decodeValue(context.iardw, decoder);
+                    int rdh = decodeValue(context.iardh, decoder);
+                    int rdx = decodeValue(context.iardx, decoder);
+                    int rdy = decodeValue(context.iardy, decoder);
+                    symbol = RefinementRegionDecoder.decode(decoder, context.getRefinementContexts(refinementTemplate),
+                            symbol.getWidth() + rdw, symbol.getHeight() + rdh, refinementTemplate, symbol,
+                            (rdw >> 1) + rdx, (rdh >> 1) + rdy, false, refinementAt);
+                }
+                int symbolWidth = symbol.getWidth();
+                int symbolHeight = symbol.getHeight();
+                if (!transposed && referenceCorner > CORNER_TOPLEFT) {
+                    currentS += symbolWidth - 1;
+                } else if (transposed && (referenceCorner & 1) == 0) {
+                    currentS += symbolHeight - 1;
+                }
+                int s = transposed ? t : currentS;
+                int tt = transposed ? currentS : t;
+                boolean right = referenceCorner == CORNER_BOTTOMRIGHT || referenceCorner == CORNER_TOPRIGHT;
+                boolean bottom = referenceCorner == CORNER_BOTTOMLEFT || referenceCorner == CORNER_BOTTOMRIGHT;
+                int x = right ? s - symbolWidth + 1 : s;
+                int y = bottom ? tt - symbolHeight + 1 : tt;
+                region.compose(symbol, x, y, combinationOperator);
+                if (!transposed && referenceCorner < CORNER_BOTTOMRIGHT) {
+                    currentS += symbolWidth - 1;
+                } else if (transposed && (referenceCorner & 1) != 0) {
+                    currentS += symbolHeight - 1;
+                }
+                instances++;
+                int ds = context.iads.decode(decoder);
+                if (ds == IntegerDecoder.OOB) {
+                    break;
+                }
+                currentS += ds + dsOffset;
+            }
+        }
+        return region;
+    }
+
+    private static int decodeValue(IntegerDecoder integerDecoder, MqDecoder decoder) {
+        int value = integerDecoder.decode(decoder);
+        if (value == IntegerDecoder.OOB) {
+            throw new IOException(IOException.Jbig2UnexpectedOutOfBandValue);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+/**
+ * Component of a JPEG frame together with its quantized DCT coefficients and decoded samples.
+ */
+final class FrameComponent {
+
+    final int id;
+    final int horizontalSampling;
+    final int verticalSampling;
+    final int quantizationTable;
+
+    /**
+     * The number of blocks covering the component samples.
+     */
+    int blocksPerLine;
+    int blocksPerColumn;
+
+    /**
+     * The number of blocks of the component in the interleaved MCUs, including the padding blocks
+     * at the right and bottom edges.
+     */
+    int blocksPerMcuLine;
+    int blocksPerMcuColumn;
+
+    /**
+     * Quantized coefficients in natural order, 64 per block, with {@link #blocksPerMcuLine} blocks per row.
+     */
+    short[] coefficients;
+
+    /**
+     * Decoded samples with {@code blocksPerLine * 8} samples per row.
+     */
+    byte[] samples;
+
+    FrameComponent(int id, int horizontalSampling, int verticalSampling, int quantizationTable) {
+        this.id = id;
+        this.horizontalSampling = horizontalSampling;
+        this.verticalSampling = verticalSampling;
+        this.quantizationTable = quantizationTable;
+    }
+
+    void allocate(int width, int height, int maxHorizontalSampling, int maxVerticalSampling,
+            int mcusPerLine, int mcusPerColumn) {
+        int componentWidth = ceilDiv(width * horizontalSampling, maxHorizontalSampling);
+        int componentHeight = ceilDiv(height * verticalSampling, maxVerticalSampling);
+        blocksPerLine = ceilDiv(componentWidth, 8);
+        blocksPerColumn = ceilDiv(componentHeight, 8);
+        blocksPerMcuLine = mcusPerLine * horizontalSampling;
+        blocksPerMcuColumn = mcusPerColumn * verticalSampling;
+        coefficients = new short[blocksPerMcuLine * blocksPerMcuColumn * 64];
+    }
+
+    int getBlockOffset(int blockRow, int blockColumn) {
+        return (blockRow * blocksPerMcuLine + blockColumn) * 64;
+    }
+
+    int getSampleWidth() {
+        return blocksPerLine * 8;
+    }
+
+    static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+/**
+ * Huffman table of a JPEG image (ISO/IEC 10918-1, Annex C), prepared for decoding.
+ */
+final class HuffmanTable {
+
+    /**
+     * The number of bits of the codes resolved with a single table look-up.
+     */
+    static final int LOOKUP_BITS = 9;
+
+    // (length << 8) | symbol of every code of at most LOOKUP_BITS bits, indexed by the code padded
+    // with any bits up to LOOKUP_BITS, zero for longer codes
+    private final int[] lookup = new int[1 << LOOKUP_BITS];
+    private final int[] maxCodes = new int[17];
+    private final int[] valueOffsets = new int[17];
+    private final int[] symbols;
+
+    /**
+     * Creates a table from the content of a DHT marker segment.
+     *
+     * @param counts  the number of codes of each length from 1 to 16
+     * @param symbols the symbols ordered by their codes
+     */
+    HuffmanTable(int[] counts, int[] symbols) {
+        this.symbols = symbols;
+        int code = 0;
+        int k = 0;
+        for (int length = 1; length <= 16; length++) {
+            valueOffsets[length] = k - code;
+            for (int i = 0; i < counts[length - 1]; i++, k++, code++) {
+                if (length <= LOOKUP_BITS) {
+                    int shift = LOOKUP_BITS - length;
+                    int first = code << shift;
+                    for (int j = 0; j < 1 << shift; j++) {
+                        lookup[first + j] = length << 8 | symbols[k];
+                    }
+                }
+            }
+            maxCodes[length] = counts[length - 1] == 0 ? -1 : code - 1;
+            code <<= 1;
+        }
+    }
+
+    /**
+     * Looks up a short code.
+     *
+     * @param bits the next {@link #LOOKUP_BITS} bits of the data
+     * @return {@code (length << 8) | symbol} or zero if the code is longer
+     */
+    int lookup(int bits) {
+        return lookup[bits];
+    }
+
+    /**
+     * Gets the symbol of a code of the given length.
+     *
+     * @param code   the code
+     * @param length the length of the code
+     * @return the symbol or -1 if there is no such code of that length
+     */
+    int getSymbol(int code, int length) {
+        if (code > maxCodes[length]) {
+            return -1;
+        }
+        int index = code + valueOffsets[length];
+        return index >= 0 && index < symbols.length ? symbols[index] : -1;
+    }
+}
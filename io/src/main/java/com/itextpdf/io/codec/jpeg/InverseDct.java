@@ -0,0 +1,210 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+/**
+ * Integer inverse DCT with dequantization, the accurate separable algorithm of the IJG reference
+ * decoder (Loeffler, Ligtenberg and Moschytz) with 13 bits of constant precision.
+ */
+final class InverseDct {
+
+    private static final int CONST_BITS = 13;
+    private static final int PASS1_BITS = 2;
+
+    private static final int FIX_0_298631336 = 2446;
+    private static final int FIX_0_390180644 = 3196;
+    private static final int FIX_0_541196100 = 4433;
+    private static final int FIX_0_765366865 = 6270;
+    private static final int FIX_0_899976223 = 7373;
+    private static final int FIX_1_175875602 = 9633;
+    private static final int FIX_1_501321110 = 12299;
+    private static final int FIX_1_847759065 = 15137;
+    private static final int FIX_1_961570560 = 16069;
+    private static final int FIX_2_053119869 = 16819;
+    private static final int FIX_2_562915447 = 20995;
+    private static final int FIX_3_072711026 = 25172;
+
+    private InverseDct() {
+        // Empty constructor
+    }
+
+    /**
+     * Transforms a block of coefficients into 8x8 samples.
+     *
+     * @param coefficients      the quantized coefficients in natural order
+     * @param offset            the offset of the block in the coefficient buffer
+     * @param quantization      the quantization table in natural order
+     * @param workspace         temporary buffer of 64 values
+     * @param samples           the destination buffer
+     * @param samplesOffset     the offset of the top left sample of the block in the destination buffer
+     * @param samplesPerLine    the number of samples per row of the destination buffer
+     */
+    static void transform(short[] coefficients, int offset, int[] quantization, int[] workspace,
+            byte[] samples, int samplesOffset, int samplesPerLine) {
+        // columns, the results are scaled up by 2^PASS1_BITS
+        for (int column = 0; column < 8; column++) {
+            int in = offset + column;
+            if (coefficients[in + 8] == 0 && coefficients[in + 16] == 0 && coefficients[in + 24] == 0
+                    && coefficients[in + 32] == 0 && coefficients[in + 40] == 0 && coefficients[in + 48] == 0
+                    && coefficients[in + 56] == 0) {
+                int dc = coefficients[in] * quantization[column] << PASS1_BITS;
+                for (int row = 0; row < 64; row += 8) {
+                    workspace[row + column] = dc;
+                }
+                continue;
+            }
+            int z2 = coefficients[in + 16] * quantization[column + 16];
+            int z3 = coefficients[in + 48] * quantization[column + 48];
+            int z1 = (z2 + z3) * FIX_0_541196100;
+            int tmp2 = z1 - z3 * FIX_1_847759065;
+            int tmp3 = z1 + z2 * FIX_0_765366865;
+            z2 = coefficients[in] * quantization[column];
+            z3 = coefficients[in + 32] * quantization[column + 32];
+            int tmp0 = (z2 + z3) << CONST_BITS;
+            int tmp1 = (z2 - z3) << CONST_BITS;
+            int tmp10 = tmp0 + tmp3;
+            int tmp13 = tmp0 - tmp3;
+            int tmp11 = tmp1 + tmp2;
+            int tmp12 = tmp1 - tmp2;
+
+            tmp0 = coefficients[in + 56] * quantization[column + 56];
+            tmp1 = coefficients[in + 40] * quantization[column + 40];
+            tmp2 = coefficients[in + 24] * quantization[column + 24];
+            tmp3 = coefficients[in + 8] * quantization[column + 8];
+            z1 = tmp0 + tmp3;
+            z2 = tmp1 + tmp2;
+            z3 = tmp0 + tmp2;
+            int z4 = tmp1 + tmp3;
+            int z5 = (z3 + z4) * FIX_1_175875602;
+            tmp0 *= FIX_0_298631336;
+            tmp1 *= FIX_2_053119869;
+            tmp2 *= FIX_3_072711026;
+            tmp3 *= FIX_1_501321110;
+            z1 *= -FIX_0_899976223;
+            z2 *= -FIX_2_562915447;
+            z3 = z3 * -FIX_1_961570560 + z5;
+            z4 = z4 * -FIX_0_390180644 + z5;
+            tmp0 += z1 + z3;
+            tmp1 += z2 + z4;
+            tmp2 += z2 + z3;
+            tmp3 += z1 + z4;
+
+            int shift = CONST_BITS - PASS1_BITS;
+            workspace[column] = descale(tmp10 + tmp3, shift);
+            workspace[column + 56] = descale(tmp10 - tmp3, shift);
+            workspace[column + 8] = descale(tmp11 + tmp2, shift);
+            workspace[column + 48] = descale(tmp11 - tmp2, shift);
+            workspace[column + 16] = descale(tmp12 + tmp1, shift);
+            workspace[column + 40] = descale(tmp12 - tmp1, shift);
+            workspace[column + 24] = descale(tmp13 + tmp0, shift);
+            workspace[column + 32] = descale(tmp13 - tmp0, shift);
+        }
+
+        // rows, the results are scaled down by 2^(PASS1_BITS + 3) and level shifted
+        int shift = CONST_BITS + PASS1_BITS + 3;
+        for (int row = 0; row < 64; row += 8) {
+            int out = samplesOffset + (row >> 3) * samplesPerLine;
+            if (workspace[row + 1] == 0 && workspace[row + 2] == 0 && workspace[row + 3] == 0
+                    && workspace[row + 4] == 0 && workspace[row + 5] == 0 && workspace[row + 6] == 0
+                    && workspace[row + 7] == 0) {
+                byte dc = clamp(descale(workspace[row], PASS1_BITS + 3));
+                for (int i = 0; i < 8; i++) {
+                    samples[out + i] = dc;
+                }
+                continue;
+            }
+            int z2 = workspace[row + 2];
+            int z3 = workspace[row + 6];
+            int z1 = (z2 + z3) * FIX_0_541196100;
+            int tmp2 = z1 - z3 * FIX_1_847759065;
+            int tmp3 = z1 + z2 * FIX_0_765366865;
+            int tmp0 = (workspace[row] + workspace[row + 4]) << CONST_BITS;
+            int tmp1 = (workspace[row] - workspace[row + 4]) << CONST_BITS;
+            int tmp10 = tmp0 + tmp3;
+            int tmp13 = tmp0 - tmp3;
+            int tmp11 = tmp1 + tmp2;
+            int tmp12 = tmp1 - tmp2;
+
+            tmp0 = workspace[row + 7];
+            tmp1 = workspace[row + 5];
+            tmp2 = workspace[row + 3];
+            tmp3 = workspace[row + 1];
+            z1 = tmp0 + tmp3;
+            z2 = tmp1 + tmp2;
+            z3 = tmp0 + tmp2;
+            int z4 = tmp1 + tmp3;
+            int z5 = (z3 + z4) * FIX_1_175875602;
+            tmp0 *= FIX_0_298631336;
+            tmp1 *= FIX_2_053119869;
+            tmp2 *= FIX_3_072711026;
+            tmp3 *= FIX_1_501321110;
+            z1 *= -FIX_0_899976223;
+            z2 *= -FIX_2_562915447;
+            z3 = z3 * -FIX_1_961570560 + z5;
+            z4 = z4 * -FIX_0_390180644 + z5;
+            tmp0 += z1 + z3;
+            tmp1 += z2 + z4;
+            tmp2 += z2 + z3;
+            tmp3 += z1 + z4;
+
+            samples[out] = clamp(descale(tmp10 + tmp3, shift));
+            samples[out + 7] = clamp(descale(tmp10 - tmp3, shift));
+            samples[out + 1] = clamp(descale(tmp11 + tmp2, shift));
+            samples[out + 6] = clamp(descale(tmp11 - tmp2, shift));
+            samples[out + 2] = clamp(descale(tmp12 + tmp1, shift));
+            samples[out + 5] = clamp(descale(tmp12 - tmp1, shift));
+            samples[out + 3] = clamp(descale(tmp13 + tmp0, shift));
+            samples[out + 4] = clamp(descale(tmp13 - tmp0, shift));
+        }
+    }
+
+    private static int descale(int value, int shift) {
+        return (value + (1 << (shift - 1))) >> shift;
+    }
+
+    private static byte clamp(int value) {
+        value += 128;
+        return (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+    }
+}
@@ -0,0 +1,507 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+import com.itextpdf.io.exceptions.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Decoder of Huffman coded JPEG images (ISO/IEC 10918-1) with 8-bit samples, both baseline
+ * and progressive.
+ *
+ * <p>
+ * The DC predictions and the end-of-band runs are reset at every restart marker, so when an image
+ * has a restart interval, the restart intervals of every scan are decoded in parallel in the common
+ * fork-join pool. The inverse DCT and the colour conversion are performed in parallel row by row
+ * regardless of restart intervals.
+ */
+public final class JpegDecoder {
+
+    private static final int SOF0 = 0xc0;
+    private static final int SOF1 = 0xc1;
+    private static final int SOF2 = 0xc2;
+    private static final int DHT = 0xc4;
+    private static final int RST0 = 0xd0;
+    private static final int RST7 = 0xd7;
+    private static final int SOI = 0xd8;
+    private static final int EOI = 0xd9;
+    private static final int SOS = 0xda;
+    private static final int DQT = 0xdb;
+    private static final int DNL = 0xdc;
+    private static final int DRI = 0xdd;
+    private static final int APP14 = 0xee;
+    private static final int TEM = 0x01;
+
+    private static final int SCALE_BITS = 16;
+    private static final int ONE_HALF = 1 << (SCALE_BITS - 1);
+    private static final int[] CR_TO_R = new int[256];
+    private static final int[] CB_TO_B = new int[256];
+    private static final int[] CR_TO_G = new int[256];
+    private static final int[] CB_TO_G = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int x = i - 128;
+            CR_TO_R[i] = (fix(1.40200) * x + ONE_HALF) >> SCALE_BITS;
+            CB_TO_B[i] = (fix(1.77200) * x + ONE_HALF) >> SCALE_BITS;
+            CR_TO_G[i] = -fix(0.71414) * x;
+            CB_TO_G[i] = -fix(0.34414) * x + ONE_HALF;
+        }
+    }
+
+    private final byte[] data;
+    private final boolean parallel;
+    private final int[][] quantizationTables = new int[4][];
+    private final HuffmanTable[] dcTables = new HuffmanTable[4];
+    private final HuffmanTable[] acTables = new HuffmanTable[4];
+    private int restartInterval;
+    private int adobeTransform = -1;
+    private boolean progressive;
+    private int width;
+    private int height;
+    private FrameComponent[] components;
+    private int maxHorizontalSampling;
+    private int maxVerticalSampling;
+    private int mcusPerLine;
+    private int mcusPerColumn;
+
+    private JpegDecoder(byte[] data, boolean parallel) {
+        this.data = data;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Decodes a JPEG image.
+     *
+     * @param data the JPEG data
+     * @return decoded raster
+     */
+    public static JpegRaster decode(byte[] data) {
+        return decode(data, false);
+    }
+
+    /**
+     * Decodes a JPEG image.
+     *
+     * @param data     the JPEG data
+     * @param parallel whether restart intervals and rows are decoded in parallel
+     * @return decoded raster
+     */
+    public static JpegRaster decode(byte[] data, boolean parallel) {
+        return decode(data, -1, parallel);
+    }
+
+    /**
+     * Decodes a JPEG image.
+     *
+     * @param data           the JPEG data
+     * @param colorTransform the value of the {@code ColorTransform} entry of the DCTDecode filter
+     *                       parameters: 1 if YCbCr and YCCK data are converted to RGB and CMYK, 0 if the
+     *                       samples are returned as they are, -1 if the entry is absent and the default
+     *                       applies (only three component data are converted). An Adobe APP14 marker
+     *                       in the data takes precedence over this value
+     * @param parallel       whether restart intervals and rows are decoded in parallel
+     * @return decoded raster
+     */
+    public static JpegRaster decode(byte[] data, int colorTransform, boolean parallel) {
+        try {
+            return new JpegDecoder(data, parallel).decodeImage(colorTransform);
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IOException(IOException.InvalidJpegFile, e);
+        }
+    }
+
+    private JpegRaster decodeImage(int colorTransform) {
+        if (data.length < 4 || (data[0] & 0xff) != 0xff || (data[1] & 0xff) != SOI) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        int position = 2;
+        while (position + 1 < data.length) {
+            if ((data[position] & 0xff) != 0xff) {
+                // garbage between marker segments
+                position++;
+                continue;
+            }
+            int marker = data[position + 1] & 0xff;
+            position += 2;
+            if (marker == 0xff) {
+                // fill byte
+                position--;
+                continue;
+            }
+            if (marker == EOI) {
+                break;
+            }
+            if (marker == 0 || marker == TEM || (marker >= RST0 && marker <= RST7)) {
+                continue;
+            }
+            int segmentEnd = position + readUnsignedShort(position);
+            int body = position + 2;
+            if (segmentEnd < body || segmentEnd > data.length) {
+                throw new IOException(IOException.InvalidJpegFile);
+            }
+            switch (marker) {
+                case SOF0:
+                case SOF1:
+                case SOF2:
+                    readFrame(body, marker == SOF2);
+                    break;
+                case DHT:
+                    readHuffmanTables(body, segmentEnd);
+                    break;
+                case DQT:
+                    readQuantizationTables(body, segmentEnd);
+                    break;
+                case DRI:
+                    restartInterval = readUnsignedShort(body);
+                    break;
+                case APP14:
+                    readAdobeMarker(body, segmentEnd);
+                    break;
+                case SOS:
+                    segmentEnd = decodeScan(body, segmentEnd);
+                    break;
+                case DNL:
+                    break;
+                default:
+                    if (marker >= SOF0 && marker <= 0xcf) {
+                        // lossless, hierarchical and arithmetic coded frames
+                        throw new IOException(IOException.JpegCodingProcessIsNotSupported)
+                                .setMessageParams(marker - SOF0);
+                    }
+                    // APPn, COM and other segments without influence on the samples
+                    break;
+            }
+            position = segmentEnd;
+        }
+        if (components == null) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        transformBlocks();
+        return new JpegRaster(width, height, components.length, convertColors(colorTransform));
+    }
+
+    private void readFrame(int position, boolean progressive) {
+        if (components != null) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        int precision = data[position] & 0xff;
+        if (precision != 8) {
+            throw new IOException(IOException.ColorDepthIsNotSupported).setMessageParams(precision);
+        }
+        this.progressive = progressive;
+        height = readUnsignedShort(position + 1);
+        width = readUnsignedShort(position + 3);
+        int count = data[position + 5] & 0xff;
+        // the number of lines defined by a DNL marker is not supported
+        if (width == 0 || height == 0 || count == 0 || (long) width * height * count > Integer.MAX_VALUE) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        components = new FrameComponent[count];
+        for (int i = 0; i < count; i++) {
+            int offset = position + 6 + 3 * i;
+            int sampling = data[offset + 1] & 0xff;
+            FrameComponent component = new FrameComponent(data[offset] & 0xff, sampling >> 4, sampling & 15,
+                    data[offset + 2] & 3);
+            if (component.horizontalSampling < 1 || component.horizontalSampling > 4
+                    || component.verticalSampling < 1 || component.verticalSampling > 4) {
+                throw new IOException(IOException.InvalidJpegFile);
+            }
+            maxHorizontalSampling = Math.max(maxHorizontalSampling, component.horizontalSampling);
+            maxVerticalSampling = Math.max(maxVerticalSampling, component.verticalSampling);
+            components[i] = component;
+        }
+        mcusPerLine = FrameComponent.ceilDiv(width, 8 * maxHorizontalSampling);
+        mcusPerColumn = FrameComponent.ceilDiv(height, 8 * maxVerticalSampling);
+        for (FrameComponent component : components) {
+            component.allocate(width, height, maxHorizontalSampling, maxVerticalSampling, mcusPerLine, mcusPerColumn);
+        }
+    }
+
+    private void readHuffmanTables(int position, int end) {
+        while (position < end) {
+            int classAndIndex = data[position] & 0xff;
+            int[] counts = new int[16];
+            int total = 0;
+            for (int i = 0; i < 16; i++) {
+                counts[i] = data[position + 1 + i] & 0xff;
+                total += counts[i];
+            }
+            position += 17;
+            if (total > 256 || position + total > end) {
+                throw new IOException(IOException.InvalidJpegFile);
+            }
+            int[] symbols = new int[total];
+            for (int i = 0; i < total; i++) {
+                symbols[i] = data[position + i] & 0xff;
+            }
+            position += total;
+            HuffmanTable table = new HuffmanTable(counts, symbols);
+            if ((classAndIndex >> 4) == 0) {
+                dcTables[classAndIndex & 3] = table;
+            } else {
+                acTables[classAndIndex & 3] = table;
+            }
+        }
+    }
+
+    private void readQuantizationTables(int position, int end) {
+        while (position < end) {
+            int precisionAndIndex = data[position++] & 0xff;
+            boolean wide = (precisionAndIndex >> 4) != 0;
+            int[] table = new int[64];
+            for (int k = 0; k < 64; k++) {
+                int value;
+                if (wide) {
+                    value = readUnsignedShort(position);
+                    position += 2;
+                } else {
+                    value = data[position++] & 0xff;
+                }
+                table[ScanDecoder.ZIGZAG[k]] = value;
+            }
+            quantizationTables[precisionAndIndex & 3] = table;
+        }
+    }
+
+    private void readAdobeMarker(int position, int end) {
+        if (end - position >= 12 && data[position] == 'A' && data[position + 1] == 'd' && data[position + 2] == 'o'
+                && data[position + 3] == 'b' && data[position + 4] == 'e') {
+            adobeTransform = data[position + 11] & 0xff;
+        }
+    }
+
+    /**
+     * Decodes a scan.
+     *
+     * @param position the position of the SOS marker segment body
+     * @param end      the end of the SOS marker segment
+     * @return the end of the entropy-coded data of the scan
+     */
+    private int decodeScan(int position, int end) {
+        if (components == null) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        int count = data[position] & 0xff;
+        FrameComponent[] scanComponents = new FrameComponent[count];
+        HuffmanTable[] scanDcTables = new HuffmanTable[count];
+        HuffmanTable[] scanAcTables = new HuffmanTable[count];
+        for (int i = 0; i < count; i++) {
+            int id = data[position + 1 + 2 * i] & 0xff;
+            int tables = data[position + 2 + 2 * i] & 0xff;
+            for (FrameComponent component : components) {
+                if (component.id == id) {
+                    scanComponents[i] = component;
+                }
+            }
+            if (scanComponents[i] == null) {
+                throw new IOException(IOException.InvalidJpegFile);
+            }
+            scanDcTables[i] = dcTables[tables >> 4 & 3];
+            scanAcTables[i] = acTables[tables & 3];
+        }
+        position += 1 + 2 * count;
+        int spectralStart = data[position] & 0xff;
+        int spectralEnd = data[position + 1] & 0xff;
+        int successiveHigh = (data[position + 2] & 0xff) >> 4;
+        int successiveLow = data[position + 2] & 15;
+        if (progressive && (spectralEnd > 63 || spectralStart > spectralEnd || (spectralStart == 0) != (spectralEnd == 0)
+                || (spectralStart > 0 && count != 1))) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        Scan scan = new Scan(scanComponents, scanDcTables, scanAcTables, spectralStart, spectralEnd,
+                successiveHigh, successiveLow, progressive, mcusPerLine, mcusPerColumn);
+
+        List<int[]> segments = new ArrayList<>();
+        int scanEnd = findRestartSegments(end, segments);
+        int mcuCount = scan.getMcuCount();
+        int mcusPerInterval = restartInterval == 0 ? mcuCount : restartInterval;
+        int intervals = Math.min(FrameComponent.ceilDiv(mcuCount, mcusPerInterval), segments.size());
+        IntStream stream = IntStream.range(0, intervals);
+        if (parallel && intervals > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(i -> {
+            int[] segment = segments.get(i);
+            int firstMcu = i * mcusPerInterval;
+            new ScanDecoder(scan, data, segment[0], segment[1]).decodeMcus(firstMcu,
+                    Math.min(mcusPerInterval, mcuCount - firstMcu));
+        });
+        return scanEnd;
+    }
+
+    /**
+     * Splits entropy-coded data at the restart markers.
+     *
+     * @param position the start of the entropy-coded data
+     * @param segments the list to add the start and the end of every restart interval to
+     * @return the end of the entropy-coded data
+     */
+    private int findRestartSegments(int position, List<int[]> segments) {
+        int segmentStart = position;
+        while (position + 1 < data.length) {
+            if (data[position] != (byte) 0xff) {
+                position++;
+                continue;
+            }
+            int next = data[position + 1] & 0xff;
+            if (next == 0) {
+                position += 2;
+            } else if (next >= RST0 && next <= RST7) {
+                segments.add(new int[] {segmentStart, position});
+                position += 2;
+                segmentStart = position;
+            } else if (next == 0xff) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position + 1 >= data.length) {
+            position = data.length;
+        }
+        segments.add(new int[] {segmentStart, position});
+        return position;
+    }
+
+    private void transformBlocks() {
+        for (FrameComponent component : components) {
+            int[] quantization = quantizationTables[component.quantizationTable];
+            if (quantization == null) {
+                throw new IOException(IOException.InvalidJpegFile);
+            }
+            int samplesPerLine = component.getSampleWidth();
+            component.samples = new byte[samplesPerLine * component.blocksPerColumn * 8];
+            IntStream rows = IntStream.range(0, component.blocksPerColumn);
+            if (parallel) {
+                rows = rows.parallel();
+            }
+            rows.forEach(blockRow -> {
+                int[] workspace = new int[64];
+                for (int blockColumn = 0; blockColumn < component.blocksPerLine; blockColumn++) {
+                    InverseDct.transform(component.coefficients, component.getBlockOffset(blockRow, blockColumn),
+                            quantization, workspace, component.samples,
+                            blockRow * 8 * samplesPerLine + blockColumn * 8, samplesPerLine);
+                }
+            });
+            component.coefficients = null;
+        }
+    }
+
+    private byte[] convertColors(int colorTransform) {
+        int count = components.length;
+        int transform;
+        if (adobeTransform >= 0) {
+            transform = adobeTransform;
+        } else if (colorTransform >= 0) {
+            transform = colorTransform;
+        } else {
+            transform = count == 3 ? 1 : 0;
+        }
+        boolean convert = transform != 0 && (count == 3 || count == 4);
+
+        int[][] columns = new int[count][width];
+        for (int c = 0; c < count; c++) {
+            FrameComponent component = components[c];
+            for (int x = 0; x < width; x++) {
+                columns[c][x] = x * component.horizontalSampling / maxHorizontalSampling;
+            }
+        }
+        byte[] result = new byte[width * height * count];
+        IntStream rows = IntStream.range(0, height);
+        if (parallel) {
+            rows = rows.parallel();
+        }
+        rows.forEach(y -> {
+            int[] rowOffsets = new int[count];
+            for (int c = 0; c < count; c++) {
+                FrameComponent component = components[c];
+                rowOffsets[c] = y * component.verticalSampling / maxVerticalSampling * component.getSampleWidth();
+            }
+            int position = y * width * count;
+            for (int x = 0; x < width; x++) {
+                if (convert) {
+                    int luma = components[0].samples[rowOffsets[0] + columns[0][x]] & 0xff;
+                    int cb = components[1].samples[rowOffsets[1] + columns[1][x]] & 0xff;
+                    int cr = components[2].samples[rowOffsets[2] + columns[2][x]] & 0xff;
+                    int red = clamp(luma + CR_TO_R[cr]);
+                    int green = clamp(luma + ((CB_TO_G[cb] + CR_TO_G[cr]) >> SCALE_BITS));
+                    int blue = clamp(luma + CB_TO_B[cb]);
+                    if (count == 3) {
+                        result[position++] = (byte) red;
+                        result[position++] = (byte) green;
+                        result[position++] = (byte) blue;
+                    } else {
+                        result[position++] = (byte) (255 - red);
+                        result[position++] = (byte) (255 - green);
+                        result[position++] = (byte) (255 - blue);
+                        result[position++] = components[3].samples[rowOffsets[3] + columns[3][x]];
+                    }
+                } else {
+                    for (int c = 0; c < count; c++) {
+                        result[position++] = components[c].samples[rowOffsets[c] + columns[c][x]];
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    private int readUnsignedShort(int position) {
+        return (data[position] & 0xff) << 8 | data[position + 1] & 0xff;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : value > 255 ? 255 : value;
+    }
+
+    private static int fix(double value) {
+        return (int) (value * (1L << SCALE_BITS) + 0.5);
+    }
+}
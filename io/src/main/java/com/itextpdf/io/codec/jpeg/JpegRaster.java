@@ -0,0 +1,124 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+/**
+ * Decoded pixels of a JPEG image: 8 bits per component, components interleaved, rows without padding.
+ *
+ * <p>
+ * Colour transformations have already been applied, i.e. three component images contain RGB and four
+ * component images contain CMYK samples if they were encoded as YCbCr or YCCK.
+ */
+public final class JpegRaster {
+
+    private final int width;
+    private final int height;
+    private final int numberOfComponents;
+    private final byte[] samples;
+
+    JpegRaster(int width, int height, int numberOfComponents, byte[] samples) {
+        this.width = width;
+        this.height = height;
+        this.numberOfComponents = numberOfComponents;
+        this.samples = samples;
+    }
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of components of the image.
+     *
+     * @return the number of components
+     */
+    public int getNumberOfComponents() {
+        return numberOfComponents;
+    }
+
+    /**
+     * Gets the number of bits per component of the raster data.
+     *
+     * @return always 8
+     */
+    public int getBitsPerComponent() {
+        return 8;
+    }
+
+    /**
+     * Gets a sample of the image.
+     *
+     * @param component the index of the component
+     * @param x         the horizontal position in the image
+     * @param y         the vertical position in the image
+     * @return the sample value from 0 to 255
+     */
+    public int getSample(int component, int x, int y) {
+        return samples[(y * width + x) * numberOfComponents + component] & 0xff;
+    }
+
+    /**
+     * Gets the pixels of the image with interleaved components, as they are expected in the data
+     * of a PDF image. The array is not copied, so changes in it are visible in the raster.
+     *
+     * @return image data
+     */
+    public byte[] toByteArray() {
+        return samples;
+    }
+}
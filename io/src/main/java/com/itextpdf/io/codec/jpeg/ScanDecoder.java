@@ -0,0 +1,306 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+import com.itextpdf.io.exceptions.IOException;
+
+/**
+ * Huffman decoder of the entropy-coded data of one restart interval of a scan
+ * (ISO/IEC 10918-1, Annexes F and G).
+ *
+ * <p>
+ * The DC predictions and the end-of-band run are reset at every restart marker, so every restart
+ * interval can be decoded by its own instance independently from the others. The decoded
+ * coefficients are stored in the coefficient buffers of the frame components.
+ */
+final class ScanDecoder {
+
+    static final int[] ZIGZAG = {
+            0, 1, 8, 16, 9, 2, 3, 10,
+            17, 24, 32, 25, 18, 11, 4, 5,
+            12, 19, 26, 33, 40, 48, 41, 34,
+            27, 20, 13, 6, 7, 14, 21, 28,
+            35, 42, 49, 56, 57, 50, 43, 36,
+            29, 22, 15, 23, 30, 37, 44, 51,
+            58, 59, 52, 45, 38, 31, 39, 46,
+            53, 60, 61, 54, 47, 55, 62, 63,
+            // guard entries for corrupted run lengths
+            63, 63, 63, 63, 63, 63, 63, 63,
+            63, 63, 63, 63, 63, 63, 63, 63
+    };
+
+    private final Scan scan;
+    private final byte[] data;
+    private int position;
+    private final int end;
+    private long bitBuffer;
+    private int bitCount;
+    private final int[] predictions;
+    private int endOfBandRun;
+
+    ScanDecoder(Scan scan, byte[] data, int start, int end) {
+        this.scan = scan;
+        this.data = data;
+        this.position = start;
+        this.end = end;
+        this.predictions = new int[scan.components.length];
+    }
+
+    /**
+     * Decodes the MCUs of the restart interval.
+     *
+     * @param firstMcu the index of the first MCU of the interval in the scan
+     * @param mcuCount the number of MCUs in the interval
+     */
+    void decodeMcus(int firstMcu, int mcuCount) {
+        FrameComponent[] components = scan.components;
+        for (int mcu = firstMcu; mcu < firstMcu + mcuCount; mcu++) {
+            if (scan.isInterleaved()) {
+                int mcuRow = mcu / scan.mcusPerLine;
+                int mcuColumn = mcu % scan.mcusPerLine;
+                for (int c = 0; c < components.length; c++) {
+                    FrameComponent component = components[c];
+                    for (int v = 0; v < component.verticalSampling; v++) {
+                        for (int h = 0; h < component.horizontalSampling; h++) {
+                            decodeBlock(c, component.getBlockOffset(mcuRow * component.verticalSampling + v,
+                                    mcuColumn * component.horizontalSampling + h));
+                        }
+                    }
+                }
+            } else {
+                FrameComponent component = components[0];
+                decodeBlock(0, component.getBlockOffset(mcu / component.blocksPerLine, mcu % component.blocksPerLine));
+            }
+        }
+    }
+
+    private void decodeBlock(int c, int offset) {
+        short[] coefficients = scan.components[c].coefficients;
+        if (!scan.progressive) {
+            decodeBaseline(c, coefficients, offset);
+        } else if (scan.spectralStart == 0) {
+            if (scan.successiveHigh == 0) {
+                decodeDcFirst(c, coefficients, offset);
+            } else if (readBit() != 0) {
+                coefficients[offset] |= (short) (1 << scan.successiveLow);
+            }
+        } else if (scan.successiveHigh == 0) {
+            decodeAcFirst(c, coefficients, offset);
+        } else {
+            decodeAcRefinement(c, coefficients, offset);
+        }
+    }
+
+    private void decodeBaseline(int c, short[] coefficients, int offset) {
+        int t = decodeHuffman(scan.dcTables[c]);
+        predictions[c] += t == 0 ? 0 : receiveExtend(t);
+        coefficients[offset] = (short) predictions[c];
+        HuffmanTable acTable = scan.acTables[c];
+        for (int k = 1; k < 64; k++) {
+            int rs = decodeHuffman(acTable);
+            int s = rs & 15;
+            int r = rs >> 4;
+            if (s == 0) {
+                if (r < 15) {
+                    break;
+                }
+                k += 15;
+                continue;
+            }
+            k += r;
+            coefficients[offset + ZIGZAG[k]] = (short) receiveExtend(s);
+        }
+    }
+
+    private void decodeDcFirst(int c, short[] coefficients, int offset) {
+        int t = decodeHuffman(scan.dcTables[c]);
+        predictions[c] += t == 0 ? 0 : receiveExtend(t);
+        coefficients[offset] = (short) (predictions[c] << scan.successiveLow);
+    }
+
+    private void decodeAcFirst(int c, short[] coefficients, int offset) {
+        if (endOfBandRun > 0) {
+            endOfBandRun--;
+            return;
+        }
+        HuffmanTable acTable = scan.acTables[c];
+        for (int k = scan.spectralStart; k <= scan.spectralEnd; k++) {
+            int rs = decodeHuffman(acTable);
+            int s = rs & 15;
+            int r = rs >> 4;
+            if (s == 0) {
+                if (r < 15) {
+                    endOfBandRun = (1 << r) - 1;
+                    if (r > 0) {
+                        endOfBandRun += readBits(r);
+                    }
+                    break;
+                }
+                k += 15;
+                continue;
+            }
+            k += r;
+            coefficients[offset + ZIGZAG[k]] = (short) (receiveExtend(s) * (1 << scan.successiveLow));
+        }
+    }
+
+    private void decodeAcRefinement(int c, short[] coefficients, int offset) {
+        int positiveBit = 1 << scan.successiveLow;
+        int negativeBit = -1 << scan.successiveLow;
+        int spectralEnd = scan.spectralEnd;
+        int k = scan.spectralStart;
+        if (endOfBandRun == 0) {
+            HuffmanTable acTable = scan.acTables[c];
+            for (; k <= spectralEnd; k++) {
+                int rs = decodeHuffman(acTable);
+                int s = rs & 15;
+                int r = rs >> 4;
+                int value = 0;
+                if (s != 0) {
+                    value = readBit() != 0 ? positiveBit : negativeBit;
+                } else if (r != 15) {
+                    endOfBandRun = 1 << r;
+                    if (r > 0) {
+                        endOfBandRun += readBits(r);
+                    }
+                    break;
+                }
+                // skip r zero coefficients, refining the non-zero ones on the way
+                while (k <= spectralEnd) {
+                    int index = offset + ZIGZAG[k];
+                    if (coefficients[index] != 0) {
+                        refine(coefficients, index, positiveBit, negativeBit);
+                    } else if (--r < 0) {
+                        break;
+                    }
+                    k++;
+                }
+                if (value != 0 && k <= spectralEnd) {
+                    coefficients[offset + ZIGZAG[k]] = (short) value;
+                }
+            }
+        }
+        if (endOfBandRun > 0) {
+            // refine the remaining non-zero coefficients of the band
+            for (; k <= spectralEnd; k++) {
+                int index = offset + ZIGZAG[k];
+                if (coefficients[index] != 0) {
+                    refine(coefficients, index, positiveBit, negativeBit);
+                }
+            }
+            endOfBandRun--;
+        }
+    }
+
+    private void refine(short[] coefficients, int index, int positiveBit, int negativeBit) {
+        if (readBit() != 0 && (coefficients[index] & positiveBit) == 0) {
+            coefficients[index] += (short) (coefficients[index] >= 0 ? positiveBit : negativeBit);
+        }
+    }
+
+    private int decodeHuffman(HuffmanTable table) {
+        fill();
+        int entry = table.lookup((int) (bitBuffer >>> (bitCount - HuffmanTable.LOOKUP_BITS))
+                & ((1 << HuffmanTable.LOOKUP_BITS) - 1));
+        if (entry != 0) {
+            bitCount -= entry >> 8;
+            return entry & 0xff;
+        }
+        for (int length = HuffmanTable.LOOKUP_BITS + 1; length <= 16; length++) {
+            int symbol = table.getSymbol((int) (bitBuffer >>> (bitCount - length)) & ((1 << length) - 1), length);
+            if (symbol >= 0) {
+                bitCount -= length;
+                return symbol;
+            }
+        }
+        // invalid code, skip it like the reference decoder does and go on with a zero symbol
+        bitCount -= 16;
+        return 0;
+    }
+
+    private int receiveExtend(int length) {
+        if (length > 16) {
+            throw new IOException(IOException.InvalidJpegFile);
+        }
+        int value = readBits(length);
+        return value < 1 << (length - 1) ? value - (1 << length) + 1 : value;
+    }
+
+    private int readBit() {
+        return readBits(1);
+    }
+
+    private int readBits(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        fill();
+        bitCount -= length;
+        return (int) (bitBuffer >>> bitCount) & ((1 << length) - 1);
+    }
+
+    /**
+     * Makes sure at least 25 bits are buffered. Stuffed zero bytes are removed, the data beyond
+     * the end of the interval are read as zero bits.
+     */
+    private void fill() {
+        while (bitCount <= 24) {
+            int b = 0;
+            if (position < end) {
+                b = data[position++] & 0xff;
+                if (b == 0xff) {
+                    if (position < end && data[position] == 0) {
+                        position++;
+                    } else {
+                        // a marker, the entropy-coded data are over
+                        position = end;
+                        b = 0;
+                    }
+                }
+            }
+            bitBuffer = bitBuffer << 8 | b;
+            bitCount += 8;
+        }
+    }
+}
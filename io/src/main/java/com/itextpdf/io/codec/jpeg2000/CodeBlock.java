@@ -0,0 +1,139 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A code-block of a subband together with the coded data collected from the packets.
+ */
+final class CodeBlock {
+
+    final int x0;
+    final int y0;
+    final int x1;
+    final int y1;
+
+    boolean included;
+    int lengthBits = 3;
+    int zeroBitPlanes;
+    int codingPasses;
+    final List<Segment> segments = new ArrayList<>();
+
+    CodeBlock(int x0, int y0, int x1, int y1) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+    }
+
+    int getWidth() {
+        return x1 - x0;
+    }
+
+    int getHeight() {
+        return y1 - y0;
+    }
+
+    /**
+     * Gets the segment to which the new coding passes are added, creating it if needed.
+     *
+     * @param style the code-block style
+     * @return the current not completed segment
+     */
+    Segment getOpenSegment(int style) {
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.passes + last.newPasses < last.maxPasses) {
+                return last;
+            }
+        }
+        return addSegment(style);
+    }
+
+    Segment addSegment(int style) {
+        int maxPasses;
+        if ((style & CodingStyle.TERMINATION_ON_EACH_CODING_PASS) != 0) {
+            maxPasses = 1;
+        } else if ((style & CodingStyle.SELECTIVE_ARITHMETIC_CODING_BYPASS) != 0) {
+            if (segments.isEmpty()) {
+                maxPasses = 10;
+            } else {
+                int previous = segments.get(segments.size() - 1).maxPasses;
+                maxPasses = previous == 1 || previous == 10 ? 2 : 1;
+            }
+        } else {
+            maxPasses = Integer.MAX_VALUE;
+        }
+        Segment segment = new Segment(maxPasses);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * A codeword segment, i.e. coding passes which are terminated together.
+     */
+    static final class Segment {
+        final int maxPasses;
+        int passes;
+        int newPasses;
+        int newLength;
+        byte[] data = new byte[0];
+        int length;
+
+        Segment(int maxPasses) {
+            this.maxPasses = maxPasses;
+        }
+
+        void append(byte[] source, int offset, int count) {
+            if (length + count > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + count, data.length * 2));
+            }
+            System.arraycopy(source, offset, data, length, count);
+            length += count;
+        }
+    }
+}
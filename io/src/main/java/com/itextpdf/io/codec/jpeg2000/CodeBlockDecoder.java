@@ -0,0 +1,396 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import com.itextpdf.io.codec.MqDecoder;
+
+import java.util.Arrays;
+
+/**
+ * The embedded block decoder of code-block coefficients (ISO/IEC 15444-1, Annex D).
+ *
+ * <p>
+ * Magnitudes are kept with one extra fractional bit: when decoding stops at bit-plane {@code p}
+ * the half of that bit-plane is added, so coefficients are reconstructed in the middle of
+ * their quantization interval.
+ */
+final class CodeBlockDecoder {
+
+    private static final int SIGNIFICANT = 1;
+    private static final int NEGATIVE = 2;
+    private static final int VISITED = 4;
+    private static final int REFINED = 8;
+
+    private static final int SIGNIFICANCE_PASS = 0;
+    private static final int REFINEMENT_PASS = 1;
+    private static final int CLEANUP_PASS = 2;
+
+    private static final int RUN_LENGTH_CONTEXT = 17;
+    private static final int UNIFORM_CONTEXT = 18;
+    private static final int CONTEXTS = 19;
+
+    private static final int[] SIGN_CONTEXTS = {13, 12, 11, 10, 9, 10, 11, 12, 13};
+    private static final int[] SIGN_FLIPS = {1, 1, 1, 1, 0, 0, 0, 0, 0};
+
+    // zero coding contexts indexed by orientation and (h * 3 + v) * 5 + d, see Table D.1
+    private static final byte[][] ZERO_CODING_CONTEXTS = new byte[3][45];
+
+    static {
+        for (int h = 0; h < 3; h++) {
+            for (int v = 0; v < 3; v++) {
+                for (int d = 0; d < 5; d++) {
+                    int index = (h * 3 + v) * 5 + d;
+                    ZERO_CODING_CONTEXTS[0][index] = (byte) lowPassContext(h, v, d);
+                    ZERO_CODING_CONTEXTS[1][index] = (byte) lowPassContext(v, h, d);
+                    ZERO_CODING_CONTEXTS[2][index] = (byte) highPassContext(h + v, d);
+                }
+            }
+        }
+    }
+
+    private final CodeBlock block;
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final int[] flags;
+    private final int[] magnitudes;
+    private final byte[] contexts = new byte[CONTEXTS];
+    private final byte[] zeroCodingContexts;
+    private final boolean causal;
+    private MqDecoder decoder;
+    private RawBitReader rawReader;
+
+    private CodeBlockDecoder(CodeBlock block, int orientation, boolean causal) {
+        this.block = block;
+        this.width = block.getWidth();
+        this.height = block.getHeight();
+        this.stride = width + 2;
+        this.flags = new int[stride * (height + 2)];
+        this.magnitudes = new int[width * height];
+        this.zeroCodingContexts = ZERO_CODING_CONTEXTS[orientation];
+        this.causal = causal;
+        resetContexts();
+    }
+
+    /**
+     * Decodes the coefficients of a code-block and stores them in the subband.
+     *
+     * @param block      the code-block with the collected codeword segments
+     * @param band       the subband to which the code-block belongs
+     * @param style      the code-block style
+     * @param roiShift   the region of interest shift
+     * @param reversible whether the reversible transformation is used
+     */
+    static void decode(CodeBlock block, Subband band, int style, int roiShift, boolean reversible) {
+        if (block.codingPasses == 0 || block.getWidth() <= 0 || block.getHeight() <= 0) {
+            return;
+        }
+        int orientation = band.type == Subband.HL ? 1 : (band.type == Subband.HH ? 2 : 0);
+        CodeBlockDecoder decoder = new CodeBlockDecoder(block, orientation,
+                (style & CodingStyle.VERTICALLY_CAUSAL_CONTEXT) != 0);
+        int bitPlane = roiShift + band.magnitudeBits - block.zeroBitPlanes - 1;
+        // the fractional bit is kept in the magnitudes, so one bit of headroom is required
+        if (bitPlane < 0 || bitPlane > 29) {
+            return;
+        }
+        decoder.decodePasses(bitPlane, style);
+        decoder.storeCoefficients(band, roiShift, reversible);
+    }
+
+    private static int lowPassContext(int h, int v, int d) {
+        if (h == 2) {
+            return 8;
+        }
+        if (h == 1) {
+            return v >= 1 ? 7 : (d >= 1 ? 6 : 5);
+        }
+        if (v == 2) {
+            return 4;
+        }
+        if (v == 1) {
+            return 3;
+        }
+        return d >= 2 ? 2 : d;
+    }
+
+    private static int highPassContext(int hv, int d) {
+        if (d >= 3) {
+            return 8;
+        }
+        if (d == 2) {
+            return hv >= 1 ? 7 : 6;
+        }
+        if (d == 1) {
+            return hv >= 2 ? 5 : 3 + hv;
+        }
+        return hv >= 2 ? 2 : hv;
+    }
+
+    private void decodePasses(int bitPlane, int style) {
+        boolean bypass = (style & CodingStyle.SELECTIVE_ARITHMETIC_CODING_BYPASS) != 0;
+        boolean reset = (style & CodingStyle.RESET_CONTEXT_PROBABILITIES) != 0;
+        boolean segmentationSymbols = (style & CodingStyle.SEGMENTATION_SYMBOLS) != 0;
+        int pass = 0;
+        for (CodeBlock.Segment segment : block.segments) {
+            if (segment.passes == 0) {
+                continue;
+            }
+            if (bypass && pass >= 10 && passType(pass) != CLEANUP_PASS) {
+                decoder = null;
+                rawReader = new RawBitReader(segment.data, segment.length);
+            } else {
+                decoder = new MqDecoder(segment.data, 0, segment.length);
+                rawReader = null;
+            }
+            for (int i = 0; i < segment.passes; i++, pass++) {
+                if (bitPlane < 0) {
+                    return;
+                }
+                switch (passType(pass)) {
+                    case SIGNIFICANCE_PASS:
+                        significancePass(bitPlane);
+                        break;
+                    case REFINEMENT_PASS:
+                        refinementPass(bitPlane);
+                        break;
+                    default:
+                        cleanupPass(bitPlane);
+                        if (segmentationSymbols) {
+                            for (int k = 0; k < 4; k++) {
+                                decoder.decodeBit(contexts, UNIFORM_CONTEXT);
+                            }
+                        }
+                        bitPlane--;
+                        break;
+                }
+                if (reset) {
+                    resetContexts();
+                }
+            }
+        }
+    }
+
+    private static int passType(int pass) {
+        return (pass + 2) % 3;
+    }
+
+    private void significancePass(int bitPlane) {
+        for (int y0 = 0; y0 < height; y0 += 4) {
+            int y1 = Math.min(y0 + 4, height);
+            for (int x = 0; x < width; x++) {
+                for (int y = y0; y < y1; y++) {
+                    int i = (y + 1) * stride + x + 1;
+                    if ((flags[i] & SIGNIFICANT) != 0) {
+                        continue;
+                    }
+                    boolean boundary = causal && (y & 3) == 3;
+                    int cx = zeroCodingContext(i, boundary);
+                    if (cx == 0) {
+                        continue;
+                    }
+                    if (readBit(cx) == 1) {
+                        setSignificant(i, y * width + x, bitPlane, boundary);
+                    }
+                    flags[i] |= VISITED;
+                }
+            }
+        }
+    }
+
+    private void refinementPass(int bitPlane) {
+        for (int y0 = 0; y0 < height; y0 += 4) {
+            int y1 = Math.min(y0 + 4, height);
+            for (int x = 0; x < width; x++) {
+                for (int y = y0; y < y1; y++) {
+                    int i = (y + 1) * stride + x + 1;
+                    int f = flags[i];
+                    if ((f & (SIGNIFICANT | VISITED)) != SIGNIFICANT) {
+                        continue;
+                    }
+                    int cx;
+                    if ((f & REFINED) != 0) {
+                        cx = 16;
+                    } else {
+                        cx = zeroCodingContext(i, causal && (y & 3) == 3) == 0 ? 14 : 15;
+                    }
+                    magnitudes[y * width + x] += readBit(cx) == 1 ? 1 << bitPlane : -(1 << bitPlane);
+                    flags[i] = f | REFINED;
+                }
+            }
+        }
+    }
+
+    private void cleanupPass(int bitPlane) {
+        for (int y0 = 0; y0 < height; y0 += 4) {
+            int y1 = Math.min(y0 + 4, height);
+            for (int x = 0; x < width; x++) {
+                int y = y0;
+                if (y1 - y0 == 4 && isRunLengthColumn(y0, x)) {
+                    if (decoder.decodeBit(contexts, RUN_LENGTH_CONTEXT) == 0) {
+                        continue;
+                    }
+                    y += decoder.decodeBit(contexts, UNIFORM_CONTEXT) << 1;
+                    y += decoder.decodeBit(contexts, UNIFORM_CONTEXT);
+                    setSignificant((y + 1) * stride + x + 1, y * width + x, bitPlane, causal && (y & 3) == 3);
+                    y++;
+                }
+                for (; y < y1; y++) {
+                    int i = (y + 1) * stride + x + 1;
+                    int f = flags[i];
+                    if ((f & (SIGNIFICANT | VISITED)) != 0) {
+                        flags[i] = f & ~VISITED;
+                        continue;
+                    }
+                    boolean boundary = causal && (y & 3) == 3;
+                    if (decoder.decodeBit(contexts, zeroCodingContext(i, boundary)) == 1) {
+                        setSignificant(i, y * width + x, bitPlane, boundary);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isRunLengthColumn(int y0, int x) {
+        for (int y = y0; y < y0 + 4; y++) {
+            int i = (y + 1) * stride + x + 1;
+            if ((flags[i] & (SIGNIFICANT | VISITED)) != 0 || zeroCodingContext(i, causal && (y & 3) == 3) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setSignificant(int i, int position, int bitPlane, boolean boundary) {
+        int hc = signContribution(flags[i - 1]) + signContribution(flags[i + 1]);
+        int vc = signContribution(flags[i - stride]) + (boundary ? 0 : signContribution(flags[i + stride]));
+        int index = (Math.max(-1, Math.min(1, hc)) + 1) * 3 + Math.max(-1, Math.min(1, vc)) + 1;
+        int negative;
+        if (rawReader != null) {
+            negative = rawReader.readBit();
+        } else {
+            negative = decoder.decodeBit(contexts, SIGN_CONTEXTS[index]) ^ SIGN_FLIPS[index];
+        }
+        flags[i] |= negative == 1 ? SIGNIFICANT | NEGATIVE : SIGNIFICANT;
+        magnitudes[position] = 3 << bitPlane;
+    }
+
+    private static int signContribution(int f) {
+        if ((f & SIGNIFICANT) == 0) {
+            return 0;
+        }
+        return (f & NEGATIVE) != 0 ? -1 : 1;
+    }
+
+    private int zeroCodingContext(int i, boolean boundary) {
+        int h = (flags[i - 1] & SIGNIFICANT) + (flags[i + 1] & SIGNIFICANT);
+        int v = flags[i - stride] & SIGNIFICANT;
+        int d = (flags[i - stride - 1] & SIGNIFICANT) + (flags[i - stride + 1] & SIGNIFICANT);
+        if (!boundary) {
+            v += flags[i + stride] & SIGNIFICANT;
+            d += (flags[i + stride - 1] & SIGNIFICANT) + (flags[i + stride + 1] & SIGNIFICANT);
+        }
+        return zeroCodingContexts[(h * 3 + v) * 5 + d];
+    }
+
+    private int readBit(int cx) {
+        return rawReader != null ? rawReader.readBit() : decoder.decodeBit(contexts, cx);
+    }
+
+    private void resetContexts() {
+        Arrays.fill(contexts, (byte) 0);
+        contexts[0] = 4 << 1;
+        contexts[RUN_LENGTH_CONTEXT] = 3 << 1;
+        contexts[UNIFORM_CONTEXT] = 46 << 1;
+    }
+
+    private void storeCoefficients(Subband band, int roiShift, boolean reversible) {
+        int bandWidth = band.getWidth();
+        for (int y = 0; y < height; y++) {
+            int target = (block.y0 - band.y0 + y) * bandWidth + block.x0 - band.x0;
+            for (int x = 0; x < width; x++, target++) {
+                int magnitude = magnitudes[y * width + x];
+                if (magnitude == 0) {
+                    continue;
+                }
+                if (roiShift > 0 && magnitude >> 1 >= 1 << roiShift) {
+                    magnitude >>= roiShift;
+                }
+                boolean negative = (flags[(y + 1) * stride + x + 1] & NEGATIVE) != 0;
+                if (reversible) {
+                    band.coefficients[target] = negative ? -(magnitude >> 1) : magnitude >> 1;
+                } else {
+                    float value = magnitude * 0.5f * band.stepSize;
+                    band.floatCoefficients[target] = negative ? -value : value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the raw bits of the coding passes coded in the arithmetic coding bypass mode (ISO/IEC 15444-1, D.6).
+     */
+    private static final class RawBitReader {
+        private final byte[] data;
+        private final int end;
+        private int position;
+        private int current;
+        private int bitsLeft;
+
+        RawBitReader(byte[] data, int end) {
+            this.data = data;
+            this.end = end;
+        }
+
+        int readBit() {
+            if (bitsLeft == 0) {
+                boolean stuffed = current == 0xff;
+                current = position < end ? data[position] & 0xff : 0xff;
+                position++;
+                bitsLeft = stuffed ? 7 : 8;
+            }
+            bitsLeft--;
+            return (current >> bitsLeft) & 1;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coding parameters of the main header or of a tile. Parameters which are not specified in
+ * a tile header are taken from the main header following the precedence rules of ISO/IEC 15444-1, A.6.
+ */
+final class CodingParameters {
+
+    static final int LRCP = 0;
+    static final int RLCP = 1;
+    static final int RPCL = 2;
+    static final int PCRL = 3;
+    static final int CPRL = 4;
+
+    private final CodingParameters parent;
+
+    boolean codingStyleDefined;
+    int progressionOrder;
+    int layers;
+    boolean multipleComponentTransform;
+    boolean startOfPacketMarkers;
+    boolean endOfPacketHeaderMarkers;
+    CodingStyle defaultStyle;
+    final CodingStyle[] componentStyles;
+    QuantizationStyle defaultQuantization;
+    final QuantizationStyle[] componentQuantizations;
+    // negative values mean that the shift is not specified
+    final int[] roiShifts;
+    // every entry holds RSpoc, CSpoc, LYEpoc, REpoc, CEpoc and Ppoc values
+    final List<int[]> progressionChanges = new ArrayList<>();
+
+    CodingParameters(int components, CodingParameters parent) {
+        this.parent = parent;
+        this.componentStyles = new CodingStyle[components];
+        this.componentQuantizations = new QuantizationStyle[components];
+        this.roiShifts = new int[components];
+        Arrays.fill(roiShifts, -1);
+    }
+
+    CodingParameters getDefaults() {
+        return codingStyleDefined || parent == null ? this : parent.getDefaults();
+    }
+
+    CodingStyle getCodingStyle(int component) {
+        if (componentStyles[component] != null) {
+            return componentStyles[component];
+        }
+        if (defaultStyle != null || parent == null) {
+            return defaultStyle;
+        }
+        return parent.getCodingStyle(component);
+    }
+
+    QuantizationStyle getQuantizationStyle(int component) {
+        if (componentQuantizations[component] != null) {
+            return componentQuantizations[component];
+        }
+        if (defaultQuantization != null || parent == null) {
+            return defaultQuantization;
+        }
+        return parent.getQuantizationStyle(component);
+    }
+
+    int getRoiShift(int component) {
+        if (roiShifts[component] >= 0) {
+            return roiShifts[component];
+        }
+        return parent == null ? 0 : parent.getRoiShift(component);
+    }
+
+    List<int[]> getProgressionChanges() {
+        return progressionChanges.isEmpty() && parent != null ? parent.getProgressionChanges() : progressionChanges;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import com.itextpdf.io.exceptions.IOException;
+
+/**
+ * Component related coding parameters from COD and COC marker segments (ISO/IEC 15444-1, A.6.1, A.6.2).
+ */
+final class CodingStyle {
+
+    static final int SELECTIVE_ARITHMETIC_CODING_BYPASS = 0x01;
+    static final int RESET_CONTEXT_PROBABILITIES = 0x02;
+    static final int TERMINATION_ON_EACH_CODING_PASS = 0x04;
+    static final int VERTICALLY_CAUSAL_CONTEXT = 0x08;
+    static final int SEGMENTATION_SYMBOLS = 0x20;
+
+    private static final int DEFAULT_PRECINCT_SIZE = 15;
+
+    int decompositionLevels;
+    int codeBlockWidth;
+    int codeBlockHeight;
+    int codeBlockStyle;
+    boolean reversible;
+    int[] precinctWidths;
+    int[] precinctHeights;
+
+    /**
+     * Reads SPcod or SPcoc parameters.
+     *
+     * @param data            the codestream
+     * @param offset          the offset of the parameters
+     * @param customPrecincts whether precinct sizes are specified
+     * @return the parsed coding style
+     */
+    static CodingStyle read(byte[] data, int offset, boolean customPrecincts) {
+        CodingStyle style = new CodingStyle();
+        style.decompositionLevels = data[offset] & 0xff;
+        style.codeBlockWidth = (data[offset + 1] & 0xff) + 2;
+        style.codeBlockHeight = (data[offset + 2] & 0xff) + 2;
+        style.codeBlockStyle = data[offset + 3] & 0xff;
+        style.reversible = data[offset + 4] == 1;
+        if (style.decompositionLevels > 32 || style.codeBlockWidth > 10 || style.codeBlockHeight > 10
+                || style.codeBlockWidth + style.codeBlockHeight > 12) {
+            throw new IOException(IOException.InvalidJpeg2000File);
+        }
+        int resolutions = style.decompositionLevels + 1;
+        style.precinctWidths = new int[resolutions];
+        style.precinctHeights = new int[resolutions];
+        for (int r = 0; r < resolutions; r++) {
+            if (customPrecincts) {
+                int size = data[offset + 5 + r] & 0xff;
+                style.precinctWidths[r] = size & 0xf;
+                style.precinctHeights[r] = size >> 4;
+            } else {
+                style.precinctWidths[r] = DEFAULT_PRECINCT_SIZE;
+                style.precinctHeights[r] = DEFAULT_PRECINCT_SIZE;
+            }
+        }
+        return style;
+    }
+
+    boolean hasStyle(int flag) {
+        return (codeBlockStyle & flag) != 0;
+    }
+}
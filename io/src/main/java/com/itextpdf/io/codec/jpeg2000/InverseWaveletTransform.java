@@ -0,0 +1,242 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * The inverse discrete wavelet transformation of tile-components with the 5-3 reversible and
+ * 9-7 irreversible filters (ISO/IEC 15444-1, Annex F).
+ */
+final class InverseWaveletTransform {
+
+    // the extension needed by the longest (9-7) lifting filter
+    private static final int PADDING = 4;
+
+    private static final float ALPHA = -1.586134342059924f;
+    private static final float BETA = -0.052980118572961f;
+    private static final float GAMMA = 0.882911075530934f;
+    private static final float DELTA = 0.443506852043971f;
+    private static final float K = 1.230174104914001f;
+
+    private InverseWaveletTransform() {
+    }
+
+    /**
+     * Reconstructs the samples of a tile-component from the coefficients of its subbands.
+     *
+     * @param component the tile-component with decoded subbands
+     */
+    static void reconstruct(TileComponent component) {
+        if (component.codingStyle.reversible) {
+            reconstructReversible(component);
+        } else {
+            reconstructIrreversible(component);
+        }
+    }
+
+    private static void reconstructReversible(TileComponent component) {
+        Resolution[] resolutions = component.resolutions;
+        int[] current = resolutions[0].bands[0].coefficients;
+        for (int r = 1; r < resolutions.length; r++) {
+            Resolution resolution = resolutions[r];
+            Resolution lower = resolutions[r - 1];
+            int width = resolution.x1 - resolution.x0;
+            int height = resolution.y1 - resolution.y0;
+            int[] samples = new int[width * height];
+            interleave(current, null, lower.x0, lower.y0, lower.x1, lower.y1, 0, 0, samples, null, resolution);
+            for (Subband band : resolution.bands) {
+                interleave(band.coefficients, null, band.x0, band.y0, band.x1, band.y1,
+                        band.type == Subband.LH ? 0 : 1, band.type == Subband.HL ? 0 : 1, samples, null, resolution);
+            }
+            int[] line = new int[Math.max(width, height) + 2 * PADDING];
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(samples, y * width, line, PADDING, width);
+                synthesizeReversible(line, resolution.x0, width);
+                System.arraycopy(line, PADDING, samples, y * width, width);
+            }
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    line[PADDING + y] = samples[y * width + x];
+                }
+                synthesizeReversible(line, resolution.y0, height);
+                for (int y = 0; y < height; y++) {
+                    samples[y * width + x] = line[PADDING + y];
+                }
+            }
+            current = samples;
+        }
+        component.samples = current;
+    }
+
+    private static void reconstructIrreversible(TileComponent component) {
+        Resolution[] resolutions = component.resolutions;
+        float[] current = resolutions[0].bands[0].floatCoefficients;
+        for (int r = 1; r < resolutions.length; r++) {
+            Resolution resolution = resolutions[r];
+            Resolution lower = resolutions[r - 1];
+            int width = resolution.x1 - resolution.x0;
+            int height = resolution.y1 - resolution.y0;
+            float[] samples = new float[width * height];
+            interleave(null, current, lower.x0, lower.y0, lower.x1, lower.y1, 0, 0, null, samples, resolution);
+            for (Subband band : resolution.bands) {
+                interleave(null, band.floatCoefficients, band.x0, band.y0, band.x1, band.y1,
+                        band.type == Subband.LH ? 0 : 1, band.type == Subband.HL ? 0 : 1, null, samples, resolution);
+            }
+            float[] line = new float[Math.max(width, height) + 2 * PADDING];
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(samples, y * width, line, PADDING, width);
+                synthesizeIrreversible(line, resolution.x0, width);
+                System.arraycopy(line, PADDING, samples, y * width, width);
+            }
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    line[PADDING + y] = samples[y * width + x];
+                }
+                synthesizeIrreversible(line, resolution.y0, height);
+                for (int y = 0; y < height; y++) {
+                    samples[y * width + x] = line[PADDING + y];
+                }
+            }
+            current = samples;
+        }
+        component.floatSamples = current;
+    }
+
+    /**
+     * Places the coefficients of a subband to their positions in the resolution level (2D_INTERLEAVE, F.3.3).
+     */
+    private static void interleave(int[] source, float[] floatSource, int x0, int y0, int x1, int y1,
+            int xOffset, int yOffset, int[] target, float[] floatTarget, Resolution resolution) {
+        int width = resolution.x1 - resolution.x0;
+        int sourceWidth = x1 - x0;
+        for (int y = y0; y < y1; y++) {
+            int targetRow = (2 * y + yOffset - resolution.y0) * width;
+            int sourceRow = (y - y0) * sourceWidth;
+            for (int x = x0; x < x1; x++) {
+                int position = targetRow + 2 * x + xOffset - resolution.x0;
+                if (target != null) {
+                    target[position] = source[sourceRow + x - x0];
+                } else {
+                    floatTarget[position] = floatSource[sourceRow + x - x0];
+                }
+            }
+        }
+    }
+
+    /**
+     * One dimensional 5-3 reversible synthesis (1D_SR, F.3.8).
+     *
+     * @param x      the samples starting at {@link #PADDING}
+     * @param start  the coordinate of the first sample
+     * @param length the number of samples
+     */
+    private static void synthesizeReversible(int[] x, int start, int length) {
+        if (length == 1) {
+            if ((start & 1) == 1) {
+                x[PADDING] /= 2;
+            }
+            return;
+        }
+        for (int k = 1; k <= PADDING; k++) {
+            x[PADDING - k] = x[PADDING + reflect(-k, length)];
+            x[PADDING + length - 1 + k] = x[PADDING + reflect(length - 1 + k, length)];
+        }
+        int size = length + 2 * PADDING;
+        // the samples with even coordinates are at even indices when start is even
+        int even = start & 1;
+        for (int i = even == 0 ? 2 : 1; i < size - 1; i += 2) {
+            x[i] -= (x[i - 1] + x[i + 1] + 2) >> 2;
+        }
+        for (int i = even == 0 ? 1 : 2; i < size - 1; i += 2) {
+            x[i] += (x[i - 1] + x[i + 1]) >> 1;
+        }
+    }
+
+    /**
+     * One dimensional 9-7 irreversible synthesis (1D_SR, F.3.8).
+     *
+     * @param x      the samples starting at {@link #PADDING}
+     * @param start  the coordinate of the first sample
+     * @param length the number of samples
+     */
+    private static void synthesizeIrreversible(float[] x, int start, int length) {
+        if (length == 1) {
+            if ((start & 1) == 1) {
+                x[PADDING] /= 2;
+            }
+            return;
+        }
+        for (int k = 1; k <= PADDING; k++) {
+            x[PADDING - k] = x[PADDING + reflect(-k, length)];
+            x[PADDING + length - 1 + k] = x[PADDING + reflect(length - 1 + k, length)];
+        }
+        int size = length + 2 * PADDING;
+        int even = start & 1;
+        int odd = 1 - even;
+        for (int i = even; i < size; i += 2) {
+            x[i] *= K;
+        }
+        for (int i = odd; i < size; i += 2) {
+            x[i] /= K;
+        }
+        lift(x, even, size, DELTA);
+        lift(x, odd, size, GAMMA);
+        lift(x, even, size, BETA);
+        lift(x, odd, size, ALPHA);
+    }
+
+    private static void lift(float[] x, int parity, int size, float factor) {
+        for (int i = parity == 0 ? 2 : 1; i < size - 1; i += 2) {
+            x[i] -= factor * (x[i - 1] + x[i + 1]);
+        }
+    }
+
+    private static int reflect(int index, int length) {
+        int period = 2 * (length - 1);
+        index %= period;
+        if (index < 0) {
+            index += period;
+        }
+        return index >= length ? period - index : index;
+    }
+}
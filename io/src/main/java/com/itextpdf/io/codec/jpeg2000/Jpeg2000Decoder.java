@@ -0,0 +1,500 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import com.itextpdf.io.exceptions.IOException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Decoder of JPEG2000 images (ISO/IEC 15444-1), both raw codestreams and JP2 files.
+ *
+ * <p>
+ * All the progression orders, progression order changes, packed packet headers, code-block
+ * styles and region of interest shifts of the Part 1 codestream are supported. Palettes of JP2 files
+ * are applied, other JP2 colour information is left to the caller. Components with a precision
+ * above 31 bits are rejected.
+ *
+ * <p>
+ * Tiles, as well as code-blocks within a tile, are independent from each other, so they can be
+ * decoded in parallel in the common fork-join pool.
+ */
+public final class Jpeg2000Decoder {
+
+    private static final int JP2_SIGNATURE = 0x6a502020;
+    private static final int JP2_JP2H = 0x6a703268;
+    private static final int JP2_JP2C = 0x6a703263;
+    private static final int JP2_PCLR = 0x70636c72;
+    private static final int JP2_CMAP = 0x636d6170;
+
+    private static final int SOC = 0xff4f;
+    private static final int SIZ = 0xff51;
+    private static final int COD = 0xff52;
+    private static final int COC = 0xff53;
+    private static final int QCD = 0xff5c;
+    private static final int QCC = 0xff5d;
+    private static final int RGN = 0xff5e;
+    private static final int POC = 0xff5f;
+    private static final int PPM = 0xff60;
+    private static final int PPT = 0xff61;
+    private static final int SOT = 0xff90;
+    private static final int SOD = 0xff93;
+    private static final int EOC = 0xffd9;
+
+    private static final int MAX_PRECISION = 31;
+
+    private final byte[] data;
+    private int imageX0;
+    private int imageY0;
+    private int imageX1;
+    private int imageY1;
+    private int tileWidth;
+    private int tileHeight;
+    private int tileX0;
+    private int tileY0;
+    private int tilesWide;
+    private int components;
+    private int[] precisions;
+    private boolean[] signed;
+    private int[] horizontalSeparations;
+    private int[] verticalSeparations;
+    private CodingParameters mainParameters;
+    private Tile[] tiles;
+    private final ByteArrayOutputStream packedHeaders = new ByteArrayOutputStream();
+    private int packedHeadersPosition;
+    private byte[] packedHeadersData;
+
+    // JP2 palette and component mapping
+    private int[][] palette;
+    private int[] paletteDepths;
+    private int[] mapping;
+
+    private Jpeg2000Decoder(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Decodes a JPEG2000 image.
+     *
+     * @param data the JP2 file or the JPEG2000 codestream
+     * @return decoded raster
+     */
+    public static Jpeg2000Raster decode(byte[] data) {
+        return decode(data, false);
+    }
+
+    /**
+     * Decodes a JPEG2000 image.
+     *
+     * @param data     the JP2 file or the JPEG2000 codestream
+     * @param parallel whether tiles and code-blocks are decoded in parallel
+     * @return decoded raster
+     */
+    public static Jpeg2000Raster decode(byte[] data, boolean parallel) {
+        try {
+            return new Jpeg2000Decoder(data).decodeImage(parallel);
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IOException(IOException.InvalidJpeg2000File, e);
+        }
+    }
+
+    private Jpeg2000Raster decodeImage(boolean parallel) {
+        int start = 0;
+        int end = data.length;
+        if (data.length >= 12 && readInt(4) == JP2_SIGNATURE) {
+            int[] codestream = readBoxes(0, data.length);
+            if (codestream == null) {
+                throw new IOException(IOException.InvalidJpeg2000File);
+            }
+            start = codestream[0];
+            end = codestream[1];
+        }
+        if (end - start < 2 || readShort(start) != SOC) {
+            throw new IOException(IOException.InvalidJpeg2000File);
+        }
+        readCodestream(start + 2, end);
+        final Jpeg2000Raster raster = new Jpeg2000Raster(imageX0, imageY0, imageX1, imageY1, precisions, signed,
+                horizontalSeparations, verticalSeparations);
+        final List<Tile> decodedTiles = new ArrayList<>();
+        for (Tile tile : tiles) {
+            if (tile != null) {
+                decodedTiles.add(tile);
+            }
+        }
+        IntStream indices = IntStream.range(0, decodedTiles.size());
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> decodedTiles.get(i).decode(raster, parallel));
+        return palette == null ? raster : applyPalette(raster);
+    }
+
+    /**
+     * Looks for the codestream box and the palette related boxes of a JP2 file.
+     *
+     * @return the start and the end of the codestream or {@code null} if there is no codestream box
+     */
+    private int[] readBoxes(int start, int end) {
+        int position = start;
+        while (position + 8 <= end) {
+            long length = readInt(position) & 0xffffffffL;
+            int type = readInt(position + 4);
+            int header = 8;
+            if (length == 1) {
+                length = ((long) readInt(position + 8) << 32) | (readInt(position + 12) & 0xffffffffL);
+                header = 16;
+            } else if (length == 0) {
+                length = end - position;
+            }
+            int boxEnd = (int) Math.min(end, position + length);
+            if (length < header) {
+                break;
+            }
+            if (type == JP2_JP2C) {
+                return new int[] {position + header, boxEnd};
+            } else if (type == JP2_JP2H) {
+                readBoxes(position + header, boxEnd);
+            } else if (type == JP2_PCLR) {
+                readPalette(position + header);
+            } else if (type == JP2_CMAP) {
+                mapping = new int[(boxEnd - position - header) / 4 * 3];
+                for (int i = 0; i < mapping.length; i += 3) {
+                    int entry = position + header + i / 3 * 4;
+                    mapping[i] = readShort(entry);
+                    mapping[i + 1] = data[entry + 2] & 0xff;
+                    mapping[i + 2] = data[entry + 3] & 0xff;
+                }
+            }
+            position = boxEnd;
+        }
+        return null;
+    }
+
+    private void readPalette(int position) {
+        int entries = readShort(position);
+        int columns = data[position + 2] & 0xff;
+        paletteDepths = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            paletteDepths[i] = data[position + 3 + i] & 0xff;
+            checkPrecision((paletteDepths[i] & 0x7f) + 1);
+        }
+        palette = new int[columns][entries];
+        int offset = position + 3 + columns;
+        for (int e = 0; e < entries; e++) {
+            for (int i = 0; i < columns; i++) {
+                int bytes = ((paletteDepths[i] & 0x7f) + 8) / 8;
+                int value = 0;
+                for (int b = 0; b < bytes; b++) {
+                    value = (value << 8) | (data[offset++] & 0xff);
+                }
+                palette[i][e] = value;
+            }
+        }
+    }
+
+    private void readCodestream(int position, int end) {
+        // main header
+        while (position + 4 <= end && readShort(position) != SOT) {
+            int marker = readShort(position);
+            if (isMarkerWithoutSegment(marker)) {
+                position += 2;
+                continue;
+            }
+            int segmentEnd = position + 2 + readShort(position + 2);
+            if (marker == SIZ) {
+                readImageAndTileSize(position + 4);
+            } else if (marker == PPM) {
+                packedHeaders.write(data, position + 5, segmentEnd - position - 5);
+            } else {
+                readCodingParameters(marker, position + 4, segmentEnd, mainParameters);
+            }
+            position = segmentEnd;
+        }
+        if (mainParameters == null || mainParameters.defaultStyle == null
+                || mainParameters.defaultQuantization == null) {
+            throw new IOException(IOException.InvalidJpeg2000File);
+        }
+        packedHeadersData = packedHeaders.size() > 0 ? packedHeaders.toByteArray() : null;
+        // tile-parts
+        while (position + 12 <= end && readShort(position) == SOT) {
+            int headerEnd = position + 2 + readShort(position + 2);
+            int tileIndex = readShort(position + 4);
+            long length = readInt(position + 6) & 0xffffffffL;
+            int tilePartEnd = length == 0 ? end : (int) Math.min(end, position + length);
+            if (length == 0 && end - 2 >= headerEnd && readShort(end - 2) == EOC) {
+                tilePartEnd = end - 2;
+            }
+            if (tileIndex >= tiles.length) {
+                throw new IOException(IOException.InvalidJpeg2000File);
+            }
+            Tile tile = tiles[tileIndex];
+            if (tile == null) {
+                tile = createTile(tileIndex);
+                tiles[tileIndex] = tile;
+            }
+            position = headerEnd;
+            while (position + 2 <= tilePartEnd && readShort(position) != SOD) {
+                int marker = readShort(position);
+                if (isMarkerWithoutSegment(marker)) {
+                    position += 2;
+                    continue;
+                }
+                int segmentEnd = position + 2 + readShort(position + 2);
+                if (marker == PPT) {
+                    packedHeaders(tile).write(data, position + 5, segmentEnd - position - 5);
+                } else {
+                    readCodingParameters(marker, position + 4, segmentEnd, tile.parameters);
+                }
+                position = segmentEnd;
+            }
+            position += 2;
+            if (packedHeadersData != null) {
+                readPackedHeadersOfTilePart(tile);
+            }
+            if (tilePartEnd > position) {
+                tile.data.write(data, position, tilePartEnd - position);
+            }
+            position = Math.max(position, tilePartEnd);
+        }
+    }
+
+    private void readImageAndTileSize(int position) {
+        imageX1 = readInt(position + 2);
+        imageY1 = readInt(position + 6);
+        imageX0 = readInt(position + 10);
+        imageY0 = readInt(position + 14);
+        tileWidth = readInt(position + 18);
+        tileHeight = readInt(position + 22);
+        tileX0 = readInt(position + 26);
+        tileY0 = readInt(position + 30);
+        components = readShort(position + 34);
+        if (imageX1 <= imageX0 || imageY1 <= imageY0 || tileWidth <= 0 || tileHeight <= 0 || components == 0
+                || (long) (imageX1 - imageX0) * (imageY1 - imageY0) > Integer.MAX_VALUE) {
+            throw new IOException(IOException.InvalidJpeg2000File);
+        }
+        precisions = new int[components];
+        signed = new boolean[components];
+        horizontalSeparations = new int[components];
+        verticalSeparations = new int[components];
+        for (int c = 0; c < components; c++) {
+            int offset = position + 36 + 3 * c;
+            precisions[c] = (data[offset] & 0x7f) + 1;
+            checkPrecision(precisions[c]);
+            signed[c] = (data[offset] & 0x80) != 0;
+            horizontalSeparations[c] = Math.max(1, data[offset + 1] & 0xff);
+            verticalSeparations[c] = Math.max(1, data[offset + 2] & 0xff);
+        }
+        tilesWide = TileComponent.ceilDiv(imageX1 - tileX0, tileWidth);
+        int tilesHigh = TileComponent.ceilDiv(imageY1 - tileY0, tileHeight);
+        tiles = new Tile[tilesWide * tilesHigh];
+        mainParameters = new CodingParameters(components, null);
+    }
+
+    private static void checkPrecision(int precision) {
+        // samples are kept in ints, while the precision of a component may be up to 38 bits
+        if (precision > MAX_PRECISION) {
+            throw new IOException(IOException.Jpeg2000PrecisionIsNotSupported).setMessageParams(precision);
+        }
+    }
+
+    private Tile createTile(int index) {
+        int p = index % tilesWide;
+        int q = index / tilesWide;
+        int x0 = Math.max(tileX0 + p * tileWidth, imageX0);
+        int y0 = Math.max(tileY0 + q * tileHeight, imageY0);
+        int x1 = (int) Math.min((long) tileX0 + (long) (p + 1) * tileWidth, imageX1);
+        int y1 = (int) Math.min((long) tileY0 + (long) (q + 1) * tileHeight, imageY1);
+        return new Tile(x0, y0, x1, y1, new CodingParameters(components, mainParameters));
+    }
+
+    private void readCodingParameters(int marker, int position, int end, CodingParameters parameters) {
+        if (parameters == null) {
+            // coding parameters before the SIZ marker segment
+            throw new IOException(IOException.InvalidJpeg2000File);
+        }
+        int componentBytes = components < 257 ? 1 : 2;
+        switch (marker) {
+            case COD: {
+                int style = data[position] & 0xff;
+                parameters.codingStyleDefined = true;
+                parameters.startOfPacketMarkers = (style & 0x02) != 0;
+                parameters.endOfPacketHeaderMarkers = (style & 0x04) != 0;
+                parameters.progressionOrder = data[position + 1] & 0xff;
+                parameters.layers = readShort(position + 2);
+                parameters.multipleComponentTransform = data[position + 4] != 0;
+                parameters.defaultStyle = CodingStyle.read(data, position + 5, (style & 0x01) != 0);
+                break;
+            }
+            case COC: {
+                int component = readComponentIndex(position, componentBytes);
+                int style = data[position + componentBytes] & 0xff;
+                parameters.componentStyles[component] = CodingStyle.read(data, position + componentBytes + 1,
+                        (style & 0x01) != 0);
+                break;
+            }
+            case QCD:
+                parameters.defaultQuantization = QuantizationStyle.read(data, position, end);
+                break;
+            case QCC: {
+                int component = readComponentIndex(position, componentBytes);
+                parameters.componentQuantizations[component] = QuantizationStyle.read(data,
+                        position + componentBytes, end);
+                break;
+            }
+            case RGN: {
+                int component = readComponentIndex(position, componentBytes);
+                parameters.roiShifts[component] = data[position + componentBytes + 1] & 0xff;
+                break;
+            }
+            case POC: {
+                int entryLength = 5 + 2 * componentBytes;
+                for (int entry = position; entry + entryLength <= end; entry += entryLength) {
+                    int componentEnd = readComponentIndex(entry + 3 + componentBytes, componentBytes);
+                    parameters.progressionChanges.add(new int[] {
+                            data[entry] & 0xff,
+                            readComponentIndex(entry + 1, componentBytes),
+                            readShort(entry + 1 + componentBytes),
+                            data[entry + 3 + componentBytes] & 0xff,
+                            componentEnd == 0 ? 256 : componentEnd,
+                            data[entry + 4 + 2 * componentBytes] & 0xff
+                    });
+                }
+                break;
+            }
+            default:
+                // TLM, PLM, PLT, CRG, COM and unknown marker segments are not needed for decoding
+                break;
+        }
+    }
+
+    private int readComponentIndex(int position, int componentBytes) {
+        return componentBytes == 1 ? data[position] & 0xff : readShort(position);
+    }
+
+    private static ByteArrayOutputStream packedHeaders(Tile tile) {
+        if (tile.packedHeaders == null) {
+            tile.packedHeaders = new ByteArrayOutputStream();
+        }
+        return tile.packedHeaders;
+    }
+
+    /**
+     * Moves the packet headers of the next tile-part from the PPM marker segments to the tile.
+     */
+    private void readPackedHeadersOfTilePart(Tile tile) {
+        if (packedHeadersPosition + 4 > packedHeadersData.length) {
+            return;
+        }
+        int length = (int) Math.min(readInt(packedHeadersData, packedHeadersPosition) & 0xffffffffL,
+                packedHeadersData.length - packedHeadersPosition - 4);
+        packedHeaders(tile).write(packedHeadersData, packedHeadersPosition + 4, length);
+        packedHeadersPosition += 4 + length;
+    }
+
+    private Jpeg2000Raster applyPalette(Jpeg2000Raster raster) {
+        int[] map = mapping;
+        if (map == null) {
+            map = new int[palette.length * 3];
+            for (int i = 0; i < palette.length; i++) {
+                map[3 * i + 1] = 1;
+                map[3 * i + 2] = i;
+            }
+        }
+        int count = map.length / 3;
+        int[] resultPrecisions = new int[count];
+        boolean[] resultSigned = new boolean[count];
+        int[] resultHorizontalSeparations = new int[count];
+        int[] resultVerticalSeparations = new int[count];
+        for (int i = 0; i < count; i++) {
+            int source = map[3 * i];
+            resultHorizontalSeparations[i] = horizontalSeparations[source];
+            resultVerticalSeparations[i] = verticalSeparations[source];
+            if (map[3 * i + 1] == 1) {
+                resultPrecisions[i] = (paletteDepths[map[3 * i + 2]] & 0x7f) + 1;
+                resultSigned[i] = (paletteDepths[map[3 * i + 2]] & 0x80) != 0;
+            } else {
+                resultPrecisions[i] = precisions[source];
+                resultSigned[i] = signed[source];
+            }
+        }
+        Jpeg2000Raster result = new Jpeg2000Raster(imageX0, imageY0, imageX1, imageY1, resultPrecisions,
+                resultSigned, resultHorizontalSeparations, resultVerticalSeparations);
+        for (int i = 0; i < count; i++) {
+            int[] source = raster.getComponentSamples(map[3 * i]);
+            int[] target = result.getComponentSamples(i);
+            if (map[3 * i + 1] == 1) {
+                int[] column = palette[map[3 * i + 2]];
+                for (int k = 0; k < source.length; k++) {
+                    target[k] = column[Math.max(0, Math.min(column.length - 1, source[k]))];
+                }
+            } else {
+                System.arraycopy(source, 0, target, 0, source.length);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isMarkerWithoutSegment(int marker) {
+        // 0xFF30 - 0xFF3F markers are reserved for markers without marker segment parameters
+        return (marker & 0xfff0) == 0xff30;
+    }
+
+    private int readShort(int position) {
+        return ((data[position] & 0xff) << 8) | (data[position + 1] & 0xff);
+    }
+
+    private int readInt(int position) {
+        return readInt(data, position);
+    }
+
+    private static int readInt(byte[] buffer, int position) {
+        return ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16)
+                | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+    }
+}
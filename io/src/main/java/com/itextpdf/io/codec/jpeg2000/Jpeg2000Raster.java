@@ -0,0 +1,229 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * Decoded samples of a JPEG2000 image.
+ *
+ * <p>
+ * Every component is kept in its own plane with the resolution of the component, i.e. subsampled
+ * components are not upsampled until {@link #getSample(int, int, int)} or {@link #toByteArray()} is called.
+ */
+public final class Jpeg2000Raster {
+
+    private final int x0;
+    private final int y0;
+    private final int width;
+    private final int height;
+    private final int[] precisions;
+    private final boolean[] signed;
+    private final int[] horizontalSeparations;
+    private final int[] verticalSeparations;
+    private final int[] componentX0;
+    private final int[] componentY0;
+    private final int[] componentWidths;
+    private final int[] componentHeights;
+    private final int[][] samples;
+
+    Jpeg2000Raster(int x0, int y0, int x1, int y1, int[] precisions, boolean[] signed, int[] horizontalSeparations,
+            int[] verticalSeparations) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = x1 - x0;
+        this.height = y1 - y0;
+        this.precisions = precisions;
+        this.signed = signed;
+        this.horizontalSeparations = horizontalSeparations;
+        this.verticalSeparations = verticalSeparations;
+        int components = precisions.length;
+        componentX0 = new int[components];
+        componentY0 = new int[components];
+        componentWidths = new int[components];
+        componentHeights = new int[components];
+        samples = new int[components][];
+        for (int c = 0; c < components; c++) {
+            componentX0[c] = TileComponent.ceilDiv(x0, horizontalSeparations[c]);
+            componentY0[c] = TileComponent.ceilDiv(y0, verticalSeparations[c]);
+            componentWidths[c] = TileComponent.ceilDiv(x1, horizontalSeparations[c]) - componentX0[c];
+            componentHeights[c] = TileComponent.ceilDiv(y1, verticalSeparations[c]) - componentY0[c];
+            samples[c] = new int[componentWidths[c] * componentHeights[c]];
+        }
+    }
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of components of the image.
+     *
+     * @return the number of components
+     */
+    public int getNumberOfComponents() {
+        return precisions.length;
+    }
+
+    /**
+     * Gets the bit depth of a component.
+     *
+     * @param component the index of the component
+     * @return the number of bits of the component samples
+     */
+    public int getPrecision(int component) {
+        return precisions[component];
+    }
+
+    /**
+     * Checks whether the samples of a component are signed.
+     *
+     * @param component the index of the component
+     * @return {@code true} if the samples are signed
+     */
+    public boolean isSigned(int component) {
+        return signed[component];
+    }
+
+    /**
+     * Gets a sample of a component at the given image position. Subsampled components
+     * are upsampled with the nearest neighbour.
+     *
+     * @param component the index of the component
+     * @param x         the horizontal position in the image
+     * @param y         the vertical position in the image
+     * @return the sample value
+     */
+    public int getSample(int component, int x, int y) {
+        int cx = Math.min((x0 + x) / horizontalSeparations[component] - componentX0[component],
+                componentWidths[component] - 1);
+        int cy = Math.min((y0 + y) / verticalSeparations[component] - componentY0[component],
+                componentHeights[component] - 1);
+        return samples[component][Math.max(cy, 0) * componentWidths[component] + Math.max(cx, 0)];
+    }
+
+    /**
+     * Gets the number of bits per component of {@link #toByteArray()} data.
+     *
+     * @return 8 if all the components have at most 8 bits, 16 otherwise
+     */
+    public int getBitsPerComponent() {
+        for (int precision : precisions) {
+            if (precision > 8) {
+                return 16;
+            }
+        }
+        return 8;
+    }
+
+    /**
+     * Gets the pixels of the image with interleaved components, as they are expected in the data
+     * of a PDF image. Samples are scaled to {@link #getBitsPerComponent()} bits, signed samples
+     * are shifted to the unsigned range.
+     *
+     * @return image data
+     */
+    public byte[] toByteArray() {
+        int components = getNumberOfComponents();
+        int bytesPerSample = getBitsPerComponent() / 8;
+        int maxValue = (1 << (8 * bytesPerSample)) - 1;
+        byte[] result = new byte[width * height * components * bytesPerSample];
+        int position = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int c = 0; c < components; c++) {
+                    long value = getSample(c, x, y);
+                    int precision = precisions[c];
+                    if (signed[c]) {
+                        value += 1L << (precision - 1);
+                    }
+                    if (precision != 8 * bytesPerSample) {
+                        value = value * maxValue / ((1L << precision) - 1);
+                    }
+                    if (bytesPerSample == 2) {
+                        result[position++] = (byte) (value >> 8);
+                    }
+                    result[position++] = (byte) value;
+                }
+            }
+        }
+        return result;
+    }
+
+    int getHorizontalSeparation(int component) {
+        return horizontalSeparations[component];
+    }
+
+    int getVerticalSeparation(int component) {
+        return verticalSeparations[component];
+    }
+
+    int[] getComponentSamples(int component) {
+        return samples[component];
+    }
+
+    int getComponentX0(int component) {
+        return componentX0[component];
+    }
+
+    int getComponentY0(int component) {
+        return componentY0[component];
+    }
+
+    int getComponentWidth(int component) {
+        return componentWidths[component];
+    }
+}
@@ -0,0 +1,352 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the packets of a tile and distributes their bodies to the code-blocks (ISO/IEC 15444-1, B.9 - B.12).
+ */
+final class PacketDecoder {
+
+    private static final int SOP_MARKER = 0x91;
+    private static final int EPH_MARKER = 0x92;
+    private static final int MAX_ZERO_BIT_PLANES = 74;
+
+    private final Tile tile;
+    private final byte[] data;
+    private final int end;
+    private final PacketHeaderReader packedHeaderReader;
+    private final boolean startOfPacketMarkers;
+    private final boolean endOfPacketHeaderMarkers;
+    private final List<CodeBlock.Segment> pendingSegments = new ArrayList<>();
+    private int position;
+
+    PacketDecoder(Tile tile, byte[] data, int end, byte[] packedHeaders) {
+        this.tile = tile;
+        this.data = data;
+        this.end = end;
+        this.packedHeaderReader = packedHeaders == null ? null
+                : new PacketHeaderReader(packedHeaders, 0, packedHeaders.length);
+        CodingParameters defaults = tile.parameters.getDefaults();
+        this.startOfPacketMarkers = defaults.startOfPacketMarkers;
+        this.endOfPacketHeaderMarkers = defaults.endOfPacketHeaderMarkers;
+    }
+
+    /**
+     * Reads all the packets of the tile in the order given by the progression order
+     * and the progression order changes.
+     */
+    void decodePackets() {
+        CodingParameters defaults = tile.parameters.getDefaults();
+        int components = tile.components.length;
+        int maxResolutions = 0;
+        for (TileComponent component : tile.components) {
+            maxResolutions = Math.max(maxResolutions, component.resolutions.length);
+        }
+        List<int[]> changes = tile.parameters.getProgressionChanges();
+        if (changes.isEmpty()) {
+            decodePackets(0, 0, defaults.layers, maxResolutions, components, defaults.progressionOrder);
+        } else {
+            for (int[] change : changes) {
+                decodePackets(change[0], change[1], Math.min(change[2], defaults.layers),
+                        Math.min(change[3], maxResolutions), Math.min(change[4], components), change[5]);
+            }
+        }
+    }
+
+    private void decodePackets(int resolutionStart, int componentStart, int layerEnd, int resolutionEnd,
+            int componentEnd, int order) {
+        if (componentStart >= componentEnd) {
+            return;
+        }
+        switch (order) {
+            case CodingParameters.LRCP:
+                for (int l = 0; l < layerEnd; l++) {
+                    for (int r = resolutionStart; r < resolutionEnd; r++) {
+                        for (int c = componentStart; c < componentEnd; c++) {
+                            decodePrecinctPackets(c, r, l, l + 1);
+                        }
+                    }
+                }
+                break;
+            case CodingParameters.RLCP:
+                for (int r = resolutionStart; r < resolutionEnd; r++) {
+                    for (int l = 0; l < layerEnd; l++) {
+                        for (int c = componentStart; c < componentEnd; c++) {
+                            decodePrecinctPackets(c, r, l, l + 1);
+                        }
+                    }
+                }
+                break;
+            case CodingParameters.RPCL: {
+                long xStep = horizontalStep(componentStart, componentEnd);
+                long yStep = verticalStep(componentStart, componentEnd);
+                for (int r = resolutionStart; r < resolutionEnd; r++) {
+                    for (long y = tile.y0; y < tile.y1; y = nextPosition(y, yStep)) {
+                        for (long x = tile.x0; x < tile.x1; x = nextPosition(x, xStep)) {
+                            for (int c = componentStart; c < componentEnd; c++) {
+                                decodePacketsAt(c, r, x, y, layerEnd);
+                            }
+                        }
+                    }
+                }
+                break;
+            }
+            case CodingParameters.PCRL: {
+                long xStep = horizontalStep(componentStart, componentEnd);
+                long yStep = verticalStep(componentStart, componentEnd);
+                for (long y = tile.y0; y < tile.y1; y = nextPosition(y, yStep)) {
+                    for (long x = tile.x0; x < tile.x1; x = nextPosition(x, xStep)) {
+                        for (int c = componentStart; c < componentEnd; c++) {
+                            for (int r = resolutionStart; r < resolutionEnd; r++) {
+                                decodePacketsAt(c, r, x, y, layerEnd);
+                            }
+                        }
+                    }
+                }
+                break;
+            }
+            case CodingParameters.CPRL:
+                for (int c = componentStart; c < componentEnd; c++) {
+                    long xStep = horizontalStep(c, c + 1);
+                    long yStep = verticalStep(c, c + 1);
+                    for (long y = tile.y0; y < tile.y1; y = nextPosition(y, yStep)) {
+                        for (long x = tile.x0; x < tile.x1; x = nextPosition(x, xStep)) {
+                            for (int r = resolutionStart; r < resolutionEnd; r++) {
+                                decodePacketsAt(c, r, x, y, layerEnd);
+                            }
+                        }
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static long nextPosition(long position, long step) {
+        return position + step - position % step;
+    }
+
+    private long horizontalStep(int componentStart, int componentEnd) {
+        long step = Long.MAX_VALUE;
+        for (int c = componentStart; c < componentEnd; c++) {
+            TileComponent component = tile.components[c];
+            int levels = component.resolutions.length - 1;
+            for (int r = 0; r <= levels; r++) {
+                step = Math.min(step,
+                        (long) component.horizontalSeparation << (component.resolutions[r].precinctWidth + levels - r));
+            }
+        }
+        return step;
+    }
+
+    private long verticalStep(int componentStart, int componentEnd) {
+        long step = Long.MAX_VALUE;
+        for (int c = componentStart; c < componentEnd; c++) {
+            TileComponent component = tile.components[c];
+            int levels = component.resolutions.length - 1;
+            for (int r = 0; r <= levels; r++) {
+                step = Math.min(step,
+                        (long) component.verticalSeparation << (component.resolutions[r].precinctHeight + levels - r));
+            }
+        }
+        return step;
+    }
+
+    private void decodePrecinctPackets(int c, int r, int layer, int layerEnd) {
+        TileComponent component = tile.components[c];
+        if (r >= component.resolutions.length) {
+            return;
+        }
+        Precinct[] precincts = component.resolutions[r].precincts;
+        for (Precinct precinct : precincts) {
+            decodePackets(component, precinct, layer, layerEnd);
+        }
+    }
+
+    /**
+     * Reads the packets of the precinct which starts at the given position on the reference grid, if any.
+     */
+    private void decodePacketsAt(int c, int r, long x, long y, int layerEnd) {
+        TileComponent component = tile.components[c];
+        if (r >= component.resolutions.length) {
+            return;
+        }
+        Resolution resolution = component.resolutions[r];
+        int level = component.resolutions.length - 1 - r;
+        if (resolution.precinctsWide == 0 || resolution.precinctsHigh == 0) {
+            return;
+        }
+        int horizontalShift = resolution.precinctWidth + level;
+        int verticalShift = resolution.precinctHeight + level;
+        if (y % ((long) component.verticalSeparation << verticalShift) != 0
+                && (y != tile.y0 || ((long) resolution.y0 << level) % (1L << verticalShift) == 0)) {
+            return;
+        }
+        if (x % ((long) component.horizontalSeparation << horizontalShift) != 0
+                && (x != tile.x0 || ((long) resolution.x0 << level) % (1L << horizontalShift) == 0)) {
+            return;
+        }
+        long xDivisor = (long) component.horizontalSeparation << level;
+        long yDivisor = (long) component.verticalSeparation << level;
+        long i = ((x + xDivisor - 1) / xDivisor >> resolution.precinctWidth) - (resolution.x0 >> resolution.precinctWidth);
+        long j = ((y + yDivisor - 1) / yDivisor >> resolution.precinctHeight)
+                - (resolution.y0 >> resolution.precinctHeight);
+        if (i < 0 || j < 0 || i >= resolution.precinctsWide || j >= resolution.precinctsHigh) {
+            return;
+        }
+        decodePackets(component, resolution.precincts[(int) (j * resolution.precinctsWide + i)], 0, layerEnd);
+    }
+
+    private void decodePackets(TileComponent component, Precinct precinct, int layerStart, int layerEnd) {
+        for (int layer = Math.max(layerStart, precinct.nextLayer); layer < layerEnd; layer++) {
+            if (position >= end && (packedHeaderReader == null || !packedHeaderReader.hasMoreData())) {
+                return;
+            }
+            decodePacket(component, precinct, layer);
+            precinct.nextLayer = layer + 1;
+        }
+    }
+
+    private void decodePacket(TileComponent component, Precinct precinct, int layer) {
+        if (startOfPacketMarkers && position + 1 < end && (data[position] & 0xff) == 0xff
+                && (data[position + 1] & 0xff) == SOP_MARKER) {
+            position += 6;
+        }
+        PacketHeaderReader reader = packedHeaderReader;
+        if (reader == null) {
+            reader = new PacketHeaderReader(data, position, end);
+        }
+        int style = component.codingStyle.codeBlockStyle;
+        pendingSegments.clear();
+        if (reader.readBit() == 1) {
+            for (int b = 0; b < precinct.codeBlocks.length; b++) {
+                CodeBlock[] blocks = precinct.codeBlocks[b];
+                for (int k = 0; k < blocks.length; k++) {
+                    decodeCodeBlockHeader(reader, precinct, b, k, layer, style);
+                }
+            }
+        }
+        reader.align();
+        if (endOfPacketHeaderMarkers) {
+            reader.skipMarker(EPH_MARKER, 2);
+        }
+        if (packedHeaderReader == null) {
+            position = reader.getPosition();
+        }
+        for (CodeBlock.Segment segment : pendingSegments) {
+            int available = Math.min(segment.newLength, end - position);
+            if (available > 0) {
+                segment.append(data, position, available);
+            }
+            position += segment.newLength;
+            segment.passes += segment.newPasses;
+            segment.newPasses = 0;
+        }
+    }
+
+    private void decodeCodeBlockHeader(PacketHeaderReader reader, Precinct precinct, int band, int index,
+            int layer, int style) {
+        CodeBlock block = precinct.codeBlocks[band][index];
+        boolean included;
+        if (block.included) {
+            included = reader.readBit() == 1;
+        } else {
+            included = precinct.inclusionTrees[band].decode(reader, index, layer + 1);
+        }
+        if (!included) {
+            return;
+        }
+        if (!block.included) {
+            TagTree tree = precinct.zeroBitPlaneTrees[band];
+            int threshold = 1;
+            while (!tree.decode(reader, index, threshold) && threshold < MAX_ZERO_BIT_PLANES) {
+                threshold++;
+            }
+            block.zeroBitPlanes = tree.getValue(index);
+            block.included = true;
+        }
+        int passes = readNumberOfPasses(reader);
+        while (reader.readBit() == 1) {
+            block.lengthBits++;
+        }
+        block.codingPasses += passes;
+        CodeBlock.Segment segment = block.getOpenSegment(style);
+        while (true) {
+            segment.newPasses = Math.min(segment.maxPasses - segment.passes, passes);
+            segment.newLength = reader.readBits(block.lengthBits + floorLog2(segment.newPasses));
+            pendingSegments.add(segment);
+            passes -= segment.newPasses;
+            if (passes <= 0) {
+                break;
+            }
+            segment = block.addSegment(style);
+        }
+    }
+
+    private static int readNumberOfPasses(PacketHeaderReader reader) {
+        if (reader.readBit() == 0) {
+            return 1;
+        }
+        if (reader.readBit() == 0) {
+            return 2;
+        }
+        int value = reader.readBits(2);
+        if (value < 3) {
+            return 3 + value;
+        }
+        value = reader.readBits(5);
+        if (value < 31) {
+            return 6 + value;
+        }
+        return 37 + reader.readBits(7);
+    }
+
+    private static int floorLog2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * Reads the bits of packet headers, taking the bit-stuffing after {@code 0xFF} bytes into account
+ * (ISO/IEC 15444-1, B.10.1). Zero bits are returned after the end of data.
+ */
+final class PacketHeaderReader {
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+    private int current;
+    private int bitsLeft;
+
+    PacketHeaderReader(byte[] data, int position, int end) {
+        this.data = data;
+        this.position = position;
+        this.end = end;
+    }
+
+    int readBit() {
+        if (bitsLeft == 0) {
+            bitsLeft = current == 0xff ? 7 : 8;
+            current = position < end ? data[position] & 0xff : 0;
+            position++;
+        }
+        bitsLeft--;
+        return (current >> bitsLeft) & 1;
+    }
+
+    int readBits(int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | readBit();
+        }
+        return value;
+    }
+
+    /**
+     * Skips the rest of the current byte, including the stuffed byte after {@code 0xFF}.
+     */
+    void align() {
+        if (current == 0xff) {
+            position++;
+        }
+        current = 0;
+        bitsLeft = 0;
+    }
+
+    /**
+     * Skips the marker at the current (byte aligned) position if it is present.
+     *
+     * @param marker the second byte of the marker
+     * @param length the length of the marker segment including the marker itself
+     */
+    void skipMarker(int marker, int length) {
+        if (position + 1 < end && (data[position] & 0xff) == 0xff && (data[position + 1] & 0xff) == marker) {
+            position += length;
+        }
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
+    boolean hasMoreData() {
+        return position < end;
+    }
+}
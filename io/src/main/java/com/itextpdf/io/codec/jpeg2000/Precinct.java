@@ -0,0 +1,100 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * A precinct of a resolution level: the code-blocks of every subband of the resolution level which
+ * fall into the precinct area, with the tag trees of their packet headers.
+ */
+final class Precinct {
+
+    final CodeBlock[][] codeBlocks;
+    final int[] widths;
+    final TagTree[] inclusionTrees;
+    final TagTree[] zeroBitPlaneTrees;
+    int nextLayer;
+
+    Precinct(int bands) {
+        codeBlocks = new CodeBlock[bands][];
+        widths = new int[bands];
+        inclusionTrees = new TagTree[bands];
+        zeroBitPlaneTrees = new TagTree[bands];
+    }
+
+    /**
+     * Attaches the code-blocks of a subband which are inside the given area of the subband.
+     *
+     * @param index the index of the subband in the resolution level
+     * @param band  the subband
+     * @param x0    the left edge of the precinct area in subband coordinates
+     * @param y0    the top edge of the precinct area in subband coordinates
+     * @param x1    the right edge of the precinct area in subband coordinates
+     * @param y1    the bottom edge of the precinct area in subband coordinates
+     */
+    void setBand(int index, Subband band, int x0, int y0, int x1, int y1) {
+        x0 = Math.max(x0, band.x0);
+        y0 = Math.max(y0, band.y0);
+        x1 = Math.min(x1, band.x1);
+        y1 = Math.min(y1, band.y1);
+        if (x1 <= x0 || y1 <= y0) {
+            codeBlocks[index] = new CodeBlock[0];
+            return;
+        }
+        int i0 = (x0 >> band.codeBlockWidth) - band.firstCodeBlockX;
+        int j0 = (y0 >> band.codeBlockHeight) - band.firstCodeBlockY;
+        int i1 = ((x1 - 1) >> band.codeBlockWidth) - band.firstCodeBlockX + 1;
+        int j1 = ((y1 - 1) >> band.codeBlockHeight) - band.firstCodeBlockY + 1;
+        int width = i1 - i0;
+        CodeBlock[] blocks = new CodeBlock[width * (j1 - j0)];
+        for (int j = j0; j < j1; j++) {
+            for (int i = i0; i < i1; i++) {
+                blocks[(j - j0) * width + i - i0] = band.codeBlocks[j * band.codeBlocksWide + i];
+            }
+        }
+        codeBlocks[index] = blocks;
+        widths[index] = width;
+        inclusionTrees[index] = new TagTree(width, j1 - j0);
+        zeroBitPlaneTrees[index] = new TagTree(width, j1 - j0);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * Quantization parameters from QCD and QCC marker segments (ISO/IEC 15444-1, A.6.4, A.6.5).
+ */
+final class QuantizationStyle {
+
+    private static final int NO_QUANTIZATION = 0;
+    private static final int SCALAR_DERIVED = 1;
+
+    int guardBits;
+    int style;
+    int[] exponents;
+    int[] mantissas;
+
+    /**
+     * Reads Sqcd and SPqcd (or Sqcc and SPqcc) parameters.
+     *
+     * @param data   the codestream
+     * @param offset the offset of the Sqcd parameter
+     * @param end    the end of the marker segment
+     * @return the parsed quantization style
+     */
+    static QuantizationStyle read(byte[] data, int offset, int end) {
+        QuantizationStyle quantization = new QuantizationStyle();
+        int sqcd = data[offset] & 0xff;
+        quantization.guardBits = sqcd >> 5;
+        quantization.style = sqcd & 0x1f;
+        int position = offset + 1;
+        int count = quantization.style == NO_QUANTIZATION ? end - position : (end - position) / 2;
+        quantization.exponents = new int[count];
+        quantization.mantissas = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (quantization.style == NO_QUANTIZATION) {
+                quantization.exponents[i] = (data[position++] & 0xff) >> 3;
+            } else {
+                int value = ((data[position] & 0xff) << 8) | (data[position + 1] & 0xff);
+                position += 2;
+                quantization.exponents[i] = value >> 11;
+                quantization.mantissas[i] = value & 0x7ff;
+            }
+        }
+        return quantization;
+    }
+
+    /**
+     * Gets the exponent of the step size of a subband.
+     *
+     * @param band   the index of the subband in the order of the marker segment
+     * @param levels the number of decomposition levels
+     * @param level  the decomposition level of the subband
+     * @return the exponent
+     */
+    int getExponent(int band, int levels, int level) {
+        if (style == SCALAR_DERIVED) {
+            return exponents[0] - levels + level;
+        }
+        return exponents[Math.min(band, exponents.length - 1)];
+    }
+
+    int getMantissa(int band) {
+        if (style == SCALAR_DERIVED) {
+            return mantissas[0];
+        }
+        return mantissas[Math.min(band, mantissas.length - 1)];
+    }
+}
@@ -0,0 +1,107 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * A resolution level of a tile-component (ISO/IEC 15444-1, B.5, B.6).
+ */
+final class Resolution {
+
+    final int x0;
+    final int y0;
+    final int x1;
+    final int y1;
+    final int precinctWidth;
+    final int precinctHeight;
+    final int precinctsWide;
+    final int precinctsHigh;
+
+    Subband[] bands;
+    Precinct[] precincts;
+
+    Resolution(int x0, int y0, int x1, int y1, int precinctWidth, int precinctHeight) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.precinctWidth = precinctWidth;
+        this.precinctHeight = precinctHeight;
+        this.precinctsWide = x1 > x0 ? ceilDivPow2(x1, precinctWidth) - (x0 >> precinctWidth) : 0;
+        this.precinctsHigh = y1 > y0 ? ceilDivPow2(y1, precinctHeight) - (y0 >> precinctHeight) : 0;
+    }
+
+    /**
+     * Creates the precincts and assigns the code-blocks of the subbands to them.
+     *
+     * @param lowestLevel whether it is the lowest resolution level which contains only the LL subband
+     */
+    void createPrecincts(boolean lowestLevel) {
+        precincts = new Precinct[precinctsWide * precinctsHigh];
+        // precinct size in subband coordinates
+        int bandPrecinctWidth = lowestLevel ? precinctWidth : precinctWidth - 1;
+        int bandPrecinctHeight = lowestLevel ? precinctHeight : precinctHeight - 1;
+        int firstX = x0 >> precinctWidth;
+        int firstY = y0 >> precinctHeight;
+        for (int j = 0; j < precinctsHigh; j++) {
+            for (int i = 0; i < precinctsWide; i++) {
+                Precinct precinct = new Precinct(bands.length);
+                long px0 = (long) (firstX + i) << bandPrecinctWidth;
+                long py0 = (long) (firstY + j) << bandPrecinctHeight;
+                for (int b = 0; b < bands.length; b++) {
+                    precinct.setBand(b, bands[b], clamp(px0), clamp(py0), clamp(px0 + (1L << bandPrecinctWidth)),
+                            clamp(py0 + (1L << bandPrecinctHeight)));
+                }
+                precincts[j * precinctsWide + i] = precinct;
+            }
+        }
+    }
+
+    static int ceilDivPow2(int value, int exponent) {
+        return (int) (((long) value + (1L << exponent) - 1) >> exponent);
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * A subband of a tile-component with its code-blocks and, after decoding, its coefficients.
+ */
+final class Subband {
+
+    static final int LL = 0;
+    static final int HL = 1;
+    static final int LH = 2;
+    static final int HH = 3;
+
+    final int type;
+    final int x0;
+    final int y0;
+    final int x1;
+    final int y1;
+
+    int magnitudeBits;
+    float stepSize;
+    int codeBlockWidth;
+    int codeBlockHeight;
+    int firstCodeBlockX;
+    int firstCodeBlockY;
+    int codeBlocksWide;
+    int codeBlocksHigh;
+    CodeBlock[] codeBlocks;
+
+    int[] coefficients;
+    float[] floatCoefficients;
+
+    Subband(int type, int x0, int y0, int x1, int y1) {
+        this.type = type;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+    }
+
+    int getWidth() {
+        return x1 - x0;
+    }
+
+    int getHeight() {
+        return y1 - y0;
+    }
+
+    /**
+     * Partitions the subband into code-blocks of the given size.
+     *
+     * @param widthExponent  the exponent of the code-block width
+     * @param heightExponent the exponent of the code-block height
+     */
+    void createCodeBlocks(int widthExponent, int heightExponent) {
+        codeBlockWidth = widthExponent;
+        codeBlockHeight = heightExponent;
+        if (x1 <= x0 || y1 <= y0) {
+            codeBlocks = new CodeBlock[0];
+            return;
+        }
+        firstCodeBlockX = x0 >> widthExponent;
+        firstCodeBlockY = y0 >> heightExponent;
+        codeBlocksWide = ((x1 - 1) >> widthExponent) - firstCodeBlockX + 1;
+        codeBlocksHigh = ((y1 - 1) >> heightExponent) - firstCodeBlockY + 1;
+        codeBlocks = new CodeBlock[codeBlocksWide * codeBlocksHigh];
+        for (int j = 0; j < codeBlocksHigh; j++) {
+            for (int i = 0; i < codeBlocksWide; i++) {
+                int cx0 = (firstCodeBlockX + i) << widthExponent;
+                int cy0 = (firstCodeBlockY + j) << heightExponent;
+                codeBlocks[j * codeBlocksWide + i] = new CodeBlock(Math.max(cx0, x0), Math.max(cy0, y0),
+                        Math.min(cx0 + (1 << widthExponent), x1), Math.min(cy0 + (1 << heightExponent), y1));
+            }
+        }
+    }
+}
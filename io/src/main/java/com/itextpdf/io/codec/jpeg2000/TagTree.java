@@ -0,0 +1,129 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import java.util.Arrays;
+
+/**
+ * Tag tree used to code the inclusion information and the number of missing bit-planes
+ * of the code-blocks of a precinct (ISO/IEC 15444-1, B.10.2).
+ */
+final class TagTree {
+
+    private final int[] parents;
+    private final int[] values;
+    private final int[] lows;
+    private final int[] path;
+
+    TagTree(int width, int height) {
+        int nodes = width * height;
+        int depth = 1;
+        int w = width;
+        int h = height;
+        while (w * h > 1) {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            nodes += w * h;
+            depth++;
+        }
+        parents = new int[nodes];
+        values = new int[nodes];
+        lows = new int[nodes];
+        path = new int[depth];
+        Arrays.fill(values, Integer.MAX_VALUE);
+        int levelStart = 0;
+        w = width;
+        h = height;
+        while (w * h > 1) {
+            int parentWidth = (w + 1) >> 1;
+            int parentStart = levelStart + w * h;
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    parents[levelStart + y * w + x] = parentStart + (y >> 1) * parentWidth + (x >> 1);
+                }
+            }
+            levelStart = parentStart;
+            w = parentWidth;
+            h = (h + 1) >> 1;
+        }
+        parents[levelStart] = -1;
+    }
+
+    /**
+     * Decodes the value of the leaf up to the given threshold.
+     *
+     * @param reader    the packet header reader
+     * @param leaf      the index of the leaf
+     * @param threshold the threshold
+     * @return {@code true} if the value of the leaf is less than the threshold
+     */
+    boolean decode(PacketHeaderReader reader, int leaf, int threshold) {
+        int depth = 0;
+        for (int node = leaf; node >= 0; node = parents[node]) {
+            path[depth++] = node;
+        }
+        int low = 0;
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            if (low > lows[node]) {
+                lows[node] = low;
+            } else {
+                low = lows[node];
+            }
+            while (low < threshold && low < values[node]) {
+                if (reader.readBit() == 1) {
+                    values[node] = low;
+                } else {
+                    low++;
+                }
+            }
+            lows[node] = low;
+        }
+        return values[leaf] < threshold;
+    }
+
+    int getValue(int leaf) {
+        return values[leaf];
+    }
+}
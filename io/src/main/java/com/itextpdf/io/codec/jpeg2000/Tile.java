@@ -0,0 +1,200 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A tile of the image: the coded data of all its tile-parts and the decoding pipeline
+ * from packets to reconstructed samples.
+ */
+final class Tile {
+
+    final int x0;
+    final int y0;
+    final int x1;
+    final int y1;
+    final CodingParameters parameters;
+    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    ByteArrayOutputStream packedHeaders;
+    TileComponent[] components;
+
+    Tile(int x0, int y0, int x1, int y1, CodingParameters parameters) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Decodes the tile and stores its samples in the raster.
+     *
+     * @param raster   the raster of the image
+     * @param parallel whether code-blocks may be decoded in parallel
+     */
+    void decode(Jpeg2000Raster raster, boolean parallel) {
+        int count = raster.getNumberOfComponents();
+        components = new TileComponent[count];
+        for (int c = 0; c < count; c++) {
+            components[c] = new TileComponent(x0, y0, x1, y1, raster.getHorizontalSeparation(c),
+                    raster.getVerticalSeparation(c), raster.getPrecision(c), parameters.getCodingStyle(c),
+                    parameters.getQuantizationStyle(c), parameters.getRoiShift(c));
+        }
+        byte[] bytes = data.toByteArray();
+        new PacketDecoder(this, bytes, bytes.length, packedHeaders == null ? null : packedHeaders.toByteArray())
+                .decodePackets();
+        decodeCodeBlocks(parallel);
+        for (TileComponent component : components) {
+            InverseWaveletTransform.reconstruct(component);
+        }
+        if (parameters.getDefaults().multipleComponentTransform && count >= 3) {
+            applyInverseComponentTransform();
+        }
+        for (int c = 0; c < count; c++) {
+            store(components[c], c, raster);
+        }
+        components = null;
+    }
+
+    private void decodeCodeBlocks(boolean parallel) {
+        final List<CodeBlock> blocks = new ArrayList<>();
+        final List<Subband> bands = new ArrayList<>();
+        final List<TileComponent> owners = new ArrayList<>();
+        for (TileComponent component : components) {
+            for (Resolution resolution : component.resolutions) {
+                for (Subband band : resolution.bands) {
+                    int size = band.getWidth() * band.getHeight();
+                    if (component.codingStyle.reversible) {
+                        band.coefficients = new int[size];
+                    } else {
+                        band.floatCoefficients = new float[size];
+                    }
+                    for (CodeBlock block : band.codeBlocks) {
+                        if (block.codingPasses > 0) {
+                            blocks.add(block);
+                            bands.add(band);
+                            owners.add(component);
+                        }
+                    }
+                }
+            }
+        }
+        IntStream indices = IntStream.range(0, blocks.size());
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> {
+            TileComponent component = owners.get(i);
+            CodeBlockDecoder.decode(blocks.get(i), bands.get(i), component.codingStyle.codeBlockStyle,
+                    component.roiShift, component.codingStyle.reversible);
+        });
+    }
+
+    /**
+     * Applies the inverse reversible or irreversible component transformation (ISO/IEC 15444-1, G.2, G.3).
+     */
+    private void applyInverseComponentTransform() {
+        if (components[0].codingStyle.reversible) {
+            int[] first = components[0].samples;
+            int[] second = components[1].samples;
+            int[] third = components[2].samples;
+            if (second == null || third == null || first.length != second.length || first.length != third.length) {
+                return;
+            }
+            for (int i = 0; i < first.length; i++) {
+                int y = first[i];
+                int cb = second[i];
+                int cr = third[i];
+                int g = y - ((cr + cb) >> 2);
+                first[i] = cr + g;
+                second[i] = g;
+                third[i] = cb + g;
+            }
+        } else {
+            float[] first = components[0].floatSamples;
+            float[] second = components[1].floatSamples;
+            float[] third = components[2].floatSamples;
+            if (second == null || third == null || first.length != second.length || first.length != third.length) {
+                return;
+            }
+            for (int i = 0; i < first.length; i++) {
+                float y = first[i];
+                float cb = second[i];
+                float cr = third[i];
+                first[i] = y + 1.402f * cr;
+                second[i] = y - 0.34413f * cb - 0.71414f * cr;
+                third[i] = y + 1.772f * cb;
+            }
+        }
+    }
+
+    private static void store(TileComponent component, int c, Jpeg2000Raster raster) {
+        int precision = raster.getPrecision(c);
+        int shift = raster.isSigned(c) ? 0 : (int) (1L << (precision - 1));
+        int min = raster.isSigned(c) ? (int) -(1L << (precision - 1)) : 0;
+        int max = (int) (raster.isSigned(c) ? (1L << (precision - 1)) - 1 : (1L << precision) - 1);
+        int[] target = raster.getComponentSamples(c);
+        int targetWidth = raster.getComponentWidth(c);
+        int width = component.getWidth();
+        int height = component.getHeight();
+        int offsetX = component.x0 - raster.getComponentX0(c);
+        int offsetY = component.y0 - raster.getComponentY0(c);
+        for (int y = 0; y < height; y++) {
+            int position = (offsetY + y) * targetWidth + offsetX;
+            for (int x = 0; x < width; x++) {
+                int value;
+                if (component.samples != null) {
+                    value = component.samples[y * width + x];
+                } else {
+                    value = Math.round(component.floatSamples[y * width + x]);
+                }
+                target[position + x] = (int) Math.max(min, Math.min(max, (long) value + shift));
+            }
+        }
+    }
+}
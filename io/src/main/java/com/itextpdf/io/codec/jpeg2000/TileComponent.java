@@ -0,0 +1,156 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+/**
+ * A component of a tile with its resolution levels, subbands and code-blocks (ISO/IEC 15444-1, B.3 - B.7).
+ */
+final class TileComponent {
+
+    final int x0;
+    final int y0;
+    final int x1;
+    final int y1;
+    final int horizontalSeparation;
+    final int verticalSeparation;
+    final CodingStyle codingStyle;
+    final QuantizationStyle quantizationStyle;
+    final int roiShift;
+    final Resolution[] resolutions;
+
+    int[] samples;
+    float[] floatSamples;
+
+    /**
+     * Creates the tile-component structure.
+     *
+     * @param tileX0               the left edge of the tile on the reference grid
+     * @param tileY0               the top edge of the tile on the reference grid
+     * @param tileX1               the right edge of the tile on the reference grid
+     * @param tileY1               the bottom edge of the tile on the reference grid
+     * @param horizontalSeparation the horizontal separation of the component samples
+     * @param verticalSeparation   the vertical separation of the component samples
+     * @param precision            the precision of the component samples
+     * @param codingStyle          the coding style of the component
+     * @param quantizationStyle    the quantization of the component
+     * @param roiShift             the region of interest shift
+     */
+    TileComponent(int tileX0, int tileY0, int tileX1, int tileY1, int horizontalSeparation, int verticalSeparation,
+            int precision, CodingStyle codingStyle, QuantizationStyle quantizationStyle, int roiShift) {
+        this.x0 = ceilDiv(tileX0, horizontalSeparation);
+        this.y0 = ceilDiv(tileY0, verticalSeparation);
+        this.x1 = ceilDiv(tileX1, horizontalSeparation);
+        this.y1 = ceilDiv(tileY1, verticalSeparation);
+        this.horizontalSeparation = horizontalSeparation;
+        this.verticalSeparation = verticalSeparation;
+        this.codingStyle = codingStyle;
+        this.quantizationStyle = quantizationStyle;
+        this.roiShift = roiShift;
+        int levels = codingStyle.decompositionLevels;
+        resolutions = new Resolution[levels + 1];
+        for (int r = 0; r <= levels; r++) {
+            int shift = levels - r;
+            Resolution resolution = new Resolution(ceilDivPow2(x0, shift), ceilDivPow2(y0, shift),
+                    ceilDivPow2(x1, shift), ceilDivPow2(y1, shift), codingStyle.precinctWidths[r],
+                    codingStyle.precinctHeights[r]);
+            int codeBlockWidth = Math.min(codingStyle.codeBlockWidth,
+                    r > 0 ? resolution.precinctWidth - 1 : resolution.precinctWidth);
+            int codeBlockHeight = Math.min(codingStyle.codeBlockHeight,
+                    r > 0 ? resolution.precinctHeight - 1 : resolution.precinctHeight);
+            if (r == 0) {
+                resolution.bands = new Subband[] {createBand(Subband.LL, levels, 0, precision)};
+            } else {
+                int level = levels - r + 1;
+                resolution.bands = new Subband[] {
+                        createBand(Subband.HL, level, 1 + 3 * (r - 1), precision),
+                        createBand(Subband.LH, level, 2 + 3 * (r - 1), precision),
+                        createBand(Subband.HH, level, 3 + 3 * (r - 1), precision)
+                };
+            }
+            for (Subband band : resolution.bands) {
+                band.createCodeBlocks(codeBlockWidth, codeBlockHeight);
+            }
+            resolution.createPrecincts(r == 0);
+            resolutions[r] = resolution;
+        }
+    }
+
+    int getWidth() {
+        return x1 - x0;
+    }
+
+    int getHeight() {
+        return y1 - y0;
+    }
+
+    static int ceilDiv(int value, int divisor) {
+        return (int) (((long) value + divisor - 1) / divisor);
+    }
+
+    static int ceilDivPow2(int value, int exponent) {
+        return Resolution.ceilDivPow2(value, exponent);
+    }
+
+    private Subband createBand(int type, int level, int index, int precision) {
+        int xOffset = type == Subband.HL || type == Subband.HH ? 1 : 0;
+        int yOffset = type == Subband.LH || type == Subband.HH ? 1 : 0;
+        long offset = 1L << (level - 1);
+        Subband band = new Subband(type, bandCoordinate(x0, xOffset * offset, level),
+                bandCoordinate(y0, yOffset * offset, level), bandCoordinate(x1, xOffset * offset, level),
+                bandCoordinate(y1, yOffset * offset, level));
+        int levels = codingStyle.decompositionLevels;
+        int exponent = quantizationStyle.getExponent(index, levels, type == Subband.LL ? levels : level);
+        band.magnitudeBits = quantizationStyle.guardBits + exponent - 1;
+        if (!codingStyle.reversible) {
+            int gain = type == Subband.LL ? 0 : (type == Subband.HH ? 2 : 1);
+            band.stepSize = (float) (Math.pow(2, precision + gain - exponent)
+                    * (1 + quantizationStyle.getMantissa(index) / 2048.0));
+        }
+        return band;
+    }
+
+    private static int bandCoordinate(int value, long offset, int level) {
+        return (int) ((value - offset + (1L << level) - 1) >> level);
+    }
+}
@@ -109,13 +109,22 @@ public class IOException extends ITextException {
     public static final String InvalidCodeEncounteredWhileDecoding2dGroup4CompressedData = "Invalid code encountered while decoding 2D group 4 compressed data.";
     public static final String InvalidIccProfile = "Invalid ICC profile.";
     public static final String InvalidJpeg2000File = "Invalid JPEG2000 file.";
+    public static final String InvalidJpegFile = "Invalid JPEG file.";
     public static final String InvalidWoff2File = "Invalid WOFF2 font file.";
     public static final String InvalidWoffFile = "Invalid WOFF font file.";
     public static final String InvalidMagicValueForBmpFileMustBeBM = "Invalid magic value for bmp file. Must be 'BM'";
     public static final String InvalidTtcFile = "{0} is not a valid TTC file.";
     public static final String IoException = "I/O exception.";
+    public static final String Jbig2HuffmanCodingIsNotSupported = "Huffman coded JBIG2 symbol dictionaries and text regions are not supported.";
     public static final String Jbig2ImageException = "JBIG2 image exception.";
+    public static final String Jbig2MmrCodedHalftoneRegionsAreNotSupported = "MMR coded JBIG2 halftone regions are not supported.";
+    public static final String Jbig2SegmentTypeIsNotSupported = "JBIG2 segment type {0} is not supported.";
+    public static final String Jbig2SymbolIdIsOutOfRange = "JBIG2 symbol id {0} is out of range.";
+    public static final String Jbig2TooManySymbolInstances = "JBIG2 region contains more symbol instances than declared.";
+    public static final String Jbig2UnexpectedOutOfBandValue = "Unexpected out-of-band value in JBIG2 data.";
     public static final String Jpeg2000ImageException = "JPEG2000 image exception.";
+    public static final String Jpeg2000PrecisionIsNotSupported = "JPEG2000 component precision {0} is not supported.";
+    public static final String JpegCodingProcessIsNotSupported = "JPEG coding process of SOF{0} frames is not supported.";
     public static final String JpegImageException = "JPEG image exception.";
     public static final String MissingTagsForOjpegCompression = "Missing tag(s) for OJPEG compression";
     public static final String NValueIsNotSupported = "N value {1} is not supported.";
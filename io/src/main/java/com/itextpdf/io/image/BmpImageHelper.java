@@ -48,17 +48,20 @@ import com.itextpdf.io.font.PdfEncodings;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 final class BmpImageHelper {
 
     private static class BmpParameters {
-        public BmpParameters(BmpImageData image) {
+        public BmpParameters(BmpImageData image, PixelBufferMode mode) {
             this.image = image;
+            this.mode = mode;
         }
 
         BmpImageData image;
+        PixelBufferMode mode;
         int width;
         int height;
         Map<String, Object> additional;
@@ -118,6 +121,16 @@ final class BmpImageHelper {
      * @param image the image to process as a BMP image
      */
     public static void processImage(ImageData image) {
+        processImage(image, PixelBufferMode.ARRAY);
+    }
+
+    /**
+     * Process the passed Image data as a BMP image.
+     * Image is loaded and all image attributes are initialized and/or updated
+     * @param image the image to process as a BMP image
+     * @param mode where the decoded pixels are kept
+     */
+    static void processImage(ImageData image, PixelBufferMode mode) {
         if (image.getOriginalType() != ImageType.BMP)
             throw new IllegalArgumentException("BMP image expected");
         BmpParameters bmp;
@@ -128,7 +141,7 @@ final class BmpImageHelper {
             }
             bmpStream = new ByteArrayInputStream(image.getData());
             image.imageSize = image.getData().length;
-            bmp = new BmpParameters((BmpImageData)image);
+            bmp = new BmpParameters((BmpImageData)image, mode);
             process(bmp, bmpStream);
             if (getImage(bmp)) {
                 image.setWidth(bmp.width);
@@ -552,8 +565,6 @@ final class BmpImageHelper {
     }
 
     private static boolean getImage(BmpParameters bmp) throws java.io.IOException {
-        // buffer for byte data
-        byte[] bdata;
         //	if (sampleModel.getDataType() == DataBuffer.TYPE_BYTE)
         //	    bdata = (byte[])((DataBufferByte)tile.getDataBuffer()).getData();
         //	else if (sampleModel.getDataType() == DataBuffer.TYPE_USHORT)
@@ -577,9 +588,7 @@ final class BmpImageHelper {
                 return true;
             case VERSION_2_24_BIT:
                 // no compression
-                bdata = new byte[bmp.width * bmp.height * 3];
-                read24Bit(bdata, bmp);
-                RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, bdata);
+                read24Bit(bmp);
                 return true;
             case VERSION_3_1_BIT:
                 // 1-bit images cannot be compressed.
@@ -611,9 +620,7 @@ final class BmpImageHelper {
                 return true;
             case VERSION_3_24_BIT:
                 // 24-bit images are not compressed
-                bdata = new byte[bmp.width * bmp.height * 3];
-                read24Bit(bdata, bmp);
-                RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, bdata);
+                read24Bit(bmp);
                 return true;
             case VERSION_3_NT_16_BIT:
                 read1632Bit(false, bmp);
@@ -652,9 +659,7 @@ final class BmpImageHelper {
                 read1632Bit(false, bmp);
                 return true;
             case VERSION_4_24_BIT:
-                bdata = new byte[bmp.width * bmp.height * 3];
-                read24Bit(bdata, bmp);
-                RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, bdata);
+                read24Bit(bmp);
                 return true;
             case VERSION_4_32_BIT:
                 read1632Bit(true, bmp);
@@ -663,8 +668,8 @@ final class BmpImageHelper {
         return false;
     }
 
-    private static void indexedModel(byte[] bdata, int bpc, int paletteEntries, BmpParameters bmp) {
-        RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 1, bpc, bdata);
+    private static void indexedModel(PixelBuffer pixels, int bpc, int paletteEntries, BmpParameters bmp) {
+        RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 1, bpc, pixels);
         Object[] colorSpace = new Object[4];
         colorSpace[0] = "/Indexed";
         colorSpace[1] = "/DeviceRGB";
@@ -695,7 +700,6 @@ final class BmpImageHelper {
 
     // Deal with 1 Bit images using IndexColorModels
     private static void read1Bit(int paletteEntries, BmpParameters bmp) throws java.io.IOException {
-        byte[] bdata = new byte[(bmp.width + 7) / 8 * bmp.height];
         int padding = 0;
         int bytesPerScanline = (int) Math.ceil(bmp.width / 8.0d);
 
@@ -704,44 +708,11 @@ final class BmpImageHelper {
             padding = 4 - remainder;
         }
 
-        int imSize = (bytesPerScanline + padding) * bmp.height;
-
-        // Read till we have the whole image
-        byte[] values = new byte[imSize];
-        int bytesRead = 0;
-        while (bytesRead < imSize) {
-            bytesRead += bmp.inputStream.read(values, bytesRead,
-                    imSize - bytesRead);
-        }
-
-        if (bmp.isBottomUp) {
-
-            // Convert the bottom up image to a top down format by copying
-            // one scanline from the bottom to the top at a time.
-
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        imSize - (i + 1) * (bytesPerScanline + padding),
-                        bdata,
-                        i * bytesPerScanline, bytesPerScanline);
-            }
-        } else {
-
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        i * (bytesPerScanline + padding),
-                        bdata,
-                        i * bytesPerScanline,
-                        bytesPerScanline);
-            }
-        }
-        indexedModel(bdata, 1, paletteEntries, bmp);
+        indexedModel(readScanlines(bytesPerScanline, padding, bmp), 1, paletteEntries, bmp);
     }
 
     // Method to read a 4 bit BMP image data
     private static void read4Bit(int paletteEntries, BmpParameters bmp) throws java.io.IOException {
-        byte[] bdata = new byte[(bmp.width + 1) / 2 * bmp.height];
-
         // Padding bytes at the end of each scanline
         int padding = 0;
 
@@ -751,42 +722,11 @@ final class BmpImageHelper {
             padding = 4 - remainder;
         }
 
-        int imSize = (bytesPerScanline + padding) * bmp.height;
-
-        // Read till we have the whole image
-        byte[] values = new byte[imSize];
-        int bytesRead = 0;
-        while (bytesRead < imSize) {
-            bytesRead += bmp.inputStream.read(values, bytesRead,
-                    imSize - bytesRead);
-        }
-
-        if (bmp.isBottomUp) {
-
-            // Convert the bottom up image to a top down format by copying
-            // one scanline from the bottom to the top at a time.
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        imSize - (i + 1) * (bytesPerScanline + padding),
-                        bdata,
-                        i * bytesPerScanline,
-                        bytesPerScanline);
-            }
-        } else {
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        i * (bytesPerScanline + padding),
-                        bdata,
-                        i * bytesPerScanline,
-                        bytesPerScanline);
-            }
-        }
-        indexedModel(bdata, 4, paletteEntries, bmp);
+        indexedModel(readScanlines(bytesPerScanline, padding, bmp), 4, paletteEntries, bmp);
     }
 
     // Method to read 8 bit BMP image data
     private static void read8Bit(int paletteEntries, BmpParameters bmp) throws java.io.IOException {
-        byte[] bdata = new byte[bmp.width * bmp.height];
         // Padding bytes at the end of each scanline
         int padding = 0;
 
@@ -797,40 +737,37 @@ final class BmpImageHelper {
             padding = (int) Math.ceil(padding / 8.0);
         }
 
-        int imSize = (bmp.width + padding) * bmp.height;
+        indexedModel(readScanlines(bmp.width, padding, bmp), 8, paletteEntries, bmp);
+    }
 
-        // Read till we have the whole image
-        byte[] values = new byte[imSize];
-        int bytesRead = 0;
-        while (bytesRead < imSize) {
-            bytesRead += bmp.inputStream.read(values, bytesRead, imSize - bytesRead);
+    // Reads the scanlines one at a time, a bottom up image is converted to a top down format
+    private static PixelBuffer readScanlines(int bytesPerScanline, int padding, BmpParameters bmp)
+            throws java.io.IOException {
+        PixelBuffer pixels = new PixelBuffer(bytesPerScanline * bmp.height, bmp.mode);
+        byte[] scanline = new byte[bytesPerScanline + padding];
+        for (int i = 0; i < bmp.height; i++) {
+            readScanline(scanline, bmp);
+            int y = bmp.isBottomUp ? bmp.height - 1 - i : i;
+            pixels.write(y * bytesPerScanline, scanline, 0, bytesPerScanline);
         }
+        return pixels;
+    }
 
-        if (bmp.isBottomUp) {
-
-            // Convert the bottom up image to a top down format by copying
-            // one scanline from the bottom to the top at a time.
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        imSize - (i + 1) * (bmp.width + padding),
-                        bdata,
-                        i * bmp.width,
-                        bmp.width);
-            }
-        } else {
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(values,
-                        i * (bmp.width + padding),
-                        bdata,
-                        i * bmp.width,
-                        bmp.width);
+    private static void readScanline(byte[] scanline, BmpParameters bmp) throws java.io.IOException {
+        int bytesRead = 0;
+        while (bytesRead < scanline.length) {
+            int r = bmp.inputStream.read(scanline, bytesRead, scanline.length - bytesRead);
+            if (r < 0) {
+                // the missing pixels of a truncated image are left black
+                Arrays.fill(scanline, bytesRead, scanline.length, (byte) 0);
+                break;
             }
+            bytesRead += r;
         }
-        indexedModel(bdata, 8, paletteEntries, bmp);
     }
 
     // Method to read 24 bit BMP image data
-    private static void read24Bit(byte[] bdata, BmpParameters bmp) throws java.io.IOException {
+    private static void read24Bit(BmpParameters bmp) throws java.io.IOException {
         // Padding bytes at the end of each scanline
         int padding = 0;
 
@@ -841,47 +778,20 @@ final class BmpImageHelper {
             padding = (int) Math.ceil(padding / 8.0);
         }
 
-
-        int imSize = (bmp.width * 3 + 3) / 4 * 4 * bmp.height;
-        // Read till we have the whole image
-        byte[] values = new byte[imSize];
-        int bytesRead = 0;
-        while (bytesRead < imSize) {
-            int r = bmp.inputStream.read(values, bytesRead,
-                    imSize - bytesRead);
-            if (r < 0)
-                break;
-            bytesRead += r;
-        }
-
-        int l = 0, count;
-
-        if (bmp.isBottomUp) {
-            int max = bmp.width * bmp.height * 3 - 1;
-
-            count = -padding;
-            for (int i = 0; i < bmp.height; i++) {
-                l = max - (i + 1) * bmp.width * 3 + 1;
-                count += padding;
-                for (int j = 0; j < bmp.width; j++) {
-                    bdata[l + 2] = values[count++];
-                    bdata[l + 1] = values[count++];
-                    bdata[l] = values[count++];
-                    l += 3;
-                }
-            }
-        } else {
-            count = -padding;
-            for (int i = 0; i < bmp.height; i++) {
-                count += padding;
-                for (int j = 0; j < bmp.width; j++) {
-                    bdata[l + 2] = values[count++];
-                    bdata[l + 1] = values[count++];
-                    bdata[l] = values[count++];
-                    l += 3;
-                }
+        PixelBuffer pixels = new PixelBuffer(bmp.width * 3 * bmp.height, bmp.mode);
+        byte[] scanline = new byte[bmp.width * 3 + padding];
+        byte[] row = new byte[bmp.width * 3];
+        for (int i = 0; i < bmp.height; i++) {
+            readScanline(scanline, bmp);
+            for (int l = 0; l < row.length; l += 3) {
+                row[l + 2] = scanline[l];
+                row[l + 1] = scanline[l + 1];
+                row[l] = scanline[l + 2];
             }
+            int y = bmp.isBottomUp ? bmp.height - 1 - i : i;
+            pixels.write(y * row.length, row, 0, row.length);
         }
+        RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, pixels);
     }
 
     private static int findMask(int mask) {
@@ -914,7 +824,8 @@ final class BmpImageHelper {
         int blue_mask = findMask(bmp.blueMask);
         int blue_shift = findShift(bmp.blueMask);
         int blue_factor = blue_mask + 1;
-        byte[] bdata = new byte[bmp.width * bmp.height * 3];
+        PixelBuffer pixels = new PixelBuffer(bmp.width * 3 * bmp.height, bmp.mode);
+        byte[] row = new byte[bmp.width * 3];
         // Padding bytes at the end of each scanline
         int padding = 0;
 
@@ -927,89 +838,38 @@ final class BmpImageHelper {
             }
         }
 
-        int imSize = (int) bmp.imageSize;
-        if (imSize == 0) {
-            imSize = (int) (bmp.bitmapFileSize - bmp.bitmapOffset);
-        }
-
-        int l = 0;
         int v;
-        if (bmp.isBottomUp) {
-            for (int i = bmp.height - 1; i >= 0; --i) {
-                l = bmp.width * 3 * i;
-                for (int j = 0; j < bmp.width; j++) {
-                    if (is32)
-                        v = (int) readDWord(bmp.inputStream);
-                    else
-                        v = readWord(bmp.inputStream);
-                    bdata[l++] = (byte) ((v >>> red_shift & red_mask) * 256 / red_factor);
-                    bdata[l++] = (byte) ((v >>> green_shift & green_mask) * 256 / green_factor);
-                    bdata[l++] = (byte) ((v >>> blue_shift & blue_mask) * 256 / blue_factor);
-                }
-                for (int m = 0; m < padding; m++) {
-                    bmp.inputStream.read();
-                }
+        for (int i = 0; i < bmp.height; i++) {
+            int l = 0;
+            for (int j = 0; j < bmp.width; j++) {
+                if (is32)
+                    v = (int) readDWord(bmp.inputStream);
+                else
+                    v = readWord(bmp.inputStream);
+                row[l++] = (byte) ((v >>> red_shift & red_mask) * 256 / red_factor);
+                row[l++] = (byte) ((v >>> green_shift & green_mask) * 256 / green_factor);
+                row[l++] = (byte) ((v >>> blue_shift & blue_mask) * 256 / blue_factor);
             }
-        } else {
-            for (int i = 0; i < bmp.height; i++) {
-                for (int j = 0; j < bmp.width; j++) {
-                    if (is32)
-                        v = (int) readDWord(bmp.inputStream);
-                    else
-                        v = readWord(bmp.inputStream);
-                    bdata[l++] = (byte) ((v >>> red_shift & red_mask) * 256 / red_factor);
-                    bdata[l++] = (byte) ((v >>> green_shift & green_mask) * 256 / green_factor);
-                    bdata[l++] = (byte) ((v >>> blue_shift & blue_mask) * 256 / blue_factor);
-                }
-                for (int m = 0; m < padding; m++) {
-                    bmp.inputStream.read();
-                }
+            for (int m = 0; m < padding; m++) {
+                bmp.inputStream.read();
             }
+            int y = bmp.isBottomUp ? bmp.height - 1 - i : i;
+            pixels.write(y * row.length, row, 0, row.length);
         }
-        RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, bdata);
+        RawImageHelper.updateRawImageParameters(bmp.image, bmp.width, bmp.height, 3, 8, pixels);
     }
 
     private static void readRLE8(BmpParameters bmp) throws java.io.IOException {
-
-        // If imageSize field is not provided, calculate it.
-        int imSize = (int) bmp.imageSize;
-        if (imSize == 0) {
-            imSize = (int) (bmp.bitmapFileSize - bmp.bitmapOffset);
-        }
-
-        // Read till we have the whole image
-        byte[] values = new byte[imSize];
-        int bytesRead = 0;
-        while (bytesRead < imSize) {
-            bytesRead += bmp.inputStream.read(values, bytesRead,
-                    imSize - bytesRead);
-        }
-
         // Since data is compressed, decompress it
-        byte[] val = decodeRLE(true, values, bmp);
-
-        // Uncompressed data does not have any padding
-        imSize = bmp.width * bmp.height;
-
-        if (bmp.isBottomUp) {
-
-            // Convert the bottom up image to a top down format by copying
-            // one scanline from the bottom to the top at a time.
-            // int bytesPerScanline = (int)Math.ceil((double)width/8.0);
-            byte[] temp = new byte[val.length];
-            int bytesPerScanline = bmp.width;
-            for (int i = 0; i < bmp.height; i++) {
-                System.arraycopy(val,
-                        imSize - (i + 1) * bytesPerScanline,
-                        temp,
-                        i * bytesPerScanline, bytesPerScanline);
-            }
-            val = temp;
-        }
-        indexedModel(val, 8, 4, bmp);
+        indexedModel(decodeRLE(true, readCompressed(bmp), bmp), 8, 4, bmp);
     }
 
     private static void readRLE4(BmpParameters bmp) throws java.io.IOException {
+        // Decompress the RLE4 compressed data.
+        indexedModel(decodeRLE(false, readCompressed(bmp), bmp), 4, 4, bmp);
+    }
+
+    private static byte[] readCompressed(BmpParameters bmp) throws java.io.IOException {
         // If imageSize field is not specified, calculate it.
         int imSize = (int) bmp.imageSize;
         if (imSize == 0) {
@@ -1023,43 +883,11 @@ final class BmpImageHelper {
             bytesRead += bmp.inputStream.read(values, bytesRead,
                     imSize - bytesRead);
         }
-
-        // Decompress the RLE4 compressed data.
-        byte[] val = decodeRLE(false, values, bmp);
-
-        // Invert it as it is bottom up format.
-        if (bmp.isBottomUp) {
-
-            byte[] inverted = val;
-            val = new byte[bmp.width * bmp.height];
-            int l = 0, index, lineEnd;
-
-            for (int i = bmp.height - 1; i >= 0; i--) {
-                index = i * bmp.width;
-                lineEnd = l + bmp.width;
-                while (l != lineEnd) {
-                    val[l++] = inverted[index++];
-                }
-            }
-        }
-        int stride = (bmp.width + 1) / 2;
-        byte[] bdata = new byte[stride * bmp.height];
-        int ptr = 0;
-        int sh = 0;
-        for (int h = 0; h < bmp.height; ++h) {
-            for (int w = 0; w < bmp.width; ++w) {
-                if ((w & 1) == 0)
-                    bdata[sh + w / 2] = (byte) (val[ptr++] << 4);
-                else
-                    bdata[sh + w / 2] |= (byte) (val[ptr++] & 0x0f);
-            }
-            sh += stride;
-        }
-        indexedModel(bdata, 4, 4, bmp);
+        return values;
     }
 
-    private static byte[] decodeRLE(boolean is8, byte[] values, BmpParameters bmp) {
-        byte[] val = new byte[bmp.width * bmp.height];
+    private static PixelBuffer decodeRLE(boolean is8, byte[] values, BmpParameters bmp) {
+        RlePixels val = new RlePixels(is8, bmp);
         try {
             int ptr = 0;
             int x = 0;
@@ -1071,11 +899,11 @@ final class BmpImageHelper {
                     int bt = values[ptr++] & 0xff;
                     if (is8) {
                         for (int i = count; i != 0; --i) {
-                            val[q++] = (byte) bt;
+                            val.set(q++, bt);
                         }
                     } else {
                         for (int i = 0; i < count; ++i) {
-                            val[q++] = (byte) ((i & 1) == 1 ? bt & 0x0f : bt >>> 4 & 0x0f);
+                            val.set(q++, (i & 1) == 1 ? bt & 0x0f : bt >>> 4 & 0x0f);
                         }
                     }
                     x += count;
@@ -1100,13 +928,13 @@ final class BmpImageHelper {
                             // absolute mode
                             if (is8) {
                                 for (int i = count; i != 0; --i)
-                                    val[q++] = (byte) (values[ptr++] & 0xff);
+                                    val.set(q++, values[ptr++] & 0xff);
                             } else {
                                 int bt = 0;
                                 for (int i = 0; i < count; ++i) {
                                     if ((i & 1) == 0)
                                         bt = values[ptr++] & 0xff;
-                                    val[q++] = (byte) ((i & 1) == 1 ? bt & 0x0f : bt >>> 4 & 0x0f);
+                                    val.set(q++, (i & 1) == 1 ? bt & 0x0f : bt >>> 4 & 0x0f);
                                 }
                             }
                             x += count;
@@ -1125,8 +953,63 @@ final class BmpImageHelper {
         } catch (Exception e) {
             //empty on purpose
         }
+        val.flush();
 
-        return val;
+        return val.pixels;
+    }
+
+    /**
+     * The pixels of an RLE compressed image. The pixels are set in the order of the compressed data,
+     * one byte per pixel, and are collected one row at a time, so only the packed image is kept.
+     */
+    private static class RlePixels {
+        final PixelBuffer pixels;
+        final byte[] row;
+        final boolean is8;
+        final int width;
+        final int height;
+        final boolean isBottomUp;
+        int y = -1;
+
+        RlePixels(boolean is8, BmpParameters bmp) {
+            this.is8 = is8;
+            this.width = bmp.width;
+            this.height = bmp.height;
+            this.isBottomUp = bmp.isBottomUp;
+            this.row = new byte[is8 ? bmp.width : (bmp.width + 1) / 2];
+            this.pixels = new PixelBuffer(row.length * bmp.height, bmp.mode);
+        }
+
+        void set(int q, int v) {
+            int rowY = q / width;
+            if (rowY >= height) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (rowY != y) {
+                flush();
+                y = rowY;
+                pixels.read(getOffset(), row, 0, row.length);
+            }
+            int x = q - rowY * width;
+            if (is8) {
+                row[x] = (byte) v;
+            } else if ((x & 1) == 0) {
+                row[x / 2] = (byte) (row[x / 2] & 0x0f | v << 4);
+            } else {
+                row[x / 2] = (byte) (row[x / 2] & 0xf0 | v & 0x0f);
+            }
+        }
+
+        void flush() {
+            if (y >= 0) {
+                pixels.write(getOffset(), row, 0, row.length);
+            }
+        }
+
+        // Convert the bottom up image to a top down format
+        private int getOffset() {
+            return (isBottomUp ? height - 1 - y : y) * row.length;
+        }
     }
 
     // Windows defined data type reading methods - everything is little endian
@@ -60,8 +60,9 @@ public final class GifImageHelper {
 
     private static class GifParameters {
 
-        public GifParameters(GifImageData image) {
+        public GifParameters(GifImageData image, PixelBufferMode mode) {
             this.image = image;
+            this.mode = mode;
         }
 
         InputStream input;
@@ -106,7 +107,9 @@ public final class GifImageHelper {
         byte[] pixelStack;
         byte[] pixels;
 
-        byte[] m_out;
+        PixelBuffer m_out;
+        // the row which is being decoded
+        byte[] m_row;
         int m_bpc;
         int m_gbpc;
         byte[] m_global_table;
@@ -118,6 +121,7 @@ public final class GifImageHelper {
         int currentFrame;
 
         GifImageData image;
+        PixelBufferMode mode;
     }
 
     /**
@@ -134,7 +138,11 @@ public final class GifImageHelper {
      * @param lastFrameNumber the last frame of the gif image should be read
      */
     public static void processImage(GifImageData image, int lastFrameNumber) {
-        GifParameters gif = new GifParameters(image);
+        processImage(image, lastFrameNumber, PixelBufferMode.ARRAY);
+    }
+
+    static void processImage(GifImageData image, int lastFrameNumber, PixelBufferMode mode) {
+        GifParameters gif = new GifParameters(image, mode);
         InputStream gifStream;
         try {
             if (image.getData() == null) {
@@ -332,7 +340,7 @@ public final class GifImageHelper {
             colorspace[3] = PdfEncodings.convertToString(gif.m_curr_table, null);
             Map<String, Object> ad = new HashMap<>();
             ad.put("ColorSpace", colorspace);
-            RawImageData img = new RawImageData(gif.m_out, ImageType.GIF);
+            RawImageData img = new RawImageData((byte[]) null, ImageType.GIF);
             RawImageHelper.updateRawImageParameters(img, gif.iw, gif.ih, 1, gif.m_bpc, gif.m_out);
             RawImageHelper.updateImageAttributes(img, ad);
             gif.image.addFrame(img);
@@ -359,7 +367,8 @@ public final class GifImageHelper {
             gif.pixelStack = new byte[MAX_STACK_SIZE +1];
 
         gif.m_line_stride = (gif.iw * gif.m_bpc + 7) / 8;
-        gif.m_out = new byte[gif.m_line_stride * gif.ih];
+        gif.m_out = new PixelBuffer(gif.m_line_stride * gif.ih, gif.mode);
+        gif.m_row = new byte[gif.m_line_stride];
         int pass = 1;
         int inc = gif.interlace ? 8 : 1;
         int line = 0;
@@ -458,9 +467,14 @@ public final class GifImageHelper {
             top--;
             i++;
 
-            setPixel(xpos, line, gif.pixelStack[top], gif);
+            if (xpos == 0) {
+                // the rows are decoded one at a time, a row is read back as it may be decoded more than once
+                gif.m_out.read(gif.m_line_stride * line, gif.m_row, 0, gif.m_line_stride);
+            }
+            setPixel(xpos, gif.pixelStack[top], gif);
             ++xpos;
             if (xpos >= gif.iw) {
+                gif.m_out.write(gif.m_line_stride * line, gif.m_row, 0, gif.m_line_stride);
                 xpos = 0;
                 line += inc;
                 if (line >= gif.ih) {
@@ -494,19 +508,21 @@ public final class GifImageHelper {
                 }
             }
         }
+        if (xpos > 0) {
+            gif.m_out.write(gif.m_line_stride * line, gif.m_row, 0, gif.m_line_stride);
+        }
         return skipZero;
     }
 
 
-    private static void setPixel(int x, int y, int v, GifParameters gif) {
+    private static void setPixel(int x, int v, GifParameters gif) {
         if (gif.m_bpc == 8) {
-            int pos = x + gif.iw * y;
-            gif.m_out[pos] = (byte)v;
+            gif.m_row[x] = (byte)v;
         }
         else {
-            int pos = gif.m_line_stride * y + x / (8 / gif.m_bpc);
+            int pos = x / (8 / gif.m_bpc);
             int vout = v << 8 - gif.m_bpc * (x % (8 / gif.m_bpc))- gif.m_bpc;
-            gif.m_out[pos] |= (byte) vout;
+            gif.m_row[pos] |= (byte) vout;
         }
     }
 
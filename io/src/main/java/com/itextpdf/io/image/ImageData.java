@@ -47,6 +47,7 @@ import com.itextpdf.io.exceptions.IOException;
 import com.itextpdf.io.logs.IoLogMessageConstant;
 import com.itextpdf.io.colors.IccProfile;
 import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.ChunkedByteArrayOutputStream;
 import com.itextpdf.io.source.RandomAccessFileOrArray;
 import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.io.util.StreamUtil;
@@ -75,6 +76,8 @@ public abstract class ImageData {
 
     protected byte[] data;
 
+    protected ChunkedByteArrayOutputStream chunkedData;
+
     protected int imageSize;
 
     protected int bpc = 1;
@@ -219,10 +222,31 @@ public abstract class ImageData {
         this.colorEncodingComponentsNumber = colorEncodingComponentsNumber;
     }
 
+    /**
+     * Gets the image data. If the data is kept in chunks, see {@link #getChunkedData()}, it is
+     * copied into an array on the first call and the image keeps the array instead of the chunks.
+     *
+     * @return the image data
+     */
     public byte[] getData() {
+        if (data == null && chunkedData != null) {
+            data = chunkedData.toByteArray();
+            chunkedData.release();
+            chunkedData = null;
+        }
         return data;
     }
 
+    /**
+     * Gets the image data if it is kept in chunks rather than in a single array.
+     *
+     * @return the chunks with the image data or {@code null} if the data is kept in an array
+     * @see ImageDataFactory#create(byte[], boolean, PixelBufferMode)
+     */
+    public ChunkedByteArrayOutputStream getChunkedData() {
+        return chunkedData;
+    }
+
     public boolean canBeMask() {
         if (isRawImage()) {
             if (bpc > 0xff)
@@ -66,7 +66,22 @@ public final class ImageDataFactory {
      * @return The created ImageData object.
      */
     public static ImageData create(byte[] bytes, boolean recoverImage) {
-        return createImageInstance(bytes, recoverImage);
+        return create(bytes, recoverImage, PixelBufferMode.ARRAY);
+    }
+
+    /**
+     * Create an ImageData instance representing the image from the image bytes.
+     * With {@link PixelBufferMode#CHUNKED} or {@link PixelBufferMode#DIRECT} the decoded pixels of BMP, GIF,
+     * PNG, TIFF images are written row by row into chunks, which are available via {@link ImageData#getChunkedData()}
+     * and are written to a PDF stream without being copied into a single array.
+     *
+     * @param bytes byte representation of the image.
+     * @param recoverImage whether to recover from a image error (for TIFF-images)
+     * @param mode where the decoded pixels are kept
+     * @return The created ImageData object.
+     */
+    public static ImageData create(byte[] bytes, boolean recoverImage, PixelBufferMode mode) {
+        return createImageInstance(bytes, recoverImage, checkMode(mode));
     }
 
     /**
@@ -85,7 +100,20 @@ public final class ImageDataFactory {
      * @return The created ImageData object.
      */
     public static ImageData create(URL url, boolean recoverImage) {
-        return createImageInstance(url, recoverImage);
+        return create(url, recoverImage, PixelBufferMode.ARRAY);
+    }
+
+    /**
+     * Create an ImageData instance representing the image from the file located at the specified url.
+     * See {@link #create(byte[], boolean, PixelBufferMode)} for the pixel buffer modes.
+     *
+     * @param url location of the image
+     * @param recoverImage whether to recover from a image error (for TIFF-images)
+     * @param mode where the decoded pixels are kept
+     * @return The created ImageData object.
+     */
+    public static ImageData create(URL url, boolean recoverImage, PixelBufferMode mode) {
+        return createImageInstance(url, recoverImage, checkMode(mode));
     }
 
     /**
@@ -108,6 +136,21 @@ public final class ImageDataFactory {
         return create(UrlUtil.toURL(filename), recoverImage);
     }
 
+    /**
+     * Create an ImageData instance representing the image from the specified file.
+     * See {@link #create(byte[], boolean, PixelBufferMode)} for the pixel buffer modes.
+     *
+     * @param filename filename of the file containing the image
+     * @param recoverImage whether to recover from a image error (for TIFF-images)
+     * @param mode where the decoded pixels are kept
+     * @return The created ImageData object.
+     * @throws MalformedURLException if an error occurred generating the URL.
+     */
+    public static ImageData create(String filename, boolean recoverImage, PixelBufferMode mode)
+            throws MalformedURLException {
+        return create(UrlUtil.toURL(filename), recoverImage, mode);
+    }
+
     /**
      * Create an ImageData instance representing the image from the specified file.
      * @param filename filename of the file containing the image
@@ -454,12 +497,12 @@ public final class ImageDataFactory {
                 || imageType == ImageType.JBIG2;
     }
 
-    private static ImageData createImageInstance(URL source, boolean recoverImage) {
+    private static ImageData createImageInstance(URL source, boolean recoverImage, PixelBufferMode mode) {
         ImageType imageType = ImageTypeDetector.detectImageType(source);
         switch (imageType) {
             case GIF: {
                 GifImageData image = new GifImageData(source);
-                GifImageHelper.processImage(image, 0);
+                GifImageHelper.processImage(image, 0, mode);
                 return image.getFrames().get(0);
             }
             case JPEG: {
@@ -474,17 +517,17 @@ public final class ImageDataFactory {
             }
             case PNG: {
                 ImageData image = new PngImageData(source);
-                PngImageHelper.processImage(image);
+                PngImageHelper.processImage(image, mode);
                 return image;
             }
             case BMP: {
                 ImageData image = new BmpImageData(source, false);
-                BmpImageHelper.processImage(image);
+                BmpImageHelper.processImage(image, mode);
                 return image;
             }
             case TIFF: {
                 ImageData image = new TiffImageData(source, recoverImage, 1, false);
-                TiffImageHelper.processImage(image);
+                TiffImageHelper.processImage(image, mode);
                 return image;
             }
             case JBIG2: {
@@ -497,12 +540,12 @@ public final class ImageDataFactory {
         }
     }
 
-    private static ImageData createImageInstance(byte[] bytes, boolean recoverImage) {
+    private static ImageData createImageInstance(byte[] bytes, boolean recoverImage, PixelBufferMode mode) {
         ImageType imageType = ImageTypeDetector.detectImageType(bytes);
         switch (imageType) {
             case GIF: {
                 GifImageData image = new GifImageData(bytes);
-                GifImageHelper.processImage(image, 0);
+                GifImageHelper.processImage(image, 0, mode);
                 return image.getFrames().get(0);
             }
             case JPEG: {
@@ -517,17 +560,17 @@ public final class ImageDataFactory {
             }
             case PNG: {
                 ImageData image = new PngImageData(bytes);
-                PngImageHelper.processImage(image);
+                PngImageHelper.processImage(image, mode);
                 return image;
             }
             case BMP: {
                 ImageData image = new BmpImageData(bytes, false);
-                BmpImageHelper.processImage(image);
+                BmpImageHelper.processImage(image, mode);
                 return image;
             }
             case TIFF: {
                 ImageData image = new TiffImageData(bytes, recoverImage, 1, false);
-                TiffImageHelper.processImage(image);
+                TiffImageHelper.processImage(image, mode);
                 return image;
             }
             case JBIG2: {
@@ -540,6 +583,13 @@ public final class ImageDataFactory {
         }
     }
 
+    private static PixelBufferMode checkMode(PixelBufferMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("The pixel buffer mode must not be null.");
+        }
+        return mode;
+    }
+
     private static List<ImageData> processGifImageAndExtractFrames(int[] frameNumbers, GifImageData image) {
         Arrays.sort(frameNumbers);
         GifImageHelper.processImage(image, frameNumbers[frameNumbers.length - 1] - 1);
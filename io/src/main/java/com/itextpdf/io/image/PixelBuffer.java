@@ -0,0 +1,136 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.image;
+
+import com.itextpdf.io.codec.CCITTG4Encoder;
+import com.itextpdf.io.source.ChunkedByteArrayOutputStream;
+
+/**
+ * The decoded pixels of an image, kept in a single array or in chunks depending on the
+ * {@link PixelBufferMode}. Decoders write and read back the pixels row by row, in any order,
+ * so with the chunked modes the image never occupies a single large array.
+ */
+final class PixelBuffer {
+
+    private final byte[] array;
+    private final ChunkedByteArrayOutputStream chunks;
+
+    /**
+     * Creates a buffer filled with zero bytes.
+     *
+     * @param size the size of the pixel data in bytes
+     * @param mode where the pixels are kept
+     */
+    PixelBuffer(int size, PixelBufferMode mode) {
+        if (mode == PixelBufferMode.ARRAY) {
+            array = new byte[size];
+            chunks = null;
+        } else {
+            array = null;
+            chunks = new ChunkedByteArrayOutputStream(mode == PixelBufferMode.DIRECT);
+            chunks.setSize(size);
+        }
+    }
+
+    int size() {
+        return array != null ? array.length : chunks.size();
+    }
+
+    void write(int position, byte[] b, int off, int len) {
+        checkRange(position, len);
+        if (array != null) {
+            System.arraycopy(b, off, array, position, len);
+        } else {
+            chunks.writeAt(position, b, off, len);
+        }
+    }
+
+    void read(int position, byte[] b, int off, int len) {
+        checkRange(position, len);
+        if (array != null) {
+            System.arraycopy(array, position, b, off, len);
+        } else {
+            chunks.readAt(position, b, off, len);
+        }
+    }
+
+    /**
+     * Encodes 1-bit pixels with CCITT Group 4 compression. The buffer is not usable afterwards.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the encoded image
+     */
+    byte[] compressCcittG4(int width, int height) {
+        if (array != null) {
+            return CCITTG4Encoder.compress(array, width, height);
+        }
+        CCITTG4Encoder g4 = new CCITTG4Encoder(width);
+        byte[] row = new byte[(width + 7) / 8];
+        for (int y = 0; y < height; y++) {
+            read(y * row.length, row, 0, row.length);
+            g4.fax4Encode(row, 1);
+        }
+        // the encoded image replaces the pixels, so the chunks are not needed anymore
+        chunks.release();
+        return g4.close();
+    }
+
+    /**
+     * Sets the pixels as the data of the image, see {@link ImageData#getChunkedData()}.
+     *
+     * @param image the image to set the data of
+     */
+    void setDataOf(ImageData image) {
+        image.data = array;
+        image.chunkedData = chunks;
+    }
+
+    private void checkRange(int position, int len) {
+        // the pixels never grow beyond the size of the image, as an array would not
+        if (position < 0 || len < 0 || position > size() - len) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
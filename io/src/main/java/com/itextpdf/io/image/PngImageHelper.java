@@ -50,22 +50,28 @@ import com.itextpdf.io.util.StreamUtil;
 import com.itextpdf.io.colors.IccProfile;
 import com.itextpdf.io.source.ByteArrayOutputStream;
 import com.itextpdf.io.source.ByteBuffer;
+import com.itextpdf.io.source.ChunkedByteArrayOutputStream;
 import com.itextpdf.commons.utils.MessageFormatUtil;
 
 import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 class PngImageHelper {
 
     private static class PngParameters {
-        PngParameters(PngImageData image) {
+        PngParameters(PngImageData image, PixelBufferMode mode) {
             this.image = image;
+            this.mode = mode;
+            this.idat = mode == PixelBufferMode.ARRAY ? new ByteArrayOutputStream()
+                    : new ChunkedByteArrayOutputStream(mode == PixelBufferMode.DIRECT);
         }
 
         PngImageData image;
+        PixelBufferMode mode;
 
         InputStream dataStream;
         int width;
@@ -75,10 +81,13 @@ class PngImageHelper {
         int filterMethod;
         int interlaceMethod;
         Map<String, Object> additional = new HashMap<>();
-        byte[] imageData;
-        byte[] smask;
+        PixelBuffer imageData;
+        PixelBuffer smask;
+        // the row of the image and of the mask which is being decoded
+        byte[] imageRow;
+        byte[] smaskRow;
         byte[] trans;
-        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        ByteArrayOutputStream idat;
         int dpiX;
         int dpiY;
         float XYRatio;
@@ -160,6 +169,10 @@ class PngImageHelper {
             PngImageHelperConstants.ABSOLUTE_COLORMETRIC};
 
     public static void processImage(ImageData image) {
+        processImage(image, PixelBufferMode.ARRAY);
+    }
+
+    static void processImage(ImageData image, PixelBufferMode mode) {
         if (image.getOriginalType() != ImageType.PNG)
             throw new IllegalArgumentException("PNG image expected");
         PngParameters png;
@@ -170,7 +183,7 @@ class PngImageHelper {
             }
             pngStream = new ByteArrayInputStream(image.getData());
             image.imageSize = image.getData().length;
-            png = new PngParameters((PngImageData) image);
+            png = new PngParameters((PngImageData) image, mode);
             processPng(pngStream, png);
         } catch (java.io.IOException e) {
             throw new IOException(IOException.PngImageException, e);
@@ -248,7 +261,13 @@ class PngImageHelper {
                     RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.imageData, null);
                 }
             } else {
-                RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.idat.toByteArray());
+                if (png.idat instanceof ChunkedByteArrayOutputStream) {
+                    // the compressed data is passed through, so keep it in the chunks it was collected in
+                    RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, (byte[]) null);
+                    png.image.chunkedData = (ChunkedByteArrayOutputStream) png.idat;
+                } else {
+                    RawImageHelper.updateRawImageParameters(png.image, png.width, png.height, components, bpc, png.idat.toByteArray());
+                }
                 png.image.setDeflated(true);
                 Map<String, Object> decodeparms = new HashMap<>();
                 decodeparms.put(PngImageHelperConstants.BITS_PER_COMPONENT, png.bitDepth);
@@ -445,38 +464,45 @@ class PngImageHelper {
         int nbitDepth = png.bitDepth;
         if (nbitDepth == 16)
             nbitDepth = 8;
-        int size = -1;
+        int stride = -1;
         png.bytesPerPixel = (png.bitDepth == 16) ? 2 : 1;
         switch (png.image.getColorType()) {
             case 0:
-                size = (nbitDepth * png.width + 7) / 8 * png.height;
+                stride = (nbitDepth * png.width + 7) / 8;
                 break;
             case 2:
-                size = png.width * 3 * png.height;
+                stride = png.width * 3;
                 png.bytesPerPixel *= 3;
                 break;
             case 3:
                 if (png.interlaceMethod == 1)
-                    size = (nbitDepth * png.width + 7) / 8 * png.height;
+                    stride = (nbitDepth * png.width + 7) / 8;
                 png.bytesPerPixel = 1;
                 break;
             case 4:
-                size = png.width * png.height;
+                stride = png.width;
                 png.bytesPerPixel *= 2;
                 break;
             case 6:
-                size = png.width * 3 * png.height;
+                stride = png.width * 3;
                 png.bytesPerPixel *= 4;
                 break;
         }
-        if (size >= 0)
-            png.imageData = new byte[size];
-        if (png.palShades)
-            png.smask = new byte[png.width * png.height];
-        else if (png.genBWMask)
-            png.smask = new byte[(png.width + 7) / 8 * png.height];
-        ByteArrayInputStream bai = new ByteArrayInputStream(png.idat.toByteArray());
-        png.dataStream = FilterUtil.getInflaterInputStream(bai);
+        if (stride >= 0) {
+            png.imageData = new PixelBuffer(stride * png.height, png.mode);
+            png.imageRow = new byte[stride];
+        }
+        if (png.palShades) {
+            png.smask = new PixelBuffer(png.width * png.height, png.mode);
+            png.smaskRow = new byte[png.width];
+        } else if (png.genBWMask) {
+            png.smask = new PixelBuffer((png.width + 7) / 8 * png.height, png.mode);
+            png.smaskRow = new byte[(png.width + 7) / 8];
+        }
+        InputStream idatStream = png.idat instanceof ChunkedByteArrayOutputStream
+                ? ((ChunkedByteArrayOutputStream) png.idat).toInputStream()
+                : new ByteArrayInputStream(png.idat.toByteArray());
+        png.dataStream = FilterUtil.getInflaterInputStream(idatStream);
 
         if (png.interlaceMethod != 1) {
             decodePass(0, 0, 1, 1, png.width, png.height, png);
@@ -536,7 +562,20 @@ class PngImageHelper {
                     throw new IOException(IOException.UnknownPngFilter);
             }
 
-            processPixels(curr, xOffset, xStep, dstY, passWidth, png);
+            // the image and the mask are decoded row by row, the passes of an interlaced image fill the same rows
+            if (png.imageData != null) {
+                prepareRow(png.imageData, png.imageRow, dstY, png.interlaceMethod == 1);
+            }
+            if (png.smask != null) {
+                prepareRow(png.smask, png.smaskRow, dstY, png.interlaceMethod == 1);
+            }
+            processPixels(curr, xOffset, xStep, passWidth, png);
+            if (png.imageData != null) {
+                png.imageData.write(dstY * png.imageRow.length, png.imageRow, 0, png.imageRow.length);
+            }
+            if (png.smask != null) {
+                png.smask.write(dstY * png.smaskRow.length, png.smaskRow, 0, png.smaskRow.length);
+            }
 
             // Swap curr and prior
             byte[] tmp = prior;
@@ -545,7 +584,15 @@ class PngImageHelper {
         }
     }
 
-    private static void processPixels(byte[] curr, int xOffset, int step, int y, int width, PngParameters png) {
+    private static void prepareRow(PixelBuffer pixels, byte[] row, int y, boolean interlaced) {
+        if (interlaced) {
+            pixels.read(y * row.length, row, 0, row.length);
+        } else {
+            Arrays.fill(row, (byte) 0);
+        }
+    }
+
+    private static void processPixels(byte[] curr, int xOffset, int step, int width, PngParameters png) {
         int srcX, dstX;
         int colorType = png.image.getColorType();
 
@@ -566,7 +613,7 @@ class PngImageHelper {
             dstX = xOffset;
             int yStride = (sizes * png.width * (png.bitDepth == 16 ? 8 : png.bitDepth) + 7) / 8;
             for (srcX = 0; srcX < width; srcX++) {
-                setPixel(png.imageData, outPixel, png.inputBands * srcX, sizes, dstX, y, png.bitDepth, yStride);
+                setPixel(png.imageRow, outPixel, png.inputBands * srcX, sizes, dstX, 0, png.bitDepth, yStride);
                 dstX += step;
             }
         }
@@ -579,7 +626,7 @@ class PngImageHelper {
                 int yStride = png.width;
                 dstX = xOffset;
                 for (srcX = 0; srcX < width; srcX++) {
-                    setPixel(png.smask, outPixel, png.inputBands * srcX + sizes, 1, dstX, y, 8, yStride);
+                    setPixel(png.smaskRow, outPixel, png.inputBands * srcX + sizes, 1, dstX, 0, 8, yStride);
                     dstX += step;
                 }
             } else { //colorType 3
@@ -594,7 +641,7 @@ class PngImageHelper {
                         // Patrick Valsecchi
                         v[0] = 255;
                     }
-                    setPixel(png.smask, v, 0, 1, dstX, y, 8, yStride);
+                    setPixel(png.smaskRow, v, 0, 1, dstX, 0, 8, yStride);
                     dstX += step;
                 }
             }
@@ -607,7 +654,7 @@ class PngImageHelper {
                     for (srcX = 0; srcX < width; srcX++) {
                         int idx = outPixel[srcX];
                         v[0] = ((idx < png.trans.length && png.trans[idx] == 0) ? 1 : 0);
-                        setPixel(png.smask, v, 0, 1, dstX, y, 1, yStride);
+                        setPixel(png.smaskRow, v, 0, 1, dstX, 0, 1, yStride);
                         dstX += step;
                     }
                     break;
@@ -619,7 +666,7 @@ class PngImageHelper {
                     for (srcX = 0; srcX < width; srcX++) {
                         int g = outPixel[srcX];
                         v[0] = (g == png.transRedGray ? 1 : 0);
-                        setPixel(png.smask, v, 0, 1, dstX, y, 1, yStride);
+                        setPixel(png.smaskRow, v, 0, 1, dstX, 0, 1, yStride);
                         dstX += step;
                     }
                     break;
@@ -632,7 +679,7 @@ class PngImageHelper {
                         int markRed = png.inputBands * srcX;
                         v[0] = (outPixel[markRed] == png.transRedGray && outPixel[markRed + 1] == png.transGreen
                                 && outPixel[markRed + 2] == png.transBlue ? 1 : 0);
-                        setPixel(png.smask, v, 0, 1, dstX, y, 1, yStride);
+                        setPixel(png.smaskRow, v, 0, 1, dstX, 0, 1, yStride);
                         dstX += step;
                     }
                     break;
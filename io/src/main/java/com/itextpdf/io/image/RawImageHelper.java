@@ -161,4 +161,33 @@ public final class RawImageHelper {
         image.setTypeCcitt(typeCcitt);
         image.data = data;
     }
+
+    /**
+     * Update original image with Raw Image parameters and the decoded pixels.
+     *
+     * @param image to update its parameters with Raw Image parameters.
+     * @param width the exact width of the image
+     * @param height the exact height of the image
+     * @param components 1,3 or 4 for GrayScale, RGB and CMYK
+     * @param bpc bits per component. Must be 1,2,4 or 8
+     * @param pixels the decoded pixels
+     */
+    static void updateRawImageParameters(RawImageData image, int width, int height, int components, int bpc,
+            PixelBuffer pixels) {
+        updateRawImageParameters(image, width, height, components, bpc, (byte[]) null);
+        pixels.setDataOf(image);
+    }
+
+    static void updateRawImageParameters(RawImageData image, int width, int height, int components, int bpc,
+            PixelBuffer pixels, int[] transparency) {
+        if (transparency != null && transparency.length != components * 2)
+            throw new IOException(IOException.TransparencyLengthMustBeEqualTo2WithCcittImages);
+        if (components == 1 && bpc == 1) {
+            updateRawImageParameters(image, width, height, false, RawImageData.CCITTG4,
+                    RawImageData.CCITT_BLACKIS1, pixels.compressCcittG4(width, height), transparency);
+        } else {
+            updateRawImageParameters(image, width, height, components, bpc, pixels);
+            image.setTransparency(transparency);
+        }
+    }
 }
@@ -53,6 +53,7 @@ import com.itextpdf.io.codec.TIFFLZWDecoder;
 import com.itextpdf.io.colors.IccProfile;
 import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.ChunkedByteArrayOutputStream;
 import com.itextpdf.io.source.DeflaterOutputStream;
 import com.itextpdf.io.source.RandomAccessFileOrArray;
 import com.itextpdf.io.source.IRandomAccessSource;
@@ -65,10 +66,12 @@ import java.util.Map;
 class TiffImageHelper {
 
     private static class TiffParameters {
-        TiffParameters(TiffImageData image) {
+        TiffParameters(TiffImageData image, PixelBufferMode mode) {
             this.image = image;
+            this.mode = mode;
         }
         TiffImageData image;
+        PixelBufferMode mode;
         //ByteArrayOutputStream stream;
         boolean jpegProcessing;
         Map<String, Object> additional;
@@ -79,6 +82,15 @@ class TiffImageHelper {
      * @param image image to process.
      */
     public static void processImage(ImageData image) {
+        processImage(image, PixelBufferMode.ARRAY);
+    }
+
+    /**
+     * Processes the ImageData as a TIFF image.
+     * @param image image to process.
+     * @param mode where the deflated pixels are kept
+     */
+    static void processImage(ImageData image, PixelBufferMode mode) {
         if (image.getOriginalType() != ImageType.TIFF)
             throw new IllegalArgumentException("TIFF image expected");
         try {
@@ -88,7 +100,7 @@ class TiffImageHelper {
             }
             ras = new RandomAccessSourceFactory().createSource(image.getData());
             RandomAccessFileOrArray raf = new RandomAccessFileOrArray(ras);
-            TiffParameters tiff = new TiffParameters((TiffImageData)image);
+            TiffParameters tiff = new TiffParameters((TiffImageData)image, mode);
             processTiffImage(raf, tiff);
             raf.close();
 
@@ -404,7 +416,7 @@ class TiffImageHelper {
             DeflaterOutputStream zip = null;
             DeflaterOutputStream mzip = null;
             if (extraSamples > 0) {
-                mstream = new ByteArrayOutputStream();
+                mstream = createPixelStream(tiff);
                 mzip = new DeflaterOutputStream(mstream);
             }
 
@@ -412,7 +424,7 @@ class TiffImageHelper {
             if (bitsPerSample == 1 && samplePerPixel == 1 && photometric != TIFFConstants.PHOTOMETRIC_PALETTE) {
                 g4 = new CCITTG4Encoder(w);
             } else {
-                stream = new ByteArrayOutputStream();
+                stream = createPixelStream(tiff);
                 if (compression != TIFFConstants.COMPRESSION_OJPEG && compression != TIFFConstants.COMPRESSION_JPEG)
                     zip = new DeflaterOutputStream(stream);
             }
@@ -520,8 +532,9 @@ class TiffImageHelper {
                     RawImageHelper.updateRawImageParameters(tiff.image, w, h, false, RawImageData.CCITTG4,
                             photometric == TIFFConstants.PHOTOMETRIC_MINISBLACK ? RawImageData.CCITT_BLACKIS1 : 0, g4.close(), null);
                 } else {
-                    zip.close();
-                    RawImageHelper.updateRawImageParameters(tiff.image, w, h, samplePerPixel - extraSamples, bitsPerSample, stream.toByteArray());
+                    // closing would release the chunks of a chunked stream
+                    zip.finish();
+                    updateRawImageParameters(tiff.image, w, h, samplePerPixel - extraSamples, bitsPerSample, stream);
                     tiff.image.setDeflated(true);
                 }
             }
@@ -581,9 +594,9 @@ class TiffImageHelper {
             if (rotation != 0)
                 tiff.image.setRotation(rotation);
             if (extraSamples > 0) {
-                mzip.close();
+                mzip.finish();
                 RawImageData mimg = (RawImageData) ImageDataFactory.createRawImage(null);
-                RawImageHelper.updateRawImageParameters(mimg, w, h, 1, bitsPerSample, mstream.toByteArray());
+                updateRawImageParameters(mimg, w, h, 1, bitsPerSample, mstream);
                 mimg.makeMask();
                 mimg.setDeflated(true);
                 tiff.image.setImageMask(mimg);
@@ -593,6 +606,22 @@ class TiffImageHelper {
         }
     }
 
+    private static ByteArrayOutputStream createPixelStream(TiffParameters tiff) {
+        return tiff.mode == PixelBufferMode.ARRAY ? new ByteArrayOutputStream()
+                : new ChunkedByteArrayOutputStream(tiff.mode == PixelBufferMode.DIRECT);
+    }
+
+    private static void updateRawImageParameters(RawImageData image, int width, int height, int components, int bpc,
+            ByteArrayOutputStream stream) {
+        if (stream instanceof ChunkedByteArrayOutputStream) {
+            // the deflated pixels stay in the chunks they were written to
+            RawImageHelper.updateRawImageParameters(image, width, height, components, bpc, (byte[]) null);
+            image.chunkedData = (ChunkedByteArrayOutputStream) stream;
+        } else {
+            RawImageHelper.updateRawImageParameters(image, width, height, components, bpc, stream.toByteArray());
+        }
+    }
+
     private static int getDpi(TIFFField fd, int resolutionUnit) {
         if (fd == null)
             return 0;
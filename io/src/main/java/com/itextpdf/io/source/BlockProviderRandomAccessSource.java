@@ -0,0 +1,247 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.io.exceptions.IoExceptionMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A RandomAccessSource which fetches the bytes on demand from an {@link IBlockProvider}.
+ * <p>
+ * The source is split into blocks of the same size. A block is requested from the provider the first time
+ * one of its bytes is read and is kept in a cache holding the most recently used blocks, so that
+ * only the parts of the source which are actually read are fetched. Bigger ranges which are known
+ * to be read soon can be fetched with a single request using {@link #prefetch(long, long)}.
+ * <p>
+ * The source can be used from several threads.
+ */
+public class BlockProviderRandomAccessSource implements IRandomAccessSource {
+
+    /**
+     * The default size of a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The default maximum number of blocks in the cache.
+     */
+    public static final int DEFAULT_MAX_CACHED_BLOCKS = 256;
+
+    private IBlockProvider provider;
+
+    private final long length;
+
+    private final int blockSize;
+
+    private final int maxCachedBlocks;
+
+    private final LinkedHashMap<Long, byte[]> cache;
+
+    private long lastBlockIndex = -1;
+
+    private byte[] lastBlock;
+
+    /**
+     * Constructs a new {@link BlockProviderRandomAccessSource} with the default block size and cache capacity.
+     *
+     * @param provider the provider of the bytes
+     * @throws java.io.IOException if the length of the source could not be obtained
+     */
+    public BlockProviderRandomAccessSource(IBlockProvider provider) throws java.io.IOException {
+        this(provider, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_CACHED_BLOCKS);
+    }
+
+    /**
+     * Constructs a new {@link BlockProviderRandomAccessSource}.
+     *
+     * @param provider the provider of the bytes
+     * @param blockSize the size of a block, must be positive
+     * @param maxCachedBlocks the maximum number of blocks kept in the cache, must be positive
+     * @throws java.io.IOException if the length of the source could not be obtained
+     */
+    public BlockProviderRandomAccessSource(IBlockProvider provider, int blockSize, int maxCachedBlocks)
+            throws java.io.IOException {
+        if (provider == null) {
+            throw new IllegalArgumentException("Passed block provider can not be null.");
+        }
+        if (blockSize <= 0 || maxCachedBlocks <= 0) {
+            throw new IllegalArgumentException("Block size and cache capacity shall be positive.");
+        }
+        this.provider = provider;
+        this.length = provider.length();
+        this.blockSize = blockSize;
+        this.maxCachedBlocks = maxCachedBlocks;
+        this.cache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > BlockProviderRandomAccessSource.this.maxCachedBlocks;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized int get(long position) throws java.io.IOException {
+        if (position >= length) {
+            return -1;
+        }
+        byte[] block = getBlock(position / blockSize);
+        return 0xff & block[(int) (position % blockSize)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized int get(long position, byte[] bytes, int off, int len) throws java.io.IOException {
+        if (position >= length) {
+            return -1;
+        }
+        if (position + len > length) {
+            len = (int) (length - position);
+        }
+        int read = 0;
+        while (read < len) {
+            long current = position + read;
+            byte[] block = getBlock(current / blockSize);
+            int offsetInBlock = (int) (current % blockSize);
+            int count = Math.min(len - read, block.length - offsetInBlock);
+            System.arraycopy(block, offsetInBlock, bytes, off + read, count);
+            read += count;
+        }
+        return len;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void close() throws java.io.IOException {
+        if (provider != null) {
+            provider.close();
+            provider = null;
+            cache.clear();
+            lastBlock = null;
+            lastBlockIndex = -1;
+        }
+    }
+
+    /**
+     * Fetches the blocks covering the passed range which are not cached yet. Consecutive missing blocks are
+     * requested from the provider with a single call. The range is truncated to the capacity of the cache.
+     *
+     * @param position the position of the range
+     * @param len the length of the range
+     * @throws java.io.IOException in case of any I/O error
+     */
+    public synchronized void prefetch(long position, long len) throws java.io.IOException {
+        if (position < 0 || position >= length || len <= 0) {
+            return;
+        }
+        long firstBlock = position / blockSize;
+        long lastIndex = Math.min((Math.min(position + len, length) - 1) / blockSize,
+                firstBlock + maxCachedBlocks - 1);
+        long block = firstBlock;
+        while (block <= lastIndex) {
+            if (cache.containsKey(block)) {
+                block++;
+                continue;
+            }
+            long runEnd = block;
+            while (runEnd < lastIndex && !cache.containsKey(runEnd + 1)) {
+                runEnd++;
+            }
+            fetchBlocks(block, runEnd);
+            block = runEnd + 1;
+        }
+    }
+
+    /**
+     * Gets the number of the blocks in the cache.
+     *
+     * @return the number of cached blocks
+     */
+    public synchronized int getCachedBlocksCount() {
+        return cache.size();
+    }
+
+    private byte[] getBlock(long index) throws java.io.IOException {
+        if (index == lastBlockIndex) {
+            return lastBlock;
+        }
+        byte[] block = cache.get(index);
+        if (block == null) {
+            fetchBlocks(index, index);
+            block = cache.get(index);
+        }
+        lastBlockIndex = index;
+        lastBlock = block;
+        return block;
+    }
+
+    private void fetchBlocks(long firstIndex, long lastIndex) throws java.io.IOException {
+        if (provider == null) {
+            throw new IllegalStateException(IoExceptionMessage.ALREADY_CLOSED);
+        }
+        long start = firstIndex * blockSize;
+        long end = Math.min((lastIndex + 1) * blockSize, length);
+        byte[] bytes = new byte[(int) (end - start)];
+        provider.read(start, bytes, 0, bytes.length);
+        for (long index = firstIndex; index <= lastIndex; index++) {
+            int from = (int) ((index - firstIndex) * blockSize);
+            int to = (int) Math.min(from + (long) blockSize, bytes.length);
+            byte[] block = new byte[to - from];
+            System.arraycopy(bytes, from, block, 0, block.length);
+            cache.put(index, block);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.io.exceptions.IoExceptionMessage;
+
+import java.util.List;
+
+/**
+ * A RandomAccessSource that is based on a list of byte arrays of the same size, so that large content
+ * does not require a single contiguous allocation and is not limited to {@link Integer#MAX_VALUE} bytes.
+ */
+class ChunkedArrayRandomAccessSource implements IRandomAccessSource {
+
+    /**
+     * The binary logarithm of the chunk size.
+     */
+    static final int CHUNK_SIZE_SHIFT = 16;
+
+    /**
+     * The size of a chunk, small enough not to be a humongous object of the G1 garbage collector.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_SIZE_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private byte[][] chunks;
+
+    private final long length;
+
+    /**
+     * Creates the source.
+     *
+     * @param chunks the chunks of {@link #CHUNK_SIZE} bytes each, only the last one may be filled partially
+     * @param length the total length of the content
+     */
+    public ChunkedArrayRandomAccessSource(List<byte[]> chunks, long length) {
+        this.chunks = chunks.toArray(new byte[0][]);
+        this.length = length;
+    }
+
+    public int get(long position) {
+        if (chunks == null) {
+            throw new IllegalStateException(IoExceptionMessage.ALREADY_CLOSED);
+        }
+        if (position >= length) {
+            return -1;
+        }
+        return 0xff & chunks[(int) (position >>> CHUNK_SIZE_SHIFT)][(int) (position & CHUNK_MASK)];
+    }
+
+    public int get(long position, byte[] bytes, int off, int len) {
+        if (chunks == null) {
+            throw new IllegalStateException(IoExceptionMessage.ALREADY_CLOSED);
+        }
+        if (position >= length) {
+            return -1;
+        }
+        if (position + len > length) {
+            len = (int) (length - position);
+        }
+        int read = 0;
+        while (read < len) {
+            long current = position + read;
+            int offsetInChunk = (int) (current & CHUNK_MASK);
+            int count = Math.min(len - read, CHUNK_SIZE - offsetInChunk);
+            System.arraycopy(chunks[(int) (current >>> CHUNK_SIZE_SHIFT)], offsetInChunk, bytes, off + read, count);
+            read += count;
+        }
+        return len;
+    }
+
+    public long length() {
+        if (chunks == null) {
+            throw new IllegalStateException(IoExceptionMessage.ALREADY_CLOSED);
+        }
+        return length;
+    }
+
+    public void close() throws java.io.IOException {
+        chunks = null;
+    }
+}
@@ -0,0 +1,439 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ByteArrayOutputStream} which keeps its content in a list of fixed size chunks instead of a single
+ * growing array, so that large content never requires a large contiguous allocation and is never copied
+ * when the stream grows. The chunks are either heap buffers or direct buffers, which keep the content
+ * off the Java heap. Direct chunks of the default size are pooled: they are returned to the pool
+ * by {@link #release()} and reused by the streams created afterwards.
+ *
+ * <p>
+ * The content is written to other streams chunk by chunk with {@link #writeTo(java.io.OutputStream)}
+ * or read with {@link #toInputStream()}, only {@link #toByteArray()} copies it into a single array.
+ * The content may also be read and overwritten at any position with {@link #readAt(int, byte[], int, int)}
+ * and {@link #writeAt(int, byte[], int, int)}, e.g. by decoders producing the rows of an image out of order.
+ * A stream may share its chunks with copies created by {@link #createSharedCopy()}: the chunks are
+ * copied only when one of the streams is modified.
+ */
+public class ChunkedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    /**
+     * The default size of a chunk, small enough not to be a humongous object of the G1 garbage collector.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final int MAX_POOLED_CHUNKS = 256;
+    private static final byte[] ZEROS = new byte[8192];
+    private static final Queue<java.nio.ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+
+    private final int chunkSize;
+    private final boolean direct;
+    private List<java.nio.ByteBuffer> chunks = new ArrayList<>();
+    private int size;
+    private boolean shared;
+
+    /**
+     * Creates a stream with heap chunks of the default size.
+     */
+    public ChunkedByteArrayOutputStream() {
+        this(false);
+    }
+
+    /**
+     * Creates a stream with chunks of the default size.
+     *
+     * @param direct whether the chunks are direct buffers
+     */
+    public ChunkedByteArrayOutputStream(boolean direct) {
+        this(DEFAULT_CHUNK_SIZE, direct);
+    }
+
+    /**
+     * Creates a stream.
+     *
+     * @param chunkSize the size of a chunk in bytes
+     * @param direct    whether the chunks are direct buffers
+     */
+    public ChunkedByteArrayOutputStream(int chunkSize, boolean direct) {
+        super(0);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.chunkSize = chunkSize;
+        this.direct = direct;
+    }
+
+    /**
+     * Checks whether the chunks of the stream are direct buffers.
+     *
+     * @return {@code true} if the content is kept off the Java heap
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Creates a stream with the same content which shares the chunks with this stream until one of
+     * them is modified.
+     *
+     * @return the copy of the stream
+     */
+    public synchronized ChunkedByteArrayOutputStream createSharedCopy() {
+        ChunkedByteArrayOutputStream copy = new ChunkedByteArrayOutputStream(chunkSize, direct);
+        copy.chunks = chunks;
+        copy.size = size;
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        ensureOwnChunks();
+        java.nio.ByteBuffer chunk = getWritableChunk();
+        chunk.put((byte) b);
+        size++;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOwnChunks();
+        while (len > 0) {
+            java.nio.ByteBuffer chunk = getWritableChunk();
+            int n = Math.min(len, chunk.remaining());
+            chunk.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /**
+     * Writes bytes at a position of the content, overwriting the bytes which are already there.
+     * The content is extended if the written bytes do not fit into it, with zero bytes if the position
+     * is beyond its end.
+     *
+     * @param position the position in the content
+     * @param b        the bytes to write
+     * @param off      the offset of the bytes to write in the array
+     * @param len      the number of bytes to write
+     */
+    public synchronized void writeAt(int position, byte[] b, int off, int len) {
+        if (position < 0 || off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOwnChunks();
+        setSize(Math.max(size, position));
+        while (len > 0 && position < size) {
+            java.nio.ByteBuffer view = chunks.get(position / chunkSize).duplicate();
+            view.clear();
+            view.position(position % chunkSize);
+            int n = Math.min(len, Math.min(view.remaining(), size - position));
+            view.put(b, off, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+        write(b, off, len);
+    }
+
+    /**
+     * Reads bytes at a position of the content.
+     *
+     * @param position the position in the content
+     * @param b        the array to read the bytes into
+     * @param off      the offset in the array
+     * @param len      the maximum number of bytes to read
+     * @return the number of bytes read, which is less than {@code len} only at the end of the content
+     */
+    public synchronized int readAt(int position, byte[] b, int off, int len) {
+        if (position < 0 || off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        int read = 0;
+        while (read < len && position < size) {
+            java.nio.ByteBuffer view = chunks.get(position / chunkSize).duplicate();
+            view.clear();
+            view.position(position % chunkSize);
+            int n = Math.min(len - read, Math.min(view.remaining(), size - position));
+            view.get(b, off + read, n);
+            position += n;
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * Truncates the content or extends it with zero bytes.
+     *
+     * @param newSize the new size of the content
+     */
+    public synchronized void setSize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("The size must not be negative.");
+        }
+        if (newSize == size) {
+            return;
+        }
+        ensureOwnChunks();
+        if (newSize < size) {
+            int count = (newSize + chunkSize - 1) / chunkSize;
+            chunks.subList(count, chunks.size()).clear();
+            if (count > 0) {
+                chunks.get(count - 1).position(newSize - (count - 1) * chunkSize);
+            }
+            size = newSize;
+        }
+        // pooled chunks may keep the content of the streams they were used by, so zeros are written explicitly
+        while (size < newSize) {
+            write(ZEROS, 0, Math.min(ZEROS.length, newSize - size));
+        }
+    }
+
+    @Override
+    public synchronized void writeTo(java.io.OutputStream out) throws java.io.IOException {
+        byte[] buffer = null;
+        int remaining = size;
+        for (java.nio.ByteBuffer chunk : chunks) {
+            int n = Math.min(remaining, chunkSize);
+            if (chunk.hasArray()) {
+                out.write(chunk.array(), chunk.arrayOffset(), n);
+            } else {
+                if (buffer == null) {
+                    buffer = new byte[Math.min(chunkSize, 8192)];
+                }
+                java.nio.ByteBuffer view = chunk.duplicate();
+                view.clear();
+                for (int done = 0; done < n; ) {
+                    int count = Math.min(buffer.length, n - done);
+                    view.get(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                    done += count;
+                }
+            }
+            remaining -= n;
+        }
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        byte[] result = new byte[size];
+        int position = 0;
+        for (java.nio.ByteBuffer chunk : chunks) {
+            int n = Math.min(size - position, chunkSize);
+            java.nio.ByteBuffer view = chunk.duplicate();
+            view.clear();
+            view.get(result, position, n);
+            position += n;
+        }
+        return result;
+    }
+
+    /**
+     * Creates an input stream which reads the current content of this stream without copying it.
+     * The input stream must not be used after this stream is reset or released.
+     *
+     * @return the input stream
+     */
+    public synchronized InputStream toInputStream() {
+        return new ChunksInputStream(new ArrayList<>(chunks), size, chunkSize);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void reset() {
+        release();
+    }
+
+    @Override
+    public synchronized ByteArrayOutputStream assignBytes(byte[] bytes, int count) {
+        release();
+        write(bytes, 0, count);
+        return this;
+    }
+
+    @Override
+    public ByteArrayOutputStream assignBytes(byte[] bytes) {
+        return assignBytes(bytes, bytes.length);
+    }
+
+    /**
+     * Releases the content of the stream, see {@link #release()}.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new String(toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Discards the content of the stream. Direct chunks which are not shared with other streams are
+     * returned to the pool, so neither this stream nor input streams created by {@link #toInputStream()}
+     * may access them anymore.
+     */
+    public synchronized void release() {
+        if (!shared && direct && chunkSize == DEFAULT_CHUNK_SIZE) {
+            for (java.nio.ByteBuffer chunk : chunks) {
+                if (POOL_SIZE.incrementAndGet() <= MAX_POOLED_CHUNKS) {
+                    chunk.clear();
+                    POOL.offer(chunk);
+                } else {
+                    POOL_SIZE.decrementAndGet();
+                }
+            }
+        }
+        chunks = new ArrayList<>();
+        size = 0;
+        shared = false;
+    }
+
+    private void ensureOwnChunks() {
+        if (!shared) {
+            return;
+        }
+        List<java.nio.ByteBuffer> sharedChunks = chunks;
+        int sharedSize = size;
+        chunks = new ArrayList<>();
+        size = 0;
+        shared = false;
+        int remaining = sharedSize;
+        for (java.nio.ByteBuffer chunk : sharedChunks) {
+            int n = Math.min(remaining, chunkSize);
+            java.nio.ByteBuffer view = chunk.duplicate();
+            view.clear();
+            view.limit(n);
+            java.nio.ByteBuffer own = allocateChunk();
+            own.put(view);
+            chunks.add(own);
+            size += n;
+            remaining -= n;
+        }
+    }
+
+    private java.nio.ByteBuffer getWritableChunk() {
+        if (size == chunks.size() * chunkSize) {
+            chunks.add(allocateChunk());
+        }
+        return chunks.get(chunks.size() - 1);
+    }
+
+    private java.nio.ByteBuffer allocateChunk() {
+        if (!direct) {
+            return java.nio.ByteBuffer.allocate(chunkSize);
+        }
+        if (chunkSize == DEFAULT_CHUNK_SIZE) {
+            java.nio.ByteBuffer chunk = POOL.poll();
+            if (chunk != null) {
+                POOL_SIZE.decrementAndGet();
+                return chunk;
+            }
+        }
+        return java.nio.ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    private static final class ChunksInputStream extends InputStream {
+
+        private final List<java.nio.ByteBuffer> chunks;
+        private final int size;
+        private final int chunkSize;
+        private int position;
+
+        ChunksInputStream(List<java.nio.ByteBuffer> chunks, int size, int chunkSize) {
+            this.chunks = chunks;
+            this.size = size;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            int b = chunks.get(position / chunkSize).get(position % chunkSize) & 0xff;
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            len = Math.min(len, Math.min(size - position, chunkSize - position % chunkSize));
+            java.nio.ByteBuffer view = chunks.get(position / chunkSize).duplicate();
+            view.clear();
+            view.position(position % chunkSize);
+            view.get(b, off, len);
+            position += len;
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return size - position;
+        }
+    }
+}
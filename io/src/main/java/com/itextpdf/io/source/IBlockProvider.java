@@ -0,0 +1,78 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+/**
+ * Provides the bytes of a source which is not available as a whole, e.g. a document kept in a remote
+ * storage which supports range requests. The bytes are fetched on demand by
+ * {@link BlockProviderRandomAccessSource} in blocks, each block being requested with a single call.
+ */
+public interface IBlockProvider {
+
+    /**
+     * Gets the total length of the source.
+     *
+     * @return the length of the source in bytes
+     * @throws java.io.IOException in case of any I/O error
+     */
+    long length() throws java.io.IOException;
+
+    /**
+     * Reads the bytes of the specified range of the source. The range never exceeds the length of the source.
+     *
+     * @param position the position of the first byte to read
+     * @param bytes output buffer
+     * @param off offset into the output buffer where results will be placed
+     * @param len the number of bytes to read
+     * @throws java.io.IOException in case of any I/O error or if the bytes could not be read completely
+     */
+    void read(long position, byte[] bytes, int off, int len) throws java.io.IOException;
+
+    /**
+     * Closes this provider and releases any resources associated with it.
+     *
+     * @throws java.io.IOException in case of any I/O error
+     */
+    void close() throws java.io.IOException;
+}
@@ -45,15 +45,19 @@ package com.itextpdf.io.source;
 
 import com.itextpdf.io.exceptions.IOException;
 import com.itextpdf.io.util.ResourceUtil;
-import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.commons.utils.FileUtil;
 import com.itextpdf.commons.utils.MessageFormatUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.net.URL;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Factory to create {@link IRandomAccessSource} objects based on various types of sources
@@ -80,6 +84,17 @@ public final class RandomAccessSourceFactory {
      */
     private boolean exclusivelyLockFile = false;
 
+    /**
+     * The size of the first buffer a stream is read into if the stream doesn't tell how many bytes are available
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    /**
+     * The number of bytes read from a stream after which the content is written to a temporary file
+     * instead of being kept in memory, negative if the content is always kept in memory
+     */
+    private long spillToDiskThreshold = -1;
+
     /**
      * Creates a factory that will give preference to accessing the underling data source using memory mapped files
      */
@@ -119,6 +134,20 @@ public final class RandomAccessSourceFactory {
         return this;
     }
 
+    /**
+     * Determines the number of bytes read from a stream after which the content is written to a temporary file
+     * instead of being kept in memory. Sources created from bigger streams are based on the temporary file, which
+     * is memory mapped (or accessed with {@link RandomAccessFile} if usePlainRandomAccess is true) and is deleted
+     * when the source is closed. By default the content is always kept in memory. To read a document from
+     * a stream this way, create its source with this factory and pass the source to the reader.
+     * @param spillToDiskThreshold the threshold in bytes, negative to always keep the content in memory
+     * @return this object (this allows chaining of method calls)
+     */
+    public RandomAccessSourceFactory setSpillToDiskThreshold(long spillToDiskThreshold) {
+        this.spillToDiskThreshold = spillToDiskThreshold;
+        return this;
+    }
+
     /**
      * Creates a {@link IRandomAccessSource} based on a byte array
      * @param data the byte array
@@ -156,8 +185,7 @@ public final class RandomAccessSourceFactory {
      *
      * <p>
      * If the InputStream is an instance of {@link RASInputStream} then extracts the source from it.
-     * Otherwise The full content of the InputStream is read into memory and used
-     * as the source for the {@link IRandomAccessSource}
+     * Otherwise the source is created as described in {@link #createSource(InputStream)}.
      *
      * @param inputStream the stream to read from
      *
@@ -169,7 +197,7 @@ public final class RandomAccessSourceFactory {
         if (inputStream instanceof RASInputStream) {
             return ((RASInputStream) inputStream).getSource();
         }
-        return createSource(StreamUtil.inputStreamToArray(inputStream));
+        return createSource(inputStream);
     }
 
     /**
@@ -177,7 +205,10 @@ public final class RandomAccessSourceFactory {
      *
      * <p>
      * The full content of the InputStream is read into memory and used
-     * as the source for the {@link IRandomAccessSource}
+     * as the source for the {@link IRandomAccessSource}. Large content is kept in a list of
+     * chunks rather than in a single array. If the spill to disk threshold is set and the stream is
+     * longer than the threshold, the content is written to a temporary file which is used as the source
+     * instead, see {@link #setSpillToDiskThreshold(long)}.
      *
      * @param inputStream the stream to read from
      *
@@ -186,7 +217,24 @@ public final class RandomAccessSourceFactory {
      * @throws java.io.IOException in case of any I/O error.
      */
     public IRandomAccessSource createSource(InputStream inputStream) throws java.io.IOException{
-        return createSource(StreamUtil.inputStreamToArray(inputStream));
+        return readStream(inputStream, spillToDiskThreshold);
+    }
+
+    /**
+     * Creates a {@link IRandomAccessSource} which fetches the bytes on demand from an {@link IBlockProvider}.
+     *
+     * <p>
+     * Only the parts of the source which are actually read are requested from the provider, see
+     * {@link BlockProviderRandomAccessSource} for the details.
+     *
+     * @param blockProvider the provider of the bytes
+     *
+     * @return the newly created {@link IRandomAccessSource}
+     *
+     * @throws java.io.IOException if the length of the source could not be obtained
+     */
+    public IRandomAccessSource createSource(IBlockProvider blockProvider) throws java.io.IOException {
+        return new BlockProviderRandomAccessSource(blockProvider);
     }
 
     /**
@@ -307,7 +355,7 @@ public final class RandomAccessSourceFactory {
      */
     private IRandomAccessSource createByReadingToMemory(InputStream stream) throws java.io.IOException {
         try {
-            return new ArrayRandomAccessSource(StreamUtil.inputStreamToArray(stream));
+            return readStream(stream, -1);
         }
         finally {
             try {
@@ -316,6 +364,107 @@ public final class RandomAccessSourceFactory {
         }
     }
 
+    /**
+     * Reads the stream into chunks of the same size, so that neither a single large array is allocated nor
+     * the content is copied when it grows, and writes it to a temporary file once the threshold is exceeded.
+     * The first chunk is sized from the bytes available in the stream and grows up to the chunk size,
+     * so that the content of a small stream is neither over-allocated nor copied.
+     * @param stream the stream to read
+     * @param spillToDiskThreshold the threshold in bytes, negative to always keep the content in memory
+     * @return the newly created {@link IRandomAccessSource}
+     * @throws java.io.IOException if reading the stream or writing the temporary file fails
+     */
+    private IRandomAccessSource readStream(InputStream stream, long spillToDiskThreshold)
+            throws java.io.IOException {
+        int available = stream.available();
+        byte[] buffer = new byte[Math.min(ChunkedArrayRandomAccessSource.CHUNK_SIZE,
+                available > 0 ? available : INITIAL_BUFFER_SIZE)];
+        int filled = readChunk(stream, buffer, 0);
+        while (filled == buffer.length && buffer.length < ChunkedArrayRandomAccessSource.CHUNK_SIZE) {
+            int next = stream.read();
+            if (next < 0) {
+                break;
+            }
+            buffer = Arrays.copyOf(buffer, Math.min(ChunkedArrayRandomAccessSource.CHUNK_SIZE, buffer.length * 2));
+            buffer[filled++] = (byte) next;
+            filled = readChunk(stream, buffer, filled);
+        }
+        if (filled < buffer.length || buffer.length < ChunkedArrayRandomAccessSource.CHUNK_SIZE) {
+            return new ArrayRandomAccessSource(filled == buffer.length ? buffer : Arrays.copyOf(buffer, filled));
+        }
+
+        List<byte[]> chunks = new ArrayList<>();
+        chunks.add(buffer);
+        long length = filled;
+        while (true) {
+            if (spillToDiskThreshold >= 0 && length > spillToDiskThreshold) {
+                return spillToDisk(chunks, stream);
+            }
+            byte[] chunk = new byte[ChunkedArrayRandomAccessSource.CHUNK_SIZE];
+            filled = readChunk(stream, chunk, 0);
+            if (filled > 0) {
+                chunks.add(chunk);
+                length += filled;
+            }
+            if (filled < chunk.length) {
+                break;
+            }
+        }
+        if (chunks.size() > 1) {
+            return new ChunkedArrayRandomAccessSource(chunks, length);
+        }
+        return new ArrayRandomAccessSource(buffer);
+    }
+
+    private IRandomAccessSource spillToDisk(List<byte[]> chunks, InputStream stream) throws java.io.IOException {
+        File file = FileUtil.createTempFile("itext-source", ".tmp");
+        try {
+            try (java.io.OutputStream output = new FileOutputStream(file)) {
+                for (byte[] chunk : chunks) {
+                    output.write(chunk);
+                }
+                byte[] buffer = chunks.get(chunks.size() - 1);
+                chunks.clear();
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    output.write(buffer, 0, read);
+                }
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            IRandomAccessSource source;
+            if (usePlainRandomAccess || raf.length() <= 0) {
+                source = new RAFRandomAccessSource(raf);
+            } else {
+                try {
+                    source = createBestSource(raf.getChannel());
+                } catch (java.io.IOException e) {
+                    if (!exceptionIsMapFailureException(e)) {
+                        raf.close();
+                        throw e;
+                    }
+                    source = new RAFRandomAccessSource(raf);
+                }
+            }
+            return new TempFileRandomAccessSource(source, file);
+        } catch (java.io.IOException | RuntimeException e) {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            throw e;
+        }
+    }
+
+    private static int readChunk(InputStream stream, byte[] chunk, int filled) throws java.io.IOException {
+        while (filled < chunk.length) {
+            int read = stream.read(chunk, filled, chunk.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
     /**
      * Utility method that determines whether a given java.io.IOException is the result
      * of a failure to map a memory mapped file.  It would be better if the runtime
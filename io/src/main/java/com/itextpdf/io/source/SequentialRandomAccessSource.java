@@ -0,0 +1,191 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.io.exceptions.IoExceptionMessage;
+
+import java.io.InputStream;
+
+/**
+ * A RandomAccessSource which reads the bytes of an {@link InputStream} on demand.
+ * <p>
+ * Only a window of the most recently read bytes is kept in memory, so the source is intended for
+ * sequential reading, e.g. by a {@link PdfTokenizer}, of data which is too big to be fully loaded.
+ * Bytes may be read again as long as they are still in the window, reading a position before the window
+ * results in {@link IllegalStateException}.
+ * <p>
+ * The length of the source is unknown until the end of the stream is reached, so {@link #length()}
+ * returns {@link Long#MAX_VALUE} until then.
+ */
+public class SequentialRandomAccessSource implements IRandomAccessSource {
+
+    /**
+     * The default number of the recently read bytes which are kept in memory.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+
+    private InputStream stream;
+
+    private final int windowSize;
+
+    private final byte[] buffer;
+
+    /**
+     * The position of the first buffered byte.
+     */
+    private long bufferStart;
+
+    /**
+     * The number of the buffered bytes.
+     */
+    private int bufferLength;
+
+    private boolean endReached;
+
+    /**
+     * Constructs a new {@link SequentialRandomAccessSource} with the default window size.
+     *
+     * @param stream the stream to read the bytes from
+     */
+    public SequentialRandomAccessSource(InputStream stream) {
+        this(stream, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a new {@link SequentialRandomAccessSource}.
+     *
+     * @param stream the stream to read the bytes from
+     * @param windowSize the minimal number of the recently read bytes which can be read again, must be positive
+     */
+    public SequentialRandomAccessSource(InputStream stream, int windowSize) {
+        if (stream == null) {
+            throw new IllegalArgumentException("Passed input stream can not be null.");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size shall be positive.");
+        }
+        this.stream = stream;
+        this.windowSize = windowSize;
+        this.buffer = new byte[2 * windowSize];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int get(long position) throws java.io.IOException {
+        if (!ensureBuffered(position)) {
+            return -1;
+        }
+        return 0xff & buffer[(int) (position - bufferStart)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int get(long position, byte[] bytes, int off, int len) throws java.io.IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (read < len && ensureBuffered(position + read)) {
+            int offsetInBuffer = (int) (position + read - bufferStart);
+            int count = Math.min(len - read, bufferLength - offsetInBuffer);
+            System.arraycopy(buffer, offsetInBuffer, bytes, off + read, count);
+            read += count;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long length() {
+        return endReached ? bufferStart + bufferLength : Long.MAX_VALUE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() throws java.io.IOException {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * Reads the stream till the passed position is buffered.
+     *
+     * @return {@code false} if the position is beyond the end of the stream
+     */
+    private boolean ensureBuffered(long position) throws java.io.IOException {
+        if (position < bufferStart) {
+            throw new IllegalStateException(MessageFormatUtil.format(
+                    "Position {0} was already discarded from the window of the sequential source.", position));
+        }
+        while (position >= bufferStart + bufferLength) {
+            if (endReached) {
+                return false;
+            }
+            if (stream == null) {
+                throw new IllegalStateException(IoExceptionMessage.ALREADY_CLOSED);
+            }
+            if (bufferLength == buffer.length) {
+                // keep the last window of the read bytes, so that they still can be read again
+                int discarded = bufferLength - windowSize;
+                System.arraycopy(buffer, discarded, buffer, 0, windowSize);
+                bufferStart += discarded;
+                bufferLength = windowSize;
+            }
+            int count = stream.read(buffer, bufferLength, buffer.length - bufferLength);
+            if (count < 0) {
+                endReached = true;
+            } else {
+                bufferLength += count;
+            }
+        }
+        return true;
+    }
+}
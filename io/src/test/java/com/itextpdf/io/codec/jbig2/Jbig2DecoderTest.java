@@ -0,0 +1,182 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jbig2;
+
+import com.itextpdf.io.exceptions.IOException;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class Jbig2DecoderTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/io/codec/jbig2/Jbig2DecoderTest/";
+
+    @Test
+    public void genericRegionTest() throws java.io.IOException {
+        byte[] file = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "generic.jb2"));
+        Jbig2Bitmap page = Jbig2Decoder.decodeFile(file, 1);
+        Assert.assertEquals(100, page.getWidth());
+        Assert.assertEquals(100, page.getHeight());
+        Assert.assertEquals(100, countBlackPixels(page, 55));
+        Assert.assertEquals(0, countBlackPixels(page, 56));
+        Assert.assertEquals(5600, countBlackPixels(page));
+    }
+
+    @Test
+    public void halftoneRegionTest() throws java.io.IOException {
+        byte[] file = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "halftone.jb2"));
+        Jbig2Bitmap page = Jbig2Decoder.decodeFile(file, 1);
+        Assert.assertEquals(800, page.getWidth());
+        Assert.assertEquals(1200, page.getHeight());
+        Assert.assertEquals(472100, countBlackPixels(page));
+    }
+
+    @Test
+    public void embeddedTextRegionWithGlobalsTest() throws java.io.IOException {
+        byte[] data = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "text.jb2e"));
+        byte[] globals = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "text.glob"));
+        Jbig2Bitmap page = Jbig2Decoder.decodeEmbedded(data, globals);
+        Assert.assertEquals(2528, page.getWidth());
+        Assert.assertEquals(3312, page.getHeight());
+        Assert.assertEquals(90161, countBlackPixels(page));
+    }
+
+    @Test
+    public void embeddedTextRegionWithoutGlobalsTest() throws java.io.IOException {
+        byte[] data = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "text.jb2e"));
+        Exception e = Assert.assertThrows(IOException.class, () -> Jbig2Decoder.decodeEmbedded(data, null));
+        Assert.assertEquals("JBIG2 symbol id 0 is out of range.", e.getMessage());
+    }
+
+    @Test
+    public void packedBytesTest() throws java.io.IOException {
+        byte[] file = Files.readAllBytes(Paths.get(SOURCE_FOLDER + "generic.jb2"));
+        Jbig2Bitmap page = Jbig2Decoder.decodeFile(file, 1);
+        byte[] inverted = page.toByteArray(true);
+        byte[] plain = page.toByteArray(false);
+        Assert.assertEquals(13 * 100, inverted.length);
+        // black rows: 0 is black in inverted data, padding bits are always unset
+        Assert.assertEquals((byte) 0x00, inverted[12]);
+        Assert.assertEquals((byte) 0xF0, plain[12]);
+        // white rows
+        Assert.assertEquals((byte) 0xFF, inverted[13 * 56]);
+        Assert.assertEquals((byte) 0xF0, inverted[13 * 57 - 1]);
+        Assert.assertEquals((byte) 0x00, plain[13 * 56]);
+    }
+
+    @Test
+    public void composeTest() {
+        Jbig2Bitmap symbol = new Jbig2Bitmap(45, 7);
+        for (int y = 0; y < symbol.getHeight(); y++) {
+            for (int x = 0; x < symbol.getWidth(); x++) {
+                symbol.setPixel(x, y, (x * 7 + y * 3) % 5 == 0 ? 1 : 0);
+            }
+        }
+        int[] operators = {Jbig2Bitmap.OP_OR, Jbig2Bitmap.OP_AND, Jbig2Bitmap.OP_XOR, Jbig2Bitmap.OP_XNOR,
+                Jbig2Bitmap.OP_REPLACE};
+        int[][] offsets = {{0, 0}, {-13, -2}, {31, 5}, {60, 1}, {3, 11}};
+        for (int op : operators) {
+            for (int[] offset : offsets) {
+                Jbig2Bitmap actual = new Jbig2Bitmap(70, 15);
+                Jbig2Bitmap expected = new Jbig2Bitmap(70, 15);
+                for (int y = 0; y < actual.getHeight(); y++) {
+                    for (int x = 0; x < actual.getWidth(); x++) {
+                        int value = (x + y) % 3 == 0 ? 1 : 0;
+                        actual.setPixel(x, y, value);
+                        expected.setPixel(x, y, value);
+                    }
+                }
+                actual.compose(symbol, offset[0], offset[1], op);
+                for (int y = 0; y < symbol.getHeight(); y++) {
+                    for (int x = 0; x < symbol.getWidth(); x++) {
+                        int dst = expected.getPixel(x + offset[0], y + offset[1]);
+                        int src = symbol.getPixel(x, y);
+                        int value;
+                        switch (op) {
+                            case Jbig2Bitmap.OP_OR:
+                                value = dst | src;
+                                break;
+                            case Jbig2Bitmap.OP_AND:
+                                value = dst & src;
+                                break;
+                            case Jbig2Bitmap.OP_XOR:
+                                value = dst ^ src;
+                                break;
+                            case Jbig2Bitmap.OP_XNOR:
+                                value = 1 - (dst ^ src);
+                                break;
+                            default:
+                                value = src;
+                                break;
+                        }
+                        expected.setPixel(x + offset[0], y + offset[1], value);
+                    }
+                }
+                Assert.assertArrayEquals(expected.toByteArray(false), actual.toByteArray(false));
+            }
+        }
+    }
+
+    private static int countBlackPixels(Jbig2Bitmap bitmap) {
+        int count = 0;
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            count += countBlackPixels(bitmap, y);
+        }
+        return count;
+    }
+
+    private static int countBlackPixels(Jbig2Bitmap bitmap, int y) {
+        int count = 0;
+        for (int x = 0; x < bitmap.getWidth(); x++) {
+            count += bitmap.getPixel(x, y);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg;
+
+import com.itextpdf.io.exceptions.IOException;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class JpegDecoderTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/io/codec/jpeg/JpegDecoderTest/";
+
+    @Test
+    public void baselineWithRestartIntervalTest() throws java.io.IOException {
+        // the Adobe marker declares RGB samples, so no colour transformation is applied
+        JpegRaster raster = JpegDecoder.decode(readFile(SOURCE_FOLDER + "baselineRestart.jpg"));
+        Assert.assertEquals(247, raster.getWidth());
+        Assert.assertEquals(110, raster.getHeight());
+        Assert.assertEquals(3, raster.getNumberOfComponents());
+        Assert.assertEquals(8, raster.getBitsPerComponent());
+        Assert.assertEquals(209, raster.getSample(0, 10, 20));
+        Assert.assertEquals(205, raster.getSample(1, 10, 20));
+        Assert.assertEquals(200, raster.getSample(2, 10, 20));
+        Assert.assertEquals(14738169, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void subsampledChromaTest() throws java.io.IOException {
+        JpegRaster raster = JpegDecoder.decode(readFile(SOURCE_FOLDER + "subsampled.jpg"));
+        Assert.assertEquals(128, raster.getWidth());
+        Assert.assertEquals(128, raster.getHeight());
+        byte[] bytes = raster.toByteArray();
+        Assert.assertEquals(128 * 128 * 3, bytes.length);
+        Assert.assertEquals(6456401, sum(bytes));
+    }
+
+    @Test
+    public void progressiveTest() throws java.io.IOException {
+        JpegRaster raster = JpegDecoder.decode(readFile(SOURCE_FOLDER + "progressive.jpg"));
+        Assert.assertEquals(250, raster.getWidth());
+        Assert.assertEquals(166, raster.getHeight());
+        Assert.assertEquals(46, raster.getSample(0, 10, 20));
+        Assert.assertEquals(8101816, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void progressiveWithRestartIntervalTest() throws java.io.IOException {
+        JpegRaster raster = JpegDecoder.decode(readFile(SOURCE_FOLDER + "progressiveRestart.jpg"));
+        Assert.assertEquals(256, raster.getWidth());
+        Assert.assertEquals(192, raster.getHeight());
+        Assert.assertEquals(112, raster.getSample(0, 10, 20));
+        Assert.assertEquals(15780275, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void progressiveGrayWithRestartIntervalTest() throws java.io.IOException {
+        // non-interleaved scans with restart intervals counted in blocks
+        JpegRaster raster = JpegDecoder.decode(readFile(SOURCE_FOLDER + "progressiveGrayRestart.jpg"));
+        Assert.assertEquals(300, raster.getWidth());
+        Assert.assertEquals(200, raster.getHeight());
+        Assert.assertEquals(1, raster.getNumberOfComponents());
+        Assert.assertEquals(152, raster.getSample(0, 10, 20));
+        Assert.assertEquals(6324281, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void parallelDecodingTest() throws java.io.IOException {
+        for (String name : new String[] {"baselineRestart.jpg", "progressiveRestart.jpg"}) {
+            byte[] data = readFile(SOURCE_FOLDER + name);
+            Assert.assertArrayEquals(JpegDecoder.decode(data, false).toByteArray(),
+                    JpegDecoder.decode(data, true).toByteArray());
+        }
+    }
+
+    @Test
+    public void colorTransformTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "subsampled.jpg");
+        JpegRaster raster = JpegDecoder.decode(data, 0, false);
+        // YCbCr samples are returned as they are
+        Assert.assertEquals(9, raster.getSample(0, 10, 20));
+        Assert.assertEquals(127, raster.getSample(1, 10, 20));
+        Assert.assertEquals(128, raster.getSample(2, 10, 20));
+
+        // the Adobe marker takes precedence over the filter parameter
+        data = readFile(SOURCE_FOLDER + "baselineRestart.jpg");
+        Assert.assertArrayEquals(JpegDecoder.decode(data).toByteArray(),
+                JpegDecoder.decode(data, 1, false).toByteArray());
+    }
+
+    @Test
+    public void arithmeticCodingTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "subsampled.jpg");
+        // turn the SOF0 marker into a SOF9 one
+        int position = 2;
+        while (data[position + 1] != (byte) 0xc0) {
+            position += 2 + ((data[position + 2] & 0xff) << 8 | data[position + 3] & 0xff);
+        }
+        data[position + 1] = (byte) 0xc9;
+        Exception e = Assert.assertThrows(IOException.class, () -> JpegDecoder.decode(data));
+        Assert.assertEquals("JPEG coding process of SOF9 frames is not supported.", e.getMessage());
+    }
+
+    @Test
+    public void invalidDataTest() {
+        Exception e = Assert.assertThrows(IOException.class,
+                () -> JpegDecoder.decode(new byte[] {0, 0, 0, 12}));
+        Assert.assertEquals(IOException.InvalidJpegFile, e.getMessage());
+    }
+
+    @Test
+    public void truncatedDataTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "progressive.jpg");
+        byte[] truncated = new byte[data.length / 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        JpegRaster raster = JpegDecoder.decode(truncated);
+        Assert.assertEquals(250, raster.getWidth());
+        Assert.assertEquals(250 * 166 * 3, raster.toByteArray().length);
+    }
+
+    private static long sum(byte[] bytes) {
+        long sum = 0;
+        for (byte b : bytes) {
+            sum += b & 0xff;
+        }
+        return sum;
+    }
+}
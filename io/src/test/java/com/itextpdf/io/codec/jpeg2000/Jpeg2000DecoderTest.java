@@ -0,0 +1,146 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec.jpeg2000;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.io.exceptions.IOException;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class Jpeg2000DecoderTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/io/codec/jpeg2000/Jpeg2000DecoderTest/";
+
+    @Test
+    public void reversibleCodestreamTest() throws java.io.IOException {
+        Jpeg2000Raster raster = Jpeg2000Decoder.decode(readFile(SOURCE_FOLDER + "p0_01.j2k"));
+        Assert.assertEquals(128, raster.getWidth());
+        Assert.assertEquals(128, raster.getHeight());
+        Assert.assertEquals(1, raster.getNumberOfComponents());
+        Assert.assertEquals(8, raster.getPrecision(0));
+        Assert.assertFalse(raster.isSigned(0));
+        Assert.assertEquals(194, raster.getSample(0, 10, 20));
+        Assert.assertEquals(34, raster.getSample(0, 127, 127));
+        Assert.assertEquals(2515524, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void imageOffsetAndTerminatedPassesTest() throws java.io.IOException {
+        // image and tile offsets, SOP and EPH markers, segmentation symbols and termination on each pass
+        Jpeg2000Raster raster = Jpeg2000Decoder.decode(readFile(SOURCE_FOLDER + "p1_01.j2k"));
+        Assert.assertEquals(122, raster.getWidth());
+        Assert.assertEquals(99, raster.getHeight());
+        Assert.assertEquals(69, raster.getSample(0, 10, 20));
+        Assert.assertEquals(735102, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void irreversibleCodestreamWithPackedHeadersTest() throws java.io.IOException {
+        // 9-7 filter with component transformation, PPT marker segments and custom precincts
+        Jpeg2000Raster raster = Jpeg2000Decoder.decode(readFile(SOURCE_FOLDER + "p1_02.j2k"));
+        Assert.assertEquals(640, raster.getWidth());
+        Assert.assertEquals(480, raster.getHeight());
+        Assert.assertEquals(3, raster.getNumberOfComponents());
+        Assert.assertEquals(8, raster.getBitsPerComponent());
+        byte[] bytes = raster.toByteArray();
+        Assert.assertEquals(640 * 480 * 3, bytes.length);
+        Assert.assertEquals(103509753, sum(bytes));
+    }
+
+    @Test
+    public void paletteTest() throws java.io.IOException {
+        Jpeg2000Raster raster = Jpeg2000Decoder.decode(readFile(SOURCE_FOLDER + "file9.jp2"));
+        Assert.assertEquals(768, raster.getWidth());
+        Assert.assertEquals(512, raster.getHeight());
+        // single component codestream mapped through the palette
+        Assert.assertEquals(3, raster.getNumberOfComponents());
+        Assert.assertEquals(129077787, sum(raster.toByteArray()));
+    }
+
+    @Test
+    public void parallelDecodingTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "p1_02.j2k");
+        Assert.assertArrayEquals(Jpeg2000Decoder.decode(data, false).toByteArray(),
+                Jpeg2000Decoder.decode(data, true).toByteArray());
+    }
+
+    @Test
+    public void invalidDataTest() {
+        Exception e = Assert.assertThrows(IOException.class,
+                () -> Jpeg2000Decoder.decode(new byte[] {(byte) 0xff, (byte) 0xd8, 0, 0}));
+        Assert.assertEquals(IOException.InvalidJpeg2000File, e.getMessage());
+    }
+
+    @Test
+    public void unsupportedPrecisionTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "p0_01.j2k");
+        // the precision of the first component in the SIZ marker segment, 38 bits
+        data[42] = 0x25;
+        Exception e = Assert.assertThrows(IOException.class, () -> Jpeg2000Decoder.decode(data));
+        Assert.assertEquals(MessageFormatUtil.format(IOException.Jpeg2000PrecisionIsNotSupported, 38), e.getMessage());
+    }
+
+    @Test
+    public void truncatedCodestreamTest() throws java.io.IOException {
+        byte[] data = readFile(SOURCE_FOLDER + "p0_01.j2k");
+        byte[] truncated = new byte[data.length / 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        Jpeg2000Raster raster = Jpeg2000Decoder.decode(truncated);
+        Assert.assertEquals(128, raster.getWidth());
+        Assert.assertEquals(128 * 128, raster.toByteArray().length);
+    }
+
+    private static long sum(byte[] bytes) {
+        long sum = 0;
+        for (byte b : bytes) {
+            sum += b & 0xff;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class BlockProviderRandomAccessSourceTest extends ExtendedITextTest {
+
+    @Test
+    public void getByIndexTest() throws IOException {
+        byte[] content = createContent(100);
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(
+                new CountingBlockProvider(content), 8, 4);
+        Assert.assertEquals(content.length, source.length());
+        for (int i = 0; i < content.length; i++) {
+            Assert.assertEquals(0xff & content[i], source.get(i));
+        }
+        Assert.assertEquals(-1, source.get(content.length));
+    }
+
+    @Test
+    public void getArrayAcrossBlocksTest() throws IOException {
+        byte[] content = createContent(100);
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(
+                new CountingBlockProvider(content), 8, 4);
+        byte[] dest = new byte[30];
+
+        Assert.assertEquals(25, source.get(13, dest, 2, 25));
+        for (int i = 0; i < 25; i++) {
+            Assert.assertEquals(content[13 + i], dest[2 + i]);
+        }
+        Assert.assertEquals(5, source.get(95, dest, 0, 30));
+        Assert.assertEquals(-1, source.get(100, dest, 0, 30));
+    }
+
+    @Test
+    public void onlyReadBlocksAreFetchedTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(createContent(1000));
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(provider, 100, 16);
+
+        source.get(5);
+        source.get(50);
+        source.get(950);
+        source.get(999);
+        Assert.assertEquals(2, provider.requests.size());
+        Assert.assertEquals(200, provider.fetchedBytes);
+        Assert.assertEquals(2, source.getCachedBlocksCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedBlocksAreEvictedTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(createContent(1000));
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(provider, 100, 2);
+
+        source.get(0);
+        source.get(100);
+        source.get(0);
+        source.get(200);
+        Assert.assertEquals(3, provider.requests.size());
+        Assert.assertEquals(2, source.getCachedBlocksCount());
+
+        // block 0 was used more recently than block 1
+        source.get(50);
+        Assert.assertEquals(3, provider.requests.size());
+        source.get(150);
+        Assert.assertEquals(4, provider.requests.size());
+    }
+
+    @Test
+    public void prefetchRequestsMissingBlocksAtOnceTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(createContent(1000));
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(provider, 100, 16);
+
+        source.get(350);
+        source.prefetch(150, 600);
+        Assert.assertArrayEquals(new long[] {100, 200}, provider.requests.get(1));
+        Assert.assertArrayEquals(new long[] {400, 400}, provider.requests.get(2));
+        Assert.assertEquals(3, provider.requests.size());
+
+        byte[] dest = new byte[600];
+        source.get(150, dest, 0, 600);
+        Assert.assertEquals(3, provider.requests.size());
+    }
+
+    @Test
+    public void prefetchIsLimitedByCacheCapacityTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(createContent(1000));
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(provider, 100, 3);
+
+        source.prefetch(0, 1000);
+        Assert.assertEquals(1, provider.requests.size());
+        Assert.assertEquals(300, provider.fetchedBytes);
+        Assert.assertEquals(3, source.getCachedBlocksCount());
+    }
+
+    @Test
+    public void factoryCreatesBlockProviderSourceTest() throws IOException {
+        byte[] content = createContent(10);
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(new CountingBlockProvider(content));
+        Assert.assertTrue(source instanceof BlockProviderRandomAccessSource);
+        Assert.assertEquals(10, source.length());
+    }
+
+    @Test
+    public void closeClosesProviderTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(createContent(10));
+        BlockProviderRandomAccessSource source = new BlockProviderRandomAccessSource(provider);
+        source.close();
+        Assert.assertTrue(provider.closed);
+        Assert.assertThrows(IllegalStateException.class, () -> source.get(0));
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+
+    private static class CountingBlockProvider implements IBlockProvider {
+        private final byte[] content;
+        private final List<long[]> requests = new ArrayList<>();
+        private long fetchedBytes;
+        private boolean closed;
+
+        CountingBlockProvider(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long length() {
+            return content.length;
+        }
+
+        @Override
+        public void read(long position, byte[] bytes, int off, int len) {
+            requests.add(new long[] {position, len});
+            fetchedBytes += len;
+            System.arraycopy(content, (int) position, bytes, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
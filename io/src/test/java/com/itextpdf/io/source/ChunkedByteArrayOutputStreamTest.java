@@ -0,0 +1,203 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class ChunkedByteArrayOutputStreamTest extends ExtendedITextTest {
+
+    @Test
+    public void writeAcrossChunksTest() {
+        byte[] data = createData(1000);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, false);
+        stream.write(data, 0, 100);
+        stream.write(data[100]);
+        stream.write(data, 101, 899);
+
+        Assert.assertEquals(1000, stream.size());
+        Assert.assertArrayEquals(data, stream.toByteArray());
+    }
+
+    @Test
+    public void writeToDirectTest() throws IOException {
+        byte[] data = createData(200000);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(true);
+        stream.write(data, 0, data.length);
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        stream.writeTo(out);
+
+        Assert.assertTrue(stream.isDirect());
+        Assert.assertArrayEquals(data, out.toByteArray());
+        stream.release();
+        Assert.assertEquals(0, stream.size());
+    }
+
+    @Test
+    public void toInputStreamTest() throws IOException {
+        byte[] data = createData(1000);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, true);
+        stream.write(data, 0, data.length);
+        InputStream in = stream.toInputStream();
+
+        byte[] read = new byte[data.length];
+        read[0] = (byte) in.read();
+        int position = 1;
+        int n;
+        while ((n = in.read(read, position, read.length - position)) > 0) {
+            position += n;
+        }
+        Assert.assertEquals(data.length, position);
+        Assert.assertEquals(-1, in.read());
+        Assert.assertArrayEquals(data, read);
+    }
+
+    @Test
+    public void assignBytesTest() {
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, false);
+        stream.write(createData(300), 0, 300);
+        stream.assignBytes(new byte[] {1, 2, 3, 4}, 3);
+
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, stream.toByteArray());
+    }
+
+    @Test
+    public void sharedCopyTest() {
+        byte[] data = createData(100);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, true);
+        stream.write(data, 0, data.length);
+        ChunkedByteArrayOutputStream copy = stream.createSharedCopy();
+        copy.write(7);
+        stream.release();
+
+        Assert.assertEquals(0, stream.size());
+        Assert.assertEquals(101, copy.size());
+        byte[] copyData = copy.toByteArray();
+        Assert.assertEquals(7, copyData[100]);
+        for (int i = 0; i < data.length; i++) {
+            Assert.assertEquals(data[i], copyData[i]);
+        }
+    }
+
+    @Test
+    public void releasedSharedCopyKeepsContentTest() {
+        byte[] data = createData(100);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(true);
+        stream.write(data, 0, data.length);
+        ChunkedByteArrayOutputStream copy = stream.createSharedCopy();
+        copy.close();
+        ChunkedByteArrayOutputStream other = new ChunkedByteArrayOutputStream(true);
+        other.write(new byte[100], 0, 100);
+
+        Assert.assertArrayEquals(data, stream.toByteArray());
+    }
+
+    @Test
+    public void writeAtAndReadAtTest() {
+        byte[] data = createData(300);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, true);
+        stream.write(new byte[200], 0, 200);
+        stream.writeAt(100, data, 0, 200);
+
+        Assert.assertEquals(300, stream.size());
+        byte[] read = new byte[250];
+        Assert.assertEquals(200, stream.readAt(100, read, 10, 240));
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals(data[i], read[10 + i]);
+        }
+    }
+
+    @Test
+    public void writeAtBeyondSizeTest() {
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, false);
+        stream.writeAt(100, new byte[] {1, 2}, 0, 2);
+
+        byte[] expected = new byte[102];
+        expected[100] = 1;
+        expected[101] = 2;
+        Assert.assertArrayEquals(expected, stream.toByteArray());
+    }
+
+    @Test
+    public void setSizeTest() {
+        byte[] data = createData(200);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, true);
+        stream.write(data, 0, data.length);
+        stream.setSize(70);
+        stream.setSize(150);
+
+        byte[] read = stream.toByteArray();
+        Assert.assertEquals(150, read.length);
+        for (int i = 0; i < read.length; i++) {
+            Assert.assertEquals(i < 70 ? data[i] : 0, read[i]);
+        }
+    }
+
+    @Test
+    public void writeAtKeepsSharedCopyTest() {
+        byte[] data = createData(100);
+        ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(64, false);
+        stream.write(data, 0, data.length);
+        ChunkedByteArrayOutputStream copy = stream.createSharedCopy();
+        copy.writeAt(0, new byte[100], 0, 100);
+
+        Assert.assertArrayEquals(data, stream.toByteArray());
+        Assert.assertArrayEquals(new byte[100], copy.toByteArray());
+    }
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + (i >> 8));
+        }
+        return data;
+    }
+}
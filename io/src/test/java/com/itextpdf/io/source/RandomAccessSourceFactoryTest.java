@@ -46,7 +46,10 @@ import com.itextpdf.io.exceptions.IoExceptionMessage;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.UnitTest;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import org.junit.Assert;
@@ -101,4 +104,131 @@ public class RandomAccessSourceFactoryTest extends ExtendedITextTest {
             Assert.assertEquals(extractedRandomAccessSource, rasInputStream.getSource());
         }
     }
+
+    @Test
+    public void smallStreamIsReadToArrayTest() throws IOException {
+        byte[] content = createContent(100);
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(new ByteArrayInputStream(content));
+        Assert.assertTrue(source instanceof ArrayRandomAccessSource);
+        assertContent(content, source);
+    }
+
+    @Test
+    public void emptyStreamTest() throws IOException {
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(new ByteArrayInputStream(new byte[0]));
+        Assert.assertEquals(0, source.length());
+        Assert.assertEquals(-1, source.get(0));
+    }
+
+    @Test
+    public void largeStreamIsReadToChunksTest() throws IOException {
+        byte[] content = createContent(3 * ChunkedArrayRandomAccessSource.CHUNK_SIZE + 123);
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(new SlowInputStream(content));
+        Assert.assertTrue(source instanceof ChunkedArrayRandomAccessSource);
+        assertContent(content, source);
+
+        byte[] bytes = new byte[1000];
+        long position = 2 * ChunkedArrayRandomAccessSource.CHUNK_SIZE - 500;
+        Assert.assertEquals(1000, source.get(position, bytes, 0, 1000));
+        for (int i = 0; i < bytes.length; i++) {
+            Assert.assertEquals(content[(int) position + i], bytes[i]);
+        }
+        Assert.assertEquals(123, source.get(content.length - 123, bytes, 0, 1000));
+        Assert.assertEquals(-1, source.get(content.length, bytes, 0, 1000));
+    }
+
+    @Test
+    public void streamIsSpilledToDiskTest() throws IOException {
+        byte[] content = createContent(5 * ChunkedArrayRandomAccessSource.CHUNK_SIZE + 17);
+        IRandomAccessSource source = new RandomAccessSourceFactory()
+                .setSpillToDiskThreshold(ChunkedArrayRandomAccessSource.CHUNK_SIZE)
+                .createSource(new SlowInputStream(content));
+        Assert.assertTrue(source instanceof TempFileRandomAccessSource);
+        assertContent(content, source);
+
+        File file = ((TempFileRandomAccessSource) source).getFile();
+        Assert.assertTrue(file.exists());
+        Assert.assertEquals(content.length, file.length());
+        source.close();
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void streamIsSpilledToDiskWithPlainRandomAccessTest() throws IOException {
+        byte[] content = createContent(2 * ChunkedArrayRandomAccessSource.CHUNK_SIZE + 5);
+        IRandomAccessSource source = new RandomAccessSourceFactory()
+                .setUsePlainRandomAccess(true)
+                .setSpillToDiskThreshold(0)
+                .createSource(new ByteArrayInputStream(content));
+        Assert.assertTrue(source instanceof TempFileRandomAccessSource);
+        assertContent(content, source);
+        source.close();
+        Assert.assertFalse(((TempFileRandomAccessSource) source).getFile().exists());
+    }
+
+    @Test
+    public void streamBelowThresholdIsKeptInMemoryTest() throws IOException {
+        byte[] content = createContent(2 * ChunkedArrayRandomAccessSource.CHUNK_SIZE);
+        IRandomAccessSource source = new RandomAccessSourceFactory()
+                .setSpillToDiskThreshold(content.length)
+                .createSource(new ByteArrayInputStream(content));
+        Assert.assertTrue(source instanceof ChunkedArrayRandomAccessSource);
+        assertContent(content, source);
+    }
+
+    @Test
+    public void extractedSourceIsSpilledToDiskTest() throws IOException {
+        byte[] content = createContent(ChunkedArrayRandomAccessSource.CHUNK_SIZE + 1);
+        IRandomAccessSource source = new RandomAccessSourceFactory()
+                .setSpillToDiskThreshold(0)
+                .extractOrCreateSource(new ByteArrayInputStream(content));
+        Assert.assertTrue(source instanceof TempFileRandomAccessSource);
+        assertContent(content, source);
+        source.close();
+    }
+
+    @Test
+    public void streamsOfVariousLengthsTest() throws IOException {
+        int chunkSize = ChunkedArrayRandomAccessSource.CHUNK_SIZE;
+        for (int length : new int[] {1, 8191, 8192, 8193, 16384, 40000, chunkSize - 1, chunkSize, chunkSize + 1}) {
+            byte[] content = createContent(length);
+            // the slow stream doesn't tell how many bytes are available, unlike the array based one
+            assertContent(content, new RandomAccessSourceFactory().createSource(new SlowInputStream(content)));
+            assertContent(content, new RandomAccessSourceFactory().createSource(new ByteArrayInputStream(content)));
+        }
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 13 + i / 256);
+        }
+        return content;
+    }
+
+    private static void assertContent(byte[] expected, IRandomAccessSource source) throws IOException {
+        Assert.assertEquals(expected.length, source.length());
+        for (int i = 0; i < expected.length; i += 97) {
+            Assert.assertEquals(0xff & expected[i], source.get(i));
+        }
+        byte[] actual = new byte[expected.length];
+        Assert.assertEquals(expected.length, source.get(0, actual, 0, actual.length));
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    private static class SlowInputStream extends FilterInputStream {
+        SlowInputStream(byte[] content) {
+            super(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1000));
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.io.exceptions.IoExceptionMessage;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class SequentialRandomAccessSourceTest extends ExtendedITextTest {
+
+    @Test
+    public void sequentialReadTest() throws IOException {
+        byte[] content = createContent(10000);
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(new SlowInputStream(content), 100);
+        for (int i = 0; i < content.length; i++) {
+            Assert.assertEquals(0xff & content[i], source.get(i));
+        }
+        Assert.assertEquals(-1, source.get(content.length));
+        Assert.assertEquals(content.length, source.length());
+    }
+
+    @Test
+    public void readThroughTokenizerTest() throws IOException {
+        byte[] content = "1 0 0 1 10 20 cm /F1 12 Tf (Hello) Tj".getBytes();
+        PdfTokenizer tokenizer = new PdfTokenizer(new RandomAccessFileOrArray(
+                new SequentialRandomAccessSource(new SlowInputStream(content), 4)));
+        StringBuilder tokens = new StringBuilder();
+        while (tokenizer.nextToken()) {
+            tokens.append(tokenizer.getStringValue()).append('|');
+        }
+        Assert.assertEquals("1|0|0|1|10|20|cm|F1|12|Tf|Hello|Tj|", tokens.toString());
+    }
+
+    @Test
+    public void readArrayTest() throws IOException {
+        byte[] content = createContent(1000);
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(new SlowInputStream(content), 64);
+        byte[] bytes = new byte[300];
+        Assert.assertEquals(300, source.get(100, bytes, 0, 300));
+        for (int i = 0; i < bytes.length; i++) {
+            Assert.assertEquals(content[100 + i], bytes[i]);
+        }
+        Assert.assertEquals(100, source.get(900, bytes, 0, 300));
+        Assert.assertEquals(-1, source.get(1000, bytes, 0, 300));
+    }
+
+    @Test
+    public void rereadWithinWindowTest() throws IOException {
+        byte[] content = createContent(1000);
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(new ByteArrayInputStream(content), 64);
+        Assert.assertEquals(0xff & content[500], source.get(500));
+        Assert.assertEquals(0xff & content[500 - 63], source.get(500 - 63));
+    }
+
+    @Test
+    public void readBeforeWindowTest() throws IOException {
+        byte[] content = createContent(1000);
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(new ByteArrayInputStream(content), 64);
+        Assert.assertEquals(0xff & content[999], source.get(999));
+        Assert.assertThrows(IllegalStateException.class, () -> source.get(10));
+    }
+
+    @Test
+    public void lengthIsUnknownBeforeEndTest() throws IOException {
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(
+                new ByteArrayInputStream(createContent(100)));
+        Assert.assertEquals(Long.MAX_VALUE, source.length());
+        Assert.assertEquals(-1, source.get(100));
+        Assert.assertEquals(100, source.length());
+    }
+
+    @Test
+    public void closeTest() throws IOException {
+        boolean[] closed = new boolean[1];
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(createContent(10))) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        SequentialRandomAccessSource source = new SequentialRandomAccessSource(stream);
+        source.close();
+        Assert.assertTrue(closed[0]);
+        Exception e = Assert.assertThrows(IllegalStateException.class, () -> source.get(0));
+        Assert.assertEquals(IoExceptionMessage.ALREADY_CLOSED, e.getMessage());
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 13 + i / 256);
+        }
+        return content;
+    }
+
+    private static class SlowInputStream extends FilterInputStream {
+        SlowInputStream(byte[] content) {
+            super(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
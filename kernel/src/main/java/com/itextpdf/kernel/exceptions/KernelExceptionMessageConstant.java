@@ -66,6 +66,8 @@ public final class KernelExceptionMessageConstant {
             + "by InputStream without PdfDocument.";
     public static final String CANNOT_CREATE_TYPE_0_FONT_WITH_TRUE_TYPE_FONT_PROGRAM_WITHOUT_EMBEDDING_IT
             = "Cannot create Type0 font with true type font program without embedding it.";
+    public static final String CANNOT_EDIT_CONTENT_OF_DOCUMENT_OPENED_IN_READING_MODE = "Cannot edit content of "
+            + "document opened in reading mode.";
     public static final String CANNOT_EMBED_STANDARD_FONT = "Standard fonts cannot be embedded.";
     public static final String CANNOT_EMBED_TYPE_0_FONT_WITH_CID_FONT_PROGRAM
             = "Cannot embed Type0 font with CID font program based on non-generic predefined CMap.";
@@ -199,8 +201,10 @@ public final class KernelExceptionMessageConstant {
     public static final String IN_A_PAGE_LABEL_THE_PAGE_NUMBERS_MUST_BE_GREATER_OR_EQUAL_TO_1 = "In a page label the "
             + "page numbers must be greater or equal to 1.";
     public static final String INCORRECT_NUMBER_OF_COMPONENTS = "Incorrect number of components.";
+    public static final String INVALID_COLUMNAR_TEXT_DATA = "Invalid columnar text data: {0}.";
     public static final String INVALID_CROSS_REFERENCE_ENTRY_IN_THIS_XREF_SUBSECTION = "Invalid cross reference entry "
             + "in this xref subsection.";
+    public static final String INVALID_GLYPH_POSITION_INDEX_DATA = "Invalid glyph position index data: {0}.";
     public static final String INVALID_INDIRECT_REFERENCE = "Invalid indirect reference {0}.";
     public static final String INVALID_MEDIA_BOX_VALUE = "Tne media box object has incorrect values.";
     public static final String INVALID_PAGE_STRUCTURE = "Invalid page structure {0}.";
@@ -212,6 +216,8 @@ public final class KernelExceptionMessageConstant {
     public static final String INVALID_XREF_TABLE = "Invalid xref table.";
     public static final String IO_EXCEPTION = "I/O exception.";
     public static final String IO_EXCEPTION_WHILE_CREATING_FONT = "I/O exception while creating Font";
+    public static final String JPEG2000_IMAGE_WITH_COMPONENTS_CANNOT_BE_CONVERTED = "JPEG2000 image with {0} "
+            + "colour components cannot be converted to a buffered image.";
     public static final String LZW_DECODER_EXCEPTION = "LZW decoder exception.";
     public static final String LZW_FLAVOUR_NOT_SUPPORTED = "LZW flavour not supported.";
     public static final String MISSING_REQUIRED_FIELD_IN_FONT_DICTIONARY
@@ -73,6 +73,13 @@ public final class KernelLogMessageConstant {
             "JPXDecode filter decoding into the bit map is not supported. The stream data would be left in JPEG2000 "
                     + "format";
 
+    public static final String LINEARIZATION_HINTS_ARE_IGNORED =
+            "Linearization hints of the document are invalid and will be ignored";
+
+    public static final String LINEARIZATION_IS_NOT_SUPPORTED =
+            "Linearization is not supported for encrypted documents and in append mode. The document will be "
+                    + "written without linearization";
+
     public static final String UNABLE_TO_PARSE_COLOR_WITHIN_COLORSPACE =
             "Unable to parse color {0} within {1} color space";
 
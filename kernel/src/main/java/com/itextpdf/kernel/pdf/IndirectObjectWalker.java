@@ -0,0 +1,345 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.filters.FilterHandlers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Visits all indirect objects of a document in the order of the file.
+ * <p>
+ * Objects which are not loaded yet are read, passed to the visitor and released right away, so that the
+ * walk does not pin the whole document in memory. Every object stream is decoded once, its members are
+ * visited at the position of the object stream. The following object streams may be decoded in parallel
+ * in the common fork-join pool, while reading of the file, parsing and the visitor calls stay on the
+ * calling thread.
+ */
+final class IndirectObjectWalker {
+
+    private final PdfDocument document;
+    private final PdfReader reader;
+    private final int parallelism;
+
+    private final Map<Integer, CompletableFuture<ObjectStreamCache.Entry>> pendingStreams = new HashMap<>();
+    private final Set<Integer> transientStreams = new LinkedHashSet<>();
+    private boolean[] visited;
+
+    /**
+     * Creates a new walker.
+     *
+     * @param document    the document to walk through
+     * @param parallelism maximum number of object streams which are decoded at the same time
+     */
+    IndirectObjectWalker(PdfDocument document, int parallelism) {
+        this.document = document;
+        this.reader = document.getReader();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Visits all indirect objects of the document.
+     *
+     * @param visitor the visitor
+     * @throws IOException on error
+     */
+    void walk(IIndirectObjectVisitor visitor) throws IOException {
+        PdfXrefTable xref = document.getXref();
+        int size = xref.size();
+        visited = new boolean[size];
+        List<PdfIndirectReference> fileObjects = new ArrayList<>();
+        Set<Integer> objectStreams = new LinkedHashSet<>();
+        for (int i = 1; i < size; i++) {
+            PdfIndirectReference reference = xref.get(i);
+            if (reference == null || reference.isFree()) {
+                visited[i] = true;
+            } else if (reader != null && reference.getObjStreamNumber() > 0) {
+                objectStreams.add(reference.getObjStreamNumber());
+            } else if (reader != null && reference.getOffset() > 0) {
+                fileObjects.add(reference);
+            }
+        }
+        Collections.sort(fileObjects, (PdfIndirectReference r1, PdfIndirectReference r2) ->
+                Long.compare(r1.getOffset(), r2.getOffset()));
+
+        List<Integer> streamOrder = new ArrayList<>();
+        for (PdfIndirectReference reference : fileObjects) {
+            if (objectStreams.contains(reference.getObjNumber())) {
+                streamOrder.add(reference.getObjNumber());
+            }
+        }
+        try {
+            int nextStream = 0;
+            for (PdfIndirectReference reference : fileObjects) {
+                if (visited[reference.getObjNumber()]) {
+                    continue;
+                }
+                if (nextStream < streamOrder.size() && streamOrder.get(nextStream) == reference.getObjNumber()) {
+                    for (int k = nextStream; k < Math.min(streamOrder.size(), nextStream + parallelism); k++) {
+                        submitObjectStream(xref.get((int) streamOrder.get(k)));
+                    }
+                    nextStream++;
+                    visitObjectStream(reference, visitor);
+                } else {
+                    visitObject(reference, visitor);
+                }
+            }
+            // objects created in memory and members of broken object streams
+            for (int i = 1; i < size; i++) {
+                if (!visited[i]) {
+                    visitObject(xref.get(i), visitor);
+                }
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            for (CompletableFuture<ObjectStreamCache.Entry> future : pendingStreams.values()) {
+                future.cancel(false);
+            }
+            pendingStreams.clear();
+        }
+    }
+
+    private void visitObject(PdfIndirectReference reference, IIndirectObjectVisitor visitor) {
+        visited[reference.getObjNumber()] = true;
+        boolean loaded = reference.refersTo != null;
+        PdfObject object = reference.getRefersTo(false);
+        visit(reference, object, loaded, visitor);
+    }
+
+    private void visitObjectStream(PdfIndirectReference streamReference, IIndirectObjectVisitor visitor)
+            throws IOException {
+        int streamNumber = streamReference.getObjNumber();
+        visited[streamNumber] = true;
+        boolean loaded = !transientStreams.contains(streamNumber);
+        PdfObject stream = streamReference.getRefersTo(false);
+        ObjectStreamCache.Entry decodedStream = pendingStreams.remove(streamNumber).join();
+        considerDecodedBytes(stream, decodedStream.bytes.length);
+        if (stream != null) {
+            visitor.visit(stream);
+        }
+
+        PdfTokenizer memberTokens = new PdfTokenizer(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createSource(decodedStream.bytes)));
+        PdfXrefTable xref = document.getXref();
+        for (int k = 0; k < decodedStream.objNumbers.length; k++) {
+            int objNumber = decodedStream.objNumbers[k];
+            if (objNumber <= 0 || objNumber >= visited.length || visited[objNumber]) {
+                continue;
+            }
+            PdfIndirectReference reference = xref.get(objNumber);
+            if (reference == null || reference.getObjStreamNumber() != streamNumber) {
+                continue;
+            }
+            visited[objNumber] = true;
+            PdfObject object = reference.refersTo;
+            boolean memberLoaded = object != null;
+            if (!memberLoaded && !reference.checkState(PdfObject.FLUSHED)) {
+                object = reader.readObjectStreamMember(memberTokens, decodedStream.addresses[k], reference);
+            }
+            visit(reference, object, memberLoaded, visitor);
+        }
+        streamReference.setState(PdfObject.ORIGINAL_OBJECT_STREAM);
+        if (!loaded && stream != null) {
+            release(streamReference, stream);
+        }
+        transientStreams.remove(streamNumber);
+    }
+
+    /**
+     * Reads the object stream and starts its decoding, unless it is already started.
+     */
+    private void submitObjectStream(PdfIndirectReference streamReference) throws IOException {
+        int streamNumber = streamReference.getObjNumber();
+        if (pendingStreams.containsKey(streamNumber)) {
+            return;
+        }
+        if (streamReference.refersTo == null) {
+            transientStreams.add(streamNumber);
+        }
+        PdfObject object = streamReference.getRefersTo(false);
+        if (!(object instanceof PdfStream)) {
+            throw new PdfException(KernelExceptionMessageConstant.ERROR_WHILE_READING_OBJECT_STREAM);
+        }
+        PdfStream stream = (PdfStream) object;
+        PdfNumber first = stream.getAsNumber(PdfName.First);
+        PdfNumber n = stream.getAsNumber(PdfName.N);
+        if (first == null || n == null) {
+            throw new PdfException(KernelExceptionMessageConstant.ERROR_WHILE_READING_OBJECT_STREAM);
+        }
+        CompletableFuture<ObjectStreamCache.Entry> future;
+        if (parallelism == 1) {
+            future = CompletableFuture.completedFuture(
+                    parseObjectStream(reader.readStreamBytes(stream, true), first.intValue(), n.intValue()));
+        } else {
+            byte[] bytes = reader.readStreamBytesRaw(stream);
+            PdfDictionary filterDictionary = createFilterDictionary(stream);
+            MemoryLimitsAwareHandler handler = document.memoryLimitsAwareHandler;
+            MemoryLimitsAwareHandler taskHandler = handler == null ? null : new MemoryLimitsAwareHandler()
+                    .setMaxSizeOfSingleDecompressedPdfStream(handler.getMaxSizeOfSingleDecompressedPdfStream())
+                    .setMaxSizeOfDecompressedPdfStreamsSum(handler.getMaxSizeOfDecompressedPdfStreamsSum());
+            future = CompletableFuture.supplyAsync(() -> {
+                byte[] decoded = PdfReader.decodeBytes(bytes, filterDictionary,
+                        FilterHandlers.getDefaultFilterHandlers(), taskHandler);
+                try {
+                    return parseObjectStream(decoded, first.intValue(), n.intValue());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        pendingStreams.put(streamNumber, future);
+    }
+
+    /**
+     * Considers the bytes decoded in parallel in the memory limits handler of the document.
+     * The single stream limit is already checked by the task itself.
+     */
+    private void considerDecodedBytes(PdfObject stream, int length) {
+        MemoryLimitsAwareHandler handler = document.memoryLimitsAwareHandler;
+        if (parallelism == 1 || handler == null || !(stream instanceof PdfStream)) {
+            return;
+        }
+        PdfArray filters = createFilterDictionary((PdfStream) stream).getAsArray(PdfName.Filter);
+        if (filters != null && handler.isMemoryLimitsAwarenessRequiredOnDecompression(filters)) {
+            handler.beginDecompressedPdfStreamProcessing();
+            handler.considerBytesOccupiedByDecompressedPdfStream(length);
+            handler.endDecompressedPdfStreamProcessing();
+        }
+    }
+
+    private static ObjectStreamCache.Entry parseObjectStream(byte[] bytes, int first, int n) throws IOException {
+        return PdfReader.parseObjectStream(bytes != null ? bytes : new byte[0], first, n);
+    }
+
+    private static void visit(PdfIndirectReference reference, PdfObject object, boolean loaded,
+            IIndirectObjectVisitor visitor) {
+        if (object == null || object.isIndirectReference()) {
+            return;
+        }
+        visitor.visit(object);
+        if (!loaded) {
+            release(reference, object);
+        }
+    }
+
+    private static void release(PdfIndirectReference reference, PdfObject object) {
+        if (reference.refersTo == object && !object.isReleaseForbidden()
+                && !reference.checkState(PdfObject.MODIFIED)) {
+            object.release();
+        }
+    }
+
+    /**
+     * Creates a detached dictionary with the filters and decode parameters of the stream, so that the
+     * stream can be decoded on another thread without touching the reader.
+     */
+    private static PdfDictionary createFilterDictionary(PdfStream stream) {
+        PdfDictionary dictionary = new PdfDictionary();
+        PdfObject filter = stream.get(PdfName.Filter, true);
+        if (filter != null && filter.getType() == PdfObject.NAME) {
+            dictionary.put(PdfName.Filter, new PdfArray(filter));
+        } else if (filter != null && filter.getType() == PdfObject.ARRAY) {
+            dictionary.put(PdfName.Filter, copyResolved(filter));
+        }
+        PdfObject decodeParms = stream.get(PdfName.DecodeParms, true);
+        if (decodeParms == null) {
+            decodeParms = stream.get(PdfName.DP, true);
+        }
+        if (decodeParms != null) {
+            dictionary.put(PdfName.DecodeParms, copyResolved(decodeParms));
+        }
+        return dictionary;
+    }
+
+    private static PdfObject copyResolved(PdfObject object) {
+        if (object.isIndirectReference()) {
+            object = ((PdfIndirectReference) object).getRefersTo(true);
+        }
+        if (object == null) {
+            return new PdfNull();
+        }
+        switch (object.getType()) {
+            case PdfObject.ARRAY: {
+                PdfArray array = (PdfArray) object;
+                PdfArray copy = new PdfArray();
+                for (int i = 0; i < array.size(); i++) {
+                    copy.add(copyResolved(array.get(i, false)));
+                }
+                return copy;
+            }
+            case PdfObject.DICTIONARY: {
+                PdfDictionary dictionary = (PdfDictionary) object;
+                PdfDictionary copy = new PdfDictionary();
+                for (PdfName key : dictionary.keySet()) {
+                    copy.put(key, copyResolved(dictionary.get(key, false)));
+                }
+                return copy;
+            }
+            default:
+                return object.clone();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+/**
+ * The parameters of a linearized document (ISO 32000-1, Annex F) which are needed to locate its pages:
+ * the values of the linearization dictionary and the page offsets read from the page offset hint table.
+ */
+final class LinearizationHints {
+
+    private final long firstPageEnd;
+    private final int numberOfPages;
+    private final long[] pageOffsets;
+    private final long[] pageLengths;
+
+    /**
+     * Creates the hints from the linearization dictionary and the decoded primary hint stream.
+     *
+     * @param linearizationDictionary the linearization dictionary of the document
+     * @param hintStreamData the decoded data of the primary hint stream
+     *
+     * @throws IndexOutOfBoundsException if the hint stream is shorter than the page offset hint table
+     */
+    LinearizationHints(PdfDictionary linearizationDictionary, byte[] hintStreamData) {
+        PdfArray hintStream = linearizationDictionary.getAsArray(PdfName.H);
+        long hintStreamOffset = hintStream.getAsNumber(0).longValue();
+        long hintStreamLength = hintStream.getAsNumber(1).longValue();
+        this.firstPageEnd = linearizationDictionary.getAsNumber(PdfName.E).longValue();
+        this.numberOfPages = linearizationDictionary.getAsNumber(PdfName.N).intValue();
+
+        BitReader reader = new BitReader(hintStreamData);
+        // Page offset hint table header, only the items describing the page lengths are needed
+        reader.read(32);
+        long firstPageLocation = reader.read(32);
+        int objectsCountBits = (int) reader.read(16);
+        long minPageLength = reader.read(32);
+        int pageLengthBits = (int) reader.read(16);
+        reader.skip(32 + 16 + 32 + 16 + 16 + 16 + 16 + 16);
+        reader.skip((long) objectsCountBits * numberOfPages);
+        reader.alignToByte();
+
+        // Offsets in the hint tables are given as if the primary hint stream were absent
+        pageOffsets = new long[numberOfPages];
+        pageLengths = new long[numberOfPages];
+        long offset = firstPageLocation;
+        for (int i = 0; i < numberOfPages; i++) {
+            pageLengths[i] = minPageLength + reader.read(pageLengthBits);
+            pageOffsets[i] = offset >= hintStreamOffset ? offset + hintStreamLength : offset;
+            offset += pageLengths[i];
+        }
+    }
+
+    /**
+     * Gets the offset of the end of the first page section, which also contains the document catalog
+     * and the primary hint stream.
+     *
+     * @return the offset of the end of the first page
+     */
+    long getFirstPageEnd() {
+        return firstPageEnd;
+    }
+
+    int getNumberOfPages() {
+        return numberOfPages;
+    }
+
+    /**
+     * Gets the offset of the first object of the page.
+     *
+     * @param pageNum the number of the page, starting from 1
+     * @return the offset of the page in the file
+     */
+    long getPageOffset(int pageNum) {
+        return pageOffsets[pageNum - 1];
+    }
+
+    /**
+     * Gets the length of the part of the file holding the objects of the page, which are not shared
+     * with other pages.
+     *
+     * @param pageNum the number of the page, starting from 1
+     * @return the length of the page in bytes
+     */
+    long getPageLength(int pageNum) {
+        return pageLengths[pageNum - 1];
+    }
+
+    private static final class BitReader {
+        private final byte[] data;
+        private long position;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                int bit = (data[(int) (position >> 3)] >> (7 - (int) (position & 7))) & 1;
+                value = (value << 1) | bit;
+                position++;
+            }
+            return value;
+        }
+
+        void skip(long bits) {
+            position += bits;
+        }
+
+        void alignToByte() {
+            position = (position + 7) & ~7L;
+        }
+    }
+}
@@ -254,6 +254,25 @@ public class MemoryLimitsAwareHandler {
         return this;
     }
 
+    /**
+     * Considers the number of bytes of the pdf stream which has been decompressed incrementally,
+     * i.e. not between {@link #beginDecompressedPdfStreamProcessing()} and
+     * {@link #endDecompressedPdfStreamProcessing()}, towards the sum of decompressed pdf streams.
+     * If memory limits have not been faced, throws an exception.
+     *
+     * @param numOfOccupiedBytes the number of bytes which are occupied by the decompressed pdf stream.
+     * @return this {@link MemoryLimitsAwareHandler} instance.
+     * @see MemoryLimitsAwareException
+     */
+    MemoryLimitsAwareHandler considerIncrementallyDecompressedPdfStream(long numOfOccupiedBytes) {
+        allMemoryUsedForDecompression += numOfOccupiedBytes;
+        if (allMemoryUsedForDecompression > maxSizeOfDecompressedPdfStreamsSum) {
+            throw new MemoryLimitsAwareException(
+                    KernelExceptionMessageConstant.DURING_DECOMPRESSION_MULTIPLE_STREAMS_IN_SUM_OCCUPIED_MORE_MEMORY_THAN_ALLOWED);
+        }
+        return this;
+    }
+
     long getAllMemoryUsedForDecompression() {
         return allMemoryUsedForDecompression;
     }
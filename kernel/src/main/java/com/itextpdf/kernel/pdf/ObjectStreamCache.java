@@ -0,0 +1,140 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of decoded object streams with least-recently-used eviction.
+ * <p>
+ * The cache keeps the decoded bytes of an object stream together with its offset table, so that
+ * members of the stream which were released and are requested again can be parsed without
+ * inflating and tokenizing the whole stream once more.
+ */
+final class ObjectStreamCache {
+
+    // fixed cost of a cache entry, besides the decoded bytes and the offset table
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long capacity;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity maximum total size of the cached entries in bytes
+     */
+    ObjectStreamCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the decoded object stream and marks it as the most recently used one.
+     *
+     * @param objStreamNumber number of the object stream
+     * @return the cached entry or {@code null} if the stream is not cached
+     */
+    Entry get(int objStreamNumber) {
+        return entries.get(objStreamNumber);
+    }
+
+    /**
+     * Puts the decoded object stream to the cache evicting the least recently used streams
+     * if the capacity is exceeded. Streams larger than the whole capacity are not cached.
+     *
+     * @param objStreamNumber number of the object stream
+     * @param entry           decoded object stream
+     */
+    void put(int objStreamNumber, Entry entry) {
+        long entrySize = entry.size();
+        if (entrySize > capacity) {
+            return;
+        }
+        Entry previous = entries.put(objStreamNumber, entry);
+        if (previous != null) {
+            size -= previous.size();
+        }
+        size += entrySize;
+        Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().getValue().size();
+            iterator.remove();
+        }
+    }
+
+    int getCount() {
+        return entries.size();
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Decoded object stream.
+     */
+    static final class Entry {
+        final byte[] bytes;
+        final int[] objNumbers;
+        final int[] addresses;
+
+        Entry(byte[] bytes, int[] objNumbers, int[] addresses) {
+            this.bytes = bytes;
+            this.objNumbers = objNumbers;
+            this.addresses = addresses;
+        }
+
+        long size() {
+            return ENTRY_OVERHEAD + (long) bytes.length + 8L * objNumbers.length;
+        }
+    }
+}
@@ -61,7 +61,7 @@ import java.util.TreeMap;
  */
 public class PdfDictionary extends PdfObject {
 
-    private Map<PdfName, PdfObject> map = new TreeMap<>();
+    private Map<PdfName, PdfObject> map = new PdfDictionaryMap();
 
     /**
      * Creates a new PdfDictionary instance.
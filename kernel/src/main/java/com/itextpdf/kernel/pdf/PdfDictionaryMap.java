@@ -0,0 +1,451 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The map holding the entries of a {@link PdfDictionary}.
+ *
+ * <p>
+ * Most dictionaries have only a few keys, so up to {@link #MAX_ARRAY_SIZE} entries are kept in two parallel
+ * arrays sorted by key, which avoids an entry object per key. Larger dictionaries switch to a {@link TreeMap}.
+ * In both cases the entries are iterated in the order of the keys, as they have always been, so the
+ * serialization of a dictionary does not change.
+ */
+final class PdfDictionaryMap extends AbstractMap<PdfName, PdfObject> {
+
+    /**
+     * The maximum number of entries kept in the arrays.
+     */
+    static final int MAX_ARRAY_SIZE = 32;
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final PdfName[] EMPTY_KEYS = new PdfName[0];
+    private static final PdfObject[] EMPTY_VALUES = new PdfObject[0];
+
+    private PdfName[] keys = EMPTY_KEYS;
+    private PdfObject[] values = EMPTY_VALUES;
+    private int size;
+    private TreeMap<PdfName, PdfObject> tree;
+    private int modCount;
+
+    private Set<PdfName> keySet;
+    private Collection<PdfObject> valueCollection;
+    private Set<Map.Entry<PdfName, PdfObject>> entrySet;
+
+    PdfDictionaryMap() {
+    }
+
+    /**
+     * Checks whether the entries have been moved from the arrays to a tree map.
+     *
+     * @return {@code true} if the entries are kept in a tree map
+     */
+    boolean isTree() {
+        return tree != null;
+    }
+
+    @Override
+    public int size() {
+        return tree != null ? tree.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (tree != null) {
+            return tree.containsKey(key);
+        }
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public PdfObject get(Object key) {
+        if (tree != null) {
+            return tree.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public PdfObject put(PdfName key, PdfObject value) {
+        if (tree != null) {
+            return tree.put(key, value);
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            PdfObject old = values[index];
+            values[index] = value;
+            return old;
+        }
+        if (size == MAX_ARRAY_SIZE) {
+            moveToTree();
+            return tree.put(key, value);
+        }
+        insertAt(-index - 1, key, value);
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends PdfName, ? extends PdfObject> m) {
+        if (m instanceof PdfDictionaryMap && isEmpty() && !((PdfDictionaryMap) m).isTree()) {
+            PdfDictionaryMap other = (PdfDictionaryMap) m;
+            // the entries are already sorted, so simply copy the arrays
+            keys = new PdfName[Math.max(other.size, INITIAL_CAPACITY)];
+            values = new PdfObject[keys.length];
+            System.arraycopy(other.keys, 0, keys, 0, other.size);
+            System.arraycopy(other.values, 0, values, 0, other.size);
+            size = other.size;
+            modCount++;
+        } else {
+            for (Map.Entry<? extends PdfName, ? extends PdfObject> entry : m.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public PdfObject remove(Object key) {
+        if (tree != null) {
+            return tree.remove(key);
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        PdfObject old = values[index];
+        removeAt(index);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        tree = null;
+        keys = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<PdfName> keySet() {
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<PdfObject> values() {
+        if (valueCollection == null) {
+            valueCollection = new Values();
+        }
+        return valueCollection;
+    }
+
+    @Override
+    public Set<Map.Entry<PdfName, PdfObject>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Finds the index of the key in the arrays.
+     *
+     * @param key the key to find
+     * @return the index of the key, or {@code -(insertion point) - 1} if the key is absent
+     */
+    private int indexOf(Object key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        if (!(key instanceof PdfName)) {
+            return -1;
+        }
+        PdfName name = (PdfName) key;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            // the keys are mostly the PdfName constants, so the reference is compared before the bytes
+            if (keys[middle] == name) {
+                return middle;
+            }
+            int comparison = keys[middle].compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertAt(int index, PdfName key, PdfObject value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        if (size == keys.length) {
+            int capacity = Math.min(Math.max(INITIAL_CAPACITY, size * 2), MAX_ARRAY_SIZE);
+            PdfName[] newKeys = new PdfName[capacity];
+            PdfObject[] newValues = new PdfObject[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            keys = newKeys;
+            values = newValues;
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+    }
+
+    private void moveToTree() {
+        TreeMap<PdfName, PdfObject> treeMap = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            treeMap.put(keys[i], values[i]);
+        }
+        tree = treeMap;
+        keys = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        size = 0;
+        modCount++;
+    }
+
+    private abstract class ArrayIterator<T> implements Iterator<T> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return get(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        abstract T get(int index);
+    }
+
+    private final class ArrayEntry extends SimpleEntry<PdfName, PdfObject> {
+        private static final long serialVersionUID = -4532180346384201387L;
+
+        ArrayEntry(int index) {
+            super(keys[index], values[index]);
+        }
+
+        @Override
+        public PdfObject setValue(PdfObject value) {
+            PdfObject old = super.setValue(value);
+            // the key is present, so the structure of the map is not changed
+            put(getKey(), value);
+            return old;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<PdfName> {
+        @Override
+        public Iterator<PdfName> iterator() {
+            if (tree != null) {
+                return tree.keySet().iterator();
+            }
+            return new ArrayIterator<PdfName>() {
+                @Override
+                PdfName get(int index) {
+                    return keys[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return PdfDictionaryMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int sizeBefore = size();
+            PdfDictionaryMap.this.remove(o);
+            return size() != sizeBefore;
+        }
+
+        @Override
+        public void clear() {
+            PdfDictionaryMap.this.clear();
+        }
+    }
+
+    private final class Values extends AbstractCollection<PdfObject> {
+        @Override
+        public Iterator<PdfObject> iterator() {
+            if (tree != null) {
+                return tree.values().iterator();
+            }
+            return new ArrayIterator<PdfObject>() {
+                @Override
+                PdfObject get(int index) {
+                    return values[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return PdfDictionaryMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            PdfDictionaryMap.this.clear();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<PdfName, PdfObject>> {
+        @Override
+        public Iterator<Map.Entry<PdfName, PdfObject>> iterator() {
+            if (tree != null) {
+                return tree.entrySet().iterator();
+            }
+            return new ArrayIterator<Map.Entry<PdfName, PdfObject>>() {
+                @Override
+                Map.Entry<PdfName, PdfObject> get(int index) {
+                    return new ArrayEntry(index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return PdfDictionaryMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object key = entry.getKey();
+            if (!(key instanceof PdfName) || !containsKey(key)) {
+                return false;
+            }
+            Object value = get(key);
+            return value == null ? entry.getValue() == null : value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            PdfDictionaryMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            PdfDictionaryMap.this.clear();
+        }
+    }
+}
@@ -91,6 +91,7 @@ import com.itextpdf.kernel.xmp.options.SerializeOptions;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -177,6 +178,18 @@ public class PdfDocument implements IEventDispatcher, Closeable {
 
     protected PdfStructTreeRoot structTreeRoot;
 
+    /**
+     * Structure tree root dictionary which has not been initialized yet, see
+     * {@link ReaderProperties#setDeferTagStructureLoading(boolean)}.
+     */
+    private PdfDictionary deferredStructTreeRoot;
+
+    /**
+     * Indicates that XMP metadata stream has not been read yet, see
+     * {@link ReaderProperties#setDeferXmpMetadataLoading(boolean)}.
+     */
+    private boolean xmpMetadataDeferred = false;
+
     protected int structParentIndex = -1;
 
     protected boolean closeReader = true;
@@ -192,6 +205,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
     protected boolean flushUnusedObjects = false;
 
     private Map<PdfIndirectReference, PdfFont> documentFonts = new HashMap<>();
+    private final Map<PdfIndirectReference, CachedFont> cachedFonts = new HashMap<>();
     private PdfFont defaultFont = null;
 
     protected TagStructureContext tagStructureContext;
@@ -322,6 +336,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @param xmpMetadata The xmpMetadata to set.
      */
     protected void setXmpMetadata(byte[] xmpMetadata) {
+        this.xmpMetadataDeferred = false;
         this.xmpMetadata = xmpMetadata;
     }
 
@@ -366,6 +381,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @return existed or newly created XMPMetadata byte array.
      */
     public byte[] getXmpMetadata(boolean createNew) {
+        loadDeferredXmpMetadata();
         if (xmpMetadata == null && createNew) {
             XMPMeta xmpMeta = XMPMetaFactory.create();
             xmpMeta.setObjectName(XMPConst.TAG_XMPMETA);
@@ -396,6 +412,37 @@ public class PdfDocument implements IEventDispatcher, Closeable {
         }
     }
 
+    /**
+     * Visits all indirect objects of the document in the order of the file.
+     * <p>
+     * Unlike {@link #getPdfObject(int)}, objects which were not loaded before are released right after
+     * the visit, so the whole document is never kept in memory. Object streams are decoded once each and
+     * their members are visited at the position of the object stream. Objects which exist only in memory
+     * are visited last.
+     *
+     * @param visitor the visitor which receives the objects
+     */
+    public void visitIndirectObjects(IIndirectObjectVisitor visitor) {
+        visitIndirectObjects(visitor, 1);
+    }
+
+    /**
+     * Visits all indirect objects of the document in the order of the file, decoding up to
+     * {@code parallelism} object streams ahead in parallel. The visitor is always called on the current thread.
+     *
+     * @param visitor     the visitor which receives the objects
+     * @param parallelism maximum number of object streams which are decoded at the same time
+     * @see #visitIndirectObjects(IIndirectObjectVisitor)
+     */
+    public void visitIndirectObjects(IIndirectObjectVisitor visitor, int parallelism) {
+        checkClosingStatus();
+        try {
+            new IndirectObjectWalker(this, parallelism).walk(visitor);
+        } catch (IOException e) {
+            throw new PdfException(KernelExceptionMessageConstant.CANNOT_READ_PDF_OBJECT, e);
+        }
+    }
+
     /**
      * Get number of indirect objects in the document.
      *
@@ -672,6 +719,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
             PdfObject infoDict = trailer.get(PdfName.Info);
             info = new PdfDocumentInfo(
                     infoDict instanceof PdfDictionary ? (PdfDictionary) infoDict : new PdfDictionary(), this);
+            loadDeferredXmpMetadata();
             XmpMetaInfoConverter.appendMetadataToInfo(xmpMetadata, info);
         }
         return info;
@@ -1009,6 +1057,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
                         ByteUtils.getIsoBytes(modifiedDocumentId.getValue()));
                 xref.writeXrefTableAndTrailer(this, fileId, crypto);
                 writer.flush();
+                writer.finishLinearization(!properties.appendMode && crypto == null);
                 if (writer.getOutputStream() instanceof CountOutputStream) {
                     long amountOfBytes = ((CountOutputStream) writer.getOutputStream()).getAmountOfWrittenBytes();
                     manager.onEvent(new SizeOfPdfStatisticsEvent(amountOfBytes, ITextCoreProductData.getInstance()));
@@ -1056,6 +1105,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @return true, if the document has tag structure, otherwise false.
      */
     public boolean isTagged() {
+        loadDeferredTagStructure();
         return structTreeRoot != null;
     }
 
@@ -1067,6 +1117,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      */
     public PdfDocument setTagged() {
         checkClosingStatus();
+        loadDeferredTagStructure();
         if (structTreeRoot == null) {
             structTreeRoot = new PdfStructTreeRoot(this);
             catalog.getPdfObject().put(PdfName.StructTreeRoot, structTreeRoot.getPdfObject());
@@ -1086,6 +1137,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @see #getNextStructParentIndex()
      */
     public PdfStructTreeRoot getStructTreeRoot() {
+        loadDeferredTagStructure();
         return structTreeRoot;
     }
 
@@ -1098,6 +1150,7 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @see #getNextStructParentIndex()
      */
     public int getNextStructParentIndex() {
+        loadDeferredTagStructure();
         return structParentIndex < 0 ? -1 : structParentIndex++;
     }
 
@@ -1780,6 +1833,37 @@ public class PdfDocument implements IEventDispatcher, Closeable {
         }
     }
 
+    /**
+     * Gets an instance of {@link PdfFont} for the font dictionary for reading purposes, e.g. for content
+     * stream parsing. The font is created once per font dictionary and cached, so that the decoding data like
+     * ToUnicode CMaps and widths are built only once for the fonts shared between pages.
+     * <p>
+     * Unlike {@link #getFont(PdfDictionary)}, the font is not added to the document, so it will not be flushed
+     * on document close and the font dictionary may still be released. The cache keeps the fonts softly
+     * reachable, so they can be reclaimed when memory is low. A cached font is dropped when its dictionary
+     * is flushed or released with {@link PdfObject#release()}, gets an entry added, removed or replaced, or
+     * is marked as modified with {@link PdfObject#setModified()}. Fonts of direct font dictionaries are not
+     * cached. The cache belongs to the document, so the fonts are not shared between documents, even if
+     * they are opened for the same file, e.g. one per thread.
+     *
+     * @param dictionary {@link PdfDictionary} that presents {@link PdfFont}
+     *
+     * @return instance of {@link PdfFont}
+     */
+    public PdfFont getCachedFont(PdfDictionary dictionary) {
+        PdfIndirectReference indirectReference = dictionary.getIndirectReference();
+        if (indirectReference == null) {
+            return PdfFontFactory.createFont(dictionary);
+        }
+        CachedFont cachedFont = cachedFonts.get(indirectReference);
+        PdfFont font = cachedFont == null ? null : cachedFont.get(dictionary);
+        if (font == null) {
+            font = PdfFontFactory.createFont(dictionary);
+            cachedFonts.put(indirectReference, new CachedFont(font, dictionary));
+        }
+        return font;
+    }
+
     /**
      * Gets default font for the document: Helvetica, WinAnsi.
      * One instance per document.
@@ -1930,9 +2014,22 @@ public class PdfDocument implements IEventDispatcher, Closeable {
      * @throws IOException on error.
      */
     protected void flushObject(PdfObject pdfObject, boolean canBeInObjStm) throws IOException {
+        removeCachedFont(pdfObject.getIndirectReference());
         writer.flushObject(pdfObject, canBeInObjStm);
     }
 
+    /**
+     * Drops the font cached by {@link #getCachedFont(PdfDictionary)} for the font dictionary which
+     * is being flushed or released, so that the cache doesn't keep the dictionary reachable.
+     *
+     * @param indirectReference the indirect reference of the flushed or released object
+     */
+    void removeCachedFont(PdfIndirectReference indirectReference) {
+        if (!cachedFonts.isEmpty()) {
+            cachedFonts.remove(indirectReference);
+        }
+    }
+
     /**
      * Initializes document.
      *
@@ -1975,8 +2072,11 @@ public class PdfDocument implements IEventDispatcher, Closeable {
                 }
                 catalog = new PdfCatalog(catalogDictionary);
                 updatePdfVersionFromCatalog();
+                boolean deferralAllowed = writer == null && PdfDocument.class.equals(this.getClass());
                 PdfStream xmpMetadataStream = catalog.getPdfObject().getAsStream(PdfName.Metadata);
-                if (xmpMetadataStream != null) {
+                if (xmpMetadataStream != null && deferralAllowed && reader.properties.deferXmpMetadataLoading) {
+                    xmpMetadataDeferred = true;
+                } else if (xmpMetadataStream != null) {
                     xmpMetadata = xmpMetadataStream.getBytes();
                     if (!this.getClass().equals(PdfDocument.class)) {
                         // TODO DEVSIX-5292 If somebody extends PdfDocument we have to initialize document info
@@ -1987,7 +2087,9 @@ public class PdfDocument implements IEventDispatcher, Closeable {
                 }
 
                 PdfDictionary str = catalog.getPdfObject().getAsDictionary(PdfName.StructTreeRoot);
-                if (str != null) {
+                if (str != null && deferralAllowed && reader.properties.deferTagStructureLoading) {
+                    deferredStructTreeRoot = str;
+                } else if (str != null) {
                     tryInitTagStructure(str);
                 }
                 if (properties.appendMode && (reader.hasRebuiltXref() || reader.hasFixedXref()))
@@ -2258,6 +2360,24 @@ public class PdfDocument implements IEventDispatcher, Closeable {
         }
     }
 
+    private void loadDeferredTagStructure() {
+        if (deferredStructTreeRoot != null) {
+            PdfDictionary str = deferredStructTreeRoot;
+            deferredStructTreeRoot = null;
+            tryInitTagStructure(str);
+        }
+    }
+
+    private void loadDeferredXmpMetadata() {
+        if (xmpMetadataDeferred) {
+            xmpMetadataDeferred = false;
+            PdfStream xmpMetadataStream = catalog.getPdfObject().getAsStream(PdfName.Metadata);
+            if (xmpMetadataStream != null) {
+                xmpMetadata = xmpMetadataStream.getBytes();
+            }
+        }
+    }
+
     private void tryFlushTagStructure(boolean isAppendMode) {
         try {
             if (tagStructureContext != null) {
@@ -2504,4 +2624,42 @@ public class PdfDocument implements IEventDispatcher, Closeable {
     private static boolean isXmpMetaHasProperty(XMPMeta xmpMeta, String schemaNS, String propName) throws XMPException {
         return xmpMeta.getProperty(schemaNS, propName) != null;
     }
+
+    /**
+     * A font cached by {@link #getCachedFont(PdfDictionary)} together with the state of the font dictionary
+     * the font has been created from.
+     */
+    private static final class CachedFont {
+        private final SoftReference<PdfFont> font;
+        private final PdfDictionary dictionary;
+        // shallow copy, the entries are compared by identity
+        private final PdfDictionary entries;
+        private final boolean modified;
+
+        CachedFont(PdfFont font, PdfDictionary dictionary) {
+            this.font = new SoftReference<>(font);
+            this.dictionary = dictionary;
+            this.entries = new PdfDictionary(dictionary);
+            this.modified = dictionary.isModified();
+        }
+
+        /**
+         * Gets the cached font if the passed dictionary is still the one the font has been created from.
+         *
+         * @param dictionary the current font dictionary
+         * @return the cached font or {@code null} if it has been reclaimed or is outdated
+         */
+        PdfFont get(PdfDictionary dictionary) {
+            if (dictionary != this.dictionary || dictionary.isModified() != modified
+                    || dictionary.size() != entries.size()) {
+                return null;
+            }
+            for (PdfName key : entries.keySet()) {
+                if (dictionary.get(key, false) != entries.get(key, false)) {
+                    return null;
+                }
+            }
+            return font.get();
+        }
+    }
 }
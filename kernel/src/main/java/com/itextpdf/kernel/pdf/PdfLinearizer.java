@@ -0,0 +1,755 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.ByteUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a complete PDF document in the linearized form described in ISO 32000-1, Annex F.
+ * <p>
+ * The objects of the source document are split into the sections prescribed by the specification: the
+ * document catalog with the document-level objects, the objects needed to display the first page,
+ * the objects private to each of the remaining pages, the objects shared by several pages and all
+ * the other objects. Objects are renumbered so that the first-page section is covered by the first-page
+ * cross-reference table and the primary hint stream with the page offset and shared object hint tables
+ * is generated for the resulting layout. Object streams and cross-reference streams are not used in the
+ * linearized document.
+ */
+final class PdfLinearizer {
+
+    private static final int FIXED_NUMBER_WIDTH = 10;
+
+    private static final byte[] OBJ = ByteUtils.getIsoBytes(" 0 obj\n");
+    private static final byte[] ENDOBJ = ByteUtils.getIsoBytes("\nendobj\n");
+    private static final byte[] STREAM = ByteUtils.getIsoBytes("\nstream\n");
+    private static final byte[] ENDSTREAM = ByteUtils.getIsoBytes("\nendstream");
+    private static final byte[] REFERENCE = ByteUtils.getIsoBytes(" 0 R");
+
+    private static final PdfName[] INHERITABLE_PAGE_KEYS = {PdfName.Resources, PdfName.MediaBox, PdfName.CropBox,
+            PdfName.Rotate};
+
+    private final PdfDocument document;
+
+    private final Map<PdfIndirectReference, Integer> objectNumbers = new HashMap<>();
+
+    private final Set<PdfIndirectReference> pageReferences = new HashSet<>();
+
+    private PdfLinearizer(PdfDocument document) {
+        this.document = document;
+    }
+
+    /**
+     * Reads a complete document and writes it in the linearized form to the passed stream.
+     *
+     * @param source the bytes of a complete, not encrypted PDF document
+     * @param destination the stream the linearized document is written to
+     *
+     * @throws IOException if the linearized document could not be written
+     */
+    static void linearize(byte[] source, OutputStream destination) throws IOException {
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(source)));
+        try {
+            PdfLinearizer linearizer = new PdfLinearizer(document);
+            if (linearizer.collectPages()) {
+                linearizer.write(destination);
+            } else {
+                // A document without pages or with a page referenced twice from the page tree
+                // cannot be split into page sections.
+                destination.write(source);
+                destination.flush();
+            }
+        } finally {
+            document.close();
+        }
+    }
+
+    private void write(OutputStream destination) throws IOException {
+        PdfDictionary trailer = document.getTrailer();
+        PdfIndirectReference catalogReference = document.getCatalog().getPdfObject().getIndirectReference();
+        PdfIndirectReference infoReference = trailer.get(PdfName.Info, false) instanceof PdfIndirectReference
+                ? (PdfIndirectReference) trailer.get(PdfName.Info, false) : null;
+
+        int numberOfPages = document.getNumberOfPages();
+
+        // Objects reachable from each page, without following the page tree and other pages.
+        List<Set<PdfIndirectReference>> pageObjects = new ArrayList<>(numberOfPages);
+        Map<PdfIndirectReference, Integer> usages = new HashMap<>();
+        Set<PdfIndirectReference> excluded = new HashSet<>();
+        excluded.add(catalogReference);
+        for (int i = 1; i <= numberOfPages; i++) {
+            PdfIndirectReference pageReference = document.getPage(i).getPdfObject().getIndirectReference();
+            Set<PdfIndirectReference> objects = new LinkedHashSet<>();
+            objects.add(pageReference);
+            collect(pageReference.getRefersTo(), objects, excluded, true);
+            collectInheritedValues((PdfDictionary) pageReference.getRefersTo(), objects, excluded);
+            for (PdfIndirectReference reference : objects) {
+                Integer usage = usages.get(reference);
+                usages.put(reference, usage == null ? 1 : usage + 1);
+            }
+            pageObjects.add(objects);
+        }
+
+        List<PdfIndirectReference> firstPageSection = new ArrayList<>(pageObjects.get(0));
+        Set<PdfIndirectReference> assigned = new HashSet<>(firstPageSection);
+        List<List<PdfIndirectReference>> otherPagesSections = new ArrayList<>(numberOfPages);
+        for (int i = 1; i < numberOfPages; i++) {
+            List<PdfIndirectReference> section = new ArrayList<>();
+            for (PdfIndirectReference reference : pageObjects.get(i)) {
+                if (usages.get(reference) == 1) {
+                    section.add(reference);
+                }
+            }
+            assigned.addAll(section);
+            otherPagesSections.add(section);
+        }
+        List<PdfIndirectReference> sharedSection = new ArrayList<>();
+        for (int i = 1; i < numberOfPages; i++) {
+            for (PdfIndirectReference reference : pageObjects.get(i)) {
+                if (!assigned.contains(reference)) {
+                    sharedSection.add(reference);
+                    assigned.add(reference);
+                }
+            }
+        }
+
+        // The catalog together with the document-level objects needed by a viewer before the first page.
+        Set<PdfIndirectReference> catalogObjects = new LinkedHashSet<>();
+        catalogObjects.add(catalogReference);
+        assigned.add(catalogReference);
+        PdfDictionary catalog = document.getCatalog().getPdfObject();
+        List<PdfName> documentLevelKeys = new ArrayList<>();
+        documentLevelKeys.add(PdfName.ViewerPreferences);
+        documentLevelKeys.add(PdfName.PageMode);
+        documentLevelKeys.add(PdfName.Threads);
+        documentLevelKeys.add(PdfName.OpenAction);
+        documentLevelKeys.add(PdfName.AcroForm);
+        if (PdfName.UseOutlines.equals(catalog.getAsName(PdfName.PageMode))) {
+            documentLevelKeys.add(PdfName.Outlines);
+        }
+        for (PdfName key : documentLevelKeys) {
+            PdfObject value = catalog.get(key, false);
+            if (value != null) {
+                collectValue(value, catalogObjects, assigned, true, new ArrayDeque<PdfObject>());
+            }
+        }
+        assigned.addAll(catalogObjects);
+
+        Set<PdfIndirectReference> otherObjects = new LinkedHashSet<>();
+        collect(catalog, otherObjects, assigned, false);
+        if (infoReference != null && !assigned.contains(infoReference)) {
+            collectValue(infoReference, otherObjects, assigned, false, new ArrayDeque<PdfObject>());
+        }
+
+        // Renumbering: the objects of the remaining sections go first in the main cross-reference table,
+        // the first-page section objects get the highest numbers.
+        int number = 1;
+        for (List<PdfIndirectReference> section : otherPagesSections) {
+            number = assignNumbers(section, number);
+        }
+        number = assignNumbers(sharedSection, number);
+        number = assignNumbers(otherObjects, number);
+        int mainSectionSize = number;
+        int linearizationDictionaryNumber = number++;
+        number = assignNumbers(catalogObjects, number);
+        int hintStreamNumber = number++;
+        number = assignNumbers(firstPageSection, number);
+        int size = number;
+
+        // Serialization of the objects whose content does not depend on the layout.
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PdfOutputStream serializer = new PdfOutputStream(buffer);
+        List<byte[]> catalogSectionBytes = serializeAll(catalogObjects, serializer, buffer);
+        List<byte[]> firstPageSectionBytes = serializeAll(firstPageSection, serializer, buffer);
+        List<List<byte[]>> otherPagesSectionsBytes = new ArrayList<>(otherPagesSections.size());
+        for (List<PdfIndirectReference> section : otherPagesSections) {
+            otherPagesSectionsBytes.add(serializeAll(section, serializer, buffer));
+        }
+        List<byte[]> sharedSectionBytes = serializeAll(sharedSection, serializer, buffer);
+        List<byte[]> otherObjectsBytes = serializeAll(otherObjects, serializer, buffer);
+
+        byte[] header = ByteUtils.getIsoBytes("%" + document.getPdfVersion().toString() + "\n%\u00e2\u00e3\u00cf\u00d3\n");
+
+        // All the offsets are first computed as if the primary hint stream were absent, which is exactly
+        // what the hint tables have to contain.
+        long linearizationDictionaryOffset = header.length;
+        long firstPageXrefOffset = linearizationDictionaryOffset
+                + createLinearizationDictionary(linearizationDictionaryNumber, 0, 0, 0, 0, 0, 0, 0).length;
+        long position = firstPageXrefOffset + createFirstPageXref(mainSectionSize, size, new long[size - mainSectionSize],
+                0, catalogReference, infoReference, trailer).length;
+        long[] catalogSectionOffsets = new long[catalogSectionBytes.size()];
+        for (int i = 0; i < catalogSectionOffsets.length; i++) {
+            catalogSectionOffsets[i] = position;
+            position += catalogSectionBytes.get(i).length;
+        }
+        long hintStreamOffset = position;
+        long[] firstPageSectionOffsets = new long[firstPageSectionBytes.size()];
+        for (int i = 0; i < firstPageSectionOffsets.length; i++) {
+            firstPageSectionOffsets[i] = position;
+            position += firstPageSectionBytes.get(i).length;
+        }
+        long firstPageSectionEnd = position;
+        List<long[]> otherPagesSectionsOffsets = new ArrayList<>(otherPagesSectionsBytes.size());
+        for (List<byte[]> sectionBytes : otherPagesSectionsBytes) {
+            long[] offsets = new long[sectionBytes.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = position;
+                position += sectionBytes.get(i).length;
+            }
+            otherPagesSectionsOffsets.add(offsets);
+        }
+        long[] sharedSectionOffsets = new long[sharedSectionBytes.size()];
+        for (int i = 0; i < sharedSectionOffsets.length; i++) {
+            sharedSectionOffsets[i] = position;
+            position += sharedSectionBytes.get(i).length;
+        }
+        long[] otherObjectsOffsets = new long[otherObjectsBytes.size()];
+        for (int i = 0; i < otherObjectsOffsets.length; i++) {
+            otherObjectsOffsets[i] = position;
+            position += otherObjectsBytes.get(i).length;
+        }
+
+        HintTablesBuilder hintTables = new HintTablesBuilder();
+        byte[] hintStreamData = hintTables.build(pageObjects, usages, firstPageSection, firstPageSectionBytes,
+                firstPageSectionOffsets, firstPageSectionEnd, otherPagesSectionsBytes, otherPagesSectionsOffsets,
+                sharedSection, sharedSectionBytes, sharedSectionOffsets,
+                sharedSection.isEmpty() ? 0 : (int) objectNumbers.get(sharedSection.get(0)));
+        byte[] hintStream = createHintStream(hintStreamNumber, hintStreamData, hintTables.getSharedObjectTableOffset());
+        long shift = hintStream.length;
+
+        long mainXrefOffset = position + shift;
+        long[] mainOffsets = new long[mainSectionSize];
+        for (int i = 0; i < otherPagesSections.size(); i++) {
+            fillOffsets(mainOffsets, otherPagesSections.get(i), otherPagesSectionsOffsets.get(i), shift);
+        }
+        fillOffsets(mainOffsets, sharedSection, sharedSectionOffsets, shift);
+        fillOffsets(mainOffsets, otherObjects, otherObjectsOffsets, shift);
+        byte[] mainXrefHeader = ByteUtils.getIsoBytes("xref\n0 " + mainSectionSize + "\n");
+        byte[] mainXref = createMainXref(mainXrefHeader, mainOffsets, firstPageXrefOffset);
+
+        long[] firstPageOffsets = new long[size - mainSectionSize];
+        firstPageOffsets[0] = linearizationDictionaryOffset;
+        int index = 1;
+        for (long offset : catalogSectionOffsets) {
+            firstPageOffsets[index++] = offset;
+        }
+        firstPageOffsets[index++] = hintStreamOffset;
+        for (long offset : firstPageSectionOffsets) {
+            firstPageOffsets[index++] = offset + shift;
+        }
+
+        long fileLength = mainXrefOffset + mainXref.length;
+        byte[] linearizationDictionary = createLinearizationDictionary(linearizationDictionaryNumber, fileLength,
+                hintStreamOffset, hintStream.length, objectNumbers.get(firstPageSection.get(0)),
+                firstPageSectionEnd + shift, numberOfPages, mainXrefOffset + mainXrefHeader.length - 1);
+        byte[] firstPageXref = createFirstPageXref(mainSectionSize, size, firstPageOffsets, mainXrefOffset,
+                catalogReference, infoReference, trailer);
+
+        destination.write(header);
+        destination.write(linearizationDictionary);
+        destination.write(firstPageXref);
+        writeAll(destination, catalogSectionBytes);
+        destination.write(hintStream);
+        writeAll(destination, firstPageSectionBytes);
+        for (List<byte[]> sectionBytes : otherPagesSectionsBytes) {
+            writeAll(destination, sectionBytes);
+        }
+        writeAll(destination, sharedSectionBytes);
+        writeAll(destination, otherObjectsBytes);
+        destination.write(mainXref);
+        destination.flush();
+    }
+
+    private boolean collectPages() {
+        int numberOfPages = document.getNumberOfPages();
+        for (int i = 1; i <= numberOfPages; i++) {
+            pageReferences.add(document.getPage(i).getPdfObject().getIndirectReference());
+        }
+        return numberOfPages > 0 && pageReferences.size() == numberOfPages;
+    }
+
+    private int assignNumbers(Collection<PdfIndirectReference> references, int firstNumber) {
+        int number = firstNumber;
+        for (PdfIndirectReference reference : references) {
+            objectNumbers.put(reference, number++);
+        }
+        return number;
+    }
+
+    private void fillOffsets(long[] offsets, Collection<PdfIndirectReference> references, long[] sectionOffsets,
+            long shift) {
+        int i = 0;
+        for (PdfIndirectReference reference : references) {
+            offsets[objectNumbers.get(reference)] = sectionOffsets[i++] + shift;
+        }
+    }
+
+    private static void writeAll(OutputStream destination, List<byte[]> objects) throws IOException {
+        for (byte[] object : objects) {
+            destination.write(object);
+        }
+    }
+
+    /**
+     * Collects the indirect objects reachable from the passed object. In page mode other pages and the
+     * page tree nodes are not followed, so that only the objects needed to display a page are collected.
+     */
+    private void collect(PdfObject root, Set<PdfIndirectReference> collected, Set<PdfIndirectReference> excluded,
+            boolean pageMode) {
+        Deque<PdfObject> queue = new ArrayDeque<>();
+        queue.add(root);
+        processQueue(queue, collected, excluded, pageMode);
+    }
+
+    /**
+     * Collects the indirect objects reachable from the inheritable page attributes which the page takes from
+     * its ancestors in the page tree, since the page tree nodes themselves are not followed in page mode.
+     */
+    private void collectInheritedValues(PdfDictionary page, Set<PdfIndirectReference> collected,
+            Set<PdfIndirectReference> excluded) {
+        for (PdfName key : INHERITABLE_PAGE_KEYS) {
+            if (page.containsKey(key)) {
+                continue;
+            }
+            Set<PdfDictionary> visited = new HashSet<>();
+            PdfDictionary node = page.getAsDictionary(PdfName.Parent);
+            while (node != null && visited.add(node)) {
+                PdfObject value = node.get(key, false);
+                if (value != null) {
+                    collectValue(value, collected, excluded, true, new ArrayDeque<PdfObject>());
+                    break;
+                }
+                node = node.getAsDictionary(PdfName.Parent);
+            }
+        }
+    }
+
+    private void collectValue(PdfObject value, Set<PdfIndirectReference> collected,
+            Set<PdfIndirectReference> excluded, boolean pageMode, Deque<PdfObject> queue) {
+        enqueue(value, collected, excluded, pageMode, queue);
+        processQueue(queue, collected, excluded, pageMode);
+    }
+
+    private void processQueue(Deque<PdfObject> queue, Set<PdfIndirectReference> collected,
+            Set<PdfIndirectReference> excluded, boolean pageMode) {
+        while (!queue.isEmpty()) {
+            PdfObject object = queue.poll();
+            if (object.isArray()) {
+                PdfArray array = (PdfArray) object;
+                for (int i = 0; i < array.size(); i++) {
+                    enqueue(array.get(i, false), collected, excluded, pageMode, queue);
+                }
+            } else if (object.isDictionary() || object.isStream()) {
+                PdfDictionary dictionary = (PdfDictionary) object;
+                for (PdfName key : dictionary.keySet()) {
+                    if (object.isStream() && PdfName.Length.equals(key)) {
+                        continue;
+                    }
+                    enqueue(dictionary.get(key, false), collected, excluded, pageMode, queue);
+                }
+            }
+        }
+    }
+
+    private void enqueue(PdfObject value, Set<PdfIndirectReference> collected, Set<PdfIndirectReference> excluded,
+            boolean pageMode, Deque<PdfObject> queue) {
+        if (value == null) {
+            return;
+        }
+        if (value.isIndirectReference()) {
+            PdfIndirectReference reference = (PdfIndirectReference) value;
+            if (reference.isFree() || collected.contains(reference) || excluded.contains(reference)
+                    || (pageMode && pageReferences.contains(reference))) {
+                return;
+            }
+            PdfObject object = reference.getRefersTo();
+            if (object == null || object.isIndirectReference()) {
+                return;
+            }
+            if (pageMode && object.isDictionary()
+                    && PdfName.Pages.equals(((PdfDictionary) object).getAsName(PdfName.Type))) {
+                return;
+            }
+            collected.add(reference);
+            queue.add(object);
+        } else if (value.isArray() || value.isDictionary()) {
+            queue.add(value);
+        }
+    }
+
+    private List<byte[]> serializeAll(Collection<PdfIndirectReference> references, PdfOutputStream serializer,
+            ByteArrayOutputStream buffer) {
+        List<byte[]> result = new ArrayList<>(references.size());
+        for (PdfIndirectReference reference : references) {
+            buffer.reset();
+            serializer.writeInteger(objectNumbers.get(reference)).writeBytes(OBJ);
+            writeObject(reference.getRefersTo(), serializer);
+            serializer.writeBytes(ENDOBJ);
+            result.add(buffer.toByteArray());
+        }
+        return result;
+    }
+
+    private void writeObject(PdfObject object, PdfOutputStream serializer) {
+        switch (object.getType()) {
+            case PdfObject.INDIRECT_REFERENCE:
+                Integer number = objectNumbers.get((PdfIndirectReference) object);
+                if (number == null) {
+                    serializer.write(PdfNull.PDF_NULL);
+                } else {
+                    serializer.writeInteger((int) number).writeBytes(REFERENCE);
+                }
+                break;
+            case PdfObject.ARRAY:
+                PdfArray array = (PdfArray) object;
+                serializer.writeByte('[');
+                for (int i = 0; i < array.size(); i++) {
+                    if (i > 0) {
+                        serializer.writeSpace();
+                    }
+                    writeObject(array.get(i, false), serializer);
+                }
+                serializer.writeByte(']');
+                break;
+            case PdfObject.DICTIONARY:
+                writeDictionary((PdfDictionary) object, serializer, -1);
+                break;
+            case PdfObject.STREAM:
+                PdfStream stream = (PdfStream) object;
+                byte[] bytes = stream.getBytes(false);
+                writeDictionary(stream, serializer, bytes.length);
+                serializer.writeBytes(STREAM).writeBytes(bytes).writeBytes(ENDSTREAM);
+                break;
+            default:
+                serializer.write(object);
+        }
+    }
+
+    private void writeDictionary(PdfDictionary dictionary, PdfOutputStream serializer, int streamLength) {
+        serializer.writeString("<<");
+        for (PdfName key : dictionary.keySet()) {
+            if (streamLength >= 0 && PdfName.Length.equals(key)) {
+                continue;
+            }
+            PdfObject value = dictionary.get(key, false);
+            if (value == null) {
+                continue;
+            }
+            serializer.write(key).writeSpace();
+            writeObject(value, serializer);
+        }
+        if (streamLength >= 0) {
+            serializer.write(PdfName.Length).writeSpace().writeInteger(streamLength);
+        }
+        serializer.writeString(">>");
+    }
+
+    private static byte[] createLinearizationDictionary(int number, long fileLength, long hintStreamOffset,
+            long hintStreamLength, int firstPageObjectNumber, long firstPageEnd, int numberOfPages,
+            long mainXrefFirstEntryOffset) {
+        String dictionary = number + " 0 obj\n<</Linearized 1/L " + fixedWidth(fileLength)
+                + "/H [" + fixedWidth(hintStreamOffset) + " " + fixedWidth(hintStreamLength) + "]"
+                + "/O " + fixedWidth(firstPageObjectNumber)
+                + "/E " + fixedWidth(firstPageEnd)
+                + "/N " + fixedWidth(numberOfPages)
+                + "/T " + fixedWidth(mainXrefFirstEntryOffset) + ">>\nendobj\n";
+        return ByteUtils.getIsoBytes(dictionary);
+    }
+
+    private byte[] createFirstPageXref(int firstNumber, int size, long[] offsets, long mainXrefOffset,
+            PdfIndirectReference catalogReference, PdfIndirectReference infoReference, PdfDictionary trailer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PdfOutputStream output = new PdfOutputStream(buffer);
+        output.writeString("xref\n" + firstNumber + " " + offsets.length + "\n");
+        for (long offset : offsets) {
+            output.writeString(xrefEntry(offset));
+        }
+        output.writeString("trailer\n<</Size " + size);
+        output.writeString("/Root " + objectNumbers.get(catalogReference) + " 0 R");
+        if (infoReference != null && objectNumbers.containsKey(infoReference)) {
+            output.writeString("/Info " + objectNumbers.get(infoReference) + " 0 R");
+        }
+        PdfObject id = trailer.get(PdfName.ID);
+        if (id != null) {
+            output.write(PdfName.ID).writeSpace();
+            writeObject(id, output);
+        }
+        output.writeString("/Prev " + fixedWidth(mainXrefOffset) + ">>\nstartxref\n0\n%%EOF\n");
+        return buffer.toByteArray();
+    }
+
+    private static byte[] createMainXref(byte[] header, long[] offsets, long firstPageXrefOffset) {
+        StringBuilder xref = new StringBuilder(offsets.length * 20 + 64);
+        xref.append("0000000000 65535 f \n");
+        for (int i = 1; i < offsets.length; i++) {
+            xref.append(xrefEntry(offsets[i]));
+        }
+        xref.append("trailer\n<</Size ").append(offsets.length).append(">>\nstartxref\n")
+                .append(firstPageXrefOffset).append("\n%%EOF\n");
+        byte[] entries = ByteUtils.getIsoBytes(xref.toString());
+        byte[] result = new byte[header.length + entries.length];
+        System.arraycopy(header, 0, result, 0, header.length);
+        System.arraycopy(entries, 0, result, header.length, entries.length);
+        return result;
+    }
+
+    private static byte[] createHintStream(int number, byte[] data, int sharedObjectTableOffset) {
+        byte[] head = ByteUtils.getIsoBytes(number + " 0 obj\n<</Length " + data.length + "/S "
+                + sharedObjectTableOffset + ">>\nstream\n");
+        byte[] tail = ByteUtils.getIsoBytes("\nendstream\nendobj\n");
+        byte[] result = new byte[head.length + data.length + tail.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(data, 0, result, head.length, data.length);
+        System.arraycopy(tail, 0, result, head.length + data.length, tail.length);
+        return result;
+    }
+
+    private static String xrefEntry(long offset) {
+        String value = String.valueOf(offset);
+        StringBuilder entry = new StringBuilder(20);
+        for (int i = value.length(); i < 10; i++) {
+            entry.append('0');
+        }
+        return entry.append(value).append(" 00000 n \n").toString();
+    }
+
+    /**
+     * Numbers whose values are only known after the layout is done are padded with spaces, so that
+     * the length of the structures containing them does not depend on the values.
+     */
+    private static String fixedWidth(long value) {
+        StringBuilder result = new StringBuilder(FIXED_NUMBER_WIDTH).append(value);
+        while (result.length() < FIXED_NUMBER_WIDTH) {
+            result.append(' ');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Builds the page offset hint table and the shared object hint table (ISO 32000-1, F.4.1 and F.4.2).
+     * Every shared object forms a group of its own, the content stream related items describe the whole
+     * page and fractional positions of shared object references are not used.
+     */
+    private static final class HintTablesBuilder {
+
+        private int sharedObjectTableOffset;
+
+        int getSharedObjectTableOffset() {
+            return sharedObjectTableOffset;
+        }
+
+        byte[] build(List<Set<PdfIndirectReference>> pageObjects, Map<PdfIndirectReference, Integer> usages,
+                List<PdfIndirectReference> firstPageSection, List<byte[]> firstPageSectionBytes,
+                long[] firstPageSectionOffsets, long firstPageSectionEnd, List<List<byte[]>> otherPagesSectionsBytes,
+                List<long[]> otherPagesSectionsOffsets, List<PdfIndirectReference> sharedSection,
+                List<byte[]> sharedSectionBytes, long[] sharedSectionOffsets, int firstSharedObjectNumber) {
+            int numberOfPages = pageObjects.size();
+            Map<PdfIndirectReference, Integer> sharedIdentifiers = new HashMap<>();
+            for (int i = 0; i < firstPageSection.size(); i++) {
+                sharedIdentifiers.put(firstPageSection.get(i), i);
+            }
+            for (int i = 0; i < sharedSection.size(); i++) {
+                sharedIdentifiers.put(sharedSection.get(i), firstPageSection.size() + i);
+            }
+
+            int[] objectsCounts = new int[numberOfPages];
+            long[] pageLengths = new long[numberOfPages];
+            List<List<Integer>> pageSharedObjects = new ArrayList<>(numberOfPages);
+            objectsCounts[0] = firstPageSection.size();
+            pageLengths[0] = firstPageSectionEnd - firstPageSectionOffsets[0];
+            for (int i = 1; i < numberOfPages; i++) {
+                List<byte[]> sectionBytes = otherPagesSectionsBytes.get(i - 1);
+                objectsCounts[i] = sectionBytes.size();
+                pageLengths[i] = otherPagesSectionsOffsets.get(i - 1)[sectionBytes.size() - 1]
+                        + sectionBytes.get(sectionBytes.size() - 1).length - otherPagesSectionsOffsets.get(i - 1)[0];
+            }
+            int maxSharedObjectsCount = 0;
+            for (Set<PdfIndirectReference> objects : pageObjects) {
+                List<Integer> shared = new ArrayList<>();
+                for (PdfIndirectReference reference : objects) {
+                    if (usages.get(reference) > 1) {
+                        shared.add(sharedIdentifiers.get(reference));
+                    }
+                }
+                maxSharedObjectsCount = Math.max(maxSharedObjectsCount, shared.size());
+                pageSharedObjects.add(shared);
+            }
+
+            int minObjectsCount = Integer.MAX_VALUE;
+            int maxObjectsCount = 0;
+            long minPageLength = Long.MAX_VALUE;
+            long maxPageLength = 0;
+            for (int i = 0; i < numberOfPages; i++) {
+                minObjectsCount = Math.min(minObjectsCount, objectsCounts[i]);
+                maxObjectsCount = Math.max(maxObjectsCount, objectsCounts[i]);
+                minPageLength = Math.min(minPageLength, pageLengths[i]);
+                maxPageLength = Math.max(maxPageLength, pageLengths[i]);
+            }
+            int objectsCountBits = bitsNeeded(maxObjectsCount - minObjectsCount);
+            int pageLengthBits = bitsNeeded(maxPageLength - minPageLength);
+            int sharedObjectsCountBits = bitsNeeded(maxSharedObjectsCount);
+            int totalSharedEntries = firstPageSection.size() + sharedSection.size();
+            int sharedIdentifierBits = bitsNeeded(totalSharedEntries - 1);
+
+            BitWriter writer = new BitWriter();
+            // Page offset hint table header
+            writer.write(minObjectsCount, 32);
+            writer.write(firstPageSectionOffsets[0], 32);
+            writer.write(objectsCountBits, 16);
+            writer.write(minPageLength, 32);
+            writer.write(pageLengthBits, 16);
+            writer.write(0, 32);
+            writer.write(0, 16);
+            writer.write(minPageLength, 32);
+            writer.write(pageLengthBits, 16);
+            writer.write(sharedObjectsCountBits, 16);
+            writer.write(sharedIdentifierBits, 16);
+            writer.write(0, 16);
+            writer.write(1, 16);
+            // Page offset hint table entries, grouped by item
+            for (int i = 0; i < numberOfPages; i++) {
+                writer.write(objectsCounts[i] - minObjectsCount, objectsCountBits);
+            }
+            writer.alignToByte();
+            for (int i = 0; i < numberOfPages; i++) {
+                writer.write(pageLengths[i] - minPageLength, pageLengthBits);
+            }
+            writer.alignToByte();
+            for (int i = 0; i < numberOfPages; i++) {
+                writer.write(pageSharedObjects.get(i).size(), sharedObjectsCountBits);
+            }
+            writer.alignToByte();
+            for (int i = 0; i < numberOfPages; i++) {
+                for (int identifier : pageSharedObjects.get(i)) {
+                    writer.write(identifier, sharedIdentifierBits);
+                }
+            }
+            writer.alignToByte();
+            // Content stream offsets are all zero and need no bits, content stream lengths equal page lengths
+            for (int i = 0; i < numberOfPages; i++) {
+                writer.write(pageLengths[i] - minPageLength, pageLengthBits);
+            }
+            writer.alignToByte();
+
+            sharedObjectTableOffset = writer.size();
+            long minGroupLength = Long.MAX_VALUE;
+            long maxGroupLength = 0;
+            List<byte[]> groups = new ArrayList<>(totalSharedEntries);
+            groups.addAll(firstPageSectionBytes);
+            groups.addAll(sharedSectionBytes);
+            for (byte[] group : groups) {
+                minGroupLength = Math.min(minGroupLength, group.length);
+                maxGroupLength = Math.max(maxGroupLength, group.length);
+            }
+            int groupLengthBits = bitsNeeded(maxGroupLength - minGroupLength);
+            // Shared object hint table header
+            writer.write(firstSharedObjectNumber, 32);
+            writer.write(sharedSection.isEmpty() ? 0 : sharedSectionOffsets[0], 32);
+            writer.write(firstPageSection.size(), 32);
+            writer.write(totalSharedEntries, 32);
+            writer.write(0, 16);
+            writer.write(minGroupLength, 32);
+            writer.write(groupLengthBits, 16);
+            // Shared object hint table entries, grouped by item
+            for (byte[] group : groups) {
+                writer.write(group.length - minGroupLength, groupLengthBits);
+            }
+            writer.alignToByte();
+            for (int i = 0; i < groups.size(); i++) {
+                writer.write(0, 1);
+            }
+            writer.alignToByte();
+            return writer.toByteArray();
+        }
+
+        private static int bitsNeeded(long value) {
+            return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+        }
+    }
+
+    private static final class BitWriter {
+        private final java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        private int current;
+        private int bitsInCurrent;
+
+        void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >> i) & 1);
+                if (++bitsInCurrent == 8) {
+                    bytes.write(current);
+                    current = 0;
+                    bitsInCurrent = 0;
+                }
+            }
+        }
+
+        void alignToByte() {
+            if (bitsInCurrent > 0) {
+                write(0, 8 - bitsInCurrent);
+            }
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
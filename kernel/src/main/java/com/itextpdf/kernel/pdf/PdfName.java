@@ -500,6 +500,7 @@ public class PdfName extends PdfPrimitiveObject implements Comparable<PdfName> {
     public static final PdfName LineHeight = createDirectName("LineHeight");
     public static final PdfName LineNum = createDirectName("LineNum");
     public static final PdfName LineThrough = createDirectName("LineThrough");
+    public static final PdfName Linearized = createDirectName("Linearized");
     public static final PdfName Link = createDirectName("Link");
     public static final PdfName List = createDirectName("List");
     public static final PdfName ListMode = createDirectName("ListMode");
@@ -821,6 +822,7 @@ public class PdfName extends PdfPrimitiveObject implements Comparable<PdfName> {
     public static final PdfName TFoot = createDirectName("TFoot");
     public static final PdfName TH = createDirectName("TH");
     public static final PdfName THead = createDirectName("THead");
+    public static final PdfName Threads = createDirectName("Threads");
     public static final PdfName Thumb = createDirectName("Thumb");
     public static final PdfName TI = createDirectName("TI");
     public static final PdfName TilingType = createDirectName("TilingType");
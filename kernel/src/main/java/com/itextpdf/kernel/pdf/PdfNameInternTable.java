@@ -0,0 +1,93 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table of the names parsed by a single {@link PdfReader} or
+ * {@link com.itextpdf.kernel.pdf.canvas.parser.util.PdfCanvasParser}, which returns the same instance for equal
+ * names, so that comparing and looking up the names of large documents mostly comes down to comparing references.
+ *
+ * <p>
+ * The {@link PdfName#staticNames static names} are returned as they are. Other names are created like any
+ * parsed name, so they belong to the document of the table and can be made indirect. Once a name has been
+ * made indirect, the table creates a new instance for the next equal name. The table is not thread-safe and
+ * keeps its names as long as it is used, so it shall be owned by a single reader or parser.
+ */
+public final class PdfNameInternTable {
+
+    private final Map<String, PdfName> names = new HashMap<>();
+
+    /**
+     * Gets the canonical instance of the name with the passed raw bytes, e.g. as they are read by a tokenizer.
+     *
+     * @param content the raw name bytes, i.e. with the escape sequences, shall not be null.
+     * @return the canonical name
+     */
+    public PdfName intern(byte[] content) {
+        String key = new String(content, StandardCharsets.ISO_8859_1);
+        PdfName name = PdfName.staticNames.get(key);
+        if (name != null) {
+            return name;
+        }
+        name = names.get(key);
+        if (name == null || name.getIndirectReference() != null) {
+            name = new PdfName(content);
+            names.put(key, name);
+        }
+        return name;
+    }
+
+    /**
+     * Gets the number of names in the table, the static names are not counted.
+     *
+     * @return the number of names
+     */
+    public int size() {
+        return names.size();
+    }
+}
@@ -370,6 +370,10 @@ public abstract class PdfObject {
         } else {
             if (indirectReference != null && indirectReference.getReader() != null
                     && !indirectReference.checkState(FLUSHED)) {
+                PdfDocument document = indirectReference.getDocument();
+                if (document != null) {
+                    document.removeCachedFont(indirectReference);
+                }
                 indirectReference.refersTo = null;
                 indirectReference = null;
                 setState(READ_ONLY);
@@ -66,7 +66,9 @@ import com.itextpdf.kernel.xmp.options.SerializeOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -758,6 +760,19 @@ public class PdfPage extends PdfObjectWrapper<PdfDictionary> {
         }
     }
 
+    /**
+     * Gets an {@link InputStream} over the decoded bytes of the whole page content.
+     * Unlike {@link #getContentBytes()}, the content streams are decoded while the returned stream is read
+     * (see {@link PdfReader#readDecodedStream(PdfStream)}), so that the decoded page content is never
+     * fully kept in memory.
+     * User is responsible for closing returned stream.
+     *
+     * @return {@link InputStream} over the decoded page content.
+     */
+    public InputStream getContentInputStream() {
+        return new ContentStreamsInputStream(this);
+    }
+
     /**
      * Gets decoded bytes of a certain stream of a page content.
      *
@@ -1405,4 +1420,85 @@ public class PdfPage extends PdfObjectWrapper<PdfDictionary> {
             newField.put(PdfName.Parent, newParent);
         }
     }
+
+    /**
+     * Concatenates the decoded content streams of a page the same way {@link #getContentBytes()} does,
+     * opening every content stream only when the previous one is fully read.
+     */
+    private static class ContentStreamsInputStream extends InputStream {
+        private final PdfPage page;
+        private final int streamCount;
+        private int nextStreamIndex;
+        private InputStream currentStream;
+        private int lastByte = -1;
+
+        ContentStreamsInputStream(PdfPage page) {
+            this.page = page;
+            this.streamCount = page.getContentStreamCount();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : 0xff & b[0];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                if (currentStream == null) {
+                    if (nextStreamIndex >= streamCount) {
+                        return -1;
+                    }
+                    currentStream = openDecodedStream(page.getContentStream(nextStreamIndex++));
+                    lastByte = -1;
+                }
+                int count = currentStream.read(b, off, len);
+                if (count > 0) {
+                    lastByte = 0xff & b[off + count - 1];
+                    return count;
+                }
+                if (count == 0) {
+                    continue;
+                }
+                currentStream.close();
+                currentStream = null;
+                if (lastByte != -1 && !Character.isWhitespace((char) lastByte)) {
+                    lastByte = -1;
+                    b[off] = (byte) '\n';
+                    return 1;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (currentStream != null) {
+                currentStream.close();
+                currentStream = null;
+            }
+            nextStreamIndex = streamCount;
+        }
+
+        private static InputStream openDecodedStream(PdfStream stream) throws IOException {
+            if (stream == null) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            PdfReader reader = stream.getIndirectReference() == null ? null : stream.getIndirectReference().getReader();
+            InputStream result = null;
+            if (reader != null && !stream.isFlushed()
+                    && (stream.getOutputStream() == null || stream.getOutputStream().getOutputStream() == null)) {
+                result = reader.readDecodedStream(stream);
+            } else {
+                byte[] bytes = stream.getBytes();
+                if (bytes != null) {
+                    result = new ByteArrayInputStream(bytes);
+                }
+            }
+            return result != null ? result : new ByteArrayInputStream(new byte[0]);
+        }
+    }
 }
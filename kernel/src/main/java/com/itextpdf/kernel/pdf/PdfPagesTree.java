@@ -48,6 +48,7 @@ import com.itextpdf.commons.utils.MessageFormatUtil;
 import com.itextpdf.kernel.exceptions.PdfException;
 import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
 
+import java.lang.ref.WeakReference;
 import java.util.HashSet;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -68,7 +69,10 @@ class PdfPagesTree {
     private List<PdfIndirectReference> pageRefs;
     private List<PdfPages> parents;
     private List<PdfPage> pages;
+    // in lazy page tree mode unmodified pages of a read-only document are only weakly reachable from the tree
+    private List<WeakReference<PdfPage>> weakPages;
     private PdfDocument document;
+    private boolean lazy = false;
     private boolean generated = false;
     private PdfPages root;
 
@@ -91,9 +95,16 @@ class PdfPagesTree {
                         KernelExceptionMessageConstant.INVALID_PAGE_STRUCTURE_PAGES_MUST_BE_PDF_DICTIONARY);
             this.root = new PdfPages(0, Integer.MAX_VALUE, pages, null);
             parents.add(this.root);
+            this.lazy = document.getReader() != null && document.getReader().isLazyPageTreeMode();
+            if (this.lazy && document.getWriter() == null) {
+                this.weakPages = new ArrayList<>();
+            }
             for (int i = 0; i < this.root.getCount(); i++) {
                 this.pageRefs.add(null);
                 this.pages.add(null);
+                if (this.weakPages != null) {
+                    this.weakPages.add(null);
+                }
             }
         } else {
             this.root = null;
@@ -116,7 +127,14 @@ class PdfPagesTree {
         }
         --pageNum;
         PdfPage pdfPage = pages.get(pageNum);
+        if (pdfPage == null && weakPages != null) {
+            WeakReference<PdfPage> weakPage = weakPages.get(pageNum);
+            pdfPage = weakPage == null ? null : weakPage.get();
+        }
         if (pdfPage == null) {
+            if (document.getReader() != null) {
+                document.getReader().prefetchPage(pageNum + 1);
+            }
             loadPage(pageNum);
             if (pageRefs.get(pageNum) != null) {
                 int parentIndex = findPageParent(pageNum);
@@ -133,7 +151,11 @@ class PdfPagesTree {
                 LOGGER.error(MessageFormatUtil.format(IoLogMessageConstant.PAGE_TREE_IS_BROKEN_FAILED_TO_RETRIEVE_PAGE,
                         pageNum + 1));
             }
-            pages.set(pageNum, pdfPage);
+            if (weakPages != null && pdfPage != null) {
+                weakPages.set(pageNum, new WeakReference<>(pdfPage));
+            } else {
+                pages.set(pageNum, pdfPage);
+            }
         }
         return pdfPage;
     }
@@ -165,8 +187,13 @@ class PdfPagesTree {
     /**
      * Returns the index of the first occurrence of the specified page
      * in this tree, or 0 if this tree does not contain the page.
+     * In lazy page tree mode of a read-only document the page is looked up by the indirect reference
+     * of its dictionary, as the {@link PdfPage} instances of the tree are recreated once they have been collected.
      */
     public int getPageNumber(PdfPage page) {
+        if (weakPages != null && page.getPdfObject().getIndirectReference() != null) {
+            return getPageNumber(page.getPdfObject());
+        }
         return pages.indexOf(page) + 1;
     }
 
@@ -175,7 +202,18 @@ class PdfPagesTree {
      * specified by it's PdfDictionary, or 0 if this tree does not contain the page.
      */
     public int getPageNumber(PdfDictionary pageDictionary) {
-        int pageNum = pageRefs.indexOf(pageDictionary.getIndirectReference());
+        int pageNum;
+        if (lazy && pageDictionary.getIndirectReference() != null) {
+            // the /Parent chain leads to the page without scanning the references of all the pages
+            pageNum = findPageNumberByParents(pageDictionary);
+            if (pageNum >= 0 && pageNum < pageRefs.size()) {
+                loadPage(pageNum);
+                if (pageDictionary.getIndirectReference().equals(pageRefs.get(pageNum))) {
+                    return pageNum + 1;
+                }
+            }
+        }
+        pageNum = pageRefs.indexOf(pageDictionary.getIndirectReference());
         if (pageNum >= 0) {
             return pageNum + 1;
         }
@@ -221,6 +259,9 @@ class PdfPagesTree {
         pdfPage.parentPages = pdfPages;
         pageRefs.add(pdfPage.getPdfObject().getIndirectReference());
         pages.add(pdfPage);
+        if (weakPages != null) {
+            weakPages.add(null);
+        }
     }
 
     /**
@@ -246,6 +287,9 @@ class PdfPagesTree {
         correctPdfPagesFromProperty(parentIndex + 1, +1);
         pageRefs.add(index, pdfPage.getPdfObject().getIndirectReference());
         pages.add(index, pdfPage);
+        if (weakPages != null) {
+            weakPages.add(index, null);
+        }
     }
 
     /**
@@ -274,6 +318,9 @@ class PdfPagesTree {
                 && !pageRefs.get(pageNumber).checkState(PdfObject.MODIFIED)
                 && (pageRefs.get(pageNumber).getOffset() > 0 || pageRefs.get(pageNumber).getIndex() >= 0)) {
             pages.set(pageNumber, null);
+            if (weakPages != null) {
+                weakPages.set(pageNumber, null);
+            }
         }
     }
 
@@ -323,6 +370,7 @@ class PdfPagesTree {
     protected void clearPageRefs() {
         pageRefs = null;
         pages = null;
+        weakPages = null;
     }
 
     protected List<PdfPages> getParents() {
@@ -373,6 +421,12 @@ class PdfPagesTree {
         }
         int kidsCount = parent.getCount();
 
+        // in lazy mode a node whose /Count matches the number of its kids may be a leaf, then only the kids
+        // up to the requested one are read instead of every sibling
+        if (lazy && kids.size() == kidsCount && loadLeafKid(parent, kids, pageNum)) {
+            return;
+        }
+
         // we should handle separated pages, it means every PdfArray kids must contain either PdfPage or PdfPages,
         // mix of PdfPage and PdfPages not allowed.
         boolean findPdfPages = false;
@@ -472,6 +526,96 @@ class PdfPagesTree {
         }
     }
 
+    /**
+     * Resolves a single kid of the pages tree node without reading the siblings which follow it.
+     * The kid index equals the page index within the node only if all the preceding kids are pages,
+     * e.g. an empty pages tree node among them would shift the pages which follow it.
+     *
+     * @param parent  the node which contains the page
+     * @param kids    kids of the node
+     * @param pageNum zero-based page number to load
+     * @return true if the kid is a page and its reference has been stored, false if the kid or any
+     * of the preceding kids is a pages tree node and the whole node should be processed
+     */
+    private boolean loadLeafKid(PdfPages parent, PdfArray kids, int pageNum) {
+        int kidIndex = pageNum - parent.getFrom();
+        PdfObject requestedKid = kids.get(kidIndex, false);
+        LinearizationHints hints = document.getReader() == null ? null : document.getReader().getLinearizationHints();
+        if (hints != null && requestedKid instanceof PdfIndirectReference && pageNum < hints.getNumberOfPages()
+                && ((PdfIndirectReference) requestedKid).getOffset() == hints.getPageOffset(pageNum + 1)) {
+            // a page section of a linearized document starts with the page object, so the siblings are not read
+            pageRefs.set(pageNum, (PdfIndirectReference) requestedKid);
+            return true;
+        }
+        for (int i = 0; i <= kidIndex; i++) {
+            PdfObject kid = kids.get(i, false);
+            PdfIndirectReference loadedPage = pageRefs.get(parent.getFrom() + i);
+            if (loadedPage != null && kid != null && (kid == loadedPage || kid.getIndirectReference() == loadedPage)) {
+                // already known to be a page, which might even be flushed by now
+                continue;
+            }
+            PdfDictionary page = kids.getAsDictionary(i);
+            if (page == null) {
+                throw new PdfException(KernelExceptionMessageConstant.INVALID_PAGE_STRUCTURE)
+                        .setMessageParams(pageNum + 1);
+            }
+            if (page.get(PdfName.Kids) != null) {
+                return false;
+            }
+        }
+        PdfObject kid = kids.get(kidIndex, false);
+        if (kid instanceof PdfIndirectReference) {
+            pageRefs.set(pageNum, (PdfIndirectReference) kid);
+        } else {
+            pageRefs.set(pageNum, kid.getIndirectReference());
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the zero-based page number by walking the /Parent chain up to the root
+     * and summing the /Count of the preceding siblings on each level.
+     *
+     * @param pageDictionary page's PdfDictionary
+     * @return zero-based page number or -1 if it cannot be calculated
+     */
+    private int findPageNumberByParents(PdfDictionary pageDictionary) {
+        int pageNum = 0;
+        PdfDictionary kid = pageDictionary;
+        Set<PdfDictionary> processedParents = new HashSet<>();
+        PdfDictionary parent = kid.getAsDictionary(PdfName.Parent);
+        while (parent != null) {
+            if (!processedParents.add(parent)) {
+                return -1;
+            }
+            PdfArray kids = parent.getAsArray(PdfName.Kids);
+            PdfNumber count = parent.getAsNumber(PdfName.Count);
+            if (kids == null || count == null) {
+                return -1;
+            }
+            int kidIndex = -1;
+            for (int i = 0; i < kids.size(); i++) {
+                PdfObject kidObject = kids.get(i, false);
+                if (kidObject == kid || kidObject != null && kidObject.equals(kid.getIndirectReference())) {
+                    kidIndex = i;
+                    break;
+                }
+                PdfDictionary sibling = kids.getAsDictionary(i);
+                if (sibling == null) {
+                    return -1;
+                }
+                PdfNumber siblingCount = sibling.getAsNumber(PdfName.Count);
+                pageNum += sibling.get(PdfName.Kids) != null && siblingCount != null ? siblingCount.intValue() : 1;
+            }
+            if (kidIndex < 0) {
+                return -1;
+            }
+            kid = parent;
+            parent = kid.getAsDictionary(PdfName.Parent);
+        }
+        return root != null && kid == root.getPdfObject() ? pageNum : -1;
+    }
+
     // zero-based index
     private boolean internalRemovePage(int pageNum) {
         int parentIndex = findPageParent(pageNum);
@@ -490,6 +634,9 @@ class PdfPagesTree {
             }
             pageRefs.remove(pageNum);
             pages.remove(pageNum);
+            if (weakPages != null) {
+                weakPages.remove(pageNum);
+            }
             return true;
         } else {
             return false;
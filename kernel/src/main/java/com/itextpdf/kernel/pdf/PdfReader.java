@@ -45,6 +45,7 @@ package com.itextpdf.kernel.pdf;
 
 import com.itextpdf.io.logs.IoLogMessageConstant;
 import com.itextpdf.io.source.ByteBuffer;
+import com.itextpdf.io.source.BlockProviderRandomAccessSource;
 import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.io.source.PdfTokenizer;
@@ -59,7 +60,9 @@ import com.itextpdf.kernel.exceptions.PdfException;
 import com.itextpdf.kernel.crypto.securityhandler.UnsupportedSecurityHandlerException;
 import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
 import com.itextpdf.kernel.exceptions.XrefCycledReferencesException;
+import com.itextpdf.kernel.logs.KernelLogMessageConstant;
 import com.itextpdf.kernel.pdf.filters.FilterHandlers;
+import com.itextpdf.kernel.pdf.filters.FlateDecodeFilter;
 import com.itextpdf.kernel.pdf.filters.IFilterHandler;
 
 import java.io.ByteArrayInputStream;
@@ -100,12 +103,28 @@ public class PdfReader implements Closeable {
     private boolean unethicalReading;
 
     private boolean memorySavingMode;
+    private boolean lazyPageTreeMode;
+    private boolean linearizationHintsMode;
+
+    private LinearizationHints linearizationHints;
+    private BlockProviderRandomAccessSource blockSource;
+
+    private ObjectStreamCache objectStreamCache;
+    private int objectStreamPrefetchSize = -1;
+    // the most recently decoded object stream, kept when members are prefetched without the cache
+    private int lastObjectStreamNumber;
+    private ObjectStreamCache.Entry lastObjectStream;
+    // number of the member requested from the object stream which is being read, -1 to read all the members
+    private int requestedObjectStreamMember = -1;
 
     private StrictnessLevel strictnessLevel = DEFAULT_STRICTNESS_LEVEL;
 
     //indicate nearest first Indirect reference object which includes current reading the object, using for PdfString decrypt
     private PdfIndirectReference currentIndirectReference;
 
+    // the direct names read from the document, so that equal names share an instance
+    private final PdfNameInternTable names = new PdfNameInternTable();
+
     protected PdfTokenizer tokens;
     protected PdfEncryption decrypt;
 
@@ -205,6 +224,10 @@ public class PdfReader implements Closeable {
     PdfReader(IRandomAccessSource byteSource, ReaderProperties properties, boolean closeStream) throws IOException {
         this.properties = properties;
         this.tokens = getOffsetTokeniser(byteSource, closeStream);
+        // Offsets of a source with junk before the header are shifted, prefetching is not used for such sources
+        if (byteSource instanceof BlockProviderRandomAccessSource && tokens.length() == byteSource.length()) {
+            this.blockSource = (BlockProviderRandomAccessSource) byteSource;
+        }
     }
 
     /**
@@ -244,6 +267,59 @@ public class PdfReader implements Closeable {
         return this;
     }
 
+    /**
+     * Defines if lazy page tree mode is enabled.
+     * <p>
+     * By default lazy page tree mode is disabled.
+     * <p>
+     * If lazy page tree mode is enabled, pages are located by descending the pages tree using the /Count
+     * values of its nodes, so that only the nodes on the way to the requested page are read. In reading mode
+     * {@link PdfPage} instances which are not referenced anymore are released by the garbage collector and
+     * are created anew on the next request, so two {@link PdfPage} instances of the same page are not
+     * necessarily identical. Compare pages by their dictionaries or their page numbers instead. This mode
+     * is meant for random access to single pages of huge documents and relies on the /Count values of
+     * the pages tree being consistent.
+     *
+     * @param lazyPageTreeMode true to enable lazy page tree mode, false to disable it.
+     * @return this {@link PdfReader} instance.
+     */
+    public PdfReader setLazyPageTreeMode(boolean lazyPageTreeMode) {
+        this.lazyPageTreeMode = lazyPageTreeMode;
+        return this;
+    }
+
+    /**
+     * Sets the capacity of the cache of decoded object streams.
+     * <p>
+     * By default the cache is disabled and an object stream is decoded each time one of its members is read
+     * after being released. If the cache is enabled, the decoded bytes and the offset table of the most recently
+     * used object streams are kept until their total size exceeds the capacity.
+     *
+     * @param capacity maximum total size of the decoded object streams in bytes, 0 to disable the cache
+     * @return this {@link PdfReader} instance.
+     */
+    public PdfReader setObjectStreamCacheCapacity(long capacity) {
+        this.objectStreamCache = capacity > 0 ? new ObjectStreamCache(capacity) : null;
+        return this;
+    }
+
+    /**
+     * Defines how many members of an object stream, following the requested one, are read together with it.
+     * <p>
+     * By default all the members of an object stream are read as soon as any of them is requested.
+     * Small values are meant to be used together with {@link #setObjectStreamCacheCapacity(long)},
+     * so that the following members are parsed from the cached stream without decoding it again.
+     * Without the cache only the most recently decoded object stream is kept, which is enough
+     * when the members are requested stream by stream.
+     *
+     * @param prefetchSize number of the following members to read, a negative value to read all the members
+     * @return this {@link PdfReader} instance.
+     */
+    public PdfReader setObjectStreamPrefetchSize(int prefetchSize) {
+        this.objectStreamPrefetchSize = prefetchSize;
+        return this;
+    }
+
     /**
      * Get the current {@link StrictnessLevel} of the reader.
      *
@@ -266,6 +342,26 @@ public class PdfReader implements Closeable {
         return this;
     }
 
+    /**
+     * Defines if linearization hints mode is enabled.
+     * <p>
+     * By default linearization hints mode is disabled.
+     * <p>
+     * If linearization hints mode is enabled and the document is linearized (see ISO 32000-1, Annex F), the
+     * linearization dictionary and the page offset hint table are read on opening. When the reader is created
+     * on a {@link BlockProviderRandomAccessSource}, the first page section is then fetched with a single
+     * request and every page is fetched with a single request the first time it is accessed, so that
+     * displaying a page does not require fetching the whole document. Hints of documents which were updated
+     * after linearization are ignored.
+     *
+     * @param linearizationHintsMode true to enable linearization hints mode, false to disable it.
+     * @return this {@link PdfReader} instance.
+     */
+    public PdfReader setLinearizationHintsMode(boolean linearizationHintsMode) {
+        this.linearizationHintsMode = linearizationHintsMode;
+        return this;
+    }
+
     /**
      * Gets whether {@link #close()} method shall close input stream.
      *
@@ -454,6 +550,49 @@ public class PdfReader implements Closeable {
         return bytes != null ? new ByteArrayInputStream(bytes) : null;
     }
 
+    /**
+     * Reads stream bytes into {@link InputStream} which decodes them incrementally, while the stream is read,
+     * so that neither the encoded nor the decoded bytes are fully kept in memory.
+     * Only not encrypted streams without filters or with {@link PdfName#FlateDecode} filters without
+     * decode parameters are decoded incrementally, other streams are read with
+     * {@link #readStream(PdfStream, boolean)}.
+     * The decoded bytes are checked against the limits of the document's {@link MemoryLimitsAwareHandler}
+     * in the same cases as in {@link #decodeBytes(byte[], PdfDictionary)}, while the stream is read.
+     * User is responsible for closing returned stream.
+     *
+     * @param stream a {@link PdfStream} stream instance to be read
+     * @return InputStream or {@code null} if reading was failed.
+     * @throws IOException on error.
+     */
+    public InputStream readDecodedStream(PdfStream stream) throws IOException {
+        if (decrypt != null || !isIncrementallyDecodable(stream)) {
+            return readStream(stream, true);
+        }
+        checkPdfStreamLength(stream);
+        long offset = stream.getOffset();
+        if (offset <= 0) {
+            return null;
+        }
+        int length = stream.getLength();
+        if (length <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        InputStream result = new RASInputStream(
+                new WindowRandomAccessSource(tokens.getSafeFile().createSourceView(), offset, length));
+        PdfObject filter = stream.get(PdfName.Filter);
+        int filterCount = filter == null ? 0 : filter.isArray() ? ((PdfArray) filter).size() : 1;
+        for (int i = 0; i < filterCount; i++) {
+            result = FlateDecodeFilter.flateDecodeIncrementally(result);
+        }
+        MemoryLimitsAwareHandler memoryLimitsAwareHandler = pdfDocument == null ? null
+                : pdfDocument.memoryLimitsAwareHandler;
+        if (memoryLimitsAwareHandler != null && filter != null && filter.isArray()
+                && memoryLimitsAwareHandler.isMemoryLimitsAwarenessRequiredOnDecompression((PdfArray) filter)) {
+            result = new MemoryLimitsAwareInputStream(result, memoryLimitsAwareHandler);
+        }
+        return result;
+    }
+
     /**
      * Decode bytes applying the filters specified in the provided dictionary using default filter handlers.
      *
@@ -476,6 +615,25 @@ public class PdfReader implements Closeable {
      * @throws PdfException if there are any problems decoding the bytes
      */
     public static byte[] decodeBytes(byte[] b, PdfDictionary streamDictionary, Map<PdfName, IFilterHandler> filterHandlers) {
+        MemoryLimitsAwareHandler memoryLimitsAwareHandler = null;
+        if (null != streamDictionary.getIndirectReference()) {
+            memoryLimitsAwareHandler = streamDictionary.getIndirectReference().getDocument().memoryLimitsAwareHandler;
+        }
+        return decodeBytes(b, streamDictionary, filterHandlers, memoryLimitsAwareHandler);
+    }
+
+    /**
+     * Decode a byte[] applying the filters specified in the provided dictionary and considering the decompressed
+     * bytes in the provided memory limits handler.
+     *
+     * @param b                        the bytes to decode
+     * @param streamDictionary         the dictionary that contains filter information
+     * @param filterHandlers           the map used to look up a handler for each type of filter
+     * @param memoryLimitsAwareHandler the handler which checks the decompressed bytes, may be {@code null}
+     * @return the decoded bytes
+     */
+    static byte[] decodeBytes(byte[] b, PdfDictionary streamDictionary, Map<PdfName, IFilterHandler> filterHandlers,
+            MemoryLimitsAwareHandler memoryLimitsAwareHandler) {
         if (b == null) {
             return null;
         }
@@ -489,11 +647,6 @@ public class PdfReader implements Closeable {
             }
         }
 
-        MemoryLimitsAwareHandler memoryLimitsAwareHandler = null;
-        if (null != streamDictionary.getIndirectReference()) {
-            memoryLimitsAwareHandler = streamDictionary.getIndirectReference().getDocument().memoryLimitsAwareHandler;
-        }
-
         final boolean memoryLimitsAwarenessRequired = null != memoryLimitsAwareHandler &&
                 memoryLimitsAwareHandler.isMemoryLimitsAwarenessRequiredOnDecompression(filters);
 
@@ -760,69 +913,21 @@ public class PdfReader implements Closeable {
         }
         pdfDocument.getXref().markReadingCompleted();
         readDecryptObj();
+        if (linearizationHintsMode && !encrypted) {
+            readLinearizationHints();
+        }
     }
 
+    /**
+     * Reads the members of the object stream. When a single member is requested and
+     * {@link #setObjectStreamPrefetchSize(int) prefetching} is enabled, only that member and the following ones
+     * are read, otherwise all the members of the stream are read.
+     *
+     * @param objectStream the object stream
+     * @throws IOException on error
+     */
     protected void readObjectStream(PdfStream objectStream) throws IOException {
-        int objectStreamNumber = objectStream.getIndirectReference().getObjNumber();
-        int first = objectStream.getAsNumber(PdfName.First).intValue();
-        int n = objectStream.getAsNumber(PdfName.N).intValue();
-        byte[] bytes = readStreamBytes(objectStream, true);
-        PdfTokenizer saveTokens = tokens;
-        try {
-            tokens = new PdfTokenizer(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(bytes)));
-            int[] address = new int[n];
-            int[] objNumber = new int[n];
-            boolean ok = true;
-            for (int k = 0; k < n; ++k) {
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
-                    ok = false;
-                    break;
-                }
-                objNumber[k] = tokens.getIntValue();
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
-                    ok = false;
-                    break;
-                }
-                address[k] = tokens.getIntValue() + first;
-            }
-            if (!ok)
-                throw new PdfException(KernelExceptionMessageConstant.ERROR_WHILE_READING_OBJECT_STREAM);
-            for (int k = 0; k < n; ++k) {
-                tokens.seek(address[k]);
-                tokens.nextToken();
-                PdfObject obj;
-                PdfIndirectReference reference = pdfDocument.getXref().get(objNumber[k]);
-                if (reference.refersTo != null || reference.getObjStreamNumber() != objectStreamNumber) {
-                    // We skip reading of objects stream's element k if either it is already available in xref
-                    // or if corresponding indirect object reference points to a different object stream.
-                    // The first check prevents from re-initializing objects which are already read. One of the cases
-                    // when this can happen is that some other object from this objects stream was released and requested
-                    // to be re-read.
-                    // Second check ensures that object has no incremental updates and is not freed in append mode.
-
-                    continue;
-                }
-                if (tokens.getTokenType() == PdfTokenizer.TokenType.Number) {
-                    // This ensure that we don't even try to read as indirect reference token (two numbers and "R")
-                    // which are forbidden in object streams.
-                    obj = new PdfNumber(tokens.getByteContent());
-                } else {
-                    tokens.seek(address[k]);
-                    obj = readObject(false, true);
-                }
-                reference.setRefersTo(obj);
-                obj.setIndirectReference(reference);
-            }
-            objectStream.getIndirectReference().setState(PdfObject.ORIGINAL_OBJECT_STREAM);
-        } finally {
-            tokens = saveTokens;
-        }
+        readObjectStreamMembers(objectStream, requestedObjectStreamMember);
     }
 
     protected PdfObject readObject(PdfIndirectReference reference) {
@@ -945,11 +1050,9 @@ public class PdfReader implements Closeable {
 
     protected PdfName readPdfName(boolean readAsDirect) {
         if (readAsDirect) {
-            PdfName cachedName = PdfName.staticNames.get(tokens.getStringValue());
-            if (cachedName != null)
-                return cachedName;
+            return names.intern(tokens.getByteContent());
         }
-        // an indirect name (how odd...), or a non-standard one
+        // an indirect name (how odd...)
         return new PdfName(tokens.getByteContent());
     }
 
@@ -1300,6 +1403,20 @@ public class PdfReader implements Closeable {
     }
 
     protected void rebuildXref() throws IOException {
+        RandomAccessFileOrArray file = tokens.getSafeFile();
+        if (file.length() >= XrefRebuildScanner.MIN_LENGTH_FOR_CHUNKED_SCAN) {
+            // chunk buffers shall fit into the limits of the memory handler
+            MemoryLimitsAwareHandler handler = pdfDocument.memoryLimitsAwareHandler;
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            int chunkSize = XrefRebuildScanner.DEFAULT_CHUNK_SIZE;
+            if (handler != null) {
+                chunkSize = Math.max(1, Math.min(chunkSize, handler.getMaxSizeOfSingleDecompressedPdfStream()));
+                parallelism = (int) Math.max(1,
+                        Math.min(parallelism, handler.getMaxSizeOfDecompressedPdfStreamsSum() / chunkSize));
+            }
+            rebuildXref(new XrefRebuildScanner(file.createSourceView(), chunkSize, parallelism));
+            return;
+        }
         xrefStm = false;
         hybridXref = false;
         rebuiltXref = true;
@@ -1348,6 +1465,47 @@ public class PdfReader implements Closeable {
         }
     }
 
+    /**
+     * Rebuilds the cross-reference table from the object headers and trailers found by the scanner.
+     * The entries are added in the order of the file and the last trailer with /Root entry wins,
+     * as in the sequential scan.
+     *
+     * @param scanner the scanner of the document source
+     * @throws IOException if the source cannot be read
+     */
+    void rebuildXref(XrefRebuildScanner scanner) throws IOException {
+        xrefStm = false;
+        hybridXref = false;
+        rebuiltXref = true;
+        PdfXrefTable xref = pdfDocument.getXref();
+        xref.clear();
+        trailer = null;
+        scanner.scan();
+        for (int i = 0; i < scanner.getObjectHeadersCount(); i++) {
+            int num = scanner.getObjectNumber(i);
+            int gen = scanner.getGenerationNumber(i);
+            if (xref.get(num) == null || xref.get(num).getGenNumber() <= gen) {
+                xref.add(new PdfIndirectReference(pdfDocument, num, gen, scanner.getObjectOffset(i)));
+            }
+        }
+        long[] trailerOffsets = scanner.getTrailerOffsets();
+        for (int i = trailerOffsets.length - 1; i >= 0 && trailer == null; i--) {
+            tokens.seek(trailerOffsets[i]);
+            tokens.nextToken();
+            try {
+                PdfDictionary dic = (PdfDictionary) readObject(false);
+                if (dic.get(PdfName.Root, false) != null) {
+                    trailer = dic;
+                }
+            } catch (Exception ignored) {
+                // the previous trailer is checked
+            }
+        }
+        if (trailer == null) {
+            throw new PdfException(KernelExceptionMessageConstant.TRAILER_NOT_FOUND);
+        }
+    }
+
     protected PdfNumber getXrefPrev(PdfObject prevObjectToCheck) {
         if (prevObjectToCheck == null) {
             return null;
@@ -1372,6 +1530,35 @@ public class PdfReader implements Closeable {
         return memorySavingMode;
     }
 
+    boolean isLazyPageTreeMode() {
+        return lazyPageTreeMode;
+    }
+
+    LinearizationHints getLinearizationHints() {
+        return linearizationHints;
+    }
+
+    /**
+     * Fetches the part of the source holding the objects of the page with a single request
+     * if the linearization hints are available.
+     *
+     * @param pageNum the number of the page, starting from 1
+     */
+    void prefetchPage(int pageNum) {
+        if (linearizationHints == null || blockSource == null || pageNum > linearizationHints.getNumberOfPages()) {
+            return;
+        }
+        try {
+            blockSource.prefetch(linearizationHints.getPageOffset(pageNum), linearizationHints.getPageLength(pageNum));
+        } catch (IOException e) {
+            throw new PdfException(KernelExceptionMessageConstant.IO_EXCEPTION, e);
+        }
+    }
+
+    ObjectStreamCache getObjectStreamCache() {
+        return objectStreamCache;
+    }
+
     private void processArrayReadError() {
         final String error = MessageFormatUtil.format(KernelExceptionMessageConstant.UNEXPECTED_TOKEN,
                 new String(tokens.getByteContent(), StandardCharsets.UTF_8));
@@ -1383,6 +1570,66 @@ public class PdfReader implements Closeable {
         }
     }
 
+    private void readLinearizationHints() {
+        try {
+            tokens.seek(0);
+            tokens.nextValidToken();
+            if (tokens.getTokenType() != PdfTokenizer.TokenType.Obj) {
+                return;
+            }
+            PdfObject object = readObject(false);
+            if (object.getType() != PdfObject.DICTIONARY
+                    || !((PdfDictionary) object).containsKey(PdfName.Linearized)) {
+                return;
+            }
+            PdfDictionary linearizationDictionary = (PdfDictionary) object;
+            PdfNumber fileLength = linearizationDictionary.getAsNumber(PdfName.L);
+            if (fileLength == null || fileLength.longValue() != tokens.length()) {
+                // The document was updated after linearization
+                return;
+            }
+            // The values below size the reads and the hint tables, so they shall not exceed the length of the file
+            long firstPageEnd = linearizationDictionary.getAsNumber(PdfName.E).longValue();
+            long numberOfPages = linearizationDictionary.getAsNumber(PdfName.N).longValue();
+            if (firstPageEnd < 0 || firstPageEnd > tokens.length()
+                    || numberOfPages <= 0 || numberOfPages > tokens.length()) {
+                ignoreLinearizationHints(null);
+                return;
+            }
+            PdfArray hintStream = linearizationDictionary.getAsArray(PdfName.H);
+            if (blockSource != null) {
+                blockSource.prefetch(0, firstPageEnd);
+            }
+            tokens.seek(hintStream.getAsNumber(0).longValue());
+            tokens.nextValidToken();
+            PdfObject hintStreamObject = tokens.getTokenType() == PdfTokenizer.TokenType.Obj ? readObject(false) : null;
+            if (hintStreamObject == null || hintStreamObject.getType() != PdfObject.STREAM) {
+                return;
+            }
+            PdfStream stream = (PdfStream) hintStreamObject;
+            if (stream.getLength() < 0 || stream.getOffset() + stream.getLength() > tokens.length()) {
+                ignoreLinearizationHints(null);
+                return;
+            }
+            byte[] bytes = new byte[stream.getLength()];
+            tokens.seek(stream.getOffset());
+            tokens.readFully(bytes);
+            linearizationHints = new LinearizationHints(linearizationDictionary, decodeBytes(bytes, stream));
+        } catch (IOException | RuntimeException e) {
+            ignoreLinearizationHints(e);
+        }
+    }
+
+    private void ignoreLinearizationHints(Exception cause) {
+        Logger logger = LoggerFactory.getLogger(PdfReader.class);
+        if (cause == null) {
+            logger.warn(KernelLogMessageConstant.LINEARIZATION_HINTS_ARE_IGNORED);
+        } else {
+            logger.warn(KernelLogMessageConstant.LINEARIZATION_HINTS_ARE_IGNORED, cause);
+        }
+        linearizationHints = null;
+    }
+
     private void readDecryptObj() {
         if (encrypted)
             return;
@@ -1406,6 +1653,146 @@ public class PdfReader implements Closeable {
         }
     }
 
+    /**
+     * Reads the members of the object stream.
+     *
+     * @param objectStream       the object stream
+     * @param requestedObjNumber number of the requested member, -1 to read all the members of the stream
+     * @throws IOException on error
+     */
+    private void readObjectStreamMembers(PdfStream objectStream, int requestedObjNumber) throws IOException {
+        int objectStreamNumber = objectStream.getIndirectReference().getObjNumber();
+        ObjectStreamCache.Entry decodedStream = null;
+        if (objectStreamCache != null) {
+            decodedStream = objectStreamCache.get(objectStreamNumber);
+        } else if (lastObjectStream != null && lastObjectStreamNumber == objectStreamNumber) {
+            decodedStream = lastObjectStream;
+        }
+        if (decodedStream == null) {
+            decodedStream = decodeObjectStream(objectStream);
+            if (objectStreamCache != null) {
+                objectStreamCache.put(objectStreamNumber, decodedStream);
+            } else if (objectStreamPrefetchSize >= 0) {
+                // otherwise every prefetched member would decode the whole stream again
+                lastObjectStreamNumber = objectStreamNumber;
+                lastObjectStream = decodedStream;
+            }
+        }
+        int n = decodedStream.objNumbers.length;
+        int from = 0;
+        int to = n;
+        if (requestedObjNumber >= 0 && objectStreamPrefetchSize >= 0) {
+            for (int k = 0; k < n; ++k) {
+                if (decodedStream.objNumbers[k] == requestedObjNumber) {
+                    from = k;
+                    to = (int) Math.min(n, (long) k + objectStreamPrefetchSize + 1);
+                    break;
+                }
+            }
+        }
+        PdfTokenizer memberTokens = new PdfTokenizer(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createSource(decodedStream.bytes)));
+        for (int k = from; k < to; ++k) {
+            PdfIndirectReference reference = pdfDocument.getXref().get(decodedStream.objNumbers[k]);
+            if (reference.refersTo != null || reference.getObjStreamNumber() != objectStreamNumber) {
+                // We skip reading of objects stream's element k if either it is already available in xref
+                // or if corresponding indirect object reference points to a different object stream.
+                // The first check prevents from re-initializing objects which are already read. One of the cases
+                // when this can happen is that some other object from this objects stream was released and requested
+                // to be re-read.
+                // Second check ensures that object has no incremental updates and is not freed in append mode.
+
+                continue;
+            }
+            readObjectStreamMember(memberTokens, decodedStream.addresses[k], reference);
+        }
+        objectStream.getIndirectReference().setState(PdfObject.ORIGINAL_OBJECT_STREAM);
+    }
+
+    /**
+     * Reads a single member of the decoded object stream and binds it to its reference.
+     *
+     * @param memberTokens tokenizer over the decoded object stream
+     * @param address      offset of the member in the decoded stream
+     * @param reference    reference of the member
+     * @return the read object
+     * @throws IOException on error
+     */
+    PdfObject readObjectStreamMember(PdfTokenizer memberTokens, int address, PdfIndirectReference reference)
+            throws IOException {
+        PdfTokenizer saveTokens = tokens;
+        try {
+            tokens = memberTokens;
+            tokens.seek(address);
+            tokens.nextToken();
+            PdfObject obj;
+            if (tokens.getTokenType() == PdfTokenizer.TokenType.Number) {
+                // This ensure that we don't even try to read as indirect reference token (two numbers and "R")
+                // which are forbidden in object streams.
+                obj = new PdfNumber(tokens.getByteContent());
+            } else {
+                tokens.seek(address);
+                obj = readObject(false, true);
+            }
+            reference.setRefersTo(obj);
+            obj.setIndirectReference(reference);
+            return obj;
+        } finally {
+            tokens = saveTokens;
+        }
+    }
+
+    /**
+     * Decodes the object stream and reads its offset table.
+     *
+     * @param objectStream the object stream
+     * @return the decoded object stream
+     * @throws IOException on error
+     */
+    private ObjectStreamCache.Entry decodeObjectStream(PdfStream objectStream) throws IOException {
+        int first = objectStream.getAsNumber(PdfName.First).intValue();
+        int n = objectStream.getAsNumber(PdfName.N).intValue();
+        return parseObjectStream(readStreamBytes(objectStream, true), first, n);
+    }
+
+    /**
+     * Reads the offset table of the decoded object stream.
+     *
+     * @param bytes decoded bytes of the object stream
+     * @param first offset of the first member, i.e. the value of /First entry
+     * @param n     number of the members, i.e. the value of /N entry
+     * @return the decoded object stream
+     * @throws IOException on error
+     */
+    static ObjectStreamCache.Entry parseObjectStream(byte[] bytes, int first, int n) throws IOException {
+        PdfTokenizer tokens = new PdfTokenizer(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createSource(bytes)));
+        int[] address = new int[n];
+        int[] objNumber = new int[n];
+        boolean ok = true;
+        for (int k = 0; k < n; ++k) {
+            ok = tokens.nextToken();
+            if (!ok)
+                break;
+            if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
+                ok = false;
+                break;
+            }
+            objNumber[k] = tokens.getIntValue();
+            ok = tokens.nextToken();
+            if (!ok)
+                break;
+            if (tokens.getTokenType() != PdfTokenizer.TokenType.Number) {
+                ok = false;
+                break;
+            }
+            address[k] = tokens.getIntValue() + first;
+        }
+        if (!ok)
+            throw new PdfException(KernelExceptionMessageConstant.ERROR_WHILE_READING_OBJECT_STREAM);
+        return new ObjectStreamCache.Entry(bytes, objNumber, address);
+    }
+
     private PdfObject readObject(PdfIndirectReference reference, boolean fixXref) {
         if (reference == null)
             return null;
@@ -1416,7 +1803,13 @@ public class PdfReader implements Closeable {
             if (reference.getObjStreamNumber() > 0) {
                 PdfStream objectStream = (PdfStream) pdfDocument.getXref().
                         get(reference.getObjStreamNumber()).getRefersTo(false);
-                readObjectStream(objectStream);
+                int savedRequestedMember = requestedObjectStreamMember;
+                requestedObjectStreamMember = reference.getObjNumber();
+                try {
+                    readObjectStream(objectStream);
+                } finally {
+                    requestedObjectStreamMember = savedRequestedMember;
+                }
                 return reference.refersTo;
             } else if (reference.getOffset() > 0) {
                 PdfObject object;
@@ -1447,6 +1840,36 @@ public class PdfReader implements Closeable {
         }
     }
 
+    private static boolean isIncrementallyDecodable(PdfStream stream) {
+        PdfObject decodeParams = stream.get(PdfName.DecodeParms);
+        if (decodeParams == null) {
+            decodeParams = stream.get(PdfName.DP);
+        }
+        if (decodeParams != null && decodeParams.getType() != PdfObject.NULL) {
+            return false;
+        }
+        PdfObject filter = stream.get(PdfName.Filter);
+        if (filter == null) {
+            return true;
+        }
+        if (filter.isName()) {
+            return isFlateDecode(filter);
+        }
+        if (filter.isArray()) {
+            for (PdfObject filterName : (PdfArray) filter) {
+                if (!isFlateDecode(filterName)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isFlateDecode(PdfObject filter) {
+        return PdfName.FlateDecode.equals(filter) || PdfName.Fl.equals(filter);
+    }
+
     private void checkPdfStreamLength(PdfStream pdfStream) throws IOException {
         if (!correctStreamLength)
             return;
@@ -83,6 +83,21 @@ public class PdfStream extends PdfDictionary {
         }
     }
 
+    /**
+     * Constructs a {@code PdfStream}-object which uses the passed buffer as the content of its
+     * {@link PdfOutputStream} without copying it. Subsequent writes to the buffer change the content of the stream.
+     *
+     * @param bytes            initial content of {@link PdfOutputStream}, e.g. a
+     *                         {@link com.itextpdf.io.source.ChunkedByteArrayOutputStream} keeping large content off the heap.
+     * @param compressionLevel the compression level (0 = best speed, 9 = best compression, -1 is default)
+     */
+    public PdfStream(ByteArrayOutputStream bytes, int compressionLevel) {
+        super();
+        setState(MUST_BE_INDIRECT);
+        this.compressionLevel = compressionLevel;
+        this.outputStream = new PdfOutputStream(bytes != null ? bytes : new ByteArrayOutputStream());
+    }
+
     /**
      * Creates a PdfStream instance.
      *
@@ -149,7 +164,7 @@ public class PdfStream extends PdfDictionary {
      * @param compressionLevel the compression level (0 = best speed, 9 = best compression, -1 is default)
      */
     public PdfStream(int compressionLevel) {
-        this(null, compressionLevel);
+        this((byte[]) null, compressionLevel);
     }
 
     /**
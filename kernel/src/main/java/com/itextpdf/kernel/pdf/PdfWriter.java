@@ -47,6 +47,7 @@ import com.itextpdf.io.logs.IoLogMessageConstant;
 import com.itextpdf.io.source.ByteArrayOutputStream;
 import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.commons.utils.FileUtil;
+import com.itextpdf.kernel.logs.KernelLogMessageConstant;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,6 +88,17 @@ public class PdfWriter extends PdfOutputStream {
     //forewarned is forearmed
     protected boolean isUserWarnedAboutAcroFormCopying;
 
+    /**
+     * In linearization mode the document is written to this buffer first and is rewritten
+     * to the actual output stream in the linearized form on closing.
+     */
+    private ByteArrayOutputStream linearizationBuffer;
+
+    /**
+     * The actual output stream of the writer in linearization mode.
+     */
+    private java.io.OutputStream linearizationDestination;
+
     /**
      * Create a PdfWriter writing to the passed File and with default writer properties.
      *
@@ -111,6 +123,11 @@ public class PdfWriter extends PdfOutputStream {
     public PdfWriter(java.io.OutputStream os, WriterProperties properties) {
         super(new CountOutputStream(FileUtil.wrapWithBufferedOutputStream(os)));
         this.properties = properties;
+        if (properties.linearizationMode) {
+            linearizationDestination = outputStream;
+            linearizationBuffer = new ByteArrayOutputStream();
+            outputStream = linearizationBuffer;
+        }
     }
 
     /**
@@ -383,6 +400,46 @@ public class PdfWriter extends PdfOutputStream {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // The document was not finished, the actual output stream has to be closed anyway
+            if (linearizationDestination != null && closeStream) {
+                linearizationDestination.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered document to the actual output stream in linearization mode. Does nothing otherwise.
+     *
+     * @param linearizationSupported false if the document shall be written as is, e.g. because it is encrypted
+     *
+     * @throws IOException if the document could not be written
+     */
+    void finishLinearization(boolean linearizationSupported) throws IOException {
+        if (linearizationDestination == null) {
+            return;
+        }
+        byte[] document = linearizationBuffer.toByteArray();
+        linearizationBuffer = null;
+        outputStream = linearizationDestination;
+        linearizationDestination = null;
+        if (linearizationSupported) {
+            PdfLinearizer.linearize(document, outputStream);
+        } else {
+            Logger logger = LoggerFactory.getLogger(PdfWriter.class);
+            logger.warn(KernelLogMessageConstant.LINEARIZATION_IS_NOT_SUPPORTED);
+            outputStream.write(document);
+            outputStream.flush();
+        }
+    }
+
     /**
      * Flush all copied objects.
      *
@@ -64,6 +64,9 @@ public class ReaderProperties {
 
     protected MemoryLimitsAwareHandler memoryLimitsAwareHandler;
 
+    protected boolean deferTagStructureLoading;
+    protected boolean deferXmpMetadataLoading;
+
     /**
      * Defines the password which will be used if the document is encrypted with standard encryption.
      * This could be either user or owner password.
@@ -135,4 +138,34 @@ public class ReaderProperties {
         return this;
     }
 
+    /**
+     * Defines if the structure tree root of a tagged document shall be initialized only on the first access
+     * to the tag structure (e.g. {@link PdfDocument#isTagged()} or {@link PdfDocument#getStructTreeRoot()}),
+     * instead of during the opening of the document.
+     * <p>
+     * The flag is only taken into account when the document is opened in reading mode.
+     *
+     * @param deferTagStructureLoading true to defer the initialization of the tag structure, false otherwise
+     * @return this {@link ReaderProperties} instance
+     */
+    public ReaderProperties setDeferTagStructureLoading(boolean deferTagStructureLoading) {
+        this.deferTagStructureLoading = deferTagStructureLoading;
+        return this;
+    }
+
+    /**
+     * Defines if the XMP metadata stream shall be read only on the first access to the metadata
+     * (e.g. {@link PdfDocument#getXmpMetadata()} or {@link PdfDocument#getDocumentInfo()}),
+     * instead of during the opening of the document.
+     * <p>
+     * The flag is only taken into account when the document is opened in reading mode.
+     *
+     * @param deferXmpMetadataLoading true to defer the reading of the XMP metadata, false otherwise
+     * @return this {@link ReaderProperties} instance
+     */
+    public ReaderProperties setDeferXmpMetadataLoading(boolean deferXmpMetadataLoading) {
+        this.deferXmpMetadataLoading = deferXmpMetadataLoading;
+        return this;
+    }
+
 }
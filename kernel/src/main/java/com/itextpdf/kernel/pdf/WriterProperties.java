@@ -60,6 +60,11 @@ public class WriterProperties {
      * and reused if there's an object with the same content later.
      */
     protected boolean smartMode;
+
+    /**
+     * Indicates if the document is written in the linearized form (Fast Web View).
+     */
+    protected boolean linearizationMode;
     protected boolean addXmpMetadata;
     protected boolean addUAXmpMetadata;
     protected PdfVersion pdfVersion;
@@ -144,6 +149,24 @@ public class WriterProperties {
         return this;
     }
 
+    /**
+     * Defines if the document is written in the linearized form described in ISO 32000-1, Annex F, also known
+     * as Fast Web View. A linearized document starts with everything needed to display its first page, so
+     * that viewers reading it over a network are able to render the first page before the whole file is
+     * downloaded, and contains hint tables which allow to locate the objects of the other pages.
+     * <br>
+     * The document is buffered in memory and rewritten on closing, object streams are not used in the
+     * linearized document. Linearization is not supported for encrypted documents and in append mode,
+     * such documents are written as usual.
+     *
+     * @param linearizationMode true - to write a linearized document, false to write it as usual
+     * @return this {@link WriterProperties} instance
+     */
+    public WriterProperties setLinearizationMode(boolean linearizationMode) {
+        this.linearizationMode = linearizationMode;
+        return this;
+    }
+
     /**
      * Sets the encryption options for the document.
      *
@@ -0,0 +1,352 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.ByteBuffer;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Finds object headers and trailers of a damaged document in order to rebuild its cross-reference table.
+ * <p>
+ * The source is split into chunks which are scanned in parallel in the common fork-join pool. The results
+ * of the chunks are merged in the order of the file.
+ * <p>
+ * A line segment starts right after the end of line which terminates the previous non-empty line. Only the
+ * first {@value #LINE_SEGMENT_CAPACITY} bytes of a line (with leading whitespaces skipped and repeated spaces
+ * collapsed) are checked for an object header or a trailer, the rest of the line up to the end of line is skipped,
+ * as {@link PdfTokenizer#readLineSegment(ByteBuffer, boolean)} does with its line buffer during the sequential
+ * scan in {@link PdfReader#rebuildXref()}.
+ * <p>
+ * Unlike the sequential scan, the scanner does not parse trailer dictionaries, so it keeps looking for headers at
+ * line starts only. The sequential scan continues right after a trailer dictionary (or after the trailer keyword
+ * if the dictionary cannot be read) and may thus find an object header which follows it on the same line,
+ * e.g. {@code trailer <<...>> 5 0 obj}. Such headers are not found by this scanner.
+ */
+final class XrefRebuildScanner {
+
+    /**
+     * Default size of the chunk which is read into memory and scanned by a single worker.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The minimal length of the source for which the cross-reference table is rebuilt by the chunked scan.
+     */
+    static final long MIN_LENGTH_FOR_CHUNKED_SCAN = 16L * 1024 * 1024;
+
+    // the same capacity as the one of the line buffer in the sequential scan
+    static final int LINE_SEGMENT_CAPACITY = 24;
+
+    // bytes which are read after the end of the chunk to complete the last line segments without extra reads
+    private static final int LOOKAHEAD = 256;
+
+    private final IRandomAccessSource source;
+    private final long length;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private int[] objNumbers = new int[0];
+    private int[] genNumbers = new int[0];
+    private long[] objOffsets = new long[0];
+    private int objCount = 0;
+    private long[] trailerOffsets = new long[0];
+
+    /**
+     * Creates a new scanner.
+     *
+     * @param source      the source to scan, reads from it are synchronized on the source itself
+     * @param chunkSize   size of the chunk which is read into memory and scanned by a single worker
+     * @param parallelism maximum number of chunks which are scanned at the same time
+     */
+    XrefRebuildScanner(IRandomAccessSource source, int chunkSize, int parallelism) {
+        this.source = source;
+        this.length = source.length();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Scans the whole source.
+     *
+     * @throws IOException if the source cannot be read
+     */
+    void scan() throws IOException {
+        final int chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+        final ChunkResult[] results = new ChunkResult[chunkCount];
+        final AtomicInteger nextChunk = new AtomicInteger();
+        int workers = Math.min(parallelism, chunkCount);
+        IntStream stream = IntStream.range(0, workers);
+        if (workers > 1) {
+            stream = stream.parallel();
+        }
+        try {
+            stream.forEach(worker -> {
+                ChunkScanner scanner = new ChunkScanner();
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                    try {
+                        results[chunk] = scanner.scan((long) chunk * chunkSize);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        merge(results);
+    }
+
+    /**
+     * Gets the number of found object headers.
+     *
+     * @return the number of found object headers
+     */
+    int getObjectHeadersCount() {
+        return objCount;
+    }
+
+    int getObjectNumber(int index) {
+        return objNumbers[index];
+    }
+
+    int getGenerationNumber(int index) {
+        return genNumbers[index];
+    }
+
+    /**
+     * Gets the offset of the line segment which contains the object header, i.e. the offset
+     * which is assigned to the object during the sequential scan.
+     *
+     * @param index index of the object header in the order of the file
+     * @return offset of the object header
+     */
+    long getObjectOffset(int index) {
+        return objOffsets[index];
+    }
+
+    /**
+     * Gets the offsets of the line segments starting with the trailer keyword in the order of the file.
+     *
+     * @return offsets of the trailers
+     */
+    long[] getTrailerOffsets() {
+        return trailerOffsets;
+    }
+
+    private void merge(ChunkResult[] results) {
+        int trailerCount = 0;
+        for (ChunkResult result : results) {
+            objCount += result.objCount;
+            trailerCount += result.trailerCount;
+        }
+        objNumbers = new int[objCount];
+        genNumbers = new int[objCount];
+        objOffsets = new long[objCount];
+        trailerOffsets = new long[trailerCount];
+        int objIndex = 0;
+        int trailerIndex = 0;
+        for (ChunkResult result : results) {
+            System.arraycopy(result.objNumbers, 0, objNumbers, objIndex, result.objCount);
+            System.arraycopy(result.genNumbers, 0, genNumbers, objIndex, result.objCount);
+            System.arraycopy(result.objOffsets, 0, objOffsets, objIndex, result.objCount);
+            System.arraycopy(result.trailerOffsets, 0, trailerOffsets, trailerIndex, result.trailerCount);
+            objIndex += result.objCount;
+            trailerIndex += result.trailerCount;
+        }
+    }
+
+    private int read(long position, byte[] bytes, int len) throws IOException {
+        synchronized (source) {
+            return source.get(position, bytes, 0, len);
+        }
+    }
+
+    private int read(long position) throws IOException {
+        synchronized (source) {
+            return source.get(position);
+        }
+    }
+
+    private static boolean isEndOfLine(int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private final class ChunkScanner {
+        private final byte[] buffer = new byte[(int) Math.min(length, (long) chunkSize + LOOKAHEAD)];
+        private final ByteBuffer line = new ByteBuffer(LINE_SEGMENT_CAPACITY);
+        private final PdfTokenizer lineTokenizer = new PdfTokenizer(
+                new RandomAccessFileOrArray(new PdfReader.ReusableRandomAccessSource(line)));
+        private long bufferStart;
+        private int loaded;
+
+        ChunkResult scan(long chunkStart) throws IOException {
+            int chunkLength = (int) Math.min(chunkSize, length - chunkStart);
+            bufferStart = chunkStart;
+            loaded = Math.max(0, read(chunkStart, buffer, (int) Math.min(buffer.length, length - chunkStart)));
+            ChunkResult result = new ChunkResult();
+
+            // state at the beginning of the chunk is defined by the whitespaces preceding it
+            boolean inContent = false;
+            long segmentStart = 0;
+            if (chunkStart > 0) {
+                long eolPosition = -1;
+                long position = chunkStart - 1;
+                int c;
+                while (position >= 0 && PdfTokenizer.isWhitespace(c = read(position))) {
+                    if (isEndOfLine(c)) {
+                        eolPosition = position;
+                    }
+                    position--;
+                }
+                if (position >= 0) {
+                    if (eolPosition < 0) {
+                        inContent = true;
+                    } else {
+                        segmentStart = afterEndOfLine(eolPosition);
+                    }
+                }
+            }
+
+            for (int i = 0; i < chunkLength; i++) {
+                int c = buffer[i] & 0xff;
+                if (inContent) {
+                    if (isEndOfLine(c)) {
+                        inContent = false;
+                        segmentStart = afterEndOfLine(chunkStart + i);
+                    }
+                } else if (!PdfTokenizer.isWhitespace(c)) {
+                    inContent = true;
+                    if (c == 't' || c >= '0' && c <= '9') {
+                        checkLineSegment(result, chunkStart + i, segmentStart);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private int byteAt(long position) throws IOException {
+            long index = position - bufferStart;
+            if (index >= 0 && index < loaded) {
+                return buffer[(int) index] & 0xff;
+            }
+            return position < length ? read(position) : -1;
+        }
+
+        private long afterEndOfLine(long eolPosition) throws IOException {
+            if (byteAt(eolPosition) == '\r' && byteAt(eolPosition + 1) == '\n') {
+                return eolPosition + 2;
+            }
+            return eolPosition + 1;
+        }
+
+        // collects at most LINE_SEGMENT_CAPACITY bytes of the line, the rest is never part of the segment
+        private void checkLineSegment(ChunkResult result, long contentStart, long segmentStart) throws IOException {
+            line.reset();
+            boolean prevWasWhitespace = false;
+            for (long position = contentStart; line.size() < LINE_SEGMENT_CAPACITY; position++) {
+                int c = byteAt(position);
+                if (c == -1 || isEndOfLine(c)) {
+                    break;
+                }
+                if (c == 9 || c == 12 || c == 32) {
+                    if (prevWasWhitespace) {
+                        continue;
+                    }
+                    prevWasWhitespace = true;
+                } else {
+                    prevWasWhitespace = false;
+                }
+                line.append((byte) c);
+            }
+            if (line.get(0) == 't') {
+                if (PdfTokenizer.checkTrailer(line)) {
+                    result.addTrailer(segmentStart);
+                }
+            } else {
+                int[] obj = PdfTokenizer.checkObjectStart(lineTokenizer);
+                if (obj != null) {
+                    result.addObject(obj[0], obj[1], segmentStart);
+                }
+            }
+        }
+    }
+
+    private static final class ChunkResult {
+        int[] objNumbers = new int[16];
+        int[] genNumbers = new int[16];
+        long[] objOffsets = new long[16];
+        int objCount = 0;
+        long[] trailerOffsets = new long[1];
+        int trailerCount = 0;
+
+        void addObject(int num, int gen, long offset) {
+            if (objCount == objNumbers.length) {
+                int capacity = objCount << 1;
+                objNumbers = Arrays.copyOf(objNumbers, capacity);
+                genNumbers = Arrays.copyOf(genNumbers, capacity);
+                objOffsets = Arrays.copyOf(objOffsets, capacity);
+            }
+            objNumbers[objCount] = num;
+            genNumbers[objCount] = gen;
+            objOffsets[objCount] = offset;
+            objCount++;
+        }
+
+        void addTrailer(long offset) {
+            if (trailerCount == trailerOffsets.length) {
+                trailerOffsets = Arrays.copyOf(trailerOffsets, trailerCount << 1);
+            }
+            trailerOffsets[trailerCount++] = offset;
+        }
+    }
+}
@@ -54,6 +54,9 @@ import com.itextpdf.kernel.pdf.canvas.parser.clipper.DefaultClipper;
 import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper;
 import com.itextpdf.kernel.pdf.canvas.parser.clipper.PolyTree;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Internal class which is essentially a {@link CanvasGraphicsState} which supports tracking of
  * clipping path state and changes.
@@ -62,6 +65,13 @@ public class ParserGraphicsState extends CanvasGraphicsState {
     // NOTE: From the spec default value of this field should be the boundary of the entire imageable portion of the output page.
     private Path clippingPath;
 
+    /**
+     * The intersections which have been requested by {@link #clip(Path, int, IClipper)} but not yet
+     * applied to {@link #clippingPath}, in the order they were requested. They are applied lazily,
+     * when the clipping path is requested, since most of the listeners never look at it.
+     */
+    private List<PendingClip> pendingClips;
+
     /**
      * Internal empty and default constructor.
      */
@@ -72,13 +82,20 @@ public class ParserGraphicsState extends CanvasGraphicsState {
     /**
      * Copy constructor.
      *
+     * <p>
+     * The clipping path is shared with the source state rather than deep-copied: it is never
+     * modified in place, every change of the clipping path (see {@link #clip(Path, int)},
+     * {@link #setClippingPath(Path)} and {@link #updateCtm(Matrix)}) replaces it with a new instance.
+     * The intersections which are not applied yet are copied, so that they are applied independently
+     * in both states.
+     *
      * @param source the Graphics State to copy from
      */
     ParserGraphicsState(ParserGraphicsState source) {
         super(source);
-
-        if (source.clippingPath != null) {
-            clippingPath = new Path(source.clippingPath);
+        clippingPath = source.clippingPath;
+        if (source.pendingClips != null) {
+            pendingClips = new ArrayList<>(source.pendingClips);
         }
     }
 
@@ -102,6 +119,22 @@ public class ParserGraphicsState extends CanvasGraphicsState {
      *                    {@link FillingRule#NONZERO_WINDING}
      */
     public void clip(Path path, int fillingRule) {
+        clip(path, fillingRule, new DefaultClipper());
+    }
+
+    /**
+     * Intersects the current clipping path with the given path using the given {@link IClipper}.
+     *
+     * <strong>Note:</strong> Coordinates of the given path should be in
+     * the transformed user space.
+     *
+     * @param path        The path to be intersected with the current clipping path.
+     * @param fillingRule The filling rule which should be applied to the given path.
+     *                    It should be either {@link FillingRule#EVEN_ODD} or
+     *                    {@link FillingRule#NONZERO_WINDING}
+     * @param clipper     The empty {@link IClipper} instance which will perform the intersection.
+     */
+    public void clip(Path path, int fillingRule, IClipper clipper) {
         if (clippingPath == null || clippingPath.isEmpty()) {
             return;
         }
@@ -109,14 +142,11 @@ public class ParserGraphicsState extends CanvasGraphicsState {
         Path pathCopy = new Path(path);
         pathCopy.closeAllSubpaths();
 
-        IClipper clipper = new DefaultClipper();
-        ClipperBridge.addPath(clipper, clippingPath, IClipper.PolyType.SUBJECT);
-        ClipperBridge.addPath(clipper, pathCopy, IClipper.PolyType.CLIP);
-
-        PolyTree resultTree = new PolyTree();
-        clipper.execute(IClipper.ClipType.INTERSECTION, resultTree, IClipper.PolyFillType.NON_ZERO, ClipperBridge.getFillType(fillingRule));
-
-        clippingPath = ClipperBridge.convertToPath(resultTree);
+        // the intersection is postponed until the clipping path is requested
+        if (pendingClips == null) {
+            pendingClips = new ArrayList<>();
+        }
+        pendingClips.add(new PendingClip(pathCopy, fillingRule, clipper));
     }
 
     /**
@@ -124,10 +154,12 @@ public class ParserGraphicsState extends CanvasGraphicsState {
      *
      * <strong>Note:</strong> The returned clipping path is in the transformed user space, so
      * if you want to get it in default user space, apply transformation matrix ({@link CanvasGraphicsState#getCtm()}).
+     * The returned path may be shared with the saved graphics states and therefore should not be modified.
      *
      * @return The current clipping path.
      */
     public Path getClippingPath() {
+        applyPendingClips();
         return clippingPath;
     }
 
@@ -143,9 +175,52 @@ public class ParserGraphicsState extends CanvasGraphicsState {
         Path pathCopy = new Path(clippingPath);
         pathCopy.closeAllSubpaths();
         this.clippingPath = pathCopy;
+        this.pendingClips = null;
     }
 
     private void transformClippingPath(Matrix newCtm) {
         clippingPath = ShapeTransformUtil.transformPath(clippingPath, newCtm);
+        if (pendingClips != null) {
+            for (int i = 0; i < pendingClips.size(); i++) {
+                PendingClip pendingClip = pendingClips.get(i);
+                pendingClips.set(i, new PendingClip(ShapeTransformUtil.transformPath(pendingClip.path, newCtm),
+                        pendingClip.fillingRule, pendingClip.clipper));
+            }
+        }
+    }
+
+    private void applyPendingClips() {
+        if (pendingClips == null) {
+            return;
+        }
+        for (PendingClip pendingClip : pendingClips) {
+            if (clippingPath.isEmpty()) {
+                break;
+            }
+            IClipper clipper = pendingClip.clipper;
+            // the pending intersection may be shared with a copy of this state which has applied it already
+            clipper.clear();
+            ClipperBridge.addPath(clipper, clippingPath, IClipper.PolyType.SUBJECT);
+            ClipperBridge.addPath(clipper, pendingClip.path, IClipper.PolyType.CLIP);
+
+            PolyTree resultTree = new PolyTree();
+            clipper.execute(IClipper.ClipType.INTERSECTION, resultTree, IClipper.PolyFillType.NON_ZERO,
+                    ClipperBridge.getFillType(pendingClip.fillingRule));
+
+            clippingPath = ClipperBridge.convertToPath(resultTree);
+        }
+        pendingClips = null;
+    }
+
+    private static final class PendingClip {
+        private final Path path;
+        private final int fillingRule;
+        private final IClipper clipper;
+
+        PendingClip(Path path, int fillingRule, IClipper clipper) {
+            this.path = path;
+            this.fillingRule = fillingRule;
+            this.clipper = clipper;
+        }
     }
 }
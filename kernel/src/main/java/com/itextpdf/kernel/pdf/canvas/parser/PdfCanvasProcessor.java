@@ -70,6 +70,7 @@ import com.itextpdf.kernel.geom.NoninvertibleTransformException;
 import com.itextpdf.kernel.geom.Path;
 import com.itextpdf.kernel.pdf.PdfArray;
 import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfIndirectReference;
 import com.itextpdf.kernel.pdf.PdfLiteral;
 import com.itextpdf.kernel.pdf.PdfName;
@@ -82,6 +83,10 @@ import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.canvas.CanvasTag;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants.FillingRule;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.ConvexClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.DefaultClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipperFactory;
 import com.itextpdf.kernel.pdf.canvas.parser.data.AbstractRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.data.ClippingPathInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
@@ -90,6 +95,7 @@ import com.itextpdf.kernel.pdf.canvas.parser.data.PathRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
 import com.itextpdf.kernel.pdf.canvas.parser.util.PdfCanvasParser;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfContentStreamIterator;
 import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
 import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
 import com.itextpdf.kernel.pdf.colorspace.PdfPattern;
@@ -100,6 +106,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.util.*;
 
@@ -109,6 +116,19 @@ import java.util.*;
 public class PdfCanvasProcessor {
     public static final String DEFAULT_OPERATOR = "DefaultOperator";
 
+    /**
+     * Shared text matrix set by the (BT) operator. {@link Matrix} is immutable, so there is no need
+     * to create a new identity matrix for every text object.
+     */
+    private static final Matrix IDENTITY_MATRIX = new Matrix();
+
+    private static final IClipperFactory DEFAULT_CLIPPER_FACTORY = new IClipperFactory() {
+        @Override
+        public IClipper createClipper() {
+            return new DefaultClipper();
+        }
+    };
+
     /**
      * Listener that will be notified of render events
      */
@@ -169,6 +189,16 @@ public class PdfCanvasProcessor {
      */
     private Stack<CanvasTag> markedContentStack = new Stack<>();
 
+    /**
+     * The factory of clippers used for the clipping path computations.
+     */
+    private IClipperFactory clipperFactory = DEFAULT_CLIPPER_FACTORY;
+
+    /**
+     * Indicates whether the page content should be parsed while it is decoded.
+     */
+    private boolean incrementalContentParsing;
+
     /**
      * Creates a new PDF Content Stream Processor that will send its output to the
      * designated render listener.
@@ -238,6 +268,51 @@ public class PdfCanvasProcessor {
         return new ArrayList<String>(operators.keySet());
     }
 
+    /**
+     * Sets the factory of {@link IClipper} instances which will compute the clipping paths.
+     * By default {@link DefaultClipper} is used. {@link ConvexClipper} may be used instead
+     * to speed up processing of content with many nested rectangular clipping paths.
+     *
+     * @param clipperFactory the factory of {@link IClipper} instances
+     * @return this {@link PdfCanvasProcessor} instance
+     */
+    public PdfCanvasProcessor setClipperFactory(IClipperFactory clipperFactory) {
+        this.clipperFactory = clipperFactory;
+        return this;
+    }
+
+    /**
+     * Gets the factory of {@link IClipper} instances which compute the clipping paths.
+     *
+     * @return the factory of {@link IClipper} instances
+     */
+    public IClipperFactory getClipperFactory() {
+        return clipperFactory;
+    }
+
+    /**
+     * Sets whether {@link #processPageContent(PdfPage)} should decode and parse the page content incrementally,
+     * while it is read, instead of loading the whole decoded content into memory first.
+     * This considerably reduces the memory consumption for pages with huge content streams.
+     * Incremental parsing is disabled by default.
+     *
+     * @param incrementalContentParsing {@code true} to parse the page content incrementally
+     * @return this {@link PdfCanvasProcessor} instance
+     */
+    public PdfCanvasProcessor setIncrementalContentParsing(boolean incrementalContentParsing) {
+        this.incrementalContentParsing = incrementalContentParsing;
+        return this;
+    }
+
+    /**
+     * Checks whether the page content is parsed incrementally.
+     *
+     * @return {@code true} if the page content is parsed incrementally
+     */
+    public boolean isIncrementalContentParsing() {
+        return incrementalContentParsing;
+    }
+
     /**
      * Resets the graphics state stack, matrices and resources.
      */
@@ -253,11 +328,21 @@ public class PdfCanvasProcessor {
 
     /**
      * Gets the current {@link ParserGraphicsState}
+     * <p>
+     * The (q) operator saves the graphics state without copying it, the copy is made once the state
+     * is about to be changed. The state returned by this method is not shared with the saved graphics
+     * states and may be modified.
      *
      * @return the current {@link ParserGraphicsState}
      */
     public ParserGraphicsState getGraphicsState() {
-        return gsStack.peek();
+        int top = gsStack.size() - 1;
+        ParserGraphicsState gs = gsStack.get(top);
+        if (top > 0 && gsStack.get(top - 1) == gs) {
+            gs = new ParserGraphicsState(gs);
+            gsStack.set(top, gs);
+        }
+        return gs;
     }
 
     /**
@@ -288,18 +373,65 @@ public class PdfCanvasProcessor {
 
     }
 
+    /**
+     * Processes PDF syntax read from the stream. Unlike {@link #processContent(byte[], PdfResources)},
+     * the content is parsed while it is read, so that it is never fully kept in memory.
+     * <b>Note:</b> If you re-use a given {@link PdfCanvasProcessor}, you must call {@link PdfCanvasProcessor#reset()}
+     *
+     * @param contentStream the stream with the decoded content. It is not closed by this method.
+     * @param resources     the resources of the content stream. Must not be null.
+     */
+    public void processContent(InputStream contentStream, PdfResources resources) {
+        if (resources == null) {
+            throw new PdfException(KernelExceptionMessageConstant.RESOURCES_CANNOT_BE_NULL);
+        }
+        PdfContentStreamIterator iterator = new PdfContentStreamIterator(contentStream, resources);
+        this.resourcesStack.push(resources);
+        try {
+            while (iterator.next()) {
+                List<PdfObject> operands = iterator.getOperands();
+                PdfLiteral operator = (PdfLiteral) operands.get(operands.size() - 1);
+                invokeOperator(operator, operands);
+            }
+        } catch (IOException e) {
+            throw new PdfException(KernelExceptionMessageConstant.CANNOT_PARSE_CONTENT_STREAM, e);
+        }
+
+        this.resourcesStack.pop();
+    }
+
     /**
      * Processes PDF syntax.
      *
      * <strong>Note:</strong> If you re-use a given {@link PdfCanvasProcessor}, you must call {@link PdfCanvasProcessor#reset()}
+     * <p>
+     * The clipping path is tracked only if the listener supports any of the events which expose the graphics
+     * state, otherwise {@link ParserGraphicsState#getClippingPath()} stays {@code null}. The intersections
+     * with the clipping path are computed lazily, only when the clipping path is requested.
      *
      * @param page the page to process
      */
     public void processPageContent(PdfPage page) {
-        initClippingPath(page);
-        ParserGraphicsState gs = getGraphicsState();
-        eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
-        processContent(page.getContentBytes(), page.getResources());
+        if (isGraphicsStateExposed()) {
+            initClippingPath(page);
+        }
+        if (isEventSupported(EventType.CLIP_PATH_CHANGED)) {
+            ParserGraphicsState gs = gsStack.peek();
+            eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
+        }
+        if (incrementalContentParsing) {
+            InputStream contentStream = page.getContentInputStream();
+            try {
+                processContent(contentStream, page.getResources());
+            } finally {
+                try {
+                    contentStream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        } else {
+            processContent(page.getContentBytes(), page.getResources());
+        }
     }
 
     /**
@@ -385,8 +517,8 @@ public class PdfCanvasProcessor {
             registerContentOperator("TJ", new ShowTextArrayOperator());
         }
 
-        if (supportedEvents == null || supportedEvents.contains(EventType.CLIP_PATH_CHANGED)
-                || supportedEvents.contains(EventType.RENDER_PATH)) {
+        // the paths are needed to track the clipping path whenever the graphics state is exposed
+        if (isGraphicsStateExposed()) {
             registerContentOperator("w", new SetLineWidthOperator());
             registerContentOperator("J", new SetLineCapOperator());
             registerContentOperator("j", new SetLineJoinOperator());
@@ -426,14 +558,19 @@ public class PdfCanvasProcessor {
      *                  In case it isn't applicable pass any <CODE>byte</CODE> value.
      */
     protected void paintPath(int operation, int rule) {
-        ParserGraphicsState gs = getGraphicsState();
-        PathRenderInfo renderInfo = new PathRenderInfo(this.markedContentStack, gs, currentPath, operation, rule, isClip, clippingRule);
-        eventOccurred(renderInfo, EventType.RENDER_PATH);
+        if (isEventSupported(EventType.RENDER_PATH)) {
+            PathRenderInfo renderInfo = new PathRenderInfo(this.markedContentStack, gsStack.peek(), currentPath,
+                    operation, rule, isClip, clippingRule);
+            eventOccurred(renderInfo, EventType.RENDER_PATH);
+        }
 
         if (isClip) {
             isClip = false;
-            gs.clip(currentPath, clippingRule);
-            eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
+            ParserGraphicsState gs = getGraphicsState();
+            gs.clip(currentPath, clippingRule, clipperFactory.createClipper());
+            if (isEventSupported(EventType.CLIP_PATH_CHANGED)) {
+                eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
+            }
         }
 
         currentPath = new Path();
@@ -474,7 +611,8 @@ public class PdfCanvasProcessor {
 
     /**
      * Creates a {@link PdfFont} object by a font dictionary. The font may have been cached in case
-     * it is an indirect object.
+     * it is an indirect object. Fonts of indirect font dictionaries are cached on the document level,
+     * see {@link PdfDocument#getCachedFont(PdfDictionary)}, so they are shared between processors.
      *
      * @param fontDict the {@link PdfDictionary font dictionary} to create the font from
      * @return the created font
@@ -482,6 +620,8 @@ public class PdfCanvasProcessor {
     protected PdfFont getFont(PdfDictionary fontDict) {
         if (fontDict.getIndirectReference() == null) {
             return PdfFontFactory.createFont(fontDict);
+        } else if (fontDict.getIndirectReference().getDocument() != null) {
+            return fontDict.getIndirectReference().getDocument().getCachedFont(fontDict);
         } else {
             int n = fontDict.getIndirectReference().getObjNumber();
             WeakReference<PdfFont> fontRef = cachedFonts.get(n);
@@ -540,14 +680,36 @@ public class PdfCanvasProcessor {
         }
     }
 
+    /**
+     * Checks whether the listener is interested in the events of the given type, so that the data of
+     * the events which are going to be filtered out is not even created.
+     *
+     * @param type event type
+     * @return {@code true} if the events of the type are passed to the listener
+     */
+    private boolean isEventSupported(EventType type) {
+        return supportedEvents == null || supportedEvents.contains(type);
+    }
+
+    /**
+     * Checks whether the listener may see the graphics state, i.e. whether it is interested in any of the
+     * events whose data refer to the graphics state, so that the clipping path has to be tracked.
+     *
+     * @return {@code true} if the graphics state is passed to the listener
+     */
+    private boolean isGraphicsStateExposed() {
+        return isEventSupported(EventType.RENDER_TEXT) || isEventSupported(EventType.RENDER_PATH)
+                || isEventSupported(EventType.RENDER_IMAGE) || isEventSupported(EventType.CLIP_PATH_CHANGED);
+    }
+
     /**
      * Displays text.
      *
      * @param string the text to display
      */
     private void displayPdfString(PdfString string) {
-        TextRenderInfo renderInfo = new TextRenderInfo(string, getGraphicsState(), textMatrix, markedContentStack);
-        textMatrix = new Matrix(renderInfo.getUnscaledWidth(), 0).multiply(textMatrix);
+        TextRenderInfo renderInfo = new TextRenderInfo(string, gsStack.peek(), textMatrix, markedContentStack);
+        textMatrix = translateTextMatrix(renderInfo.getUnscaledWidth(), textMatrix);
         eventOccurred(renderInfo, EventType.RENDER_TEXT);
     }
 
@@ -570,7 +732,7 @@ public class PdfCanvasProcessor {
 
     private void displayImage(Stack<CanvasTag> canvasTagHierarchy, PdfStream imageStream, PdfName resourceName, boolean isInline) {
         PdfDictionary colorSpaceDic = getResources().getResource(PdfName.ColorSpace);
-        ImageRenderInfo renderInfo = new ImageRenderInfo(canvasTagHierarchy, getGraphicsState(), getGraphicsState().getCtm(),
+        ImageRenderInfo renderInfo = new ImageRenderInfo(canvasTagHierarchy, gsStack.peek(), gsStack.peek().getCtm(),
                 imageStream, resourceName, colorSpaceDic, isInline);
         eventOccurred(renderInfo, EventType.RENDER_IMAGE);
     }
@@ -581,9 +743,30 @@ public class PdfCanvasProcessor {
      * @param tj the text adjustment
      */
     private void applyTextAdjust(float tj) {
-        float adjustBy = -tj / 1000f * getGraphicsState().getFontSize() * (getGraphicsState().getHorizontalScaling() / 100f);
+        ParserGraphicsState gs = gsStack.peek();
+        float adjustBy = -tj / 1000f * gs.getFontSize() * (gs.getHorizontalScaling() / 100f);
+
+        textMatrix = translateTextMatrix(adjustBy, textMatrix);
+    }
 
-        textMatrix = new Matrix(adjustBy, 0).multiply(textMatrix);
+    /**
+     * Computes {@code new Matrix(tx, 0).multiply(textMatrix)} without allocating the intermediate
+     * translation matrix.
+     *
+     * @param tx         the horizontal translation
+     * @param textMatrix the text matrix to translate
+     *
+     * @return the translated text matrix
+     */
+    private static Matrix translateTextMatrix(float tx, Matrix textMatrix) {
+        // Only the non-zero terms of the product are kept. Each component is a sum of at most two terms,
+        // so the rounding is the same as in Matrix#multiply, the results may only differ in the sign of zero.
+        return new Matrix(
+                textMatrix.get(Matrix.I11), textMatrix.get(Matrix.I12), textMatrix.get(Matrix.I13),
+                textMatrix.get(Matrix.I21), textMatrix.get(Matrix.I22), textMatrix.get(Matrix.I23),
+                tx * textMatrix.get(Matrix.I11) + textMatrix.get(Matrix.I31),
+                tx * textMatrix.get(Matrix.I12) + textMatrix.get(Matrix.I32),
+                tx * textMatrix.get(Matrix.I13) + textMatrix.get(Matrix.I33));
     }
 
     private void initClippingPath(PdfPage page) {
@@ -727,7 +910,7 @@ public class PdfCanvasProcessor {
         public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
             List<PdfObject> tdoperands = new ArrayList<PdfObject>(2);
             tdoperands.add(0, new PdfNumber(0));
-            tdoperands.add(1, new PdfNumber(-processor.getGraphicsState().getLeading()));
+            tdoperands.add(1, new PdfNumber(-processor.gsStack.peek().getLeading()));
             moveStartNextLine.invoke(processor, null, tdoperands);
         }
     }
@@ -936,9 +1119,8 @@ public class PdfCanvasProcessor {
          * {@inheritDoc}
          */
         public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            ParserGraphicsState gs = processor.gsStack.peek();
-            ParserGraphicsState copy = new ParserGraphicsState(gs);
-            processor.gsStack.push(copy);
+            // the state is copied by getGraphicsState once it is changed
+            processor.gsStack.push(processor.gsStack.peek());
         }
     }
 
@@ -1073,8 +1255,11 @@ public class PdfCanvasProcessor {
          */
         public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
             processor.gsStack.pop();
-            ParserGraphicsState gs = processor.getGraphicsState();
-            processor.eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()), EventType.CLIP_PATH_CHANGED);
+            if (processor.isEventSupported(EventType.CLIP_PATH_CHANGED)) {
+                ParserGraphicsState gs = processor.gsStack.peek();
+                processor.eventOccurred(new ClippingPathInfo(gs, gs.getClippingPath(), gs.getCtm()),
+                        EventType.CLIP_PATH_CHANGED);
+            }
         }
     }
 
@@ -1222,7 +1407,7 @@ public class PdfCanvasProcessor {
          * {@inheritDoc}
          */
         public void invoke(PdfCanvasProcessor processor, PdfLiteral operator, List<PdfObject> operands) {
-            processor.textMatrix = new Matrix();
+            processor.textMatrix = IDENTITY_MATRIX;
             processor.textLineMatrix = processor.textMatrix;
             processor.beginText();
         }
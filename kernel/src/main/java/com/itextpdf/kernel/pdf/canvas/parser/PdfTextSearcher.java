@@ -0,0 +1,247 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.DefaultPdfTextLocation;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.MultiPatternLocationExtractionStrategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches all the pages of a document for the occurrences of any of the given terms, see
+ * {@link MultiPatternLocationExtractionStrategy}. The found locations carry the numbers of their pages,
+ * so they can be used e.g. as a basis for redaction.
+ *
+ * <p>
+ * {@link PdfDocument} is not thread-safe, so to search the pages in parallel every worker opens its own
+ * instance of the document, see {@link #search(IDocumentFactory)}.
+ */
+public class PdfTextSearcher {
+
+    private final MultiPatternLocationExtractionStrategy strategy;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a searcher for the given terms. Empty terms are ignored.
+     *
+     * @param terms the terms to search for
+     */
+    public PdfTextSearcher(Collection<String> terms) {
+        this(terms, false);
+    }
+
+    /**
+     * Creates a searcher for the given terms. Empty terms are ignored.
+     *
+     * @param terms      the terms to search for
+     * @param ignoreCase {@code true} if the case of the characters should be ignored
+     */
+    public PdfTextSearcher(Collection<String> terms, boolean ignoreCase) {
+        this.strategy = new MultiPatternLocationExtractionStrategy(terms, ignoreCase);
+    }
+
+    /**
+     * Sets the maximum number of pages which are searched at the same time, and therefore the maximum number
+     * of document instances which are open at the same time. By default, it is the number of available processors.
+     *
+     * @param parallelism the maximum number of pages searched at the same time
+     * @return this searcher
+     */
+    public PdfTextSearcher setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of pages which are searched at the same time.
+     *
+     * @return the maximum number of pages searched at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Searches all the pages of the document on the current thread.
+     *
+     * @param document the document to search
+     * @return the found locations, ordered by page number
+     */
+    public List<IPdfTextLocation> search(PdfDocument document) {
+        List<IPdfTextLocation> locations = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= document.getNumberOfPages(); pageNumber++) {
+            locations.addAll(searchPage(document, pageNumber));
+        }
+        return locations;
+    }
+
+    /**
+     * Searches all the pages of the document in the file in parallel.
+     *
+     * @param filename the file of the document
+     * @return the found locations, ordered by page number
+     * @throws IOException if the document can't be read
+     */
+    public List<IPdfTextLocation> search(String filename) throws IOException {
+        return search(() -> new PdfDocument(new PdfReader(filename)));
+    }
+
+    /**
+     * Searches all the pages of the document in parallel.
+     *
+     * @param pdf the bytes of the document
+     * @return the found locations, ordered by page number
+     * @throws IOException if the document can't be read
+     */
+    public List<IPdfTextLocation> search(byte[] pdf) throws IOException {
+        // the bytes are shared by the workers, not copied
+        return search(() -> new PdfDocument(new PdfReader(new RandomAccessSourceFactory().createSource(pdf),
+                new ReaderProperties())));
+    }
+
+    /**
+     * Searches all the pages of the document in parallel. Every worker opens its own document instance by
+     * the factory, one of them on the current thread, the others in the common fork-join pool.
+     * The pages are distributed between the workers dynamically.
+     *
+     * @param documentFactory the factory which opens a new instance of the document for reading each time it's called
+     * @return the found locations, ordered by page number
+     * @throws IOException if the document can't be read
+     */
+    public List<IPdfTextLocation> search(IDocumentFactory documentFactory) throws IOException {
+        try (PdfDocument document = documentFactory.createDocument()) {
+            int numberOfPages = document.getNumberOfPages();
+            int workers = Math.min(parallelism, numberOfPages);
+            if (workers <= 1) {
+                return search(document);
+            }
+
+            List<List<IPdfTextLocation>> pageLocations =
+                    new ArrayList<>(Collections.<List<IPdfTextLocation>>nCopies(numberOfPages, null));
+            AtomicInteger nextPage = new AtomicInteger(1);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            try {
+                for (int i = 1; i < workers; i++) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try (PdfDocument workerDocument = documentFactory.createDocument()) {
+                            searchPages(workerDocument, nextPage, pageLocations);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                }
+                searchPages(document, nextPage, pageLocations);
+                for (CompletableFuture<Void> future : futures) {
+                    future.join();
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            } finally {
+                // stops the other workers in case of failure
+                nextPage.set(numberOfPages + 1);
+                for (CompletableFuture<Void> future : futures) {
+                    future.cancel(false);
+                }
+            }
+
+            List<IPdfTextLocation> locations = new ArrayList<>();
+            for (List<IPdfTextLocation> locationsOnPage : pageLocations) {
+                locations.addAll(locationsOnPage);
+            }
+            return locations;
+        }
+    }
+
+    private void searchPages(PdfDocument document, AtomicInteger nextPage,
+            List<List<IPdfTextLocation>> pageLocations) {
+        int pageNumber;
+        while ((pageNumber = nextPage.getAndIncrement()) <= document.getNumberOfPages()) {
+            pageLocations.set(pageNumber - 1, searchPage(document, pageNumber));
+        }
+    }
+
+    private List<IPdfTextLocation> searchPage(PdfDocument document, int pageNumber) {
+        MultiPatternLocationExtractionStrategy pageStrategy = new MultiPatternLocationExtractionStrategy(strategy);
+        new PdfCanvasProcessor(pageStrategy).processPageContent(document.getPage(pageNumber));
+        List<IPdfTextLocation> locations = new ArrayList<>();
+        for (IPdfTextLocation location : pageStrategy.getResultantLocations()) {
+            locations.add(new DefaultPdfTextLocation(pageNumber, location.getRectangle(), location.getText()));
+        }
+        return locations;
+    }
+
+    /**
+     * Opens a new instance of the document to search.
+     */
+    @FunctionalInterface
+    public interface IDocumentFactory {
+        /**
+         * Opens a new instance of the document for reading.
+         *
+         * @return the opened document
+         * @throws IOException if the document can't be opened
+         */
+        PdfDocument createDocument() throws IOException;
+    }
+}
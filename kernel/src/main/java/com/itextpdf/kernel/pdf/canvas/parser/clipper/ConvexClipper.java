@@ -0,0 +1,507 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.clipper;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IClipper} implementation optimized for the most common clipping path computation:
+ * the intersection of a single closed convex subject polygon with a single closed convex clip polygon,
+ * e.g. nested rectangular clipping paths produced by {@code re W n} sequences.
+ *
+ * <p>
+ * Such intersections are computed directly on primitive {@code long} coordinate arrays, which is much cheaper
+ * than the general sweep line algorithm of {@link DefaultClipper}. Coordinates lying on the clip edges are kept
+ * exact, intersection points of slanted edges are rounded the same way {@link DefaultClipper} rounds them.
+ * Any other operation (other clip types, several or open paths, non-convex polygons, {@link PolyFillType#POSITIVE}
+ * and {@link PolyFillType#NEGATIVE} fill types, {@link #STRICTLY_SIMPLE} and {@link #PRESERVE_COLINEAR} options)
+ * is delegated to a {@link DefaultClipper} created with the same init options, so the clipper can be used
+ * as a drop-in replacement of {@link DefaultClipper}.
+ */
+public class ConvexClipper implements IClipper {
+
+    private static final long HI_RANGE = 0x3FFFFFFFFFFFFFFFL;
+
+    private static final long MULTIPLICATION_SAFE_RANGE = 0x7FFFFFFFL;
+
+    private static final double CROSS_PRODUCT_RELATIVE_ERROR = 1e-9;
+
+    private final int initOptions;
+
+    private final List<PathEntry> entries = new ArrayList<>();
+
+    /**
+     * Creates a new {@link ConvexClipper} instance with no init options.
+     */
+    public ConvexClipper() {
+        this(0);
+    }
+
+    /**
+     * Creates a new {@link ConvexClipper} instance.
+     *
+     * @param initOptions combination of {@link #REVERSE_SOLUTION}, {@link #STRICTLY_SIMPLE}
+     *                    and {@link #PRESERVE_COLINEAR} flags
+     */
+    public ConvexClipper(int initOptions) {
+        this.initOptions = initOptions;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Returns {@code false} if the path is degenerate, i.e. a closed path has less than three
+     * non-collinear distinct points or an open path has less than two distinct points.
+     */
+    @Override
+    public boolean addPath(Path pg, PolyType polyType, boolean closed) {
+        if (!closed && polyType == PolyType.CLIP) {
+            throw new IllegalStateException("AddPath: Open paths must be subject.");
+        }
+        long[] points = toPrimitivePoints(pg);
+        int count = removeDuplicates(points, points.length / 2, closed);
+        if (closed) {
+            count = removeCollinear(points, count);
+        }
+        boolean accepted = closed ? count >= 3 : count >= 2;
+        entries.add(new PathEntry(new Path(pg), polyType, closed, accepted ? trim(points, count) : null));
+        return accepted;
+    }
+
+    @Override
+    public boolean addPaths(Paths ppg, PolyType polyType, boolean closed) {
+        boolean result = false;
+        for (Path path : ppg) {
+            if (addPath(path, polyType, closed)) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public boolean execute(ClipType clipType, Paths solution) {
+        return execute(clipType, solution, PolyFillType.EVEN_ODD, PolyFillType.EVEN_ODD);
+    }
+
+    @Override
+    public boolean execute(ClipType clipType, Paths solution, PolyFillType subjFillType, PolyFillType clipFillType) {
+        long[] subject = getFastPathSubject(clipType, subjFillType, clipFillType);
+        if (subject == null) {
+            return createFallbackClipper().execute(clipType, solution, subjFillType, clipFillType);
+        }
+        solution.clear();
+        long[] result = intersect(subject, getSingleEntry(PolyType.CLIP).points);
+        if (result != null) {
+            solution.add(toPath(result));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean execute(ClipType clipType, PolyTree polytree) {
+        return execute(clipType, polytree, PolyFillType.EVEN_ODD, PolyFillType.EVEN_ODD);
+    }
+
+    @Override
+    public boolean execute(ClipType clipType, PolyTree polytree, PolyFillType subjFillType,
+            PolyFillType clipFillType) {
+        long[] subject = getFastPathSubject(clipType, subjFillType, clipFillType);
+        if (subject == null) {
+            return createFallbackClipper().execute(clipType, polytree, subjFillType, clipFillType);
+        }
+        polytree.Clear();
+        long[] result = intersect(subject, getSingleEntry(PolyType.CLIP).points);
+        if (result != null) {
+            PolyNode node = new PolyNode();
+            node.getPolygon().addAll(toPath(result));
+            polytree.getAllPolys().add(node);
+            polytree.addChild(node);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the intersection can be computed without the general algorithm.
+     *
+     * @return the points of the single convex subject polygon or {@code null} if the operation
+     * should be delegated to {@link DefaultClipper}
+     */
+    private long[] getFastPathSubject(ClipType clipType, PolyFillType subjFillType, PolyFillType clipFillType) {
+        if (clipType != ClipType.INTERSECTION || (initOptions & (STRICTLY_SIMPLE | PRESERVE_COLINEAR)) != 0
+                || !isSimpleFillType(subjFillType) || !isSimpleFillType(clipFillType)) {
+            return null;
+        }
+        PathEntry subject = getSingleEntry(PolyType.SUBJECT);
+        PathEntry clip = getSingleEntry(PolyType.CLIP);
+        if (subject == null || clip == null || !isConvex(subject.points) || !isConvex(clip.points)) {
+            return null;
+        }
+        return subject.points;
+    }
+
+    /**
+     * Gets the only accepted path of the given type, provided that it is closed
+     * and there are no accepted open paths at all.
+     */
+    private PathEntry getSingleEntry(PolyType polyType) {
+        PathEntry result = null;
+        for (PathEntry entry : entries) {
+            if (entry.points == null) {
+                continue;
+            }
+            if (!entry.closed) {
+                return null;
+            }
+            if (entry.polyType == polyType) {
+                if (result != null) {
+                    return null;
+                }
+                result = entry;
+            }
+        }
+        return result;
+    }
+
+    private DefaultClipper createFallbackClipper() {
+        DefaultClipper clipper = new DefaultClipper(initOptions);
+        for (PathEntry entry : entries) {
+            clipper.addPath(entry.path, entry.polyType, entry.closed);
+        }
+        return clipper;
+    }
+
+    /**
+     * Intersects two convex polygons using Sutherland-Hodgman algorithm.
+     *
+     * @return the points of the intersection or {@code null} if the intersection is empty or degenerate
+     */
+    private long[] intersect(long[] subject, long[] clip) {
+        int clipCount = clip.length / 2;
+        int orientation = orientation(clip);
+        long[] input = subject;
+        int inputCount = subject.length / 2;
+        // every clip edge adds at most one point to the convex polygon
+        long[] output = new long[subject.length + clip.length];
+        long[] buffer = new long[output.length];
+        for (int i = 0; i < clipCount && inputCount > 0; i++) {
+            int j = (i + 1) % clipCount;
+            long ax = clip[2 * i];
+            long ay = clip[2 * i + 1];
+            long bx = clip[2 * j];
+            long by = clip[2 * j + 1];
+
+            int outputCount = 0;
+            long px = input[2 * inputCount - 2];
+            long py = input[2 * inputCount - 1];
+            int pSide = orientation * side(ax, ay, bx, by, px, py);
+            for (int k = 0; k < inputCount; k++) {
+                long qx = input[2 * k];
+                long qy = input[2 * k + 1];
+                int qSide = orientation * side(ax, ay, bx, by, qx, qy);
+                if (qSide >= 0) {
+                    if (pSide < 0 && qSide > 0) {
+                        outputCount = addIntersection(output, outputCount, ax, ay, bx, by, px, py, qx, qy);
+                    }
+                    output[2 * outputCount] = qx;
+                    output[2 * outputCount + 1] = qy;
+                    outputCount++;
+                } else if (pSide > 0) {
+                    outputCount = addIntersection(output, outputCount, ax, ay, bx, by, px, py, qx, qy);
+                }
+                px = qx;
+                py = qy;
+                pSide = qSide;
+            }
+            input = output;
+            inputCount = outputCount;
+            output = buffer;
+            buffer = input;
+        }
+
+        int count = removeDuplicates(input, inputCount, true);
+        count = removeCollinear(input, count);
+        if (count < 3) {
+            return null;
+        }
+        long[] result = trim(input, count);
+        // outer polygons are oriented the same way DefaultClipper orients them
+        boolean positive = (initOptions & REVERSE_SOLUTION) == 0;
+        if (positive != (orientation(result) > 0)) {
+            reverse(result);
+        }
+        return result;
+    }
+
+    private static int addIntersection(long[] output, int count, long ax, long ay, long bx, long by,
+            long px, long py, long qx, long qy) {
+        double pCross = cross(ax, ay, bx, by, px, py);
+        double qCross = cross(ax, ay, bx, by, qx, qy);
+        double t = pCross / (pCross - qCross);
+        long x;
+        long y;
+        if (ax == bx) {
+            x = ax;
+        } else if (px == qx) {
+            x = px;
+        } else {
+            x = Math.round(px + t * (qx - px));
+        }
+        if (ay == by) {
+            y = ay;
+        } else if (py == qy) {
+            y = py;
+        } else {
+            y = Math.round(py + t * (qy - py));
+        }
+        output[2 * count] = x;
+        output[2 * count + 1] = y;
+        return count + 1;
+    }
+
+    private static boolean isSimpleFillType(PolyFillType fillType) {
+        return fillType == PolyFillType.EVEN_ODD || fillType == PolyFillType.NON_ZERO;
+    }
+
+    /**
+     * Checks that the polygon without duplicate and collinear points is convex and winds only once.
+     */
+    private static boolean isConvex(long[] points) {
+        int count = points.length / 2;
+        int orientation = 0;
+        for (int i = 0; i < count; i++) {
+            int prev = (i + count - 1) % count;
+            int next = (i + 1) % count;
+            int turn = crossSign(points[2 * i] - points[2 * prev], points[2 * i + 1] - points[2 * prev + 1],
+                    points[2 * next] - points[2 * i], points[2 * next + 1] - points[2 * i + 1]);
+            if (orientation == 0) {
+                orientation = turn;
+            } else if (turn != 0 && turn != orientation) {
+                return false;
+            }
+        }
+        // a polygon turning always in the same direction may still wind several times around its center
+        return orientation != 0 && countDirectionChanges(points, 0) <= 2 && countDirectionChanges(points, 1) <= 2;
+    }
+
+    private static int countDirectionChanges(long[] points, int coordinate) {
+        int count = points.length / 2;
+        int changes = 0;
+        int firstDirection = 0;
+        int previousDirection = 0;
+        for (int i = 0; i < count; i++) {
+            int next = (i + 1) % count;
+            int direction = Long.signum(points[2 * next + coordinate] - points[2 * i + coordinate]);
+            if (direction == 0) {
+                continue;
+            }
+            if (firstDirection == 0) {
+                firstDirection = direction;
+            } else if (direction != previousDirection) {
+                changes++;
+            }
+            previousDirection = direction;
+        }
+        if (previousDirection != firstDirection) {
+            changes++;
+        }
+        return changes;
+    }
+
+    private static int removeDuplicates(long[] points, int count, boolean closed) {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            long x = points[2 * i];
+            long y = points[2 * i + 1];
+            if (result > 0 && points[2 * result - 2] == x && points[2 * result - 1] == y) {
+                continue;
+            }
+            points[2 * result] = x;
+            points[2 * result + 1] = y;
+            result++;
+        }
+        if (closed) {
+            while (result > 1 && points[0] == points[2 * result - 2] && points[1] == points[2 * result - 1]) {
+                result--;
+            }
+        }
+        return result;
+    }
+
+    private static int removeCollinear(long[] points, int count) {
+        boolean removed = true;
+        while (removed && count >= 3) {
+            removed = false;
+            int result = 0;
+            for (int i = 0; i < count; i++) {
+                int prev = result > 0 ? result - 1 : count - 1;
+                int next = (i + 1) % count;
+                long x = points[2 * i];
+                long y = points[2 * i + 1];
+                if (crossSign(x - points[2 * prev], y - points[2 * prev + 1],
+                        points[2 * next] - x, points[2 * next + 1] - y) == 0) {
+                    removed = true;
+                    continue;
+                }
+                points[2 * result] = x;
+                points[2 * result + 1] = y;
+                result++;
+            }
+            count = removeDuplicates(points, result, true);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sign of the polygon area, which is positive for the counter-clockwise orientation.
+     */
+    private static int orientation(long[] points) {
+        double area = 0;
+        int count = points.length / 2;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            area += ((double) points[2 * j] + points[2 * i]) * ((double) points[2 * i + 1] - points[2 * j + 1]);
+        }
+        return area > 0 ? 1 : area < 0 ? -1 : 0;
+    }
+
+    private static void reverse(long[] points) {
+        for (int i = 0, j = points.length / 2 - 1; i < j; i++, j--) {
+            long x = points[2 * i];
+            long y = points[2 * i + 1];
+            points[2 * i] = points[2 * j];
+            points[2 * i + 1] = points[2 * j + 1];
+            points[2 * j] = x;
+            points[2 * j + 1] = y;
+        }
+    }
+
+    /**
+     * Gets the side of the line going through points a and b on which point p lies.
+     *
+     * @return 1 if p lies to the left, -1 if p lies to the right or 0 if all three points are collinear
+     */
+    private static int side(long ax, long ay, long bx, long by, long px, long py) {
+        return crossSign(bx - ax, by - ay, px - ax, py - ay);
+    }
+
+    private static double cross(long ax, long ay, long bx, long by, long px, long py) {
+        return (double) (bx - ax) * (py - ay) - (double) (by - ay) * (px - ax);
+    }
+
+    /**
+     * Gets the exact sign of {@code dx1 * dy2 - dy1 * dx2}.
+     */
+    private static int crossSign(long dx1, long dy1, long dx2, long dy2) {
+        if (Math.abs(dx1) <= MULTIPLICATION_SAFE_RANGE && Math.abs(dy1) <= MULTIPLICATION_SAFE_RANGE
+                && Math.abs(dx2) <= MULTIPLICATION_SAFE_RANGE && Math.abs(dy2) <= MULTIPLICATION_SAFE_RANGE) {
+            return Long.signum(dx1 * dy2 - dy1 * dx2);
+        }
+        double first = (double) dx1 * dy2;
+        double second = (double) dy1 * dx2;
+        double difference = first - second;
+        if (Math.abs(difference) > CROSS_PRODUCT_RELATIVE_ERROR * Math.max(Math.abs(first), Math.abs(second))) {
+            return difference > 0 ? 1 : -1;
+        }
+        return BigInteger.valueOf(dx1).multiply(BigInteger.valueOf(dy2))
+                .compareTo(BigInteger.valueOf(dy1).multiply(BigInteger.valueOf(dx2)));
+    }
+
+    private static long[] toPrimitivePoints(Path path) {
+        long[] points = new long[path.size() * 2];
+        for (int i = 0; i < path.size(); i++) {
+            Point.LongPoint point = path.get(i);
+            long x = point.getX();
+            long y = point.getY();
+            if (x > HI_RANGE || y > HI_RANGE || -x > HI_RANGE || -y > HI_RANGE) {
+                throw new ClipperException(ClipperExceptionConstant.COORDINATE_OUTSIDE_ALLOWED_RANGE);
+            }
+            points[2 * i] = x;
+            points[2 * i + 1] = y;
+        }
+        return points;
+    }
+
+    private static Path toPath(long[] points) {
+        Path path = new Path(points.length / 2);
+        for (int i = 0; i < points.length; i += 2) {
+            path.add(new Point.LongPoint(points[i], points[i + 1]));
+        }
+        return path;
+    }
+
+    private static long[] trim(long[] points, int count) {
+        if (points.length == 2 * count) {
+            return points;
+        }
+        long[] result = new long[2 * count];
+        System.arraycopy(points, 0, result, 0, result.length);
+        return result;
+    }
+
+    private static final class PathEntry {
+        final Path path;
+        final PolyType polyType;
+        final boolean closed;
+        /**
+         * Interleaved x and y coordinates without duplicate and collinear points,
+         * or {@code null} if the path is degenerate.
+         */
+        final long[] points;
+
+        PathEntry(Path path, PolyType polyType, boolean closed, long[] points) {
+            this.path = path;
+            this.polyType = polyType;
+            this.closed = closed;
+            this.points = points;
+        }
+    }
+}
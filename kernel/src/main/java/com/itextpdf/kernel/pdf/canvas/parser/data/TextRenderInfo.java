@@ -44,6 +44,7 @@
 package com.itextpdf.kernel.pdf.canvas.parser.data;
 
 import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.otf.Glyph;
 import com.itextpdf.io.font.otf.GlyphLine;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.font.PdfFont;
@@ -76,7 +77,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
 
     private final PdfString string;
     private String text = null;
-    private final Matrix textToUserSpaceTransformMatrix;
+    private Matrix textToUserSpaceTransformMatrix;
     private final Matrix textMatrix;
     private float unscaledWidth = Float.NaN;
 
@@ -96,9 +97,9 @@ public class TextRenderInfo extends AbstractRenderInfo {
     public TextRenderInfo(PdfString str, CanvasGraphicsState gs, Matrix textMatrix, Stack<CanvasTag> canvasTagHierarchy) {
         super(gs);
         this.string = str;
-        this.textToUserSpaceTransformMatrix = textMatrix.multiply(gs.getCtm());
         this.textMatrix = textMatrix;
-        this.canvasTagHierarchy = Collections.<CanvasTag>unmodifiableList(new ArrayList<>(canvasTagHierarchy));
+        this.canvasTagHierarchy = canvasTagHierarchy.isEmpty() ? Collections.<CanvasTag>emptyList()
+                : Collections.<CanvasTag>unmodifiableList(new ArrayList<>(canvasTagHierarchy));
     }
 
     /**
@@ -112,7 +113,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
         super(parent.gs);
         this.string = str;
         Matrix offsetMatrix = new Matrix(horizontalOffset, 0);
-        this.textToUserSpaceTransformMatrix = offsetMatrix.multiply(parent.textToUserSpaceTransformMatrix);
+        this.textToUserSpaceTransformMatrix = offsetMatrix.multiply(parent.getTextToUserSpaceTransformMatrix());
         this.textMatrix = offsetMatrix.multiply(parent.textMatrix);
         this.canvasTagHierarchy = parent.canvasTagHierarchy;
     }
@@ -212,7 +213,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
      */
     public LineSegment getBaseline() {
         checkGraphicsState();
-        return getUnscaledBaselineWithOffset(0 + gs.getTextRise()).transformBy(textToUserSpaceTransformMatrix);
+        return getUnscaledBaselineWithOffset(0 + gs.getTextRise()).transformBy(getTextToUserSpaceTransformMatrix());
     }
 
     public LineSegment getUnscaledBaseline() {
@@ -228,7 +229,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
      */
     public LineSegment getAscentLine() {
         checkGraphicsState();
-        return getUnscaledBaselineWithOffset(getAscentDescent()[0] + gs.getTextRise()).transformBy(textToUserSpaceTransformMatrix);
+        return getUnscaledBaselineWithOffset(getAscentDescent()[0] + gs.getTextRise()).transformBy(getTextToUserSpaceTransformMatrix());
     }
 
     /**
@@ -239,7 +240,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
      */
     public LineSegment getDescentLine() {
         checkGraphicsState();
-        return getUnscaledBaselineWithOffset(getAscentDescent()[1] + gs.getTextRise()).transformBy(textToUserSpaceTransformMatrix);
+        return getUnscaledBaselineWithOffset(getAscentDescent()[1] + gs.getTextRise()).transformBy(getTextToUserSpaceTransformMatrix());
     }
 
     /**
@@ -421,6 +422,20 @@ public class TextRenderInfo extends AbstractRenderInfo {
         return unscaledWidth;
     }
 
+    /**
+     * Gets the product of the text matrix and the current transformation matrix. The product is calculated
+     * on the first use, since many listeners never need the geometry of the text.
+     *
+     * @return the matrix which transforms text space to user space
+     */
+    private Matrix getTextToUserSpaceTransformMatrix() {
+        if (textToUserSpaceTransformMatrix == null) {
+            checkGraphicsState();
+            textToUserSpaceTransformMatrix = textMatrix.multiply(gs.getCtm());
+        }
+        return textToUserSpaceTransformMatrix;
+    }
+
     private LineSegment getUnscaledBaselineWithOffset(float yOffset) {
         checkGraphicsState();
         // we need to correct the width so we don't have an extra character and word spaces at the end.  The extra character and word spaces
@@ -439,7 +454,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
      */
     private float convertWidthFromTextSpaceToUserSpace(float width) {
         LineSegment textSpace = new LineSegment(new Vector(0, 0, 1), new Vector(width, 0, 1));
-        LineSegment userSpace = textSpace.transformBy(textToUserSpaceTransformMatrix);
+        LineSegment userSpace = textSpace.transformBy(getTextToUserSpaceTransformMatrix());
         return userSpace.getLength();
     }
 
@@ -449,7 +464,7 @@ public class TextRenderInfo extends AbstractRenderInfo {
      */
     private float convertHeightFromTextSpaceToUserSpace(float height) {
         LineSegment textSpace = new LineSegment(new Vector(0, 0, 1), new Vector(0, height, 1));
-        LineSegment userSpace = textSpace.transformBy(textToUserSpaceTransformMatrix);
+        LineSegment userSpace = textSpace.transformBy(getTextToUserSpaceTransformMatrix());
         return userSpace.getLength();
     }
 
@@ -482,14 +497,46 @@ public class TextRenderInfo extends AbstractRenderInfo {
             return (float)(((double)widthAndWordSpacing[0] * (double)gs.getFontSize() + (double)gs.getCharSpacing()
                     + (double)widthAndWordSpacing[1]) * (double)gs.getHorizontalScaling() / 100f);
         } else {
-            float totalWidth = 0;
-            for (PdfString str : splitString(string)) {
-                totalWidth += getPdfStringWidth(str, true);
+            float totalWidth = getPdfStringWidthByGlyphs(string);
+            if (Float.isNaN(totalWidth)) {
+                totalWidth = 0;
+                for (PdfString str : splitString(string)) {
+                    totalWidth += getPdfStringWidth(str, true);
+                }
             }
             return totalWidth;
         }
     }
 
+    /**
+     * Gets the width of a PDF string in text space units decoding the string only once, i.e. without
+     * converting every glyph back to a separate string and decoding it again.
+     * <p>
+     * Only composite fonts are measured this way: glyphs of a simple font cannot be matched with the bytes
+     * of the string if some bytes are not decoded, while measuring each byte separately would report the
+     * same missing glyph twice.
+     *
+     * @param string the string that needs measuring
+     * @return the width of a String in text space units or {@link Float#NaN} if the font is not a composite one
+     */
+    private float getPdfStringWidthByGlyphs(PdfString string) {
+        PdfFont font = gs.getFont();
+        if (!(font instanceof PdfType0Font)) {
+            return Float.NaN;
+        }
+        GlyphLine glyphLine = font.decodeIntoGlyphLine(string);
+        float totalWidth = 0;
+        for (int i = glyphLine.start; i < glyphLine.end; i++) {
+            Glyph glyph = glyphLine.get(i);
+            byte[] bytes = font.convertToBytes(glyph);
+            float width = (float) ((double) glyph.getWidth() / FontProgram.UNITS_NORMALIZATION);
+            float wordSpacing = bytes.length == 1 && bytes[0] == ' ' ? gs.getWordSpacing() : 0;
+            totalWidth += (float)(((double)width * (double)gs.getFontSize() + (double)gs.getCharSpacing()
+                    + (double)wordSpacing) * (double)gs.getHorizontalScaling() / 100f);
+        }
+        return totalWidth;
+    }
+
     /**
      * Calculates width and word spacing of a single character PDF string.
      * IMPORTANT: Shall ONLY be used for a single character pdf strings.
@@ -0,0 +1,236 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.LineSegment;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An event listener which collects the text of a page together with its positions, font sizes and fonts
+ * into a {@link ColumnarTextPage}. Unlike keeping {@link TextRenderInfo} instances, only a few primitive
+ * values are stored per text run, in growing arrays.
+ *
+ * <p>
+ * A new listener should be used for every page, or {@link #reset()} should be called in between.
+ */
+public class ColumnarTextExtractionListener implements IEventListener {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private boolean splitIntoGlyphs = false;
+
+    private int runCount;
+    private float[] startX;
+    private float[] startY;
+    private float[] endX;
+    private float[] endY;
+    private float[] ascent;
+    private float[] descent;
+    private float[] fontSize;
+    private int[] fontIds;
+    private int[] textOffsets;
+    private char[] text;
+    private int textLength;
+
+    private final Map<PdfFont, Integer> fontIdMap = new HashMap<>();
+    private final List<String> fontNames = new ArrayList<>();
+
+    /**
+     * Creates a new {@link ColumnarTextExtractionListener} instance.
+     */
+    public ColumnarTextExtractionListener() {
+        reset();
+    }
+
+    /**
+     * Sets whether every glyph should be stored as a separate run. By default, the text of a whole
+     * text rendering operation is stored as one run.
+     *
+     * @param splitIntoGlyphs {@code true} to store every glyph as a separate run
+     * @return this listener
+     */
+    public ColumnarTextExtractionListener setSplitIntoGlyphs(boolean splitIntoGlyphs) {
+        this.splitIntoGlyphs = splitIntoGlyphs;
+        return this;
+    }
+
+    /**
+     * Checks whether every glyph is stored as a separate run.
+     *
+     * @return {@code true} if every glyph is stored as a separate run
+     */
+    public boolean isSplitIntoGlyphs() {
+        return splitIntoGlyphs;
+    }
+
+    @Override
+    public void eventOccurred(IEventData data, EventType type) {
+        if (type == EventType.RENDER_TEXT) {
+            TextRenderInfo renderInfo = (TextRenderInfo) data;
+            if (splitIntoGlyphs) {
+                for (TextRenderInfo glyphInfo : renderInfo.getCharacterRenderInfos()) {
+                    addRun(glyphInfo);
+                }
+            } else {
+                addRun(renderInfo);
+            }
+        }
+    }
+
+    @Override
+    public Set<EventType> getSupportedEvents() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Collections.singletonList(EventType.RENDER_TEXT)));
+    }
+
+    /**
+     * Gets the text collected since the listener was created or reset.
+     *
+     * @return the collected text
+     */
+    public ColumnarTextPage getResult() {
+        return new ColumnarTextPage(fontNames.toArray(new String[0]),
+                Arrays.copyOf(startX, runCount), Arrays.copyOf(startY, runCount),
+                Arrays.copyOf(endX, runCount), Arrays.copyOf(endY, runCount),
+                Arrays.copyOf(ascent, runCount), Arrays.copyOf(descent, runCount),
+                Arrays.copyOf(fontSize, runCount), Arrays.copyOf(fontIds, runCount),
+                Arrays.copyOf(textOffsets, runCount + 1), Arrays.copyOf(text, textLength));
+    }
+
+    /**
+     * Discards all the collected text, so that the listener can be used for another page.
+     */
+    public void reset() {
+        runCount = 0;
+        startX = new float[INITIAL_CAPACITY];
+        startY = new float[INITIAL_CAPACITY];
+        endX = new float[INITIAL_CAPACITY];
+        endY = new float[INITIAL_CAPACITY];
+        ascent = new float[INITIAL_CAPACITY];
+        descent = new float[INITIAL_CAPACITY];
+        fontSize = new float[INITIAL_CAPACITY];
+        fontIds = new int[INITIAL_CAPACITY];
+        textOffsets = new int[INITIAL_CAPACITY + 1];
+        text = new char[INITIAL_CAPACITY * 4];
+        textLength = 0;
+        fontIdMap.clear();
+        fontNames.clear();
+    }
+
+    private void addRun(TextRenderInfo renderInfo) {
+        if (runCount == fontIds.length) {
+            int capacity = runCount * 2;
+            startX = Arrays.copyOf(startX, capacity);
+            startY = Arrays.copyOf(startY, capacity);
+            endX = Arrays.copyOf(endX, capacity);
+            endY = Arrays.copyOf(endY, capacity);
+            ascent = Arrays.copyOf(ascent, capacity);
+            descent = Arrays.copyOf(descent, capacity);
+            fontSize = Arrays.copyOf(fontSize, capacity);
+            fontIds = Arrays.copyOf(fontIds, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+        }
+
+        LineSegment baseline = renderInfo.getBaseline();
+        Vector start = baseline.getStartPoint();
+        Vector end = baseline.getEndPoint();
+        startX[runCount] = start.get(Vector.I1);
+        startY[runCount] = start.get(Vector.I2);
+        endX[runCount] = end.get(Vector.I1);
+        endY[runCount] = end.get(Vector.I2);
+        ascent[runCount] = getSignedDistance(baseline, renderInfo.getAscentLine().getStartPoint());
+        descent[runCount] = getSignedDistance(baseline, renderInfo.getDescentLine().getStartPoint());
+        fontSize[runCount] = renderInfo.getFontSize();
+        fontIds[runCount] = getFontId(renderInfo.getFont());
+
+        String runText = renderInfo.getText();
+        if (textLength + runText.length() > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + runText.length()));
+        }
+        runText.getChars(0, runText.length(), text, textLength);
+        textLength += runText.length();
+
+        runCount++;
+        textOffsets[runCount] = textLength;
+    }
+
+    private int getFontId(PdfFont font) {
+        Integer fontId = fontIdMap.get(font);
+        if (fontId == null) {
+            fontId = fontNames.size();
+            String fontName = font.getFontProgram().getFontNames().getFontName();
+            fontNames.add(fontName == null ? "" : fontName);
+            fontIdMap.put(font, fontId);
+        }
+        return (int) fontId;
+    }
+
+    /**
+     * Gets the distance from the line of the baseline to the point, positive for the points which
+     * lie to the left of the baseline direction.
+     */
+    private static float getSignedDistance(LineSegment baseline, Vector point) {
+        Vector start = baseline.getStartPoint();
+        Vector direction = baseline.getEndPoint().subtract(start);
+        Vector toPoint = point.subtract(start);
+        float length = direction.length();
+        if (length == 0) {
+            return toPoint.get(Vector.I2);
+        }
+        return (direction.get(Vector.I1) * toPoint.get(Vector.I2)
+                - direction.get(Vector.I2) * toPoint.get(Vector.I1)) / length;
+    }
+}
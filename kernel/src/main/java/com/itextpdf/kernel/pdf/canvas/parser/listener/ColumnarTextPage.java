@@ -0,0 +1,397 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Text of a page stored column by column, as collected by {@link ColumnarTextExtractionListener}.
+ *
+ * <p>
+ * Every text run (the text of a single text rendering operation or a single glyph) is described by
+ * the values at the same index in all the columns: the baseline, the ascent and descent, the font size,
+ * the font and the range of the run's characters in the shared character column. The runs are stored
+ * in the order they were rendered. All coordinates are in the user space of the page.
+ *
+ * <p>
+ * Instances are immutable and can be written to and read from a compact binary form,
+ * see {@link #writeTo(OutputStream)} and {@link #readFrom(InputStream)}.
+ */
+public final class ColumnarTextPage {
+
+    private static final int MAGIC = 0x49435450;
+    private static final int VERSION = 1;
+
+    // Counts read from a stream are not trusted: the arrays are grown while the values are read,
+    // so that a corrupted count fails on the end of the stream rather than on the allocation.
+    private static final int READ_CHUNK_SIZE = 4096;
+
+    private final String[] fontNames;
+    private final float[] startX;
+    private final float[] startY;
+    private final float[] endX;
+    private final float[] endY;
+    private final float[] ascent;
+    private final float[] descent;
+    private final float[] fontSize;
+    private final int[] fontIds;
+    private final int[] textOffsets;
+    private final char[] text;
+
+    ColumnarTextPage(String[] fontNames, float[] startX, float[] startY, float[] endX, float[] endY,
+            float[] ascent, float[] descent, float[] fontSize, int[] fontIds, int[] textOffsets, char[] text) {
+        this.fontNames = fontNames;
+        this.startX = startX;
+        this.startY = startY;
+        this.endX = endX;
+        this.endY = endY;
+        this.ascent = ascent;
+        this.descent = descent;
+        this.fontSize = fontSize;
+        this.fontIds = fontIds;
+        this.textOffsets = textOffsets;
+        this.text = text;
+    }
+
+    /**
+     * Gets the number of text runs on the page.
+     *
+     * @return the number of text runs
+     */
+    public int getRunCount() {
+        return fontIds.length;
+    }
+
+    /**
+     * Gets the x coordinate of the start of the run's baseline.
+     *
+     * @param run the index of the run
+     * @return the x coordinate of the start of the baseline
+     */
+    public float getStartX(int run) {
+        return startX[run];
+    }
+
+    /**
+     * Gets the y coordinate of the start of the run's baseline.
+     *
+     * @param run the index of the run
+     * @return the y coordinate of the start of the baseline
+     */
+    public float getStartY(int run) {
+        return startY[run];
+    }
+
+    /**
+     * Gets the x coordinate of the end of the run's baseline.
+     *
+     * @param run the index of the run
+     * @return the x coordinate of the end of the baseline
+     */
+    public float getEndX(int run) {
+        return endX[run];
+    }
+
+    /**
+     * Gets the y coordinate of the end of the run's baseline.
+     *
+     * @param run the index of the run
+     * @return the y coordinate of the end of the baseline
+     */
+    public float getEndY(int run) {
+        return endY[run];
+    }
+
+    /**
+     * Gets the distance from the run's baseline to its ascent line, positive if the ascent line lies
+     * to the left of the baseline direction, i.e. above the baseline of unrotated text.
+     *
+     * @param run the index of the run
+     * @return the signed distance to the ascent line
+     */
+    public float getAscent(int run) {
+        return ascent[run];
+    }
+
+    /**
+     * Gets the distance from the run's baseline to its descent line, negative if the descent line lies
+     * to the right of the baseline direction, i.e. below the baseline of unrotated text.
+     *
+     * @param run the index of the run
+     * @return the signed distance to the descent line
+     */
+    public float getDescent(int run) {
+        return descent[run];
+    }
+
+    /**
+     * Gets the font size of the run as set by the Tf operator.
+     *
+     * @param run the index of the run
+     * @return the font size
+     */
+    public float getFontSize(int run) {
+        return fontSize[run];
+    }
+
+    /**
+     * Gets the id of the run's font. The id is an index in the font table of the page,
+     * see {@link #getFontName(int)}.
+     *
+     * @param run the index of the run
+     * @return the font id
+     */
+    public int getFontId(int run) {
+        return fontIds[run];
+    }
+
+    /**
+     * Gets the offset of the first character of the run in the character column, see {@link #getCharacters()}.
+     *
+     * @param run the index of the run
+     * @return the offset of the run's characters
+     */
+    public int getTextOffset(int run) {
+        return textOffsets[run];
+    }
+
+    /**
+     * Gets the number of characters of the run.
+     *
+     * @param run the index of the run
+     * @return the number of characters
+     */
+    public int getTextLength(int run) {
+        return textOffsets[run + 1] - textOffsets[run];
+    }
+
+    /**
+     * Gets the text of the run.
+     *
+     * @param run the index of the run
+     * @return the text of the run
+     */
+    public String getText(int run) {
+        return new String(text, textOffsets[run], getTextLength(run));
+    }
+
+    /**
+     * Gets a copy of the character column, which holds the text of all the runs one after another.
+     *
+     * @return the characters of all the runs
+     */
+    public char[] getCharacters() {
+        char[] copy = new char[text.length];
+        System.arraycopy(text, 0, copy, 0, text.length);
+        return copy;
+    }
+
+    /**
+     * Gets the number of fonts in the font table of the page.
+     *
+     * @return the number of fonts
+     */
+    public int getFontCount() {
+        return fontNames.length;
+    }
+
+    /**
+     * Gets the name of the font with the given id.
+     *
+     * @param fontId the font id, see {@link #getFontId(int)}
+     * @return the font name, empty if the font has no name
+     */
+    public String getFontName(int fontId) {
+        return fontNames[fontId];
+    }
+
+    /**
+     * Writes the page to the output stream in a binary form. The stream is not closed.
+     *
+     * @param os the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(getRunCount());
+        out.writeInt(fontNames.length);
+        for (String fontName : fontNames) {
+            out.writeUTF(fontName);
+        }
+        writeFloats(out, startX);
+        writeFloats(out, startY);
+        writeFloats(out, endX);
+        writeFloats(out, endY);
+        writeFloats(out, ascent);
+        writeFloats(out, descent);
+        writeFloats(out, fontSize);
+        writeInts(out, fontIds);
+        writeInts(out, textOffsets);
+        for (char c : text) {
+            out.writeChar(c);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a page previously written by {@link #writeTo(OutputStream)}. The stream is not closed.
+     *
+     * @param is the stream to read from
+     * @return the read page
+     * @throws IOException if an I/O error occurs
+     */
+    public static ColumnarTextPage readFrom(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw new PdfException(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                    "unknown format"));
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new PdfException(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                    "unsupported version " + version));
+        }
+        int runCount = checkCount(in.readInt());
+        int fontCount = checkCount(in.readInt());
+        String[] fontNames = new String[Math.min(fontCount, READ_CHUNK_SIZE)];
+        for (int i = 0; i < fontCount; i++) {
+            if (i == fontNames.length) {
+                fontNames = Arrays.copyOf(fontNames, grow(fontNames.length, fontCount));
+            }
+            fontNames[i] = in.readUTF();
+        }
+        float[] startX = readFloats(in, runCount);
+        float[] startY = readFloats(in, runCount);
+        float[] endX = readFloats(in, runCount);
+        float[] endY = readFloats(in, runCount);
+        float[] ascent = readFloats(in, runCount);
+        float[] descent = readFloats(in, runCount);
+        float[] fontSize = readFloats(in, runCount);
+        int[] fontIds = readInts(in, runCount);
+        int[] textOffsets = readInts(in, runCount + 1);
+        char[] text = readChars(in, checkCount(textOffsets[runCount]));
+        for (int i = 0; i < runCount; i++) {
+            if (fontIds[i] < 0 || fontIds[i] >= fontNames.length
+                    || textOffsets[i] < 0 || textOffsets[i] > textOffsets[i + 1]) {
+                throw new PdfException(MessageFormatUtil.format(
+                        KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA, "inconsistent run " + i));
+            }
+        }
+        return new ColumnarTextPage(fontNames, startX, startY, endX, endY, ascent, descent, fontSize, fontIds,
+                textOffsets, text);
+    }
+
+    private static int checkCount(int count) {
+        if (count < 0) {
+            throw new PdfException(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                    "negative count"));
+        }
+        // one more text offset than runs is read
+        if (count == Integer.MAX_VALUE) {
+            throw new PdfException(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                    "count " + count + " is too large"));
+        }
+        return count;
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    static float[] readFloats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[Math.min(count, READ_CHUNK_SIZE)];
+        for (int i = 0; i < count; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, count));
+            }
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[Math.min(count, READ_CHUNK_SIZE)];
+        for (int i = 0; i < count; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, count));
+            }
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    static char[] readChars(DataInputStream in, int count) throws IOException {
+        char[] values = new char[Math.min(count, READ_CHUNK_SIZE)];
+        for (int i = 0; i < count; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, count));
+            }
+            values[i] = in.readChar();
+        }
+        return values;
+    }
+
+    private static int grow(int capacity, int count) {
+        return (int) Math.min(count, 2L * capacity);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.Point;
+import com.itextpdf.kernel.geom.Rectangle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positions of the glyphs of a page, as collected by {@link GlyphPositionIndexListener}, indexed by the
+ * characters of the page text.
+ *
+ * <p>
+ * The text of the page is built the same way {@link RegexBasedLocationExtractionStrategy} builds it, so the
+ * offsets of the text found in it can be mapped to the rectangles of the glyphs, see
+ * {@link #getRectangles(int, int)}, without parsing the page again. Every glyph is described by its quadrilateral
+ * bounded by the ascent and descent lines and by the number of the text line it belongs to. The spaces and line
+ * breaks inserted between the glyphs have no glyph. All coordinates are in the user space of the page.
+ *
+ * <p>
+ * Instances are immutable and can be written to and read from a compact binary form,
+ * see {@link #writeTo(OutputStream)} and {@link #readFrom(InputStream)}.
+ */
+public final class GlyphPositionIndex {
+
+    private static final int MAGIC = 0x49475049;
+    private static final int VERSION = 1;
+    static final int QUAD_SIZE = 8;
+
+    private final char[] text;
+    private final int[] charGlyphs;
+    private final float[] quads;
+    private final int[] glyphLines;
+
+    GlyphPositionIndex(char[] text, int[] charGlyphs, float[] quads, int[] glyphLines) {
+        this.text = text;
+        this.charGlyphs = charGlyphs;
+        this.quads = quads;
+        this.glyphLines = glyphLines;
+    }
+
+    /**
+     * Gets the text of the page.
+     *
+     * @return the text of the page
+     */
+    public String getText() {
+        return new String(text);
+    }
+
+    /**
+     * Gets the number of glyphs on the page.
+     *
+     * @return the number of glyphs
+     */
+    public int getGlyphCount() {
+        return glyphLines.length;
+    }
+
+    /**
+     * Gets the index of the glyph the character of the page text belongs to. Several characters may belong
+     * to the same glyph, e.g. to a ligature.
+     *
+     * @param charOffset the offset of the character in the page text
+     * @return the index of the glyph or -1 if the character was inserted between the glyphs
+     */
+    public int getGlyphIndex(int charOffset) {
+        return charGlyphs[charOffset];
+    }
+
+    /**
+     * Gets the quadrilateral of the glyph as 8 coordinates of its corners: the start and the end of the
+     * descent line followed by the end and the start of the ascent line.
+     *
+     * @param glyph the index of the glyph
+     * @return the coordinates of the corners
+     */
+    public float[] getQuad(int glyph) {
+        return Arrays.copyOfRange(quads, glyph * QUAD_SIZE, (glyph + 1) * QUAD_SIZE);
+    }
+
+    /**
+     * Gets the bounding box of the glyph.
+     *
+     * @param glyph the index of the glyph
+     * @return the bounding box of the glyph's quadrilateral
+     */
+    public Rectangle getBoundingBox(int glyph) {
+        List<Point> points = new ArrayList<>(QUAD_SIZE / 2);
+        for (int i = glyph * QUAD_SIZE; i < (glyph + 1) * QUAD_SIZE; i += 2) {
+            points.add(new Point(quads[i], quads[i + 1]));
+        }
+        return Rectangle.calculateBBox(points);
+    }
+
+    /**
+     * Gets the number of the text line the glyph belongs to. The lines are numbered from 0 in the order
+     * of the page text.
+     *
+     * @param glyph the index of the glyph
+     * @return the line number
+     */
+    public int getLine(int glyph) {
+        return glyphLines[glyph];
+    }
+
+    /**
+     * Gets the rectangles covering the glyphs of a range of the page text, one rectangle per text line, like
+     * {@link RegexBasedLocationExtractionStrategy} computes them for a match.
+     *
+     * @param start the offset of the first character of the range
+     * @param end   the offset following the last character of the range
+     * @return the rectangles covering the range, empty if there are no glyphs in it
+     */
+    public List<Rectangle> getRectangles(int start, int end) {
+        List<Rectangle> rectangles = new ArrayList<>();
+        int startOffset = Math.max(start, 0);
+        while (startOffset < Math.min(end, text.length) && charGlyphs[startOffset] == -1) {
+            startOffset++;
+        }
+        int endOffset = Math.min(end, text.length) - 1;
+        while (endOffset >= startOffset && charGlyphs[endOffset] == -1) {
+            endOffset--;
+        }
+        if (endOffset < startOffset) {
+            return rectangles;
+        }
+        int lastGlyph = charGlyphs[endOffset];
+        Rectangle lineRectangle = null;
+        for (int glyph = charGlyphs[startOffset]; glyph <= lastGlyph; glyph++) {
+            if (lineRectangle != null && glyphLines[glyph] != glyphLines[glyph - 1]) {
+                rectangles.add(lineRectangle);
+                lineRectangle = null;
+            }
+            lineRectangle = Rectangle.getCommonRectangle(lineRectangle, getBoundingBox(glyph));
+        }
+        rectangles.add(lineRectangle);
+        return rectangles;
+    }
+
+    /**
+     * Writes the index to the output stream in a binary form. The stream is not closed.
+     *
+     * @param os the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(text.length);
+        out.writeInt(glyphLines.length);
+        for (char c : text) {
+            out.writeChar(c);
+        }
+        for (int glyph : charGlyphs) {
+            out.writeInt(glyph);
+        }
+        for (float coordinate : quads) {
+            out.writeFloat(coordinate);
+        }
+        for (int line : glyphLines) {
+            out.writeInt(line);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads an index previously written by {@link #writeTo(OutputStream)}. The stream is not closed.
+     *
+     * @param is the stream to read from
+     * @return the read index
+     * @throws IOException if an I/O error occurs
+     */
+    public static GlyphPositionIndex readFrom(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw createInvalidDataException("unknown format");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw createInvalidDataException("unsupported version " + version);
+        }
+        int textLength = in.readInt();
+        int glyphCount = in.readInt();
+        if (textLength < 0 || glyphCount < 0) {
+            throw createInvalidDataException("negative count");
+        }
+        if (glyphCount > Integer.MAX_VALUE / QUAD_SIZE) {
+            throw createInvalidDataException("glyph count " + glyphCount + " is too large");
+        }
+        // the counts are not trusted, the arrays are grown while the values are read
+        char[] text = ColumnarTextPage.readChars(in, textLength);
+        int[] charGlyphs = ColumnarTextPage.readInts(in, textLength);
+        for (int i = 0; i < textLength; i++) {
+            if (charGlyphs[i] < -1 || charGlyphs[i] >= glyphCount) {
+                throw createInvalidDataException("inconsistent character " + i);
+            }
+        }
+        float[] quads = ColumnarTextPage.readFloats(in, glyphCount * QUAD_SIZE);
+        int[] glyphLines = ColumnarTextPage.readInts(in, glyphCount);
+        for (int i = 0; i < glyphCount; i++) {
+            if (glyphLines[i] < 0 || i > 0 && glyphLines[i] < glyphLines[i - 1]) {
+                throw createInvalidDataException("inconsistent glyph " + i);
+            }
+        }
+        return new GlyphPositionIndex(text, charGlyphs, quads, glyphLines);
+    }
+
+    private static PdfException createInvalidDataException(String reason) {
+        return new PdfException(MessageFormatUtil.format(
+                KernelExceptionMessageConstant.INVALID_GLYPH_POSITION_INDEX_DATA, reason));
+    }
+}
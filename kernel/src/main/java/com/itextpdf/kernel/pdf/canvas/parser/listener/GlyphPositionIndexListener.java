@@ -0,0 +1,153 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.geom.LineSegment;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An event listener which collects the positions of the glyphs of a page into a {@link GlyphPositionIndex}.
+ * The index can be stored, e.g. alongside the document, and used later to map the ranges of the page text
+ * to rectangles without parsing the page again.
+ *
+ * <p>
+ * A new listener should be used for every page, or {@link #reset()} should be called in between.
+ */
+public class GlyphPositionIndexListener implements IEventListener {
+
+    private final List<Glyph> glyphs = new ArrayList<>();
+
+    /**
+     * Creates a new {@link GlyphPositionIndexListener} instance.
+     */
+    public GlyphPositionIndexListener() {
+    }
+
+    @Override
+    public void eventOccurred(IEventData data, EventType type) {
+        if (type == EventType.RENDER_TEXT) {
+            for (TextRenderInfo glyphInfo : ((TextRenderInfo) data).getCharacterRenderInfos()) {
+                glyphs.add(new Glyph(glyphInfo));
+            }
+        }
+    }
+
+    @Override
+    public Set<EventType> getSupportedEvents() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Collections.singletonList(EventType.RENDER_TEXT)));
+    }
+
+    /**
+     * Gets the index of the glyphs collected since the listener was created or reset.
+     *
+     * @return the glyph position index
+     */
+    public GlyphPositionIndex getResult() {
+        // align glyphs in "logical" order
+        List<Glyph> sortedGlyphs = new ArrayList<>(glyphs);
+        final TextChunkLocationBasedComparator comparator =
+                new TextChunkLocationBasedComparator(new DefaultTextChunkLocationComparator());
+        Collections.sort(sortedGlyphs, new Comparator<Glyph>() {
+            @Override
+            public int compare(Glyph first, Glyph second) {
+                return comparator.compare(first.info, second.info);
+            }
+        });
+
+        List<CharacterRenderInfo> infos = new ArrayList<>(sortedGlyphs.size());
+        float[] quads = new float[sortedGlyphs.size() * GlyphPositionIndex.QUAD_SIZE];
+        int[] glyphLines = new int[sortedGlyphs.size()];
+        for (int i = 0; i < sortedGlyphs.size(); i++) {
+            Glyph glyph = sortedGlyphs.get(i);
+            infos.add(glyph.info);
+            System.arraycopy(glyph.quad, 0, quads, i * GlyphPositionIndex.QUAD_SIZE, GlyphPositionIndex.QUAD_SIZE);
+            if (i > 0) {
+                glyphLines[i] = glyphLines[i - 1] + (glyph.info.sameLine(infos.get(i - 1)) ? 0 : 1);
+            }
+        }
+
+        CharacterRenderInfo.StringConversionInfo txt = CharacterRenderInfo.mapString(infos);
+        char[] text = txt.text.toCharArray();
+        int[] charGlyphs = new int[text.length];
+        for (int i = 0; i < text.length; i++) {
+            Integer glyph = txt.indexMap.get(i);
+            charGlyphs[i] = glyph == null ? -1 : (int) glyph;
+        }
+        return new GlyphPositionIndex(text, charGlyphs, quads, glyphLines);
+    }
+
+    /**
+     * Discards all the collected glyphs, so that the listener can be used for another page.
+     */
+    public void reset() {
+        glyphs.clear();
+    }
+
+    private static final class Glyph {
+        final CharacterRenderInfo info;
+        final float[] quad;
+
+        Glyph(TextRenderInfo glyphInfo) {
+            this.info = new CharacterRenderInfo(glyphInfo);
+            LineSegment descentLine = glyphInfo.getDescentLine();
+            LineSegment ascentLine = glyphInfo.getAscentLine();
+            this.quad = new float[] {
+                    descentLine.getStartPoint().get(Vector.I1), descentLine.getStartPoint().get(Vector.I2),
+                    descentLine.getEndPoint().get(Vector.I1), descentLine.getEndPoint().get(Vector.I2),
+                    ascentLine.getEndPoint().get(Vector.I1), ascentLine.getEndPoint().get(Vector.I2),
+                    ascentLine.getStartPoint().get(Vector.I1), ascentLine.getStartPoint().get(Vector.I2)
+            };
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.geom.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link LocationTextExtractionStrategy} which is intended for pages with a large amount of text chunks,
+ * e.g. maps or spreadsheets. The resultant text is exactly the same as the one produced by
+ * {@link LocationTextExtractionStrategy}.
+ *
+ * <p>
+ * Zero length chunks (e.g. diacritical marks) are attached to the chunk containing them before the text is
+ * assembled into lines. {@link LocationTextExtractionStrategy} checks every other chunk of the page
+ * for every such mark, which is quadratic. This strategy puts the chunks into a spatial index instead:
+ * chunks are bucketed by their distance perpendicular to the baseline and then by a grid along the x axis,
+ * so only the chunks near the mark are checked.
+ */
+public class IndexedLocationTextExtractionStrategy extends LocationTextExtractionStrategy {
+
+    /**
+     * The width of a cell of the grid along the x axis, in the text space units of the page.
+     */
+    private static final float CELL_WIDTH = 10f;
+
+    /**
+     * Chunks spanning more cells are not put into the grid but are checked for every mark on their line.
+     */
+    private static final long MAX_CELLS_PER_CHUNK = 64;
+
+    private static final int MAX_DEVIATION = (int) TextChunkLocationDefaultImp.DIACRITICAL_MARKS_ALLOWED_VERTICAL_DEVIATION;
+
+    /**
+     * Creates a new text extraction renderer.
+     */
+    public IndexedLocationTextExtractionStrategy() {
+        super();
+    }
+
+    /**
+     * Creates a new text extraction renderer, with a custom strategy for
+     * creating new TextChunkLocation objects based on the input of the
+     * TextRenderInfo.
+     *
+     * @param strat the custom strategy
+     */
+    public IndexedLocationTextExtractionStrategy(ITextChunkLocationStrategy strat) {
+        super(strat);
+    }
+
+    @Override
+    int[] findMarkBases(List<TextChunk> textChunks) {
+        int[] markBases = new int[textChunks.size()];
+        Arrays.fill(markBases, -1);
+
+        Map<Integer, LineIndex> lines = null;
+        for (int markInd = 0; markInd < textChunks.size(); markInd++) {
+            ITextChunkLocation location = textChunks.get(markInd).getLocation();
+            if (!isMark(location)) {
+                continue;
+            }
+            if (lines == null) {
+                lines = buildIndex(textChunks);
+            }
+            int distPerpendicular = location.distPerpendicular();
+            int baseInd = -1;
+            for (int diff = -MAX_DEVIATION; diff <= MAX_DEVIATION; diff++) {
+                baseInd = findBase(lines.get(distPerpendicular + diff), textChunks, location, baseInd);
+            }
+            // The difference of distances is compared by absolute value after an int subtraction,
+            // and Math.abs(Integer.MIN_VALUE) is negative, so such a difference is also allowed
+            baseInd = findBase(lines.get(distPerpendicular + Integer.MIN_VALUE), textChunks, location, baseInd);
+            markBases[markInd] = baseInd;
+        }
+        return markBases;
+    }
+
+    private static Map<Integer, LineIndex> buildIndex(List<TextChunk> textChunks) {
+        Map<Integer, LineIndex> lines = new HashMap<>();
+        for (int baseInd = 0; baseInd < textChunks.size(); baseInd++) {
+            ITextChunkLocation location = textChunks.get(baseInd).getLocation();
+            float startX = location.getStartLocation().get(Vector.I1);
+            float endX = location.getEndLocation().get(Vector.I1);
+            // Such chunks can't contain any mark, NaN coordinates never pass the comparisons either
+            if (isMark(location) || !(startX <= endX)) {
+                continue;
+            }
+            LineIndex line = lines.get(location.distPerpendicular());
+            if (line == null) {
+                line = new LineIndex();
+                lines.put(location.distPerpendicular(), line);
+            }
+            line.add(baseInd, getCell(startX), getCell(endX));
+        }
+        return lines;
+    }
+
+    private static int findBase(LineIndex line, List<TextChunk> textChunks, ITextChunkLocation markLocation,
+            int currentBase) {
+        if (line == null) {
+            return currentBase;
+        }
+        int baseInd = findFirstContaining(line.wideChunks, textChunks, markLocation, currentBase);
+        List<Integer> cellChunks = line.cells.get(getCell(markLocation.getStartLocation().get(Vector.I1)));
+        if (cellChunks != null) {
+            baseInd = findFirstContaining(cellChunks, textChunks, markLocation, baseInd);
+        }
+        return baseInd;
+    }
+
+    private static int findFirstContaining(List<Integer> candidates, List<TextChunk> textChunks,
+            ITextChunkLocation markLocation, int currentBase) {
+        // Candidates are stored in the rendering order, so the first containing chunk is the one to attach to
+        for (int candidate : candidates) {
+            if (currentBase >= 0 && candidate >= currentBase) {
+                break;
+            }
+            if (TextChunkLocationDefaultImp.containsMark(textChunks.get(candidate).getLocation(), markLocation)) {
+                return candidate;
+            }
+        }
+        return currentBase;
+    }
+
+    private static long getCell(float x) {
+        return (long) Math.floor(x / CELL_WIDTH);
+    }
+
+    private static class LineIndex {
+        final Map<Long, List<Integer>> cells = new HashMap<>();
+        final List<Integer> wideChunks = new ArrayList<>();
+
+        void add(int chunkInd, long startCell, long endCell) {
+            long cellsCount = endCell - startCell;
+            // A negative value means that the subtraction has overflowed because of infinite coordinates
+            if (cellsCount < 0 || cellsCount >= MAX_CELLS_PER_CHUNK) {
+                wideChunks.add(chunkInd);
+                return;
+            }
+            for (long cell = startCell; cell <= endCell; cell++) {
+                List<Integer> cellChunks = cells.get(cell);
+                if (cellChunks == null) {
+                    cellChunks = new ArrayList<>();
+                    cells.put(cell, cellChunks);
+                }
+                cellChunks.add(chunkInd);
+            }
+        }
+    }
+}
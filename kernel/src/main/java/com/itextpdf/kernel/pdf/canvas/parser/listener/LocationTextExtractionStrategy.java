@@ -266,38 +266,56 @@ public class LocationTextExtractionStrategy implements ITextExtractionStrategy {
         return lastActualText;
     }
 
-    private void sortWithMarks(List<TextChunk> textChunks) {
-        Map<TextChunk, TextChunkMarks> marks = new HashMap<>();
-        List<TextChunk> toSort = new ArrayList<>();
-
+    /**
+     * For every text chunk finds the chunk it should be attached to as a mark. A mark is a chunk of zero length
+     * (e.g. a diacritical mark) which is attached to the first non-zero length chunk containing it.
+     *
+     * @param textChunks the text chunks in the order they were rendered
+     * @return an array holding for every chunk the index of the chunk it is attached to, or -1 if the chunk
+     * is not a mark or there is no chunk to attach it to
+     */
+    int[] findMarkBases(List<TextChunk> textChunks) {
+        int[] markBases = new int[textChunks.size()];
         for (int markInd = 0; markInd < textChunks.size(); markInd++) {
+            markBases[markInd] = -1;
             ITextChunkLocation location = textChunks.get(markInd).getLocation();
-            if (location.getStartLocation().equals(location.getEndLocation())) {
-                boolean foundBaseToAttachTo = false;
+            if (isMark(location)) {
                 for (int baseInd = 0; baseInd < textChunks.size(); baseInd++) {
                     if (markInd != baseInd) {
                         ITextChunkLocation baseLocation = textChunks.get(baseInd).getLocation();
-                        if (!baseLocation.getStartLocation().equals(baseLocation.getEndLocation()) && TextChunkLocationDefaultImp.containsMark(baseLocation, location)) {
-                            TextChunkMarks currentMarks = marks.get(textChunks.get(baseInd));
-                            if (currentMarks == null) {
-                                currentMarks = new TextChunkMarks();
-                                marks.put(textChunks.get(baseInd), currentMarks);
-                            }
-
-                            if (markInd < baseInd) {
-                                currentMarks.preceding.add(textChunks.get(markInd));
-                            } else {
-                                currentMarks.succeeding.add(textChunks.get(markInd));
-                            }
-
-                            foundBaseToAttachTo = true;
+                        if (!isMark(baseLocation) && TextChunkLocationDefaultImp.containsMark(baseLocation, location)) {
+                            markBases[markInd] = baseInd;
                             break;
                         }
                     }
                 }
+            }
+        }
+        return markBases;
+    }
+
+    static boolean isMark(ITextChunkLocation location) {
+        return location.getStartLocation().equals(location.getEndLocation());
+    }
+
+    private void sortWithMarks(List<TextChunk> textChunks) {
+        Map<TextChunk, TextChunkMarks> marks = new HashMap<>();
+        List<TextChunk> toSort = new ArrayList<>();
+
+        int[] markBases = findMarkBases(textChunks);
+        for (int markInd = 0; markInd < textChunks.size(); markInd++) {
+            int baseInd = markBases[markInd];
+            if (baseInd >= 0) {
+                TextChunkMarks currentMarks = marks.get(textChunks.get(baseInd));
+                if (currentMarks == null) {
+                    currentMarks = new TextChunkMarks();
+                    marks.put(textChunks.get(baseInd), currentMarks);
+                }
 
-                if (!foundBaseToAttachTo) {
-                    toSort.add(textChunks.get(markInd));
+                if (markInd < baseInd) {
+                    currentMarks.preceding.add(textChunks.get(markInd));
+                } else {
+                    currentMarks.succeeding.add(textChunks.get(markInd));
                 }
             } else {
                 toSort.add(textChunks.get(markInd));
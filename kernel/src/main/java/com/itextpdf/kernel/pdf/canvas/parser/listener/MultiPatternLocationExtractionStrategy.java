@@ -0,0 +1,108 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class is designed to search for the occurrences of any of the given terms and return the resultant
+ * rectangles, in the same way as {@link RegexBasedLocationExtractionStrategy} does for a regular expression.
+ *
+ * <p>
+ * All the terms are compiled into a single Aho-Corasick automaton, so the text of a page is scanned once
+ * regardless of the number of terms. Overlapping occurrences are reported as well.
+ * The compiled automaton can be shared by the strategies of different pages,
+ * see {@link #MultiPatternLocationExtractionStrategy(MultiPatternLocationExtractionStrategy)}.
+ */
+public class MultiPatternLocationExtractionStrategy extends RegexBasedLocationExtractionStrategy {
+
+    private final MultiPatternMatcher matcher;
+
+    /**
+     * Creates a strategy which searches for the given terms. Empty terms are ignored.
+     *
+     * @param terms the terms to search for
+     */
+    public MultiPatternLocationExtractionStrategy(Collection<String> terms) {
+        this(terms, false);
+    }
+
+    /**
+     * Creates a strategy which searches for the given terms. Empty terms are ignored.
+     *
+     * @param terms      the terms to search for
+     * @param ignoreCase {@code true} if the case of the characters should be ignored
+     */
+    public MultiPatternLocationExtractionStrategy(Collection<String> terms, boolean ignoreCase) {
+        super();
+        this.matcher = new MultiPatternMatcher(terms, ignoreCase);
+    }
+
+    /**
+     * Creates a new strategy, e.g. for another page, which searches for the same terms as the given one.
+     * The compiled terms are shared, so this is much cheaper than compiling them again.
+     *
+     * @param other the strategy to take the terms from
+     */
+    public MultiPatternLocationExtractionStrategy(MultiPatternLocationExtractionStrategy other) {
+        super();
+        this.matcher = other.matcher;
+    }
+
+    @Override
+    public Set<EventType> getSupportedEvents() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Collections.singletonList(EventType.RENDER_TEXT)));
+    }
+
+    @Override
+    List<TextMatch> findMatches(String text) {
+        return matcher.findMatches(text);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.pdf.canvas.parser.listener.RegexBasedLocationExtractionStrategy.TextMatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton which finds all the occurrences of a set of terms in a text in a single pass.
+ * Instances are immutable and can be shared between threads.
+ */
+final class MultiPatternMatcher {
+
+    private final boolean ignoreCase;
+
+    /**
+     * Sorted characters of the outgoing edges of every node.
+     */
+    private final char[][] edgeChars;
+    /**
+     * Target nodes of the outgoing edges of every node, in the order of {@link #edgeChars}.
+     */
+    private final int[][] edgeTargets;
+    /**
+     * The node of the longest proper suffix of the node's string which is a prefix of some term.
+     */
+    private final int[] fail;
+    /**
+     * The nearest node in the chain of failure links which ends a term, 0 if there is none.
+     */
+    private final int[] dictLink;
+    /**
+     * The length of the term ending at the node, 0 if no term ends there.
+     */
+    private final int[] termLength;
+
+    /**
+     * Builds the automaton. Empty terms are ignored.
+     *
+     * @param terms      the terms to search for
+     * @param ignoreCase whether the case of the characters should be ignored
+     */
+    MultiPatternMatcher(Collection<String> terms, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+
+        List<Map<Character, Integer>> edges = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        edges.add(new TreeMap<Character, Integer>());
+        lengths.add(0);
+        for (String term : terms) {
+            int node = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = normalize(term.charAt(i));
+                Integer next = edges.get(node).get(c);
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new TreeMap<Character, Integer>());
+                    lengths.add(0);
+                    edges.get(node).put(c, next);
+                }
+                node = (int) next;
+            }
+            if (node != 0) {
+                lengths.set(node, term.length());
+            }
+        }
+
+        int size = edges.size();
+        edgeChars = new char[size][];
+        edgeTargets = new int[size][];
+        termLength = new int[size];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> nodeEdges = edges.get(node);
+            edgeChars[node] = new char[nodeEdges.size()];
+            edgeTargets[node] = new int[nodeEdges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : nodeEdges.entrySet()) {
+                edgeChars[node][i] = (char) edge.getKey();
+                edgeTargets[node][i] = (int) edge.getValue();
+                i++;
+            }
+            termLength[node] = (int) lengths.get(node);
+        }
+
+        fail = new int[size];
+        dictLink = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = (int) queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int state = fail[node];
+                while (state != 0 && next(state, c) < 0) {
+                    state = fail[state];
+                }
+                int failTarget = next(state, c);
+                fail[child] = failTarget < 0 || failTarget == child ? 0 : failTarget;
+                dictLink[child] = termLength[fail[child]] > 0 ? fail[child] : dictLink[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Finds all the occurrences of the terms in the text, including the overlapping ones.
+     * The occurrences are reported in the order of their ends.
+     *
+     * @param text the text to search in
+     * @return the found occurrences
+     */
+    List<TextMatch> findMatches(String text) {
+        List<TextMatch> matches = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            while (state != 0 && next(state, c) < 0) {
+                state = fail[state];
+            }
+            state = Math.max(0, next(state, c));
+            int terminal = termLength[state] > 0 ? state : dictLink[state];
+            while (terminal != 0) {
+                int start = i + 1 - termLength[terminal];
+                matches.add(new TextMatch(start, i + 1, text.substring(start, i + 1)));
+                terminal = dictLink[terminal];
+            }
+        }
+        return matches;
+    }
+
+    private int next(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index < 0 ? -1 : edgeTargets[node][index];
+    }
+
+    private char normalize(char c) {
+        return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+    }
+}
@@ -74,6 +74,13 @@ public class RegexBasedLocationExtractionStrategy implements ILocationExtraction
         this.pattern = pattern;
     }
 
+    /**
+     * Creates a strategy which finds the occurrences by means of overridden {@link #findMatches(String)}
+     * instead of a regular expression.
+     */
+    RegexBasedLocationExtractionStrategy() {
+    }
+
     @Override
     public Collection<IPdfTextLocation> getResultantLocations() {
         // align characters in "logical" order
@@ -84,13 +91,12 @@ public class RegexBasedLocationExtractionStrategy implements ILocationExtraction
 
         CharacterRenderInfo.StringConversionInfo txt = CharacterRenderInfo.mapString(parseResult);
 
-        Matcher mat = pattern.matcher(txt.text);
-        while (mat.find()) {
-            Integer startIndex = getStartIndex(txt.indexMap, mat.start(), txt.text);
-            Integer endIndex = getEndIndex(txt.indexMap, mat.end() - 1);
+        for (TextMatch match : findMatches(txt.text)) {
+            Integer startIndex = getStartIndex(txt.indexMap, match.start, txt.text);
+            Integer endIndex = getEndIndex(txt.indexMap, match.end - 1);
             if (startIndex != null && endIndex != null && startIndex <= endIndex) {
                 for (Rectangle r : toRectangles(parseResult.subList(startIndex.intValue(), endIndex.intValue() + 1))) {
-                    retval.add(new DefaultPdfTextLocation(0, r, mat.group(0)));
+                    retval.add(new DefaultPdfTextLocation(0, r, match.text));
                 }
             }
         }
@@ -108,6 +114,21 @@ public class RegexBasedLocationExtractionStrategy implements ILocationExtraction
         return retval;
     }
 
+    /**
+     * Finds the occurrences in the text of the page.
+     *
+     * @param text the text of the page in logical order
+     * @return the found occurrences
+     */
+    List<TextMatch> findMatches(String text) {
+        List<TextMatch> matches = new ArrayList<>();
+        Matcher mat = pattern.matcher(text);
+        while (mat.find()) {
+            matches.add(new TextMatch(mat.start(), mat.end(), mat.group(0)));
+        }
+        return matches;
+    }
+
     private void removeDuplicates(List<IPdfTextLocation> sortedList) {
         IPdfTextLocation lastItem = null;
         int orgSize = sortedList.size();
@@ -204,6 +225,27 @@ public class RegexBasedLocationExtractionStrategy implements ILocationExtraction
         return indexMap.get(index);
     }
 
+    /**
+     * An occurrence found in the text of the page.
+     */
+    static final class TextMatch {
+        /**
+         * The index of the first character of the occurrence.
+         */
+        final int start;
+        /**
+         * The index after the last character of the occurrence.
+         */
+        final int end;
+        final String text;
+
+        TextMatch(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
     private static final class PdfTextLocationComparator
             implements Comparator<com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation> {
         @Override
@@ -47,7 +47,7 @@ import com.itextpdf.kernel.geom.Vector;
 
 class TextChunkLocationDefaultImp implements ITextChunkLocation {
 
-    private static final float DIACRITICAL_MARKS_ALLOWED_VERTICAL_DEVIATION = 2;
+    static final float DIACRITICAL_MARKS_ALLOWED_VERTICAL_DEVIATION = 2;
 
     /**
      * The starting location of the chunk.
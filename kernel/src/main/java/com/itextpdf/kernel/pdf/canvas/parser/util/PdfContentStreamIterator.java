@@ -0,0 +1,151 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.util;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.source.SequentialRandomAccessSource;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull parser of the page or form XObject content.
+ * <p>
+ * Unlike {@link PdfCanvasParser} used on the content bytes, the iterator reads the content from an
+ * {@link InputStream} while it is advanced with {@link #next()}, so that the decoded content is never fully
+ * kept in memory (see {@link PdfPage#getContentInputStream()}). Only a small window of the most recently
+ * read bytes is buffered.
+ * <p>
+ * The operands list is reused between the operations, so it is valid only until the next call of {@link #next()}.
+ */
+public class PdfContentStreamIterator implements Closeable {
+
+    private final InputStream contentStream;
+
+    private final PdfCanvasParser parser;
+
+    private final List<PdfObject> operands = new ArrayList<>();
+
+    /**
+     * Creates a new iterator over the decoded content of the page.
+     *
+     * @param page the page which content should be parsed
+     */
+    public PdfContentStreamIterator(PdfPage page) {
+        this(page.getContentInputStream(), page.getResources());
+    }
+
+    /**
+     * Creates a new iterator over the decoded content.
+     *
+     * @param contentStream the stream with the decoded content, it will be closed when the iterator is closed
+     * @param resources     the resources of the content. Must not be null.
+     */
+    public PdfContentStreamIterator(InputStream contentStream, PdfResources resources) {
+        if (resources == null) {
+            throw new PdfException(KernelExceptionMessageConstant.RESOURCES_CANNOT_BE_NULL);
+        }
+        this.contentStream = contentStream;
+        this.parser = new PdfCanvasParser(
+                new PdfTokenizer(new RandomAccessFileOrArray(new SequentialRandomAccessSource(contentStream))),
+                resources);
+    }
+
+    /**
+     * Advances the iterator to the next operation of the content.
+     * <br>
+     * An inline image is returned the same way {@link PdfCanvasParser#parse(List)} returns it:
+     * the inline image dictionary and bytes are encapsulated in the only operand and the operator is EI.
+     *
+     * @return {@code true} if the next operation was read, {@code false} if the end of the content was reached
+     * @throws IOException on error
+     */
+    public boolean next() throws IOException {
+        return !parser.parse(operands).isEmpty();
+    }
+
+    /**
+     * Gets the operator of the current operation.
+     *
+     * @return the operator or {@code null} if there is no current operation
+     */
+    public PdfLiteral getOperator() {
+        if (operands.isEmpty()) {
+            return null;
+        }
+        PdfObject operator = operands.get(operands.size() - 1);
+        return operator instanceof PdfLiteral ? (PdfLiteral) operator : null;
+    }
+
+    /**
+     * Gets the current operation as the list of its operands having the operator itself as the last element,
+     * the same way {@link PdfCanvasParser#parse(List)} returns it. The list is empty if the end of the content
+     * was reached.
+     *
+     * @return the reused operands list
+     */
+    public List<PdfObject> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Closes the iterator and the content stream.
+     *
+     * @throws IOException on error
+     */
+    @Override
+    public void close() throws IOException {
+        contentStream.close();
+    }
+}
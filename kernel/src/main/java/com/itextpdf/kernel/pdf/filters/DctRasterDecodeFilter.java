@@ -0,0 +1,111 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.codec.jpeg.JpegDecoder;
+import com.itextpdf.io.codec.jpeg.JpegRaster;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+
+/**
+ * Handles DCTDecode filter by decoding the JPEG data into pixels.
+ *
+ * <p>
+ * Baseline and progressive Huffman coded JPEG data are supported. The decoded data contains all the components
+ * of the image interleaved with 8 bits per component. YCbCr and YCCK data are converted to RGB and CMYK according
+ * to the Adobe marker of the data or, if there is none, to the {@code ColorTransform} entry of the filter
+ * parameters. Restart intervals of the image are decoded in parallel unless the handler is created otherwise.
+ * Note, this handler is not a part of {@link FilterHandlers#getDefaultFilterHandlers()}, which keep
+ * JPEG data as is, pass it to
+ * {@link com.itextpdf.kernel.pdf.PdfReader#decodeBytes(byte[], PdfDictionary, java.util.Map)} explicitly
+ * to get the pixels of DCT images.
+ */
+public class DctRasterDecodeFilter implements IFilterHandler {
+
+    private final boolean parallel;
+
+    /**
+     * Creates a handler which decodes images in parallel.
+     */
+    public DctRasterDecodeFilter() {
+        this(true);
+    }
+
+    /**
+     * Creates a handler.
+     *
+     * @param parallel whether restart intervals and rows of an image are decoded in parallel
+     */
+    public DctRasterDecodeFilter(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Decodes JPEG data into a {@link JpegRaster}.
+     *
+     * @param b            the JPEG data
+     * @param decodeParams the DCTDecode filter parameters, may be {@code null}
+     * @return decoded raster
+     */
+    public JpegRaster decodeRaster(byte[] b, PdfObject decodeParams) {
+        int colorTransform = -1;
+        if (decodeParams instanceof PdfDictionary) {
+            PdfNumber value = ((PdfDictionary) decodeParams).getAsNumber(PdfName.ColorTransform);
+            if (value != null) {
+                colorTransform = value.intValue();
+            }
+        }
+        return JpegDecoder.decode(b, colorTransform, parallel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(byte[] b, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
+        return decodeRaster(b, decodeParams).toByteArray();
+    }
+}
@@ -43,8 +43,6 @@
  */
 package com.itextpdf.kernel.pdf.filters;
 
-import com.itextpdf.kernel.exceptions.PdfException;
-import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
 import com.itextpdf.kernel.exceptions.MemoryLimitsAwareException;
 import com.itextpdf.kernel.pdf.MemoryLimitsAwareFilter;
 import com.itextpdf.kernel.pdf.PdfDictionary;
@@ -54,9 +52,11 @@ import com.itextpdf.kernel.pdf.PdfObject;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
 
 /**
  * Handles FlateDecode filter.
@@ -74,6 +74,19 @@ public class FlateDecodeFilter extends MemoryLimitsAwareFilter {
         return flateDecodeInternal(in, strict, new ByteArrayOutputStream());
     }
 
+    /**
+     * Creates a stream which decodes the passed FlateDecode encoded data on demand,
+     * so that the decoded data is never fully kept in memory.
+     * Like {@link #flateDecode(byte[], boolean)} in non strict mode, the stream tolerates corrupted data:
+     * the decoded data just ends where the corrupted data starts.
+     *
+     * @param in the encoded data
+     * @return the stream of the decoded data
+     */
+    public static InputStream flateDecodeIncrementally(InputStream in) {
+        return new TolerantInflaterInputStream(in);
+    }
+
     /**
      * @param in           Input byte array.
      * @param decodeParams PdfDictionary of decodeParams.
@@ -95,102 +108,11 @@ public class FlateDecodeFilter extends MemoryLimitsAwareFilter {
         final int width = getNumberOrDefault(dic, PdfName.Columns, 1);
         final int colors = getNumberOrDefault(dic, PdfName.Colors, 1);
         final int bpc = getNumberOrDefault(dic, PdfName.BitsPerComponent, 8);
-        DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(in));
-        ByteArrayOutputStream fout = new ByteArrayOutputStream(in.length);
-        int bytesPerPixel = colors * bpc / 8;
-        int bytesPerRow = (colors * width * bpc + 7) / 8;
-        byte[] curr = new byte[bytesPerRow];
-        byte[] prior = new byte[bytesPerRow];
+        final int bytesPerRow = (colors * width * bpc + 7) / 8;
         if (predictor == 2) {
-            if (bpc == 8) {
-                int numRows = in.length / bytesPerRow;
-                for (int row = 0; row < numRows; row++) {
-                    int rowStart = row * bytesPerRow;
-                    for (int col = bytesPerPixel; col < bytesPerRow; col++) {
-                        in[rowStart + col] = (byte) (in[rowStart + col] + in[rowStart + col - bytesPerPixel]);
-                    }
-                }
-            }
-            return in;
-        }
-        // Decode the (sub)image row-by-row
-        while (true) {
-            // Read the filter type byte and a row of data
-            int filter;
-            try {
-                filter = dataStream.read();
-                if (filter < 0) {
-                    return fout.toByteArray();
-                }
-                dataStream.readFully(curr, 0, bytesPerRow);
-            } catch (Exception e) {
-                return fout.toByteArray();
-            }
-
-            switch (filter) {
-                case 0: //PNG_FILTER_NONE
-                    break;
-                case 1: //PNG_FILTER_SUB
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += curr[i - bytesPerPixel];
-                    }
-                    break;
-                case 2: //PNG_FILTER_UP
-                    for (int i = 0; i < bytesPerRow; i++) {
-                        curr[i] += prior[i];
-                    }
-                    break;
-                case 3: //PNG_FILTER_AVERAGE
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += (byte) (prior[i] / 2);
-                    }
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += (byte) (((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff)) / 2);
-                    }
-                    break;
-                case 4: //PNG_FILTER_PAETH
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += prior[i];
-                    }
-
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        int a = curr[i - bytesPerPixel] & 0xff;
-                        int b = prior[i] & 0xff;
-                        int c = prior[i - bytesPerPixel] & 0xff;
-
-                        int p = a + b - c;
-                        int pa = Math.abs(p - a);
-                        int pb = Math.abs(p - b);
-                        int pc = Math.abs(p - c);
-
-                        int ret;
-
-                        if (pa <= pb && pa <= pc) {
-                            ret = a;
-                        } else if (pb <= pc) {
-                            ret = b;
-                        } else {
-                            ret = c;
-                        }
-                        curr[i] += (byte) ret;
-                    }
-                    break;
-                default:
-                    // Error -- unknown filter type
-                    throw new PdfException(KernelExceptionMessageConstant.PNG_FILTER_UNKNOWN);
-            }
-            try {
-                fout.write(curr);
-            } catch (IOException ioe) {
-                // Never happens
-                assert true : "Happens!";
-            }
-
-            // Swap curr and prior
-            byte[] tmp = prior;
-            prior = curr;
-            curr = tmp;
+            return PredictorDecoder.decodeTiff(in, colors, bpc, bytesPerRow);
         }
+        return PredictorDecoder.decodePng(in, colors * bpc / 8, bytesPerRow);
     }
 
     /**
@@ -247,4 +169,28 @@ public class FlateDecodeFilter extends MemoryLimitsAwareFilter {
         }
         return result;
     }
+
+    /**
+     * An {@link InflaterInputStream} which treats corrupted or truncated data as the end of the stream.
+     */
+    private static class TolerantInflaterInputStream extends InflaterInputStream {
+        private boolean corrupted;
+
+        TolerantInflaterInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (corrupted) {
+                return -1;
+            }
+            try {
+                return super.read(b, off, len);
+            } catch (ZipException | EOFException e) {
+                corrupted = true;
+                return -1;
+            }
+        }
+    }
 }
@@ -0,0 +1,79 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.codec.jbig2.Jbig2Decoder;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+/**
+ * Handles JBIG2Decode filter.
+ *
+ * <p>
+ * The decoded data is a 1 bit per pixel image in which 0 represents black, as it is expected
+ * by DeviceGray color space and image masks. Global segments are taken from the {@code JBIG2Globals}
+ * stream of the decode parameters.
+ * Note, this handler is not a part of {@link FilterHandlers#getDefaultFilterHandlers()}, pass it to
+ * {@link com.itextpdf.kernel.pdf.PdfReader#decodeBytes(byte[], PdfDictionary, java.util.Map)} explicitly
+ * to get the pixels of JBIG2 images.
+ */
+public class Jbig2DecodeFilter implements IFilterHandler {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(byte[] b, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
+        byte[] globals = null;
+        if (decodeParams instanceof PdfDictionary) {
+            PdfStream globalsStream = ((PdfDictionary) decodeParams).getAsStream(PdfName.JBIG2Globals);
+            if (globalsStream != null) {
+                globals = globalsStream.getBytes();
+            }
+        }
+        return Jbig2Decoder.decodeEmbedded(b, globals).toByteArray(true);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.io.codec.jpeg2000.Jpeg2000Decoder;
+import com.itextpdf.io.codec.jpeg2000.Jpeg2000Raster;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+
+/**
+ * Handles JPXDecode filter by decoding the JPEG2000 data into pixels.
+ *
+ * <p>
+ * The decoded data contains all the components of the JPEG2000 image interleaved, with 8 bits per component,
+ * or 16 bits per component if any of the components has more than 8 bits. Palettes of JP2 files are applied.
+ * Tiles and code-blocks of the image are decoded in parallel unless the handler is created otherwise.
+ * Note, this handler is not a part of {@link FilterHandlers#getDefaultFilterHandlers()}, which keep
+ * JPEG2000 data as is, pass it to
+ * {@link com.itextpdf.kernel.pdf.PdfReader#decodeBytes(byte[], PdfDictionary, java.util.Map)} explicitly
+ * to get the pixels of JPX images.
+ */
+public class JpxRasterDecodeFilter implements IFilterHandler {
+
+    private final boolean parallel;
+
+    /**
+     * Creates a handler which decodes images in parallel.
+     */
+    public JpxRasterDecodeFilter() {
+        this(true);
+    }
+
+    /**
+     * Creates a handler.
+     *
+     * @param parallel whether tiles and code-blocks of an image are decoded in parallel
+     */
+    public JpxRasterDecodeFilter(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Decodes JPEG2000 data into a {@link Jpeg2000Raster}.
+     *
+     * @param b the JPEG2000 data
+     * @return decoded raster
+     */
+    public Jpeg2000Raster decodeRaster(byte[] b) {
+        return Jpeg2000Decoder.decode(b, parallel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(byte[] b, PdfName filterName, PdfObject decodeParams, PdfDictionary streamDictionary) {
+        return decodeRaster(b).toByteArray();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+
+/**
+ * Reverses the PNG and TIFF predictors applied to the data of FlateDecode and LZWDecode streams.
+ *
+ * <p>
+ * The rows are decoded in two reused row buffers straight from the input array into an output array of
+ * the exact size. The loops access the current and the prior row at the same index, so that the JIT compiler
+ * vectorizes the Up filter, the one byte pixel cases carry the left byte in a register and the Paeth predictor
+ * is selected without branching.
+ */
+final class PredictorDecoder {
+
+    private static final int PNG_FILTER_NONE = 0;
+    private static final int PNG_FILTER_SUB = 1;
+    private static final int PNG_FILTER_UP = 2;
+    private static final int PNG_FILTER_AVERAGE = 3;
+    private static final int PNG_FILTER_PAETH = 4;
+
+    private PredictorDecoder() {
+    }
+
+    /**
+     * Reverses the TIFF predictor 2 in place. Only 8 bits per component are supported,
+     * the data with other depths is returned as is.
+     *
+     * @param in          the predicted data, which is modified
+     * @param colors      the number of components per pixel
+     * @param bpc         the number of bits per component
+     * @param bytesPerRow the number of bytes per row
+     * @return the decoded data
+     */
+    static byte[] decodeTiff(byte[] in, int colors, int bpc, int bytesPerRow) {
+        if (bpc != 8) {
+            return in;
+        }
+        int numRows = in.length / bytesPerRow;
+        for (int row = 0; row < numRows; row++) {
+            int rowStart = row * bytesPerRow;
+            int rowEnd = rowStart + bytesPerRow;
+            for (int i = rowStart + colors; i < rowEnd; i++) {
+                in[i] = (byte) (in[i] + in[i - colors]);
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Reverses the PNG predictors, each row of the input starting with the filter type byte.
+     * An incomplete last row is dropped.
+     *
+     * @param in            the predicted data
+     * @param bytesPerPixel the number of bytes per complete pixel, zero for pixels smaller than a byte
+     * @param bytesPerRow   the number of bytes per row without the filter type byte
+     * @return the decoded data
+     */
+    static byte[] decodePng(byte[] in, int bytesPerPixel, int bytesPerRow) {
+        int numRows = in.length / (bytesPerRow + 1);
+        byte[] out = new byte[numRows * bytesPerRow];
+        byte[] curr = new byte[bytesPerRow];
+        byte[] prior = new byte[bytesPerRow];
+        int src = 0;
+        for (int row = 0; row < numRows; row++) {
+            int filter = in[src++];
+            System.arraycopy(in, src, curr, 0, bytesPerRow);
+            switch (filter) {
+                case PNG_FILTER_NONE:
+                    break;
+                case PNG_FILTER_SUB:
+                    decodeSub(curr, bytesPerPixel);
+                    break;
+                case PNG_FILTER_UP:
+                    decodeUp(curr, prior);
+                    break;
+                case PNG_FILTER_AVERAGE:
+                    decodeAverage(curr, prior, bytesPerPixel);
+                    break;
+                case PNG_FILTER_PAETH:
+                    if (bytesPerPixel == 1) {
+                        decodePaeth1(curr, prior);
+                    } else {
+                        decodePaeth(curr, prior, bytesPerPixel);
+                    }
+                    break;
+                default:
+                    throw new PdfException(KernelExceptionMessageConstant.PNG_FILTER_UNKNOWN);
+            }
+            System.arraycopy(curr, 0, out, row * bytesPerRow, bytesPerRow);
+            src += bytesPerRow;
+            byte[] tmp = prior;
+            prior = curr;
+            curr = tmp;
+        }
+        return out;
+    }
+
+    private static void decodeSub(byte[] curr, int bpp) {
+        if (bpp == 0) {
+            // pixels smaller than a byte have always been predicted from the byte itself
+            for (int i = 0; i < curr.length; i++) {
+                curr[i] = (byte) (curr[i] << 1);
+            }
+        } else if (bpp == 1) {
+            byte left = 0;
+            for (int i = 0; i < curr.length; i++) {
+                left = (byte) (curr[i] + left);
+                curr[i] = left;
+            }
+        } else {
+            for (int i = bpp; i < curr.length; i++) {
+                curr[i] = (byte) (curr[i] + curr[i - bpp]);
+            }
+        }
+    }
+
+    private static void decodeUp(byte[] curr, byte[] prior) {
+        for (int i = 0; i < curr.length; i++) {
+            curr[i] = (byte) (curr[i] + prior[i]);
+        }
+    }
+
+    private static void decodeAverage(byte[] curr, byte[] prior, int bpp) {
+        int head = Math.min(bpp, curr.length);
+        for (int i = 0; i < head; i++) {
+            // the prior byte is halved as a signed value, as it always has been
+            curr[i] = (byte) (curr[i] + prior[i] / 2);
+        }
+        if (bpp == 1) {
+            int left = curr.length > 0 ? curr[0] & 0xff : 0;
+            for (int i = 1; i < curr.length; i++) {
+                left = (curr[i] + ((left + (prior[i] & 0xff)) >>> 1)) & 0xff;
+                curr[i] = (byte) left;
+            }
+            return;
+        }
+        for (int i = bpp; i < curr.length; i++) {
+            curr[i] = (byte) (curr[i] + (((curr[i - bpp] & 0xff) + (prior[i] & 0xff)) >>> 1));
+        }
+    }
+
+    private static void decodePaeth1(byte[] curr, byte[] prior) {
+        if (curr.length == 0) {
+            return;
+        }
+        int c = prior[0] & 0xff;
+        int a = (curr[0] + c) & 0xff;
+        curr[0] = (byte) a;
+        for (int i = 1; i < curr.length; i++) {
+            int b = prior[i] & 0xff;
+            a = (curr[i] + paeth(a, b, c)) & 0xff;
+            curr[i] = (byte) a;
+            c = b;
+        }
+    }
+
+    private static void decodePaeth(byte[] curr, byte[] prior, int bpp) {
+        int head = Math.min(bpp, curr.length);
+        for (int i = 0; i < head; i++) {
+            curr[i] = (byte) (curr[i] + prior[i]);
+        }
+        for (int i = bpp; i < curr.length; i++) {
+            int a = curr[i - bpp] & 0xff;
+            int b = prior[i] & 0xff;
+            int c = prior[i - bpp] & 0xff;
+            curr[i] = (byte) (curr[i] + paeth(a, b, c));
+        }
+    }
+
+    /**
+     * Selects the Paeth predictor without branching, since the choice is unpredictable for real image data.
+     */
+    private static int paeth(int a, int b, int c) {
+        // pa = |p - a|, pb = |p - b| and pc = |p - c| for p = a + b - c
+        int pa = Math.abs(b - c);
+        int pb = Math.abs(a - c);
+        int pc = Math.abs(a + b - c - c);
+        // all bits set if c is closer than b, then select c and its distance
+        int selectC = (pc - pb) >> 31;
+        int bc = b ^ ((b ^ c) & selectC);
+        int pbc = pb ^ ((pb ^ pc) & selectC);
+        // all bits set if b or c is closer than a
+        int selectBc = (pbc - pa) >> 31;
+        return a ^ ((a ^ bc) & selectBc);
+    }
+}
@@ -46,6 +46,7 @@ package com.itextpdf.kernel.pdf.xobject;
 import com.itextpdf.io.logs.IoLogMessageConstant;
 import com.itextpdf.io.colors.IccProfile;
 import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.codec.jpeg2000.Jpeg2000Raster;
 import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageType;
 import com.itextpdf.io.image.PngChromaticities;
@@ -71,9 +72,12 @@ import com.itextpdf.kernel.pdf.canvas.wmf.WmfImageData;
 import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
 import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
 import com.itextpdf.kernel.pdf.colorspace.PdfSpecialCs;
+import com.itextpdf.kernel.pdf.filters.DctRasterDecodeFilter;
 import com.itextpdf.kernel.pdf.filters.DoNothingFilter;
 import com.itextpdf.kernel.pdf.filters.FilterHandlers;
 import com.itextpdf.kernel.pdf.filters.IFilterHandler;
+import com.itextpdf.kernel.pdf.filters.Jbig2DecodeFilter;
+import com.itextpdf.kernel.pdf.filters.JpxRasterDecodeFilter;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -180,15 +184,43 @@ public class PdfImageXObject extends PdfXObject {
 
     /**
      * Gets image bytes, wrapped with buffered image.
+     * JBIG2 images are decoded with {@link Jbig2DecodeFilter}, JPEG2000 images are decoded
+     * with {@link JpxRasterDecodeFilter}.
      *
      * @return {@link java.awt.image.BufferedImage} image.
      * @throws IOException if an error occurs during reading.
      */
     public java.awt.image.BufferedImage getBufferedImage() throws IOException {
-        byte[] img = getImageBytes();
+        ImageType imageType = identifyImageType();
+        if (imageType == ImageType.JPEG2000) {
+            return getJpeg2000BufferedImage();
+        }
+        byte[] img = imageType == ImageType.JBIG2 ? getJbig2ImageAsPngBytes() : getImageBytes();
         return ImageIO.read(new ByteArrayInputStream(img));
     }
 
+    /**
+     * Gets the decoded pixels of the image without creating an AWT image, which makes it suitable for
+     * processing many images concurrently. DCT, JPEG2000 and JBIG2 encoded images are decoded with
+     * {@link DctRasterDecodeFilter}, {@link JpxRasterDecodeFilter} and {@link Jbig2DecodeFilter}
+     * respectively, DCT and JPEG2000 images are decoded in parallel in the common fork-join pool.
+     *
+     * @return the decoded pixels
+     */
+    public ImageRaster getRaster() {
+        if (identifyImageType() == ImageType.JPEG2000) {
+            Jpeg2000Raster raster = new JpxRasterDecodeFilter().decodeRaster(getImageBytes());
+            return new ImageRaster(raster.getWidth(), raster.getHeight(), raster.getNumberOfComponents(),
+                    raster.getBitsPerComponent(), raster.toByteArray());
+        }
+        Map<PdfName, IFilterHandler> filters = new HashMap<>(FilterHandlers.getDefaultFilterHandlers());
+        filters.put(PdfName.DCTDecode, new DctRasterDecodeFilter());
+        filters.put(PdfName.JBIG2Decode, new Jbig2DecodeFilter());
+        byte[] samples = PdfReader.decodeBytes(getPdfObject().getBytes(false), getPdfObject(), filters);
+        return new ImageRaster((int) getWidth(), (int) getHeight(), getNumberOfComponents(), getBitsPerComponent(),
+                samples);
+    }
+
     /**
      * Gets decoded image bytes.
      *
@@ -305,6 +337,76 @@ public class PdfImageXObject extends PdfXObject {
         return this;
     }
 
+    private int getNumberOfComponents() {
+        PdfObject colorSpace = getPdfObject().get(PdfName.ColorSpace);
+        if (colorSpace == null || Boolean.TRUE.equals(getPdfObject().getAsBool(PdfName.ImageMask))) {
+            return 1;
+        }
+        PdfColorSpace cs = PdfColorSpace.makeColorSpace(colorSpace);
+        return cs == null ? 1 : cs.getNumberOfComponents();
+    }
+
+    private int getBitsPerComponent() {
+        PdfNumber bitsPerComponent = getPdfObject().getAsNumber(PdfName.BitsPerComponent);
+        if (bitsPerComponent == null || Boolean.TRUE.equals(getPdfObject().getAsBool(PdfName.ImageMask))) {
+            return 1;
+        }
+        return bitsPerComponent.intValue();
+    }
+
+    private byte[] getJbig2ImageAsPngBytes() throws IOException {
+        Map<PdfName, IFilterHandler> filters = new HashMap<>(FilterHandlers.getDefaultFilterHandlers());
+        filters.put(PdfName.JBIG2Decode, new Jbig2DecodeFilter());
+        byte[] bytes = PdfReader.decodeBytes(getPdfObject().getBytes(false), getPdfObject(), filters);
+        return new ImagePdfBytesInfo(this).decodeTiffAndPngBytes(bytes);
+    }
+
+    private java.awt.image.BufferedImage getJpeg2000BufferedImage() {
+        Jpeg2000Raster raster = new JpxRasterDecodeFilter().decodeRaster(getImageBytes());
+        int components = raster.getNumberOfComponents();
+        PdfNumber sMaskInData = getPdfObject().getAsNumber(PdfName.SMaskInData);
+        if (sMaskInData != null && sMaskInData.intValue() != 0 && components > 1) {
+            // the last component is the opacity, which is not a part of the colour
+            components--;
+        }
+        if (components > 4) {
+            throw new PdfException(KernelExceptionMessageConstant.JPEG2000_IMAGE_WITH_COMPONENTS_CANNOT_BE_CONVERTED)
+                    .setMessageParams(components);
+        }
+        boolean color = components >= 3;
+        java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(raster.getWidth(), raster.getHeight(),
+                color ? java.awt.image.BufferedImage.TYPE_INT_RGB : java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+        int[] row = new int[raster.getWidth()];
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < row.length; x++) {
+                int first = getJpeg2000Sample(raster, 0, x, y);
+                if (!color) {
+                    row[x] = (first << 16) | (first << 8) | first;
+                } else if (components == 3) {
+                    row[x] = (first << 16) | (getJpeg2000Sample(raster, 1, x, y) << 8)
+                            | getJpeg2000Sample(raster, 2, x, y);
+                } else {
+                    // CMYK samples are converted without colour management, as DeviceCMYK is converted by default
+                    int white = 255 - getJpeg2000Sample(raster, 3, x, y);
+                    row[x] = ((255 - first) * white / 255 << 16)
+                            | ((255 - getJpeg2000Sample(raster, 1, x, y)) * white / 255 << 8)
+                            | (255 - getJpeg2000Sample(raster, 2, x, y)) * white / 255;
+                }
+            }
+            image.setRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+        return image;
+    }
+
+    private static int getJpeg2000Sample(Jpeg2000Raster raster, int component, int x, int y) {
+        int precision = raster.getPrecision(component);
+        long value = raster.getSample(component, x, y);
+        if (raster.isSigned(component)) {
+            value += 1L << (precision - 1);
+        }
+        return (int) (value * 255 / ((1L << precision) - 1));
+    }
+
     private float initWidthField() {
         PdfNumber wNum = getPdfObject().getAsNumber(PdfName.Width);
         if (wNum != null) {
@@ -326,7 +428,12 @@ public class PdfImageXObject extends PdfXObject {
         if (image.getOriginalType() == ImageType.RAW) {
             RawImageHelper.updateImageAttributes((RawImageData) image, null);
         }
-        stream = new PdfStream(image.getData());
+        if (image.getChunkedData() != null) {
+            // the image may be added to several documents, so each stream gets its own copy-on-write view of the chunks
+            stream = new PdfStream(image.getChunkedData().createSharedCopy(), CompressionConstants.UNDEFINED_COMPRESSION);
+        } else {
+            stream = new PdfStream(image.getData());
+        }
         String filter = image.getFilter();
         if (filter != null && "JPXDecode".equals(filter) && image.getColorEncodingComponentsNumber() <= 0) {
             stream.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
@@ -0,0 +1,174 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.utils;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.canvas.CanvasTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The context of a content stream edited by {@link PdfContentStreamEditor}. A new context is created for each
+ * edited page and is passed to every {@link IContentStreamFilter} together with the operation.
+ * <p>
+ * The context tracks the text objects and the marked content sequences of the original content: the operators
+ * opening them (BT, BMC, BDC) are already inside of them, the operators closing them (ET, EMC) are still inside.
+ */
+public class ContentStreamEditingContext {
+
+    private final int pageNumber;
+    private final PdfResources resources;
+    private final List<CanvasTag> markedContentStack = new ArrayList<>();
+    private final Map<Object, Object> attributes = new HashMap<>();
+    private boolean inTextObject;
+
+    ContentStreamEditingContext(int pageNumber, PdfResources resources) {
+        this.pageNumber = pageNumber;
+        this.resources = resources;
+    }
+
+    /**
+     * Gets the number of the edited page.
+     *
+     * @return the page number
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * Gets the resources of the edited page. The resources should only be read: when the pages are edited in
+     * parallel, they are shared with the thread which writes the edited pages. In this case the objects
+     * reachable from the resources are loaded beforehand, but the data of the resource streams is not,
+     * so it must not be read, see {@link PdfContentStreamEditor}.
+     *
+     * @return the page resources
+     */
+    public PdfResources getResources() {
+        return resources;
+    }
+
+    /**
+     * Checks whether the current operation is inside of a text object, i.e. between BT and ET operators.
+     *
+     * @return {@code true} if the operation is inside of a text object
+     */
+    public boolean isInTextObject() {
+        return inTextObject;
+    }
+
+    /**
+     * Gets the marked content sequences the current operation belongs to.
+     *
+     * @return the tags of the marked content sequences, the outermost first
+     */
+    public List<CanvasTag> getMarkedContentStack() {
+        return Collections.unmodifiableList(markedContentStack);
+    }
+
+    /**
+     * Gets the value a filter has stored in the context of the page.
+     *
+     * @param key the key of the value
+     * @return the value or {@code null} if there is no value for the key
+     */
+    public Object getAttribute(Object key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * Stores a value in the context of the page, e.g. a per-page state of a filter.
+     *
+     * @param key   the key of the value
+     * @param value the value
+     * @return this {@link ContentStreamEditingContext} instance
+     */
+    public ContentStreamEditingContext setAttribute(Object key, Object value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    void beforeOperation(String operator, List<PdfObject> operands) {
+        if ("BT".equals(operator)) {
+            inTextObject = true;
+        } else if ("BMC".equals(operator) && operands.get(0) instanceof PdfName) {
+            markedContentStack.add(new CanvasTag((PdfName) operands.get(0)));
+        } else if ("BDC".equals(operator) && operands.get(0) instanceof PdfName) {
+            CanvasTag tag = new CanvasTag((PdfName) operands.get(0));
+            PdfDictionary properties = getPropertiesDictionary(operands.get(1));
+            if (properties != null) {
+                tag.setProperties(properties);
+            }
+            markedContentStack.add(tag);
+        }
+    }
+
+    void afterOperation(String operator) {
+        if ("ET".equals(operator)) {
+            inTextObject = false;
+        } else if ("EMC".equals(operator) && !markedContentStack.isEmpty()) {
+            markedContentStack.remove(markedContentStack.size() - 1);
+        }
+    }
+
+    private PdfDictionary getPropertiesDictionary(PdfObject operand) {
+        if (operand instanceof PdfDictionary) {
+            return (PdfDictionary) operand;
+        }
+        if (operand instanceof PdfName) {
+            PdfDictionary properties = resources.getResource(PdfName.Properties);
+            if (properties != null) {
+                return properties.getAsDictionary((PdfName) operand);
+            }
+        }
+        return null;
+    }
+}
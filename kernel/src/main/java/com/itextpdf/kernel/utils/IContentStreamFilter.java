@@ -0,0 +1,75 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.utils;
+
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfObject;
+
+import java.util.List;
+
+/**
+ * A filter of the content stream operations edited by {@link PdfContentStreamEditor}.
+ * <p>
+ * The filters form a chain: the filter keeps an operation by passing it, possibly modified, to the next
+ * filter and drops it by not doing so. It may also write any number of new operations.
+ * When the pages are edited in parallel, the same filter instance is called from several threads at once,
+ * so the filter should keep its per-page state, if any, in the {@link ContentStreamEditingContext}.
+ */
+@FunctionalInterface
+public interface IContentStreamFilter {
+
+    /**
+     * Filters a content stream operation.
+     * <br>
+     * The operands list is reused by the editor, so the filter should copy it if the operation is kept
+     * after this method returns.
+     *
+     * @param operator the operator of the operation, the same as the last element of the operands list
+     * @param operands the operands with the operator as the last element, see {@link IContentOperationWriter#write}
+     * @param context  the context of the edited content stream
+     * @param next     the next filter of the chain
+     */
+    void filter(PdfLiteral operator, List<PdfObject> operands, ContentStreamEditingContext context,
+            IContentOperationWriter next);
+}
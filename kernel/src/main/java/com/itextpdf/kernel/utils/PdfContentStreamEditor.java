@@ -0,0 +1,381 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.utils;
+
+import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfOutputStream;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfVersion;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfContentStreamIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Rewrites the content of the pages of a document passing every content stream operation through a chain of
+ * {@link IContentStreamFilter}s, e.g. to remove the text, drop the images or change the colors.
+ * <p>
+ * The original content is parsed incrementally (see {@link PdfContentStreamIterator}) and the operations left
+ * by the filters are written directly to the new content stream of the page, which replaces the original ones.
+ * The content of form XObjects is not rewritten. Note that in append mode the original content remains
+ * in the previous revision of the document.
+ * <p>
+ * {@link PdfDocument} is not thread-safe, so when the pages are edited in parallel only the parsing, filtering
+ * and writing of the content are done in the common fork-join pool, while the pages are prepared and updated
+ * in the current thread. The document's byte source is not thread-safe either, so in this case the content
+ * of a page is decoded into memory while the page is prepared. All the objects reachable from the page
+ * resources, except for the page tree and the structure tree, are read in the current thread as well, so
+ * that the filters may navigate the resources. The data of the resource streams is not decoded beforehand,
+ * so the filters must not read it, e.g. with {@link PdfStream#getBytes()}, when the pages are edited in parallel.
+ */
+public class PdfContentStreamEditor {
+
+    private static final byte[] BI = ByteUtils.getIsoBytes("BI\n");
+    private static final byte[] ID = ByteUtils.getIsoBytes("ID\n");
+    private static final byte[] EI = ByteUtils.getIsoBytes("EI\n");
+
+    private final PdfDocument pdfDocument;
+
+    private final List<IContentStreamFilter> filters = new ArrayList<>();
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new instance of {@link PdfContentStreamEditor}.
+     *
+     * @param pdfDocument the document which pages should be edited, must be opened in stamping mode
+     */
+    public PdfContentStreamEditor(PdfDocument pdfDocument) {
+        if (pdfDocument.getWriter() == null) {
+            throw new PdfException(
+                    KernelExceptionMessageConstant.CANNOT_EDIT_CONTENT_OF_DOCUMENT_OPENED_IN_READING_MODE);
+        }
+        this.pdfDocument = pdfDocument;
+    }
+
+    /**
+     * Adds a filter to the end of the filter chain. The operations written by the filter are passed to the
+     * filters added after it.
+     *
+     * @param filter the filter to add
+     * @return this {@link PdfContentStreamEditor} instance
+     */
+    public PdfContentStreamEditor addFilter(IContentStreamFilter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pages edited at the same time. By default it's the number of the available
+     * processors. If it's greater than 1, the filters are called from several threads at once and the decoded
+     * content of up to this number of pages is kept in memory.
+     *
+     * @param parallelism the maximum number of pages edited at the same time
+     * @return this {@link PdfContentStreamEditor} instance
+     */
+    public PdfContentStreamEditor setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of pages edited at the same time.
+     *
+     * @return the maximum number of pages edited at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Edits the content of the page in the current thread.
+     *
+     * @param pageNumber the number of the page to edit
+     */
+    public void editPage(int pageNumber) {
+        PageEdit pageEdit = new PageEdit(pageNumber, new ArrayList<>(filters), null);
+        pageEdit.apply(pageEdit.rewrite());
+    }
+
+    /**
+     * Edits the content of all the pages of the document.
+     */
+    public void editPages() {
+        editPages(new PageRange().addPageSequence(1, pdfDocument.getNumberOfPages()));
+    }
+
+    /**
+     * Edits the content of the pages of the document in the range. Up to {@link #getParallelism()} pages
+     * are edited at the same time, the pages are updated in their order.
+     *
+     * @param pageRange the range of the pages to edit
+     */
+    public void editPages(PageRange pageRange) {
+        List<Integer> pageNumbers = pageRange.getQualifyingPageNums(pdfDocument.getNumberOfPages());
+        if (parallelism <= 1 || pageNumbers.size() <= 1) {
+            for (int pageNumber : pageNumbers) {
+                editPage(pageNumber);
+            }
+            return;
+        }
+
+        List<IContentStreamFilter> filterChain = new ArrayList<>(filters);
+        // the resources shared between the pages are loaded only once
+        Set<PdfObject> loadedObjects = new HashSet<>();
+        Deque<PageEdit> pendingEdits = new ArrayDeque<>();
+        try {
+            for (int pageNumber : pageNumbers) {
+                PageEdit pageEdit = new PageEdit(pageNumber, filterChain, loadedObjects);
+                pageEdit.result = CompletableFuture.supplyAsync(pageEdit::rewrite);
+                pendingEdits.add(pageEdit);
+                if (pendingEdits.size() >= parallelism) {
+                    PageEdit completedEdit = pendingEdits.poll();
+                    completedEdit.apply(completedEdit.result.join());
+                }
+            }
+            while (!pendingEdits.isEmpty()) {
+                PageEdit completedEdit = pendingEdits.poll();
+                completedEdit.apply(completedEdit.result.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            // the workers still reading the content must not outlive the call
+            for (PageEdit pageEdit : pendingEdits) {
+                pageEdit.cancel();
+            }
+        }
+    }
+
+    private static void loadResources(PdfDictionary resources, Set<PdfObject> loadedObjects) {
+        // the resources are only read by the workers, so all the indirect objects they may reach are loaded
+        // beforehand, except for the page tree and the structure tree which the resources may refer to
+        Deque<PdfObject> objectsToLoad = new ArrayDeque<>();
+        objectsToLoad.push(resources);
+        while (!objectsToLoad.isEmpty()) {
+            PdfObject object = objectsToLoad.pop();
+            if (!loadedObjects.add(object)) {
+                continue;
+            }
+            if (object instanceof PdfDictionary) {
+                PdfDictionary dictionary = (PdfDictionary) object;
+                for (PdfName key : dictionary.keySet()) {
+                    if (!PdfName.Parent.equals(key) && !PdfName.P.equals(key)) {
+                        addContainer(dictionary.get(key), objectsToLoad);
+                    }
+                }
+            } else {
+                PdfArray array = (PdfArray) object;
+                for (int i = 0; i < array.size(); i++) {
+                    addContainer(array.get(i), objectsToLoad);
+                }
+            }
+        }
+    }
+
+    private static void addContainer(PdfObject object, Deque<PdfObject> objectsToLoad) {
+        if (object instanceof PdfDictionary || object instanceof PdfArray) {
+            objectsToLoad.push(object);
+        }
+    }
+
+    private final class PageEdit {
+        private final PdfPage page;
+        private final PdfResources resources;
+        private final InputStream contentStream;
+        private final ContentStreamEditingContext context;
+        private final List<IContentStreamFilter> filterChain;
+        private final boolean inlineImageLengthRequired;
+        private CompletableFuture<PdfStream> result;
+
+        /**
+         * Prepares the edit of the page.
+         *
+         * @param pageNumber    the number of the page to edit
+         * @param filterChain   the filters to pass the content through
+         * @param loadedObjects the objects already loaded for the other pages if the page is rewritten
+         *                      by a worker, otherwise {@code null}
+         */
+        PageEdit(int pageNumber, List<IContentStreamFilter> filterChain, Set<PdfObject> loadedObjects) {
+            this.page = pdfDocument.getPage(pageNumber);
+            this.resources = page.getResources();
+            boolean rewrittenByWorker = loadedObjects != null;
+            if (rewrittenByWorker) {
+                loadResources(resources.getPdfObject(), loadedObjects);
+            }
+            // the incrementally decoded content would be read from the document's byte source by the worker
+            this.contentStream = rewrittenByWorker
+                    ? new ByteArrayInputStream(page.getContentBytes()) : page.getContentInputStream();
+            this.context = new ContentStreamEditingContext(pageNumber, resources);
+            this.filterChain = filterChain;
+            this.inlineImageLengthRequired = pdfDocument.getPdfVersion().compareTo(PdfVersion.PDF_2_0) >= 0;
+        }
+
+        PdfStream rewrite() {
+            PdfStream newContentStream = new PdfStream();
+            IContentOperationWriter writer = new ContentStreamWriter(newContentStream.getOutputStream(),
+                    inlineImageLengthRequired);
+            for (int i = filterChain.size() - 1; i >= 0; i--) {
+                writer = new FilterChainLink(filterChain.get(i), context, writer);
+            }
+            try (PdfContentStreamIterator iterator = new PdfContentStreamIterator(contentStream, resources)) {
+                while (iterator.next()) {
+                    PdfLiteral operator = iterator.getOperator();
+                    if (operator == null) {
+                        // operands without an operator at the end of the content
+                        continue;
+                    }
+                    List<PdfObject> operands = iterator.getOperands();
+                    context.beforeOperation(operator.toString(), operands);
+                    writer.write(operands);
+                    context.afterOperation(operator.toString());
+                }
+            } catch (IOException e) {
+                throw new PdfException(KernelExceptionMessageConstant.CANNOT_PARSE_CONTENT_STREAM, e);
+            }
+            return newContentStream;
+        }
+
+        void apply(PdfStream newContentStream) {
+            page.put(PdfName.Contents, newContentStream.makeIndirect(pdfDocument));
+        }
+
+        void cancel() {
+            if (result.cancel(false)) {
+                try {
+                    contentStream.close();
+                } catch (IOException ignored) {
+                    // the content is not read anymore
+                }
+            } else {
+                try {
+                    result.join();
+                } catch (RuntimeException ignored) {
+                    // the first failure has already been rethrown
+                }
+            }
+        }
+    }
+
+    private static final class FilterChainLink implements IContentOperationWriter {
+        private final IContentStreamFilter filter;
+        private final ContentStreamEditingContext context;
+        private final IContentOperationWriter next;
+
+        FilterChainLink(IContentStreamFilter filter, ContentStreamEditingContext context,
+                IContentOperationWriter next) {
+            this.filter = filter;
+            this.context = context;
+            this.next = next;
+        }
+
+        @Override
+        public void write(List<PdfObject> operands) {
+            filter.filter((PdfLiteral) operands.get(operands.size() - 1), operands, context, next);
+        }
+    }
+
+    private static final class ContentStreamWriter implements IContentOperationWriter {
+        private final PdfOutputStream outputStream;
+        private final boolean inlineImageLengthRequired;
+
+        ContentStreamWriter(PdfOutputStream outputStream, boolean inlineImageLengthRequired) {
+            this.outputStream = outputStream;
+            this.inlineImageLengthRequired = inlineImageLengthRequired;
+        }
+
+        @Override
+        public void write(List<PdfObject> operands) {
+            PdfObject operator = operands.get(operands.size() - 1);
+            if (operands.size() == 2 && operands.get(0) instanceof PdfStream && "EI".equals(operator.toString())) {
+                writeInlineImage((PdfStream) operands.get(0));
+                return;
+            }
+            for (int i = 0; i < operands.size() - 1; i++) {
+                outputStream.write(operands.get(i)).writeSpace();
+            }
+            outputStream.write(operator).writeNewLine();
+        }
+
+        private void writeInlineImage(PdfStream inlineImage) {
+            byte[] imageBytes = inlineImage.getBytes(false);
+            outputStream.writeBytes(BI);
+            for (PdfName key : inlineImage.keySet()) {
+                if (!PdfName.Type.equals(key) && !PdfName.Subtype.equals(key) && !PdfName.Length.equals(key)) {
+                    outputStream.write(key).writeSpace();
+                    outputStream.write(inlineImage.get(key, false)).writeNewLine();
+                }
+            }
+            if (inlineImageLengthRequired) {
+                outputStream.write(PdfName.Length).writeSpace();
+                outputStream.write(new PdfNumber(imageBytes.length)).writeNewLine();
+            }
+            outputStream.writeBytes(ID);
+            outputStream.writeBytes(imageBytes).writeNewLine().writeBytes(EI);
+        }
+    }
+}
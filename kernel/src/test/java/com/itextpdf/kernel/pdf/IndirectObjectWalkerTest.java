@@ -0,0 +1,210 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class IndirectObjectWalkerTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/IndirectObjectWalkerTest/";
+
+    // 10 pages and 700 indirect dictionaries with an /Index referenced from the catalog /Data array
+    private static final String DOCUMENT = SOURCE_FOLDER + "700Dictionaries.pdf";
+
+    private static final String FULL_COMPRESSION_DOCUMENT = SOURCE_FOLDER + "700DictionariesFullCompression.pdf";
+
+    private static final int DICTIONARIES_COUNT = 700;
+
+    @Test
+    public void allObjectsAreVisitedOnceTest() throws IOException {
+        Set<Integer> expected = new HashSet<>();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            for (int i = 1; i < pdfDocument.getNumberOfPdfObjects(); i++) {
+                if (pdfDocument.getPdfObject(i) != null) {
+                    expected.add(i);
+                }
+            }
+        }
+
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            List<Integer> visited = visit(pdfDocument, 1);
+            Assert.assertEquals(expected.size(), visited.size());
+            Assert.assertEquals(expected, new HashSet<>(visited));
+        }
+    }
+
+    @Test
+    public void fileOrderTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(DOCUMENT))) {
+            long previousOffset = 0;
+            for (int objNumber : visit(pdfDocument, 1)) {
+                long offset = pdfDocument.getXref().get(objNumber).getOffset();
+                Assert.assertTrue(offset > previousOffset);
+                previousOffset = offset;
+            }
+        }
+    }
+
+    @Test
+    public void objectStreamMembersFollowTheirStreamTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            PdfXrefTable xref = pdfDocument.getXref();
+            Set<Integer> objectStreams = new HashSet<>();
+            int currentStream = 0;
+            for (int objNumber : visit(pdfDocument, 1)) {
+                PdfIndirectReference reference = xref.get(objNumber);
+                if (reference.getObjStreamNumber() > 0) {
+                    Assert.assertEquals(currentStream, reference.getObjStreamNumber());
+                } else {
+                    currentStream = objNumber;
+                    PdfObject object = pdfDocument.getPdfObject(objNumber);
+                    if (object instanceof PdfStream && PdfName.ObjStm.equals(((PdfStream) object).getAsName(PdfName.Type))) {
+                        objectStreams.add(objNumber);
+                    }
+                }
+            }
+            Assert.assertTrue(objectStreams.size() > 1);
+        }
+    }
+
+    @Test
+    public void parallelDecodingKeepsOrderTest() throws IOException {
+        List<Integer> sequential;
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            sequential = visit(pdfDocument, 1);
+        }
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            Assert.assertEquals(sequential, visit(pdfDocument, 4));
+        }
+    }
+
+    @Test
+    public void visitedObjectsAreReleasedTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            PdfDictionary catalog = pdfDocument.getCatalog().getPdfObject();
+            // members of the object stream with the catalog are read on opening
+            int loadedBefore = countLoadedDictionaries(pdfDocument);
+            Assert.assertTrue(loadedBefore < DICTIONARIES_COUNT);
+            final int[] dictionariesCount = {0};
+            pdfDocument.visitIndirectObjects(object -> {
+                if (object.isDictionary() && ((PdfDictionary) object).containsKey(PdfName.Index)) {
+                    dictionariesCount[0]++;
+                }
+            }, 2);
+            Assert.assertEquals(DICTIONARIES_COUNT, dictionariesCount[0]);
+            Assert.assertEquals(loadedBefore, countLoadedDictionaries(pdfDocument));
+            // objects which were loaded before the walk are kept
+            Assert.assertSame(catalog, pdfDocument.getCatalog().getPdfObject());
+            Assert.assertNotNull(catalog.getIndirectReference().refersTo);
+        }
+    }
+
+    @Test
+    public void releasedObjectsCanBeReadAgainTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            visit(pdfDocument, 3);
+            PdfArray dictionaries = pdfDocument.getCatalog().getPdfObject().getAsArray(PdfName.Data);
+            for (int i = 0; i < DICTIONARIES_COUNT; i++) {
+                Assert.assertEquals(i, dictionaries.getAsDictionary(i).getAsNumber(PdfName.Index).intValue());
+            }
+            Assert.assertEquals(10, pdfDocument.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void visitorExceptionIsPropagatedTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(FULL_COMPRESSION_DOCUMENT))) {
+            IllegalStateException e = Assert.assertThrows(IllegalStateException.class,
+                    () -> pdfDocument.visitIndirectObjects(object -> {
+                        throw new IllegalStateException("stop");
+                    }, 4));
+            Assert.assertEquals("stop", e.getMessage());
+            Assert.assertEquals(10, pdfDocument.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void documentInWritingModeTest() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos))) {
+            pdfDocument.addNewPage();
+            List<Integer> visited = visit(pdfDocument, 1);
+            Assert.assertFalse(visited.isEmpty());
+            for (int objNumber : visited) {
+                Assert.assertNotNull(pdfDocument.getXref().get(objNumber).refersTo);
+            }
+        }
+    }
+
+    private static int countLoadedDictionaries(PdfDocument pdfDocument) {
+        int count = 0;
+        PdfXrefTable xref = pdfDocument.getXref();
+        for (int i = 1; i < xref.size(); i++) {
+            PdfObject object = xref.get(i).refersTo;
+            if (object != null && object.isDictionary() && ((PdfDictionary) object).containsKey(PdfName.Index)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Integer> visit(PdfDocument pdfDocument, int parallelism) {
+        List<Integer> visited = new ArrayList<>();
+        pdfDocument.visitIndirectObjects(object -> visited.add(object.getIndirectReference().getObjNumber()),
+                parallelism);
+        return visited;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.BlockProviderRandomAccessSource;
+import com.itextpdf.io.source.IBlockProvider;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.logs.KernelLogMessageConstant;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.LogMessage;
+import com.itextpdf.test.annotations.LogMessages;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class LinearizationHintsTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/LinearizationHintsTest/";
+    private static final String DESTINATION_FOLDER = "./target/test/com/itextpdf/kernel/pdf/LinearizationHintsTest/";
+
+    private static final String LINEARIZED = SOURCE_FOLDER + "30PagesLinearized.pdf";
+
+    private static final int NUMBER_OF_PAGES = 30;
+
+    private static byte[] linearized;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        createOrClearDestinationFolder(DESTINATION_FOLDER);
+        linearized = Files.readAllBytes(Paths.get(LINEARIZED));
+    }
+
+    @Test
+    public void hintsAreNotReadByDefaultTest() throws IOException {
+        PdfReader reader = new PdfReader(LINEARIZED);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNull(reader.getLinearizationHints());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void pageOffsetsTest() throws IOException {
+        PdfReader reader = new PdfReader(LINEARIZED).setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        LinearizationHints hints = reader.getLinearizationHints();
+        Assert.assertNotNull(hints);
+        Assert.assertEquals(NUMBER_OF_PAGES, hints.getNumberOfPages());
+        for (int i = 1; i <= NUMBER_OF_PAGES; i++) {
+            PdfIndirectReference page = pdfDocument.getPage(i).getPdfObject().getIndirectReference();
+            Assert.assertEquals(page.getOffset(), hints.getPageOffset(i));
+            if (i > 1) {
+                Assert.assertEquals(hints.getPageOffset(i), hints.getPageOffset(i - 1) + hints.getPageLength(i - 1));
+            }
+        }
+        pdfDocument.close();
+    }
+
+    @Test
+    public void hintsOfNotLinearizedDocumentTest() throws IOException {
+        PdfReader reader = new PdfReader(SOURCE_FOLDER + "30Pages.pdf").setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNull(reader.getLinearizationHints());
+        Assert.assertEquals(NUMBER_OF_PAGES, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void hintsOfUpdatedDocumentAreIgnoredTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "hintsOfUpdatedDocumentAreIgnored.pdf";
+        PdfDocument updated = new PdfDocument(new PdfReader(LINEARIZED),
+                new PdfWriter(dest), new StampingProperties().useAppendMode());
+        updated.getDocumentInfo().setAuthor("Updated");
+        updated.close();
+
+        PdfReader reader = new PdfReader(dest).setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNull(reader.getLinearizationHints());
+        Assert.assertEquals("Updated", pdfDocument.getDocumentInfo().getAuthor());
+        pdfDocument.close();
+    }
+
+    @Test
+    @LogMessages(messages = @LogMessage(messageTemplate = KernelLogMessageConstant.LINEARIZATION_HINTS_ARE_IGNORED))
+    public void hintStreamLengthPastEndOfFileTest() throws IOException {
+        PdfReader reader = new PdfReader(SOURCE_FOLDER + "hintStreamLengthPastEndOfFile.pdf")
+                .setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNull(reader.getLinearizationHints());
+        Assert.assertEquals(1, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    @Test
+    @LogMessages(messages = @LogMessage(messageTemplate = KernelLogMessageConstant.LINEARIZATION_HINTS_ARE_IGNORED))
+    public void numberOfPagesExceedingFileLengthTest() throws IOException {
+        String content = new String(linearized, StandardCharsets.ISO_8859_1);
+        int numberOfPagesStart = content.indexOf("/N ") + "/N ".length();
+        String corrupted = content.substring(0, numberOfPagesStart) + "2000000000"
+                + content.substring(numberOfPagesStart + 10);
+
+        PdfReader reader = new PdfReader(new ByteArrayInputStream(corrupted.getBytes(StandardCharsets.ISO_8859_1)))
+                .setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNull(reader.getLinearizationHints());
+        Assert.assertEquals(NUMBER_OF_PAGES, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void firstPageIsReadWithoutFetchingWholeDocumentTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(linearized);
+        PdfReader reader = new PdfReader(new BlockProviderRandomAccessSource(provider, 512, 1024),
+                new ReaderProperties()).setLinearizationHintsMode(true).setLazyPageTreeMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        byte[] content = pdfDocument.getPage(1).getContentBytes();
+
+        PdfDocument regular = new PdfDocument(new PdfReader(LINEARIZED));
+        Assert.assertArrayEquals(regular.getPage(1).getContentBytes(), content);
+        Assert.assertTrue(provider.fetchedBytes < linearized.length / 4);
+        regular.close();
+        pdfDocument.close();
+    }
+
+    @Test
+    public void pageIsFetchedWithSingleRequestTest() throws IOException {
+        CountingBlockProvider provider = new CountingBlockProvider(linearized);
+        PdfReader reader = new PdfReader(new BlockProviderRandomAccessSource(provider, 512, 1024),
+                new ReaderProperties()).setLinearizationHintsMode(true).setLazyPageTreeMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        pdfDocument.getPage(1).getContentBytes();
+        int requests = provider.requests;
+
+        byte[] content = pdfDocument.getPage(20).getContentBytes();
+        Assert.assertEquals(requests + 1, provider.requests);
+
+        PdfDocument regular = new PdfDocument(new PdfReader(LINEARIZED));
+        Assert.assertArrayEquals(regular.getPage(20).getContentBytes(), content);
+        regular.close();
+        pdfDocument.close();
+    }
+
+    @Test
+    public void factorySourceTest() throws IOException {
+        PdfReader reader = new PdfReader(
+                new RandomAccessSourceFactory().createSource(new CountingBlockProvider(linearized)),
+                new ReaderProperties()).setLinearizationHintsMode(true);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        Assert.assertNotNull(reader.getLinearizationHints());
+        Assert.assertEquals(NUMBER_OF_PAGES, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    private static class CountingBlockProvider implements IBlockProvider {
+        private final byte[] content;
+        private int requests;
+        private long fetchedBytes;
+
+        CountingBlockProvider(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long length() {
+            return content.length;
+        }
+
+        @Override
+        public void read(long position, byte[] bytes, int off, int len) {
+            requests++;
+            fetchedBytes += len;
+            System.arraycopy(content, (int) position, bytes, off, len);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
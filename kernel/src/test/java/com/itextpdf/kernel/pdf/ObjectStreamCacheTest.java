@@ -0,0 +1,273 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class ObjectStreamCacheTest extends ExtendedITextTest {
+
+    @Test
+    public void leastRecentlyUsedStreamIsEvictedTest() {
+        ObjectStreamCache cache = new ObjectStreamCache(3 * createEntry(100).size());
+        cache.put(1, createEntry(100));
+        cache.put(2, createEntry(100));
+        cache.put(3, createEntry(100));
+        Assert.assertNotNull(cache.get(1));
+        cache.put(4, createEntry(100));
+
+        Assert.assertEquals(3, cache.getCount());
+        Assert.assertNotNull(cache.get(1));
+        Assert.assertNull(cache.get(2));
+        Assert.assertNotNull(cache.get(3));
+        Assert.assertNotNull(cache.get(4));
+    }
+
+    @Test
+    public void streamLargerThanCapacityIsNotCachedTest() {
+        ObjectStreamCache cache = new ObjectStreamCache(1000);
+        cache.put(1, createEntry(100));
+        cache.put(2, createEntry(1000));
+
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals(createEntry(100).size(), cache.getSize());
+    }
+
+    @Test
+    public void replacedStreamSizeIsRecalculatedTest() {
+        ObjectStreamCache cache = new ObjectStreamCache(10000);
+        cache.put(1, createEntry(100));
+        cache.put(1, createEntry(200));
+
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertEquals(createEntry(200).size(), cache.getSize());
+        cache.clear();
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void releasedMembersAreReadFromCacheTest() throws IOException {
+        byte[] bytes = createFullCompressionDocument();
+
+        CountingPdfReader notCachingReader = new CountingPdfReader(bytes);
+        int objectStreams = readAllObjectsTwice(notCachingReader);
+        Assert.assertTrue(objectStreams > 0);
+        Assert.assertEquals(2 * objectStreams, notCachingReader.decodedObjectStreams);
+
+        CountingPdfReader cachingReader = new CountingPdfReader(bytes);
+        cachingReader.setObjectStreamCacheCapacity(1024 * 1024);
+        Assert.assertEquals(objectStreams, readAllObjectsTwice(cachingReader));
+        Assert.assertEquals(objectStreams, cachingReader.decodedObjectStreams);
+    }
+
+    @Test
+    public void prefetchReadsOnlyFollowingMembersTest() throws IOException {
+        byte[] bytes = createFullCompressionDocument();
+
+        CountingPdfReader reader = new CountingPdfReader(bytes);
+        reader.setObjectStreamCacheCapacity(1024 * 1024).setObjectStreamPrefetchSize(1);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        List<PdfIndirectReference> members = getObjectStreamMembers(pdfDocument, true);
+
+        int notRead = 0;
+        for (PdfIndirectReference member : members) {
+            if (member.refersTo == null) {
+                notRead++;
+            }
+        }
+        Assert.assertTrue(notRead > 2);
+        PdfIndirectReference requested = members.get(0);
+        Assert.assertNotNull(requested.getRefersTo());
+        int newlyRead = 0;
+        for (PdfIndirectReference member : members.subList(0, notRead)) {
+            if (member.refersTo != null) {
+                newlyRead++;
+            }
+        }
+        // the requested member and at most one following member of the same stream
+        Assert.assertTrue(newlyRead >= 1 && newlyRead <= 2);
+        for (PdfIndirectReference member : members) {
+            Assert.assertNotNull(member.getRefersTo());
+        }
+        // every object stream is decoded only once
+        Set<Integer> objectStreams = new HashSet<>();
+        for (PdfIndirectReference member : members) {
+            objectStreams.add(member.getObjStreamNumber());
+        }
+        Assert.assertEquals(objectStreams.size(), reader.decodedObjectStreams);
+        String prefetchedContent = objectsToString(members);
+        pdfDocument.close();
+
+        PdfDocument defaultDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(objectsToString(getObjectStreamMembers(defaultDocument, false)), prefetchedContent);
+        defaultDocument.close();
+    }
+
+    @Test
+    public void prefetchWithoutCacheKeepsLastObjectStreamTest() throws IOException {
+        byte[] bytes = createFullCompressionDocument();
+
+        CountingPdfReader reader = new CountingPdfReader(bytes);
+        reader.setObjectStreamPrefetchSize(1);
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        List<PdfIndirectReference> members = getObjectStreamMembers(pdfDocument, true);
+        members.sort(Comparator.comparingInt(PdfIndirectReference::getObjStreamNumber));
+        reader.decodedObjectStreams = 0;
+        reader.readObjectStreams = 0;
+        Set<Integer> objectStreams = new HashSet<>();
+        for (PdfIndirectReference member : members) {
+            if (member.refersTo == null) {
+                objectStreams.add(member.getObjStreamNumber());
+                Assert.assertNotNull(member.getRefersTo());
+            }
+        }
+        // the members are read one by one through the overridable method, but every stream is decoded once
+        Assert.assertTrue(reader.readObjectStreams > objectStreams.size());
+        Assert.assertEquals(objectStreams.size(), reader.decodedObjectStreams);
+        pdfDocument.close();
+    }
+
+    private static int readAllObjectsTwice(PdfReader reader) {
+        PdfDocument pdfDocument = new PdfDocument(reader);
+        List<PdfIndirectReference> members = getObjectStreamMembers(pdfDocument, false);
+        for (PdfIndirectReference member : members) {
+            Assert.assertNotNull(member.getRefersTo());
+        }
+        for (PdfIndirectReference member : members) {
+            PdfObject object = member.getRefersTo();
+            if (!object.isReleaseForbidden()) {
+                object.release();
+            }
+        }
+        for (PdfIndirectReference member : members) {
+            Assert.assertNotNull(member.getRefersTo());
+        }
+        int objectStreams = 0;
+        for (int i = 0; i < pdfDocument.getXref().size(); i++) {
+            PdfIndirectReference reference = pdfDocument.getXref().get(i);
+            if (reference != null && reference.checkState(PdfObject.ORIGINAL_OBJECT_STREAM)) {
+                objectStreams++;
+            }
+        }
+        pdfDocument.close();
+        return objectStreams;
+    }
+
+    // members of object streams, those which are not read yet go first
+    private static List<PdfIndirectReference> getObjectStreamMembers(PdfDocument pdfDocument, boolean notReadFirst) {
+        List<PdfIndirectReference> notRead = new ArrayList<>();
+        List<PdfIndirectReference> read = new ArrayList<>();
+        for (int i = 0; i < pdfDocument.getXref().size(); i++) {
+            PdfIndirectReference reference = pdfDocument.getXref().get(i);
+            if (reference != null && reference.getObjStreamNumber() > 0) {
+                (notReadFirst && reference.refersTo != null ? read : notRead).add(reference);
+            }
+        }
+        notRead.addAll(read);
+        return notRead;
+    }
+
+    private static String objectsToString(List<PdfIndirectReference> references) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < references.size(); i++) {
+            sb.append(references.get(i)).append(": ").append(references.get(i).getRefersTo()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static byte[] createFullCompressionDocument() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos, new WriterProperties().setFullCompressionMode(true)));
+        for (int i = 0; i < 250; i++) {
+            PdfPage page = pdfDocument.addNewPage();
+            PdfDictionary annotation = new PdfDictionary();
+            annotation.put(PdfName.Subtype, PdfName.Text);
+            annotation.put(PdfName.Contents, new PdfString("Annotation " + i));
+            page.getPdfObject().put(PdfName.Annots, new PdfArray(annotation.makeIndirect(pdfDocument)));
+        }
+        pdfDocument.close();
+        return baos.toByteArray();
+    }
+
+    private static ObjectStreamCache.Entry createEntry(int length) {
+        return new ObjectStreamCache.Entry(new byte[length], new int[2], new int[2]);
+    }
+
+    private static class CountingPdfReader extends PdfReader {
+        int decodedObjectStreams = 0;
+        int readObjectStreams = 0;
+
+        CountingPdfReader(byte[] bytes) throws IOException {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public byte[] readStreamBytes(PdfStream stream, boolean decode) throws IOException {
+            if (PdfName.ObjStm.equals(stream.getAsName(PdfName.Type))) {
+                decodedObjectStreams++;
+            }
+            return super.readStreamBytes(stream, decode);
+        }
+
+        @Override
+        protected void readObjectStream(PdfStream objectStream) throws IOException {
+            readObjectStreams++;
+            super.readObjectStream(objectStream);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class PdfDictionaryMapTest extends ExtendedITextTest {
+
+    @Test
+    public void keysAreSortedTest() {
+        PdfDictionaryMap map = new PdfDictionaryMap();
+        map.put(PdfName.Type, PdfName.Page);
+        map.put(PdfName.Contents, new PdfNumber(1));
+        map.put(PdfName.MediaBox, new PdfArray());
+        map.put(PdfName.Annots, new PdfArray());
+
+        Assert.assertFalse(map.isTree());
+        Assert.assertEquals(createList(PdfName.Annots, PdfName.Contents, PdfName.MediaBox, PdfName.Type),
+                new ArrayList<>(map.keySet()));
+        Assert.assertEquals(PdfName.Page, map.get(new PdfName("Type")));
+        Assert.assertTrue(map.containsKey(new PdfName("MediaBox")));
+        Assert.assertNull(map.get(PdfName.Parent));
+    }
+
+    @Test
+    public void sameAsTreeMapTest() {
+        Random random = new Random(7);
+        PdfDictionaryMap map = new PdfDictionaryMap();
+        TreeMap<PdfName, PdfObject> expected = new TreeMap<>();
+        for (int i = 0; i < 2000; i++) {
+            PdfName key = new PdfName("Key" + random.nextInt(40));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                PdfNumber value = new PdfNumber(i);
+                Assert.assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+            if (expected.isEmpty()) {
+                Assert.assertTrue(map.isEmpty());
+            }
+        }
+        Assert.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test
+    public void switchToTreeKeepsOrderTest() {
+        PdfDictionaryMap map = new PdfDictionaryMap();
+        List<PdfName> keys = new ArrayList<>();
+        for (int i = PdfDictionaryMap.MAX_ARRAY_SIZE; i >= 0; i--) {
+            PdfName key = new PdfName("K" + (char) ('A' + i));
+            keys.add(0, key);
+            map.put(key, new PdfNumber(i));
+        }
+
+        Assert.assertTrue(map.isTree());
+        Assert.assertEquals(PdfDictionaryMap.MAX_ARRAY_SIZE + 1, map.size());
+        Assert.assertEquals(keys, new ArrayList<>(map.keySet()));
+        Assert.assertEquals(new PdfNumber(5), map.get(new PdfName("K" + (char) ('A' + 5))));
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        PdfDictionaryMap map = createMap(6);
+        Iterator<Map.Entry<PdfName, PdfObject>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (((PdfNumber) iterator.next().getValue()).intValue() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Iterator<PdfObject> values = map.values().iterator();
+        values.next();
+        values.remove();
+
+        Assert.assertEquals(createList(new PdfName("K3"), new PdfName("K5")), new ArrayList<>(map.keySet()));
+        Assert.assertTrue(map.keySet().remove(new PdfName("K3")));
+        Assert.assertFalse(map.keySet().remove(new PdfName("K3")));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void entrySetValueTest() {
+        PdfDictionaryMap map = createMap(3);
+        for (Map.Entry<PdfName, PdfObject> entry : map.entrySet()) {
+            entry.setValue(new PdfNumber(((PdfNumber) entry.getValue()).intValue() * 10));
+        }
+
+        Assert.assertEquals(new PdfNumber(20), map.get(new PdfName("K2")));
+    }
+
+    @Test
+    public void concurrentModificationTest() {
+        PdfDictionaryMap map = createMap(3);
+        Iterator<PdfName> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put(new PdfName("K0"), new PdfNumber(0));
+
+        Assert.assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+    }
+
+    @Test
+    public void copyDictionaryTest() {
+        PdfDictionary dictionary = new PdfDictionary();
+        dictionary.put(PdfName.Type, PdfName.Font);
+        dictionary.put(PdfName.Subtype, PdfName.Type1);
+        PdfDictionary copy = new PdfDictionary(dictionary);
+        copy.put(PdfName.BaseFont, new PdfName("Helvetica"));
+
+        Assert.assertEquals(2, dictionary.size());
+        Assert.assertEquals(createList(PdfName.BaseFont, PdfName.Subtype, PdfName.Type), new ArrayList<>(copy.keySet()));
+    }
+
+    private static PdfDictionaryMap createMap(int size) {
+        PdfDictionaryMap map = new PdfDictionaryMap();
+        for (int i = 1; i <= size; i++) {
+            map.put(new PdfName("K" + i), new PdfNumber(i));
+        }
+        return map;
+    }
+
+    private static List<PdfName> createList(PdfName... names) {
+        List<PdfName> list = new ArrayList<>();
+        for (PdfName name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+}
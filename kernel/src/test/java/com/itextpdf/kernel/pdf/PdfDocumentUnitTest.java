@@ -33,6 +33,7 @@ import com.itextpdf.kernel.font.PdfType3Font;
 import com.itextpdf.kernel.pdf.filespec.PdfFileSpec;
 import com.itextpdf.kernel.pdf.layer.PdfLayer;
 import com.itextpdf.kernel.pdf.layer.PdfOCProperties;
+import com.itextpdf.kernel.pdf.tagging.StandardRoles;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.LogLevelConstants;
 import com.itextpdf.test.annotations.LogMessage;
@@ -448,4 +449,59 @@ public class PdfDocumentUnitTest extends ExtendedITextTest {
         Assert.assertEquals(KernelExceptionMessageConstant.CANNOT_SET_ENCRYPTED_PAYLOAD_TO_ENCRYPTED_DOCUMENT,
                 exception.getMessage());
     }
+
+    @Test
+    public void deferTagStructureLoadingTest() throws IOException {
+        byte[] bytes = createTaggedDocumentWithXmpMetadata();
+        ReaderProperties properties = new ReaderProperties().setDeferTagStructureLoading(true);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes), properties))) {
+            Assert.assertNull(pdfDoc.structTreeRoot);
+            Assert.assertNotNull(pdfDoc.getXmpMetadata());
+            Assert.assertNull(pdfDoc.structTreeRoot);
+
+            Assert.assertTrue(pdfDoc.isTagged());
+            Assert.assertNotNull(pdfDoc.structTreeRoot);
+            Assert.assertEquals(1, pdfDoc.getStructTreeRoot().getKids().size());
+        }
+    }
+
+    @Test
+    public void deferXmpMetadataLoadingTest() throws IOException {
+        byte[] bytes = createTaggedDocumentWithXmpMetadata();
+        byte[] expectedXmpMetadata;
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)))) {
+            expectedXmpMetadata = pdfDoc.getXmpMetadata();
+            Assert.assertNotNull(pdfDoc.structTreeRoot);
+        }
+
+        ReaderProperties properties = new ReaderProperties().setDeferXmpMetadataLoading(true);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes), properties))) {
+            Assert.assertNull(pdfDoc.xmpMetadata);
+            Assert.assertNotNull(pdfDoc.structTreeRoot);
+            Assert.assertArrayEquals(expectedXmpMetadata, pdfDoc.getXmpMetadata());
+        }
+    }
+
+    @Test
+    public void deferredLoadingIgnoredInStampingModeTest() throws IOException {
+        byte[] bytes = createTaggedDocumentWithXmpMetadata();
+        ReaderProperties properties = new ReaderProperties()
+                .setDeferTagStructureLoading(true)
+                .setDeferXmpMetadataLoading(true);
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes), properties),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+            Assert.assertNotNull(pdfDoc.structTreeRoot);
+            Assert.assertNotNull(pdfDoc.xmpMetadata);
+        }
+    }
+
+    private static byte[] createTaggedDocumentWithXmpMetadata() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos, new WriterProperties().addXmpMetadata()))) {
+            pdfDoc.setTagged();
+            pdfDoc.getTagStructureContext().getAutoTaggingPointer().addTag(StandardRoles.P);
+            pdfDoc.addNewPage();
+        }
+        return baos.toByteArray();
+    }
 }
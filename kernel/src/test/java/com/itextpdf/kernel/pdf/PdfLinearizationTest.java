@@ -0,0 +1,271 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.logs.KernelLogMessageConstant;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.LogMessage;
+import com.itextpdf.test.annotations.LogMessages;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfLinearizationTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/PdfLinearizationTest/";
+    private static final String DESTINATION_FOLDER = "./target/test/com/itextpdf/kernel/pdf/PdfLinearizationTest/";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createOrClearDestinationFolder(DESTINATION_FOLDER);
+    }
+
+    @Test
+    public void linearizationDictionaryTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "linearizationDictionary.pdf";
+        createDocument(dest, 5, new WriterProperties().setLinearizationMode(true));
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        PdfDictionary linearizationDictionary = getLinearizationDictionary(pdfDocument, readBytes(dest));
+
+        Assert.assertFalse(pdfDocument.getReader().hasRebuiltXref());
+        Assert.assertEquals(1, linearizationDictionary.getAsNumber(PdfName.Linearized).intValue());
+        Assert.assertEquals(new File(dest).length(), linearizationDictionary.getAsNumber(PdfName.L).longValue());
+        Assert.assertEquals(5, linearizationDictionary.getAsNumber(PdfName.N).intValue());
+        Assert.assertEquals(pdfDocument.getPage(1).getPdfObject().getIndirectReference().getObjNumber(),
+                linearizationDictionary.getAsNumber(PdfName.O).intValue());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void firstPageSectionTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "firstPageSection.pdf";
+        createDocument(dest, 5, new WriterProperties().setLinearizationMode(true));
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        PdfDictionary linearizationDictionary = getLinearizationDictionary(pdfDocument, readBytes(dest));
+        long firstPageEnd = linearizationDictionary.getAsNumber(PdfName.E).longValue();
+
+        PdfPage firstPage = pdfDocument.getPage(1);
+        Assert.assertTrue(firstPage.getPdfObject().getIndirectReference().getOffset() < firstPageEnd);
+        Assert.assertTrue(firstPage.getFirstContentStream().getIndirectReference().getOffset() < firstPageEnd);
+        PdfDictionary font = firstPage.getResources().getResource(PdfName.Font).getAsDictionary(new PdfName("F1"));
+        Assert.assertTrue(font.getIndirectReference().getOffset() < firstPageEnd);
+        for (int i = 2; i <= 5; i++) {
+            Assert.assertTrue(pdfDocument.getPage(i).getPdfObject().getIndirectReference().getOffset() >= firstPageEnd);
+        }
+        pdfDocument.close();
+    }
+
+    @Test
+    public void crossReferenceOffsetsTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "crossReferenceOffsets.pdf";
+        createDocument(dest, 7, new WriterProperties().setLinearizationMode(true));
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        String content = new String(readBytes(dest), StandardCharsets.ISO_8859_1);
+        for (int i = 1; i < pdfDocument.getNumberOfPdfObjects(); i++) {
+            PdfIndirectReference reference = pdfDocument.getPdfObject(i).getIndirectReference();
+            Assert.assertTrue(content.startsWith(i + " 0 obj", (int) reference.getOffset()));
+        }
+        pdfDocument.close();
+    }
+
+    @Test
+    public void primaryHintStreamTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "primaryHintStream.pdf";
+        createDocument(dest, 3, new WriterProperties().setLinearizationMode(true));
+        byte[] linearized = readBytes(dest);
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        PdfDictionary linearizationDictionary = getLinearizationDictionary(pdfDocument, linearized);
+        PdfArray hintStreamLocation = linearizationDictionary.getAsArray(PdfName.H);
+        int hintStreamOffset = hintStreamLocation.getAsNumber(0).intValue();
+        int hintStreamLength = hintStreamLocation.getAsNumber(1).intValue();
+
+        String hintStreamHeader = new String(linearized, hintStreamOffset, 20, StandardCharsets.ISO_8859_1);
+        int hintStreamNumber = Integer.parseInt(hintStreamHeader.substring(0, hintStreamHeader.indexOf(' ')));
+        PdfStream hintStream = (PdfStream) pdfDocument.getPdfObject(hintStreamNumber);
+        Assert.assertEquals(hintStreamOffset, hintStream.getIndirectReference().getOffset());
+        byte[] hintTables = hintStream.getBytes();
+        Assert.assertTrue(hintStream.getAsNumber(PdfName.S).intValue() < hintTables.length);
+
+        // The location of the first page object is written as if the hint stream were absent
+        long firstPageOffset = readUnsigned(hintTables, 4);
+        Assert.assertEquals(pdfDocument.getPage(1).getPdfObject().getIndirectReference().getOffset(),
+                firstPageOffset + hintStreamLength);
+        pdfDocument.close();
+    }
+
+    @Test
+    public void pageContentIsPreservedTest() throws IOException {
+        String regular = DESTINATION_FOLDER + "pageContentIsPreservedRegular.pdf";
+        String linearized = DESTINATION_FOLDER + "pageContentIsPreservedLinearized.pdf";
+        createDocument(regular, 4, new WriterProperties());
+        createDocument(linearized, 4, new WriterProperties().setLinearizationMode(true));
+        PdfDocument regularDocument = new PdfDocument(new PdfReader(regular));
+        PdfDocument linearizedDocument = new PdfDocument(new PdfReader(linearized));
+        Assert.assertEquals(regularDocument.getNumberOfPages(), linearizedDocument.getNumberOfPages());
+        for (int i = 1; i <= regularDocument.getNumberOfPages(); i++) {
+            Assert.assertArrayEquals(regularDocument.getPage(i).getContentBytes(),
+                    linearizedDocument.getPage(i).getContentBytes());
+        }
+        regularDocument.close();
+        linearizedDocument.close();
+    }
+
+    @Test
+    public void fullCompressionAndLinearizationTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "fullCompressionAndLinearization.pdf";
+        createDocument(dest, 3, new WriterProperties().setFullCompressionMode(true).setLinearizationMode(true));
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        Assert.assertNotNull(getLinearizationDictionary(pdfDocument, readBytes(dest)));
+        Assert.assertFalse(pdfDocument.getReader().hasRebuiltXref());
+        Assert.assertFalse(pdfDocument.getReader().hasXrefStm());
+        Assert.assertEquals(3, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void stampingModeLinearizationTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "stampingModeLinearization.pdf";
+        PdfDocument stamped = new PdfDocument(new PdfReader(SOURCE_FOLDER + "10PagesDocumentWithLeafs.pdf"),
+                new PdfWriter(dest, new WriterProperties().setLinearizationMode(true)));
+        stamped.close();
+
+        PdfDocument source = new PdfDocument(new PdfReader(SOURCE_FOLDER + "10PagesDocumentWithLeafs.pdf"));
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        PdfDictionary linearizationDictionary = getLinearizationDictionary(pdfDocument, readBytes(dest));
+        Assert.assertEquals(10, linearizationDictionary.getAsNumber(PdfName.N).intValue());
+        Assert.assertEquals(source.getNumberOfPages(), pdfDocument.getNumberOfPages());
+        for (int i = 1; i <= source.getNumberOfPages(); i++) {
+            Assert.assertArrayEquals(source.getPage(i).getContentBytes(), pdfDocument.getPage(i).getContentBytes());
+        }
+        source.close();
+        pdfDocument.close();
+    }
+
+    @Test
+    public void inheritedResourcesTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "inheritedResources.pdf";
+        PdfDocument stamped = new PdfDocument(new PdfReader(SOURCE_FOLDER + "inheritedResources.pdf"),
+                new PdfWriter(dest, new WriterProperties().setLinearizationMode(true)));
+        stamped.close();
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        PdfDictionary linearizationDictionary = getLinearizationDictionary(pdfDocument, readBytes(dest));
+        long firstPageEnd = linearizationDictionary.getAsNumber(PdfName.E).longValue();
+        PdfPage firstPage = pdfDocument.getPage(1);
+        Assert.assertFalse(firstPage.getPdfObject().containsKey(PdfName.Resources));
+
+        // the resources are inherited from the root page tree node and are needed to display the first page
+        PdfResources resources = firstPage.getResources();
+        Assert.assertTrue(resources.getPdfObject().getIndirectReference().getOffset() < firstPageEnd);
+        PdfDictionary font = resources.getResource(PdfName.Font).getAsDictionary(new PdfName("F1"));
+        Assert.assertTrue(font.getIndirectReference().getOffset() < firstPageEnd);
+        PdfStream image = resources.getResource(PdfName.XObject).getAsStream(new PdfName("Im1"));
+        Assert.assertTrue(image.getIndirectReference().getOffset() < firstPageEnd);
+        Assert.assertEquals(3, pdfDocument.getNumberOfPages());
+        pdfDocument.close();
+    }
+
+    @Test
+    @LogMessages(messages = @LogMessage(messageTemplate = KernelLogMessageConstant.LINEARIZATION_IS_NOT_SUPPORTED))
+    public void encryptedDocumentIsNotLinearizedTest() throws IOException {
+        WriterProperties properties = new WriterProperties().setLinearizationMode(true)
+                .setStandardEncryption(null, "owner".getBytes(StandardCharsets.ISO_8859_1),
+                        EncryptionConstants.ALLOW_PRINTING, EncryptionConstants.ENCRYPTION_AES_128);
+        String dest = DESTINATION_FOLDER + "encryptedDocumentIsNotLinearized.pdf";
+        createDocument(dest, 2, properties);
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest));
+        Assert.assertTrue(pdfDocument.getReader().isEncrypted());
+        Assert.assertEquals(2, pdfDocument.getNumberOfPages());
+        Assert.assertFalse(new String(readBytes(dest), StandardCharsets.ISO_8859_1).contains("/Linearized"));
+        pdfDocument.close();
+    }
+
+    private static void createDocument(String dest, int numberOfPages, WriterProperties properties)
+            throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(dest, properties));
+        pdfDocument.getDocumentInfo().setTitle("Linearization");
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        for (int i = 1; i <= numberOfPages; i++) {
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+            canvas.beginText().setFontAndSize(font, 12).moveText(36, 800).showText("Page " + i).endText();
+            canvas.release();
+        }
+        pdfDocument.close();
+    }
+
+    private static byte[] readBytes(String fileName) throws IOException {
+        return Files.readAllBytes(Paths.get(fileName));
+    }
+
+    private static PdfDictionary getLinearizationDictionary(PdfDocument pdfDocument, byte[] document) {
+        // The linearization dictionary is the first object in the file
+        String content = new String(document, StandardCharsets.ISO_8859_1);
+        int objectStart = content.indexOf('\n', content.indexOf('\n') + 1) + 1;
+        int number = Integer.parseInt(content.substring(objectStart, content.indexOf(' ', objectStart)));
+        PdfDictionary dictionary = (PdfDictionary) pdfDocument.getPdfObject(number);
+        Assert.assertTrue(dictionary.containsKey(PdfName.Linearized));
+        return dictionary;
+    }
+
+    private static long readUnsigned(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 4; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -46,6 +46,10 @@ import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.ITextTest;
 import com.itextpdf.test.annotations.type.UnitTest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -101,4 +105,63 @@ public class PdfNameTest extends ExtendedITextTest {
         Assert.assertEquals(Math.signum(oneToTwo), Math.signum(oneContentToTwo), delta);
     }
 
+    @Test
+    public void internReturnsCanonicalInstanceTest() {
+        PdfNameInternTable table = new PdfNameInternTable();
+        PdfName name = table.intern("Custom#20Name".getBytes(StandardCharsets.ISO_8859_1));
+
+        Assert.assertSame(name, table.intern("Custom#20Name".getBytes(StandardCharsets.ISO_8859_1)));
+        Assert.assertEquals(new PdfName("Custom Name"), name);
+        Assert.assertEquals("/Custom#20Name", name.toString());
+        Assert.assertEquals(1, table.size());
+    }
+
+    @Test
+    public void internStaticNameTest() {
+        PdfNameInternTable table = new PdfNameInternTable();
+
+        Assert.assertSame(PdfName.MediaBox, table.intern("MediaBox".getBytes(StandardCharsets.ISO_8859_1)));
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void internedNameCanBeIndirectTest() {
+        PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        PdfNameInternTable table = new PdfNameInternTable();
+        PdfName name = table.intern("AnotherCustomName".getBytes(StandardCharsets.ISO_8859_1));
+        name.makeIndirect(document);
+        PdfName nextName = table.intern("AnotherCustomName".getBytes(StandardCharsets.ISO_8859_1));
+
+        Assert.assertNotNull(name.getIndirectReference());
+        Assert.assertNotSame(name, nextName);
+        Assert.assertNull(nextName.getIndirectReference());
+        document.close();
+    }
+
+    @Test
+    public void readerReturnsInternedNamesTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos));
+        document.addNewPage().getPdfObject().put(new PdfName("PieceInfoKey"), new PdfName("PieceInfoValue"));
+        document.addNewPage().getPdfObject().put(new PdfName("PieceInfoKey"), new PdfName("PieceInfoValue"));
+        document.close();
+
+        PdfDocument readDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfName firstValue = readDocument.getPage(1).getPdfObject().getAsName(new PdfName("PieceInfoKey"));
+        PdfName secondValue = readDocument.getPage(2).getPdfObject().getAsName(new PdfName("PieceInfoKey"));
+        Assert.assertSame(PdfName.Page, readDocument.getPage(1).getPdfObject().getAsName(PdfName.Type));
+        readDocument.close();
+
+        Assert.assertEquals(new PdfName("PieceInfoValue"), firstValue);
+        Assert.assertSame(firstValue, secondValue);
+        // the names are not shared between documents, as they can be made indirect
+        Assert.assertNotSame(firstValue, readFirstPage(baos.toByteArray()).getAsName(new PdfName("PieceInfoKey")));
+    }
+
+    private static PdfDictionary readFirstPage(byte[] pdf) throws IOException {
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        PdfDictionary page = document.getFirstPage().getPdfObject();
+        document.close();
+        return page;
+    }
 }
@@ -24,6 +24,7 @@ package com.itextpdf.kernel.pdf;
 
 import com.itextpdf.io.source.ByteArrayOutputStream;
 import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.layer.PdfLayer;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.test.AssertUtil;
@@ -32,14 +33,117 @@ import com.itextpdf.test.annotations.type.UnitTest;
 
 import java.io.IOException;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 @Category(UnitTest.class)
 public class PdfPagesTreeTest extends ExtendedITextTest {
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/PdfPagesTreeTest/";
+    private static final String DESTINATION_FOLDER = "./target/test/com/itextpdf/kernel/pdf/PdfPagesTreeTest/";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createOrClearDestinationFolder(DESTINATION_FOLDER);
+    }
+
     @Test
     public void generateTreeDocHasNoPagesTest() {
         PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
         AssertUtil.doesNotThrow(() -> pdfDoc.close());
     }
+
+    @Test
+    public void lazyPageTreeRandomAccessTest() throws IOException {
+        // the width of the media box of every page is 100 plus the page number
+        PdfDocument pdfDoc = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "1000NumberedPages.pdf").setLazyPageTreeMode(true));
+        Assert.assertEquals(1000, pdfDoc.getNumberOfPages());
+        for (int pageNum : new int[] {777, 1, 1000, 500, 3, 778}) {
+            PdfPage page = pdfDoc.getPage(pageNum);
+            Assert.assertEquals(100 + pageNum, page.getMediaBox().getWidth(), 0);
+            Assert.assertEquals(pageNum, pdfDoc.getPageNumber(page));
+            Assert.assertEquals(pageNum, pdfDoc.getPageNumber(page.getPdfObject()));
+        }
+        pdfDoc.close();
+    }
+
+    @Test
+    public void lazyPageNumberOfRecreatedPageTest() throws IOException {
+        PdfDocument pdfDoc = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "1000NumberedPages.pdf").setLazyPageTreeMode(true));
+        // a page instance other than the one held by the tree, as after the tree's one has been collected
+        PdfPage page = new PdfPage(pdfDoc.getPage(613).getPdfObject());
+        Assert.assertEquals(613, pdfDoc.getPageNumber(page));
+        pdfDoc.close();
+    }
+
+    @Test
+    public void lazyPageTreeDoesNotReadSiblingPagesTest() throws IOException {
+        String src = SOURCE_FOLDER + "1000NumberedPages.pdf";
+        PdfDocument eagerDoc = new PdfDocument(new PdfReader(src));
+        int requestedPageObjNum = eagerDoc.getPage(55).getPdfObject().getIndirectReference().getObjNumber();
+        int siblingPageObjNum = eagerDoc.getPage(56).getPdfObject().getIndirectReference().getObjNumber();
+        eagerDoc.close();
+
+        PdfDocument lazyDoc = new PdfDocument(new PdfReader(src).setLazyPageTreeMode(true));
+        lazyDoc.getPage(55);
+        Assert.assertNotNull(lazyDoc.getXref().get(requestedPageObjNum).refersTo);
+        Assert.assertNull(lazyDoc.getXref().get(siblingPageObjNum).refersTo);
+        lazyDoc.close();
+
+        PdfDocument notLazyDoc = new PdfDocument(new PdfReader(src));
+        notLazyDoc.getPage(55);
+        Assert.assertNotNull(notLazyDoc.getXref().get(siblingPageObjNum).refersTo);
+        notLazyDoc.close();
+    }
+
+    @Test
+    public void lazyPageTreeModificationTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "lazyPageTreeModification.pdf";
+        PdfDocument pdfDoc = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "1000NumberedPages.pdf").setLazyPageTreeMode(true), new PdfWriter(dest));
+        PdfPage page = pdfDoc.getPage(25);
+        pdfDoc.removePage(10);
+        Assert.assertEquals(24, pdfDoc.getPageNumber(page));
+        pdfDoc.addNewPage(1, new PageSize(50, 200));
+        Assert.assertEquals(25, pdfDoc.getPageNumber(page));
+        Assert.assertEquals(125, pdfDoc.getPage(25).getMediaBox().getWidth(), 0);
+        pdfDoc.close();
+
+        PdfDocument resultDoc = new PdfDocument(new PdfReader(dest));
+        Assert.assertEquals(1000, resultDoc.getNumberOfPages());
+        Assert.assertEquals(50, resultDoc.getPage(1).getMediaBox().getWidth(), 0);
+        Assert.assertEquals(109, resultDoc.getPage(10).getMediaBox().getWidth(), 0);
+        Assert.assertEquals(111, resultDoc.getPage(11).getMediaBox().getWidth(), 0);
+        Assert.assertEquals(1100, resultDoc.getPage(1000).getMediaBox().getWidth(), 0);
+        resultDoc.close();
+    }
+
+    @Test
+    public void lazyPageTreeWithEmptyIntermediatePagesNodeTest() throws IOException {
+        // the root has as many kids as pages, but the kids are an empty pages node, a page and a pages node
+        // with two pages
+        for (boolean lazy : new boolean[] {true, false}) {
+            PdfDocument pdfDoc = new PdfDocument(new PdfReader(SOURCE_FOLDER + "emptyIntermediatePagesNode.pdf")
+                    .setLazyPageTreeMode(lazy));
+            Assert.assertEquals(3, pdfDoc.getNumberOfPages());
+            for (int pageNum : new int[] {2, 3, 1}) {
+                PdfPage page = pdfDoc.getPage(pageNum);
+                Assert.assertEquals(100 + pageNum, page.getMediaBox().getWidth(), 0);
+                Assert.assertEquals(pageNum, pdfDoc.getPageNumber(page.getPdfObject()));
+            }
+            pdfDoc.close();
+        }
+    }
+
+    @Test
+    public void lazyPageNumberWithEmptyIntermediatePagesNodeTest() throws IOException {
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(SOURCE_FOLDER + "emptyIntermediatePagesNode.pdf")
+                .setLazyPageTreeMode(true));
+        // the page dictionary is read directly, so its number is calculated from the /Parent chain
+        PdfDictionary lastPage = (PdfDictionary) pdfDoc.getPdfObject(7);
+        Assert.assertEquals(3, pdfDoc.getPageNumber(lastPage));
+        pdfDoc.close();
+    }
 }
@@ -53,6 +53,7 @@ import com.itextpdf.test.annotations.type.IntegrationTest;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -333,4 +334,84 @@ public class PdfReaderDecodeTest extends ExtendedITextTest {
             Assert.assertEquals(KernelExceptionMessageConstant.DURING_DECOMPRESSION_SINGLE_STREAM_OCCUPIED_MORE_MEMORY_THAN_ALLOWED, e.getMessage());
         }
     }
+
+    @Test
+    @LogMessages(messages = {
+            @LogMessage(messageTemplate = IoLogMessageConstant.INVALID_INDIRECT_REFERENCE),
+            @LogMessage(messageTemplate = IoLogMessageConstant.XREF_ERROR_WHILE_READING_TABLE_WILL_BE_REBUILT)
+    })
+    public void incrementallyDecodedStreamSingleTest() throws IOException {
+        MemoryLimitsAwareHandler handler = new MemoryLimitsAwareHandler();
+        handler.setMaxSizeOfSingleDecompressedPdfStream(1000);
+
+        try (PdfDocument pdfDocument = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "timing.pdf",
+                        new ReaderProperties().setMemoryLimitsAwareHandler(handler)),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+
+            PdfStream stream = pdfDocument.getFirstPage().getContentStream(0);
+
+            try (InputStream is = pdfDocument.getReader().readDecodedStream(stream)) {
+                Exception e = Assert.assertThrows(MemoryLimitsAwareException.class, () -> readFully(is));
+                Assert.assertEquals(KernelExceptionMessageConstant.DURING_DECOMPRESSION_SINGLE_STREAM_OCCUPIED_MORE_MEMORY_THAN_ALLOWED, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    @LogMessages(messages = {
+            @LogMessage(messageTemplate = IoLogMessageConstant.INVALID_INDIRECT_REFERENCE),
+            @LogMessage(messageTemplate = IoLogMessageConstant.XREF_ERROR_WHILE_READING_TABLE_WILL_BE_REBUILT)
+    })
+    public void incrementallyDecodedStreamSumTest() throws IOException {
+        MemoryLimitsAwareHandler handler = new MemoryLimitsAwareHandler();
+        handler.setMaxSizeOfDecompressedPdfStreamsSum(1500000);
+
+        try (PdfDocument pdfDocument = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "timing.pdf",
+                        new ReaderProperties().setMemoryLimitsAwareHandler(handler)),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+
+            PdfStream stream = pdfDocument.getFirstPage().getContentStream(0);
+
+            try (InputStream is = pdfDocument.getReader().readDecodedStream(stream)) {
+                Assert.assertEquals(1000000, readFully(is));
+            }
+            try (InputStream is = pdfDocument.getReader().readDecodedStream(stream)) {
+                Exception e = Assert.assertThrows(MemoryLimitsAwareException.class, () -> readFully(is));
+                Assert.assertEquals(KernelExceptionMessageConstant.DURING_DECOMPRESSION_MULTIPLE_STREAMS_IN_SUM_OCCUPIED_MORE_MEMORY_THAN_ALLOWED, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    @LogMessages(messages = {
+            @LogMessage(messageTemplate = IoLogMessageConstant.INVALID_INDIRECT_REFERENCE),
+            @LogMessage(messageTemplate = IoLogMessageConstant.XREF_ERROR_WHILE_READING_TABLE_WILL_BE_REBUILT)
+    })
+    public void pageContentInputStreamSingleTest() throws IOException {
+        MemoryLimitsAwareHandler handler = new MemoryLimitsAwareHandler();
+        handler.setMaxSizeOfSingleDecompressedPdfStream(1000);
+
+        try (PdfDocument pdfDocument = new PdfDocument(
+                new PdfReader(SOURCE_FOLDER + "timing.pdf",
+                        new ReaderProperties().setMemoryLimitsAwareHandler(handler)),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+
+            try (InputStream is = pdfDocument.getFirstPage().getContentInputStream()) {
+                Exception e = Assert.assertThrows(MemoryLimitsAwareException.class, () -> readFully(is));
+                Assert.assertEquals(KernelExceptionMessageConstant.DURING_DECOMPRESSION_SINGLE_STREAM_OCCUPIED_MORE_MEMORY_THAN_ALLOWED, e.getMessage());
+            }
+        }
+    }
+
+    private static int readFully(InputStream is) throws IOException {
+        byte[] buffer = new byte[4096];
+        int total = 0;
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            total += n;
+        }
+        return total;
+    }
 }
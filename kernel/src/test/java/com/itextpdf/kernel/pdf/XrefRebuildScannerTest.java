@@ -0,0 +1,176 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class XrefRebuildScannerTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/XrefRebuildScannerTest/";
+
+    private static final int[] CHUNK_SIZES = {1, 2, 3, 5, 8, 13, 24, 64, 1000, XrefRebuildScanner.DEFAULT_CHUNK_SIZE};
+
+    @Test
+    public void onlyTrailerTest() throws IOException {
+        compareWithSequentialRebuild(readFile(SOURCE_FOLDER + "OnlyTrailer.pdf"));
+    }
+
+    @Test
+    public void correctSimpleDocTest() throws IOException {
+        compareWithSequentialRebuild(readFile(SOURCE_FOLDER + "correctSimpleDoc3.pdf"));
+    }
+
+    @Test
+    public void xrefWithBreaksTest() throws IOException {
+        compareWithSequentialRebuild(readFile(SOURCE_FOLDER + "XRefWithBreaks.pdf"));
+    }
+
+    @Test
+    public void noXrefAndTrailerWithInfoTest() throws IOException {
+        compareWithSequentialRebuild(readFile(SOURCE_FOLDER + "noXrefAndTrailerWithInfo.pdf"));
+    }
+
+    @Test
+    public void appendedDocumentTest() throws IOException {
+        compareWithSequentialRebuild(readFile(SOURCE_FOLDER + "10PagesDocumentAppendedIncorrectXRefSize.pdf"));
+    }
+
+    @Test
+    public void mixedLineEndingsTest() throws IOException {
+        String content = "%PDF-1.4\n"
+                + "1 0 obj\n<</Type/Catalog/Pages 2 0 R>>\nendobj\r"
+                + "2 0 obj\r\n<</Type/Pages/Kids[3 0 R]/Count 1>>endobj\n\n\n"
+                + "   \t 3  0\t\t obj <</Type/Page/Parent 2 0 R/MediaBox[0 0 10 10]>>\nendobj\n"
+                + "\0\0 4 0 obj (first)\nendobj \r\r\n"
+                + "trailer\n<</Size 5>>\n"
+                + "some text 5 0 obj (not an object header)\n"
+                + "4 0 obj (second)\nendobj\n"
+                + "6 0 obj                                         (long line)\nendobj\r"
+                + "trailer\r\n<</Size 7/Root 1 0 R>>\nstartxref\n0\n%%EOF";
+        compareWithSequentialRebuild(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void longLinesTest() throws IOException {
+        StringBuilder filler = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            filler.append("0123456789 ");
+        }
+        String content = "%PDF-1.4\n"
+                + "1 0 obj <</Type/Catalog/Pages 2 0 R>> endobj " + filler + "3 0 obj (not a header)\n"
+                + "2 0 obj <</Type/Pages/Kids[3 0 R]/Count 1>> endobj 4 0 obj (not a header either)\n"
+                + "012345678901234567890123 5 0 obj (not a header)\n"
+                + "1234567890123456789012 0 obj " + filler + "\r\n"
+                + "3                         0                 obj " + filler + "\r"
+                + "   \t  6 0 obj" + filler + filler + "\n"
+                + "trailer " + filler + "\n"
+                + filler + "trailer <</Size 7>>\n"
+                + "trailer\n<</Size 7/Root 1 0 R>>\nstartxref\n0\n%%EOF";
+        compareWithSequentialRebuild(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void generatedDocumentTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos));
+        for (int i = 0; i < 10; i++) {
+            pdfDocument.addNewPage();
+        }
+        pdfDocument.close();
+        String content = new String(baos.toByteArray(), StandardCharsets.ISO_8859_1);
+        // break the cross-reference table
+        content = content.substring(0, content.lastIndexOf("startxref")) + "startxref\n12345\n%%EOF";
+        compareWithSequentialRebuild(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void emptySourceTest() throws IOException {
+        XrefRebuildScanner scanner = new XrefRebuildScanner(
+                new RandomAccessSourceFactory().createSource(new byte[0]), 16, 4);
+        scanner.scan();
+        Assert.assertEquals(0, scanner.getObjectHeadersCount());
+        Assert.assertEquals(0, scanner.getTrailerOffsets().length);
+    }
+
+    private static void compareWithSequentialRebuild(byte[] bytes) throws IOException {
+        PdfDocument sequentialDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)));
+        sequentialDocument.getReader().rebuildXref();
+        String expectedXref = xrefToString(sequentialDocument);
+        String expectedTrailer = sequentialDocument.getReader().trailer.toString();
+        Assert.assertTrue(sequentialDocument.getXref().size() > 1);
+
+        for (int chunkSize : CHUNK_SIZES) {
+            PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)));
+            PdfReader reader = pdfDocument.getReader();
+            reader.rebuildXref(new XrefRebuildScanner(reader.tokens.getSafeFile().createSourceView(), chunkSize, 4));
+            Assert.assertEquals("Chunk size " + chunkSize, expectedXref, xrefToString(pdfDocument));
+            Assert.assertEquals("Chunk size " + chunkSize, expectedTrailer, reader.trailer.toString());
+            Assert.assertTrue(reader.hasRebuiltXref());
+        }
+    }
+
+    private static String xrefToString(PdfDocument pdfDocument) {
+        StringBuilder sb = new StringBuilder();
+        PdfXrefTable xref = pdfDocument.getXref();
+        for (int i = 0; i < xref.size(); i++) {
+            PdfIndirectReference reference = xref.get(i);
+            if (reference != null) {
+                sb.append(reference.getObjNumber()).append(' ').append(reference.getGenNumber())
+                        .append(' ').append(reference.getOffset()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.kernel.geom.Path;
+import com.itextpdf.kernel.geom.Point;
+import com.itextpdf.kernel.geom.Subpath;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.ConvexClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.DefaultClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipperFactory;
+import com.itextpdf.kernel.pdf.canvas.parser.data.ClippingPathInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.PerformanceTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(PerformanceTest.class)
+public class ClipperBenchmarkTest extends ExtendedITextTest {
+
+    private static final int WARM_UP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 50;
+
+    private static final IClipperFactory DEFAULT_CLIPPER_FACTORY = () -> new DefaultClipper();
+
+    private static final IClipperFactory CONVEX_CLIPPER_FACTORY = () -> new ConvexClipper();
+
+    @Test
+    public void nestedRectangularClipsTest() throws IOException {
+        benchmark("nested rectangles", createNestedClipsContent(false));
+    }
+
+    @Test
+    public void nestedRotatedClipsTest() throws IOException {
+        benchmark("nested rotated rectangles", createNestedClipsContent(true));
+    }
+
+    private static void benchmark(String name, byte[] content) throws IOException {
+        PdfDocument pdfDocument = createDocument(content);
+        PdfPage page = pdfDocument.getFirstPage();
+
+        List<double[]> expected = processPage(page, DEFAULT_CLIPPER_FACTORY);
+        List<double[]> actual = processPage(page, CONVEX_CLIPPER_FACTORY);
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(expected.get(i), actual.get(i), 1e-4);
+        }
+
+        for (int iteration = 0; iteration < WARM_UP_ITERATIONS; iteration++) {
+            processPage(page, DEFAULT_CLIPPER_FACTORY);
+            processPage(page, CONVEX_CLIPPER_FACTORY);
+        }
+        long defaultTime = 0;
+        long convexTime = 0;
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            long start = System.nanoTime();
+            processPage(page, DEFAULT_CLIPPER_FACTORY);
+            defaultTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            processPage(page, CONVEX_CLIPPER_FACTORY);
+            convexTime += System.nanoTime() - start;
+        }
+        pdfDocument.close();
+        System.out.println(name + ": " + expected.size() + " clipping paths, default clipper "
+                + defaultTime / ITERATIONS / 1000 + " us, convex clipper " + convexTime / ITERATIONS / 1000 + " us");
+    }
+
+    private static byte[] createNestedClipsContent(boolean rotated) {
+        StringBuilder content = new StringBuilder();
+        for (int group = 0; group < 50; group++) {
+            float x = 20 + (group % 10) * 55;
+            float y = 20 + (group / 10) * 150;
+            for (int depth = 0; depth < 20; depth++) {
+                content.append("q\n");
+                if (rotated && depth % 5 == 4) {
+                    content.append("0.9998 0.0175 -0.0175 0.9998 0 0 cm\n");
+                }
+                float inset = depth * 1.3f;
+                content.append(x + inset).append(' ').append(y + inset).append(' ')
+                        .append(50 - inset * 1.5f).append(' ').append(140 - inset * 1.7f).append(" re W n\n");
+                content.append(x).append(' ').append(y).append(" m ")
+                        .append(x + 50).append(' ').append(y + 140).append(" l S\n");
+            }
+            for (int depth = 0; depth < 20; depth++) {
+                content.append("Q\n");
+            }
+        }
+        return content.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static PdfDocument createDocument(byte[] content) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos));
+        pdfDocument.addNewPage().getFirstContentStream().setData(content);
+        pdfDocument.close();
+        return new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+    }
+
+    private static List<double[]> processPage(PdfPage page, IClipperFactory clipperFactory) {
+        ClippingPathListener listener = new ClippingPathListener();
+        new PdfCanvasProcessor(listener).setClipperFactory(clipperFactory).processPageContent(page);
+        return listener.clippingPaths;
+    }
+
+    /**
+     * Describes every clipping path by the number of subpaths, the bounding box and the area.
+     */
+    private static class ClippingPathListener implements IEventListener {
+        private final List<double[]> clippingPaths = new ArrayList<>();
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            Path path = ((ClippingPathInfo) data).getClippingPath();
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            double area = 0;
+            for (Subpath subpath : path.getSubpaths()) {
+                List<Point> points = subpath.getPiecewiseLinearApproximation();
+                for (int i = 0, j = points.size() - 1; i < points.size(); j = i++) {
+                    Point point = points.get(i);
+                    minX = Math.min(minX, point.getX());
+                    minY = Math.min(minY, point.getY());
+                    maxX = Math.max(maxX, point.getX());
+                    maxY = Math.max(maxY, point.getY());
+                    area += points.get(j).getX() * point.getY() - point.getX() * points.get(j).getY();
+                }
+            }
+            clippingPaths.add(new double[] {path.getSubpaths().size(), minX, minY, maxX, maxY, Math.abs(area) / 2});
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return Collections.singleton(EventType.CLIP_PATH_CHANGED);
+        }
+    }
+}
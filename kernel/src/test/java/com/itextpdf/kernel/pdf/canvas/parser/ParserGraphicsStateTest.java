@@ -0,0 +1,229 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.kernel.geom.IShape;
+import com.itextpdf.kernel.geom.Matrix;
+import com.itextpdf.kernel.geom.Path;
+import com.itextpdf.kernel.geom.Point;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.geom.Subpath;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants.FillingRule;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.DefaultClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.PolyTree;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class ParserGraphicsStateTest extends ExtendedITextTest {
+
+    @Test
+    public void copySharesClippingPathTest() {
+        ParserGraphicsState source = createStateWithClippingPath();
+        ParserGraphicsState copy = new ParserGraphicsState(source);
+        Assert.assertSame(source.getClippingPath(), copy.getClippingPath());
+    }
+
+    @Test
+    public void copyWithoutClippingPathTest() {
+        ParserGraphicsState copy = new ParserGraphicsState(new ParserGraphicsState());
+        Assert.assertNull(copy.getClippingPath());
+    }
+
+    @Test
+    public void clipOnCopyDoesNotAffectSourceTest() {
+        ParserGraphicsState source = createStateWithClippingPath();
+        Path sourcePath = source.getClippingPath();
+        ParserGraphicsState copy = new ParserGraphicsState(source);
+
+        Path clip = new Path();
+        clip.rectangle(new Rectangle(0, 0, 50, 50));
+        copy.clip(clip, FillingRule.NONZERO_WINDING);
+
+        Assert.assertNotSame(sourcePath, copy.getClippingPath());
+        Assert.assertSame(sourcePath, source.getClippingPath());
+        assertBounds(source.getClippingPath(), 0, 0, 100, 200);
+        assertBounds(copy.getClippingPath(), 0, 0, 50, 50);
+    }
+
+    @Test
+    public void updateCtmOnCopyDoesNotAffectSourceTest() {
+        ParserGraphicsState source = createStateWithClippingPath();
+        Path sourcePath = source.getClippingPath();
+        ParserGraphicsState copy = new ParserGraphicsState(source);
+
+        copy.updateCtm(new Matrix(2, 0, 0, 2, 0, 0));
+
+        Assert.assertNotSame(sourcePath, copy.getClippingPath());
+        Assert.assertSame(sourcePath, source.getClippingPath());
+        assertBounds(source.getClippingPath(), 0, 0, 100, 200);
+    }
+
+    @Test
+    public void setClippingPathOnCopyDoesNotAffectSourceTest() {
+        ParserGraphicsState source = createStateWithClippingPath();
+        ParserGraphicsState copy = new ParserGraphicsState(source);
+
+        Path newPath = new Path();
+        newPath.rectangle(new Rectangle(10, 10, 20, 20));
+        copy.setClippingPath(newPath);
+
+        assertBounds(source.getClippingPath(), 0, 0, 100, 200);
+        assertBounds(copy.getClippingPath(), 10, 10, 30, 30);
+    }
+
+    @Test
+    public void clipIsAppliedWhenClippingPathIsRequestedTest() {
+        ParserGraphicsState state = createStateWithClippingPath();
+        CountingClipper clipper = new CountingClipper();
+
+        Path clip = new Path();
+        clip.rectangle(new Rectangle(0, 0, 50, 50));
+        state.clip(clip, FillingRule.NONZERO_WINDING, clipper);
+        Assert.assertEquals(0, clipper.executions);
+
+        assertBounds(state.getClippingPath(), 0, 0, 50, 50);
+        Assert.assertEquals(1, clipper.executions);
+        state.getClippingPath();
+        Assert.assertEquals(1, clipper.executions);
+    }
+
+    @Test
+    public void pendingClipIsAppliedToSourceAndCopyTest() {
+        ParserGraphicsState source = createStateWithClippingPath();
+        Path clip = new Path();
+        clip.rectangle(new Rectangle(0, 0, 50, 50));
+        source.clip(clip, FillingRule.NONZERO_WINDING);
+        ParserGraphicsState copy = new ParserGraphicsState(source);
+
+        assertBounds(source.getClippingPath(), 0, 0, 50, 50);
+        assertBounds(copy.getClippingPath(), 0, 0, 50, 50);
+    }
+
+    @Test
+    public void pendingClipIsTransformedWithClippingPathTest() {
+        Path clip = new Path();
+        clip.rectangle(new Rectangle(10, 20, 50, 50));
+        Matrix ctm = new Matrix(2, 0, 0, 2, 5, 5);
+
+        ParserGraphicsState eager = createStateWithClippingPath();
+        eager.clip(clip, FillingRule.NONZERO_WINDING);
+        eager.getClippingPath();
+        eager.updateCtm(ctm);
+
+        ParserGraphicsState lazy = createStateWithClippingPath();
+        lazy.clip(clip, FillingRule.NONZERO_WINDING);
+        lazy.updateCtm(ctm);
+
+        Path expected = eager.getClippingPath();
+        Rectangle expectedBounds = getBounds(expected);
+        assertBounds(lazy.getClippingPath(), expectedBounds.getLeft(), expectedBounds.getBottom(),
+                expectedBounds.getRight(), expectedBounds.getTop());
+    }
+
+    @Test
+    public void setClippingPathDiscardsPendingClipTest() {
+        ParserGraphicsState state = createStateWithClippingPath();
+        CountingClipper clipper = new CountingClipper();
+        Path clip = new Path();
+        clip.rectangle(new Rectangle(0, 0, 50, 50));
+        state.clip(clip, FillingRule.NONZERO_WINDING, clipper);
+
+        Path newPath = new Path();
+        newPath.rectangle(new Rectangle(10, 10, 20, 20));
+        state.setClippingPath(newPath);
+
+        assertBounds(state.getClippingPath(), 10, 10, 30, 30);
+        Assert.assertEquals(0, clipper.executions);
+    }
+
+    private static ParserGraphicsState createStateWithClippingPath() {
+        ParserGraphicsState state = new ParserGraphicsState();
+        Path path = new Path();
+        path.rectangle(new Rectangle(0, 0, 100, 200));
+        state.setClippingPath(path);
+        return state;
+    }
+
+    private static void assertBounds(Path path, double minX, double minY, double maxX, double maxY) {
+        Rectangle bounds = getBounds(path);
+        Assert.assertEquals(minX, bounds.getLeft(), 1e-4);
+        Assert.assertEquals(minY, bounds.getBottom(), 1e-4);
+        Assert.assertEquals(maxX, bounds.getRight(), 1e-4);
+        Assert.assertEquals(maxY, bounds.getTop(), 1e-4);
+    }
+
+    private static Rectangle getBounds(Path path) {
+        double actualMinX = Double.MAX_VALUE;
+        double actualMinY = Double.MAX_VALUE;
+        double actualMaxX = -Double.MAX_VALUE;
+        double actualMaxY = -Double.MAX_VALUE;
+        for (Subpath subpath : path.getSubpaths()) {
+            for (IShape segment : subpath.getSegments()) {
+                for (Point point : segment.getBasePoints()) {
+                    actualMinX = Math.min(actualMinX, point.getX());
+                    actualMinY = Math.min(actualMinY, point.getY());
+                    actualMaxX = Math.max(actualMaxX, point.getX());
+                    actualMaxY = Math.max(actualMaxY, point.getY());
+                }
+            }
+        }
+        return new Rectangle((float) actualMinX, (float) actualMinY, (float) (actualMaxX - actualMinX),
+                (float) (actualMaxY - actualMinY));
+    }
+
+    private static class CountingClipper extends DefaultClipper {
+        private int executions;
+
+        @Override
+        public boolean execute(ClipType clipType, PolyTree polytree, PolyFillType subjFillType,
+                PolyFillType clipFillType) {
+            executions++;
+            return super.execute(clipType, polytree, subjFillType, clipFillType);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.LineSegment;
+import com.itextpdf.kernel.geom.Point;
+import com.itextpdf.kernel.geom.Subpath;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.DefaultClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipperFactory;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.PolyTree;
+import com.itextpdf.kernel.pdf.canvas.parser.data.ClippingPathInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.PathRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfCanvasProcessorEventFilteringTest extends ExtendedITextTest {
+
+    private static final String sourceFolder =
+            "./src/test/resources/com/itextpdf/kernel/parser/PdfCanvasProcessorEventFilteringTest/";
+
+    @Test
+    public void textOnlyListenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.RENDER_TEXT));
+        PdfCanvasProcessor processor = new RecordingProcessor(listener);
+        process(processor);
+
+        Set<EventType> createdEvents = ((RecordingProcessor) processor).createdEvents;
+        Assert.assertTrue(createdEvents.contains(EventType.RENDER_TEXT));
+        Assert.assertFalse(createdEvents.contains(EventType.RENDER_PATH));
+        Assert.assertFalse(createdEvents.contains(EventType.CLIP_PATH_CHANGED));
+        Assert.assertEquals(2, listener.textInfos.size());
+        // clipping is tracked, since the graphics state is reachable from the text render info
+        Assert.assertNotNull(processor.getGraphicsState().getClippingPath());
+    }
+
+    @Test
+    public void textOnlyListenerDoesNotIntersectClippingPathTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.RENDER_TEXT));
+        final int[] executions = new int[1];
+        PdfCanvasProcessor processor = new PdfCanvasProcessor(listener).setClipperFactory(new IClipperFactory() {
+            @Override
+            public IClipper createClipper() {
+                return new DefaultClipper() {
+                    @Override
+                    public boolean execute(ClipType clipType, PolyTree polytree, PolyFillType subjFillType,
+                            PolyFillType clipFillType) {
+                        executions[0]++;
+                        return super.execute(clipType, polytree, subjFillType, clipFillType);
+                    }
+                };
+            }
+        });
+        process(processor);
+
+        Assert.assertEquals(2, listener.textInfos.size());
+        // the clip is recorded, but the listener never requests the clipping path
+        Assert.assertEquals(0, executions[0]);
+    }
+
+    @Test
+    public void textMarkersOnlyListenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.BEGIN_TEXT, EventType.END_TEXT));
+        RecordingProcessor processor = new RecordingProcessor(listener);
+        process(processor);
+
+        Assert.assertEquals(EnumSet.of(EventType.BEGIN_TEXT, EventType.END_TEXT), processor.createdEvents);
+        // the listener never sees the graphics state, so clipping is not tracked
+        Assert.assertNull(processor.getGraphicsState().getClippingPath());
+    }
+
+    @Test
+    public void pathOnlyListenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.RENDER_PATH));
+        RecordingProcessor processor = new RecordingProcessor(listener);
+        process(processor);
+
+        Assert.assertEquals(Collections.singleton(EventType.RENDER_PATH), processor.createdEvents);
+        Assert.assertEquals(4, listener.pathInfos.size());
+        Assert.assertTrue(listener.pathInfos.get(2).isPathModifiesClippingPath());
+        Assert.assertEquals(PathRenderInfo.NO_OP, listener.pathInfos.get(2).getOperation());
+    }
+
+    @Test
+    public void clipOnlyListenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.CLIP_PATH_CHANGED));
+        RecordingProcessor processor = new RecordingProcessor(listener);
+        process(processor);
+
+        Assert.assertEquals(Collections.singleton(EventType.CLIP_PATH_CHANGED), processor.createdEvents);
+        // lower left corners of the page crop box, the clipped rectangle and the restored crop box
+        Assert.assertEquals(3, listener.clipPathCorners.size());
+        Assert.assertEquals(new Point(0, 0), listener.clipPathCorners.get(0));
+        Assert.assertEquals(new Point(50, 50), listener.clipPathCorners.get(1));
+        Assert.assertEquals(new Point(0, 0), listener.clipPathCorners.get(2));
+    }
+
+    @Test
+    public void allEventsListenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener(null);
+        RecordingProcessor processor = new RecordingProcessor(listener);
+        process(processor);
+
+        Assert.assertEquals(EnumSet.of(EventType.RENDER_TEXT, EventType.RENDER_PATH, EventType.CLIP_PATH_CHANGED,
+                EventType.BEGIN_TEXT, EventType.END_TEXT), processor.createdEvents);
+        Assert.assertEquals(2, listener.textInfos.size());
+        Assert.assertEquals(4, listener.pathInfos.size());
+        Assert.assertEquals(3, listener.clipPathCorners.size());
+    }
+
+    @Test
+    public void compositeFontTextWidthTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.RENDER_TEXT));
+        process(new PdfCanvasProcessor(listener));
+
+        TextRenderInfo first = listener.textInfos.get(0);
+        TextRenderInfo second = listener.textInfos.get(1);
+        float charactersWidth = 0;
+        for (TextRenderInfo characterInfo : first.getCharacterRenderInfos()) {
+            charactersWidth += characterInfo.getUnscaledWidth();
+        }
+        Assert.assertEquals(charactersWidth, first.getUnscaledWidth(), 1e-3);
+
+        PdfFont font = first.getFont();
+        // word spacing is not applied to two-byte codes
+        float expectedWidth = (font.getWidth("Hello world", 12) + 11 * 1) * 0.8f;
+        Assert.assertEquals(expectedWidth, first.getUnscaledWidth(), 1e-3);
+        // the second string continues where the first one ends
+        Assert.assertEquals(first.getBaseline().getStartPoint().get(0) + expectedWidth,
+                second.getBaseline().getStartPoint().get(0), 1e-3);
+    }
+
+    @Test
+    public void baselineOfPreservedInfoTest() throws IOException {
+        RecordingListener listener = new RecordingListener(EnumSet.of(EventType.RENDER_TEXT));
+        process(new PdfCanvasProcessor(listener));
+
+        LineSegment baseline = listener.textInfos.get(0).getBaseline();
+        Assert.assertEquals(100, baseline.getStartPoint().get(0), 1e-3);
+        Assert.assertEquals(700, baseline.getStartPoint().get(1), 1e-3);
+    }
+
+    @Test
+    public void releasedInfoTest() throws IOException {
+        final List<TextRenderInfo> infos = new ArrayList<>();
+        IEventListener listener = new IEventListener() {
+            @Override
+            public void eventOccurred(IEventData data, EventType type) {
+                infos.add((TextRenderInfo) data);
+            }
+
+            @Override
+            public Set<EventType> getSupportedEvents() {
+                return Collections.singleton(EventType.RENDER_TEXT);
+            }
+        };
+        process(new PdfCanvasProcessor(listener));
+
+        Assert.assertThrows(IllegalStateException.class, () -> infos.get(0).getBaseline());
+        Assert.assertTrue(infos.get(0).getCanvasTagHierarchy().isEmpty());
+    }
+
+    private static void process(PdfCanvasProcessor processor) throws IOException {
+        // four paths, one of them modifies the clipping path, and two strings shown with a composite font
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder + "pathsClippingAndText.pdf"))) {
+            processor.processPageContent(pdfDocument.getFirstPage());
+        }
+    }
+
+    private static class RecordingListener implements IEventListener {
+        private final Set<EventType> supportedEvents;
+        private final List<TextRenderInfo> textInfos = new ArrayList<>();
+        private final List<PathRenderInfo> pathInfos = new ArrayList<>();
+        private final List<Point> clipPathCorners = new ArrayList<>();
+
+        RecordingListener(Set<EventType> supportedEvents) {
+            this.supportedEvents = supportedEvents;
+        }
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (data instanceof TextRenderInfo) {
+                ((TextRenderInfo) data).preserveGraphicsState();
+                textInfos.add((TextRenderInfo) data);
+            } else if (data instanceof PathRenderInfo) {
+                pathInfos.add((PathRenderInfo) data);
+            } else if (data instanceof ClippingPathInfo) {
+                double minX = Double.MAX_VALUE;
+                double minY = Double.MAX_VALUE;
+                for (Subpath subpath : ((ClippingPathInfo) data).getClippingPath().getSubpaths()) {
+                    for (Point point : subpath.getPiecewiseLinearApproximation()) {
+                        minX = Math.min(minX, point.getX());
+                        minY = Math.min(minY, point.getY());
+                    }
+                }
+                clipPathCorners.add(new Point(minX, minY));
+            }
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return supportedEvents;
+        }
+    }
+
+    private static class RecordingProcessor extends PdfCanvasProcessor {
+        private final Set<EventType> createdEvents = new HashSet<>();
+
+        RecordingProcessor(IEventListener eventListener) {
+            super(eventListener);
+        }
+
+        @Override
+        protected void eventOccurred(IEventData data, EventType type) {
+            createdEvents.add(type);
+            super.eventOccurred(data, type);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfCanvasProcessorFontCacheTest extends ExtendedITextTest {
+
+    private static final String sourceFolder =
+            "./src/test/resources/com/itextpdf/kernel/parser/PdfCanvasProcessorFontCacheTest/";
+
+    // both pages show text with the same indirect Helvetica font dictionary /F1
+    private static final String TWO_PAGES = sourceFolder + "twoPagesWithSameFont.pdf";
+
+    @Test
+    public void fontIsSharedBetweenProcessorsTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(TWO_PAGES))) {
+            FontRecordingListener firstListener = new FontRecordingListener();
+            new PdfCanvasProcessor(firstListener).processPageContent(pdfDocument.getPage(1));
+            FontRecordingListener secondListener = new FontRecordingListener();
+            new PdfCanvasProcessor(secondListener).processPageContent(pdfDocument.getPage(2));
+
+            Assert.assertEquals(1, firstListener.fonts.size());
+            Assert.assertEquals(1, secondListener.fonts.size());
+            Assert.assertSame(firstListener.fonts.get(0), secondListener.fonts.get(0));
+
+            Assert.assertSame(firstListener.fonts.get(0), pdfDocument.getCachedFont(getFontDictionary(pdfDocument)));
+        }
+    }
+
+    @Test
+    public void directFontDictionaryIsNotCachedTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            PdfDictionary fontDictionary = createFontDictionary();
+            Assert.assertNull(fontDictionary.getIndirectReference());
+            Assert.assertNotSame(pdfDocument.getCachedFont(fontDictionary), pdfDocument.getCachedFont(fontDictionary));
+        }
+    }
+
+    @Test
+    public void changedFontDictionaryTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            PdfDictionary fontDictionary = createFontDictionary();
+            fontDictionary.makeIndirect(pdfDocument);
+            PdfFont font = pdfDocument.getCachedFont(fontDictionary);
+            Assert.assertSame(font, pdfDocument.getCachedFont(fontDictionary));
+
+            fontDictionary.put(PdfName.Encoding, PdfName.MacRomanEncoding);
+            PdfFont changedFont = pdfDocument.getCachedFont(fontDictionary);
+            Assert.assertNotSame(font, changedFont);
+            Assert.assertSame(changedFont, pdfDocument.getCachedFont(fontDictionary));
+
+            fontDictionary.remove(PdfName.Encoding);
+            Assert.assertNotSame(changedFont, pdfDocument.getCachedFont(fontDictionary));
+        }
+    }
+
+    @Test
+    public void releasedFontDictionaryTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(TWO_PAGES))) {
+            PdfDictionary fontDictionary = getFontDictionary(pdfDocument);
+            PdfFont font = pdfDocument.getCachedFont(fontDictionary);
+            fontDictionary.release();
+
+            PdfDictionary rereadFontDictionary = getFontDictionary(pdfDocument);
+            Assert.assertNotSame(fontDictionary, rereadFontDictionary);
+            Assert.assertNotSame(font, pdfDocument.getCachedFont(rereadFontDictionary));
+        }
+    }
+
+    @Test
+    public void fontDictionaryMarkedAsModifiedTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(TWO_PAGES),
+                new PdfWriter(new ByteArrayOutputStream()), new StampingProperties().useAppendMode())) {
+            PdfDictionary fontDictionary = getFontDictionary(pdfDocument);
+            PdfFont font = pdfDocument.getCachedFont(fontDictionary);
+            // values changed in place are only noticed when the dictionary is marked as modified
+            fontDictionary.setModified();
+            Assert.assertNotSame(font, pdfDocument.getCachedFont(fontDictionary));
+        }
+    }
+
+    private static PdfDictionary getFontDictionary(PdfDocument pdfDocument) {
+        return pdfDocument.getPage(1).getResources().getResource(PdfName.Font).getAsDictionary(new PdfName("F1"));
+    }
+
+    private static PdfDictionary createFontDictionary() {
+        PdfDictionary fontDictionary = new PdfDictionary();
+        fontDictionary.put(PdfName.Type, PdfName.Font);
+        fontDictionary.put(PdfName.Subtype, PdfName.Type1);
+        fontDictionary.put(PdfName.BaseFont, new PdfName(StandardFonts.HELVETICA));
+        fontDictionary.put(PdfName.Encoding, PdfName.WinAnsiEncoding);
+        return fontDictionary;
+    }
+
+    private static class FontRecordingListener implements IEventListener {
+        private final List<PdfFont> fonts = new ArrayList<>();
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (type == EventType.RENDER_TEXT) {
+                fonts.add(((TextRenderInfo) data).getFont());
+            }
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return null;
+        }
+    }
+}
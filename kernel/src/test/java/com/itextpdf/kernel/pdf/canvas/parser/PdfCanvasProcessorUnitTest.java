@@ -25,6 +25,7 @@ package com.itextpdf.kernel.pdf.canvas.parser;
 import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfResources;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.FilteredEventListener;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.UnitTest;
@@ -32,6 +33,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 @Category(UnitTest.class)
@@ -49,4 +51,34 @@ public class PdfCanvasProcessorUnitTest extends ExtendedITextTest {
         processor.registerContentOperator("BMC", contentOperator);
         contentOperator.invoke(processor, null, Collections.singletonList((PdfObject) null));
     }
+
+    @Test
+    public void savedGraphicsStateIsCopiedOnChangeTest() {
+        PdfCanvasProcessor processor = new PdfCanvasProcessor(new FilteredEventListener());
+        ParserGraphicsState initial = processor.getGraphicsState();
+
+        processor.processContent("q 5 w".getBytes(StandardCharsets.ISO_8859_1), new PdfResources());
+        Assert.assertNotSame(initial, processor.getGraphicsState());
+        Assert.assertEquals(5, processor.getGraphicsState().getLineWidth(), 0);
+        Assert.assertEquals(1, initial.getLineWidth(), 0);
+
+        processor.processContent("Q".getBytes(StandardCharsets.ISO_8859_1), new PdfResources());
+        Assert.assertSame(initial, processor.getGraphicsState());
+    }
+
+    @Test
+    public void savedGraphicsStateIsNotReturnedForModificationTest() {
+        PdfCanvasProcessor processor = new PdfCanvasProcessor(new FilteredEventListener());
+        ParserGraphicsState initial = processor.getGraphicsState();
+
+        processor.processContent("q".getBytes(StandardCharsets.ISO_8859_1), new PdfResources());
+        ParserGraphicsState current = processor.getGraphicsState();
+        Assert.assertNotSame(initial, current);
+        current.setLineWidth(3);
+        Assert.assertSame(current, processor.getGraphicsState());
+        Assert.assertEquals(1, initial.getLineWidth(), 0);
+
+        processor.processContent("Q".getBytes(StandardCharsets.ISO_8859_1), new PdfResources());
+        Assert.assertSame(initial, processor.getGraphicsState());
+    }
 }
@@ -0,0 +1,164 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfTextSearcherTest extends ExtendedITextTest {
+
+    private static final int PAGES = 40;
+
+    private static final List<String> TERMS = Arrays.asList("secret", "confidential");
+
+    private static byte[] pdf;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos))) {
+            PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            for (int i = 1; i <= PAGES; i++) {
+                PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+                canvas.beginText().setFontAndSize(font, 12).moveText(50, 700);
+                // every third page has one occurrence, every fifth page has another one in upper case
+                canvas.showText(i % 3 == 0 ? "This is a secret text on page " + i : "Public text on page " + i);
+                if (i % 5 == 0) {
+                    canvas.moveText(0, -100).showText("CONFIDENTIAL");
+                }
+                canvas.endText();
+            }
+        }
+        pdf = baos.toByteArray();
+    }
+
+    @Test
+    public void searchOnCurrentThreadTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            List<IPdfTextLocation> locations = new PdfTextSearcher(TERMS).search(pdfDocument);
+            Assert.assertEquals(PAGES / 3, locations.size());
+            for (IPdfTextLocation location : locations) {
+                Assert.assertEquals("secret", location.getText());
+                Assert.assertEquals(0, location.getPageNumber() % 3);
+                Assert.assertTrue(location.getRectangle().getX() > 50);
+                Assert.assertEquals(700, location.getRectangle().getY(), 5);
+            }
+        }
+    }
+
+    @Test
+    public void parallelSearchTest() throws IOException {
+        List<IPdfTextLocation> expected;
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            expected = new PdfTextSearcher(TERMS, true).search(pdfDocument);
+        }
+        List<IPdfTextLocation> actual = new PdfTextSearcher(TERMS, true).setParallelism(4).search(pdf);
+
+        Assert.assertEquals(PAGES / 3 + PAGES / 5, actual.size());
+        Assert.assertEquals(expected.size(), actual.size());
+        int lastPage = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getPageNumber(), actual.get(i).getPageNumber());
+            Assert.assertEquals(expected.get(i).getText(), actual.get(i).getText());
+            Assert.assertTrue(expected.get(i).getRectangle().equalsWithEpsilon(actual.get(i).getRectangle()));
+            Assert.assertTrue(actual.get(i).getPageNumber() >= lastPage);
+            lastPage = actual.get(i).getPageNumber();
+        }
+    }
+
+    @Test
+    public void workersOpenOwnDocumentsTest() throws IOException {
+        AtomicInteger openedDocuments = new AtomicInteger();
+        List<IPdfTextLocation> locations = new PdfTextSearcher(TERMS).setParallelism(3).search(() -> {
+            openedDocuments.incrementAndGet();
+            return new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        });
+        Assert.assertEquals(PAGES / 3, locations.size());
+        Assert.assertEquals(3, openedDocuments.get());
+    }
+
+    @Test
+    public void singleWorkerTest() throws IOException {
+        AtomicInteger openedDocuments = new AtomicInteger();
+        List<IPdfTextLocation> locations = new PdfTextSearcher(TERMS).setParallelism(1).search(() -> {
+            openedDocuments.incrementAndGet();
+            return new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        });
+        Assert.assertEquals(PAGES / 3, locations.size());
+        Assert.assertEquals(1, openedDocuments.get());
+    }
+
+    @Test
+    public void workerFailureTest() {
+        AtomicInteger openedDocuments = new AtomicInteger();
+        PdfTextSearcher searcher = new PdfTextSearcher(TERMS).setParallelism(2);
+        Exception e = Assert.assertThrows(IOException.class, () -> searcher.search(() -> {
+            if (openedDocuments.incrementAndGet() > 1) {
+                throw new IOException("worker failure");
+            }
+            return new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        }));
+        Assert.assertEquals("worker failure", e.getMessage());
+    }
+}
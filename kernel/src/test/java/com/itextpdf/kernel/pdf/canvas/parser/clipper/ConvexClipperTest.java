@@ -0,0 +1,273 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.clipper;
+
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper.ClipType;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper.PolyFillType;
+import com.itextpdf.kernel.pdf.canvas.parser.clipper.IClipper.PolyType;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class ConvexClipperTest extends ExtendedITextTest {
+
+    private static final long SCALE = (long) ClipperBridge.floatMultiplier;
+
+    @Test
+    public void rectanglesIntersectionTest() {
+        Path subject = rectangle(0, 0, 600 * SCALE, 800 * SCALE);
+        Path clip = rectangle(36 * SCALE, 36 * SCALE, 500 * SCALE, 900 * SCALE);
+
+        Paths expected = executeIntersection(new DefaultClipper(), subject, clip, PolyFillType.NON_ZERO);
+        Paths actual = executeIntersection(new ConvexClipper(), subject, clip, PolyFillType.NON_ZERO);
+
+        Assert.assertEquals(1, actual.size());
+        Assert.assertEquals(toSortedList(expected.get(0)), toSortedList(actual.get(0)));
+        Assert.assertEquals(expected.get(0).area(), actual.get(0).area(), 0);
+        Assert.assertEquals(toSortedList(rectangle(36 * SCALE, 36 * SCALE, 500 * SCALE, 800 * SCALE)), toSortedList(actual.get(0)));
+    }
+
+    @Test
+    public void reversedClipOrientationTest() {
+        Path subject = rectangle(0, 0, 100, 100);
+        Path clip = rectangle(50, 50, 150, 150);
+        Collections.reverse(clip);
+
+        Paths expected = executeIntersection(new DefaultClipper(), subject, clip, PolyFillType.EVEN_ODD);
+        Paths actual = executeIntersection(new ConvexClipper(), subject, clip, PolyFillType.EVEN_ODD);
+
+        Assert.assertEquals(toSortedList(expected.get(0)), toSortedList(actual.get(0)));
+        Assert.assertEquals(expected.get(0).area(), actual.get(0).area(), 0);
+    }
+
+    @Test
+    public void reverseSolutionTest() {
+        Path subject = rectangle(0, 0, 100, 100);
+        Path clip = rectangle(50, 50, 150, 150);
+
+        Paths expected = executeIntersection(new DefaultClipper(IClipper.REVERSE_SOLUTION), subject, clip,
+                PolyFillType.NON_ZERO);
+        Paths actual = executeIntersection(new ConvexClipper(IClipper.REVERSE_SOLUTION), subject, clip,
+                PolyFillType.NON_ZERO);
+
+        Assert.assertEquals(toSortedList(expected.get(0)), toSortedList(actual.get(0)));
+        Assert.assertEquals(expected.get(0).area(), actual.get(0).area(), 0);
+    }
+
+    @Test
+    public void disjointRectanglesTest() {
+        Paths actual = executeIntersection(new ConvexClipper(), rectangle(0, 0, 100, 100),
+                rectangle(200, 200, 300, 300), PolyFillType.NON_ZERO);
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void touchingRectanglesTest() {
+        Paths actual = executeIntersection(new ConvexClipper(), rectangle(0, 0, 100, 100),
+                rectangle(100, 0, 200, 100), PolyFillType.NON_ZERO);
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void randomConvexPolygonsTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Path subject = randomConvexPolygon(random);
+            Path clip = randomConvexPolygon(random);
+
+            Paths expected = executeIntersection(new DefaultClipper(), subject, clip, PolyFillType.NON_ZERO);
+            Paths actual = executeIntersection(new ConvexClipper(), subject, clip, PolyFillType.NON_ZERO);
+
+            double expectedArea = expected.isEmpty() ? 0 : expected.get(0).area();
+            double actualArea = actual.isEmpty() ? 0 : actual.get(0).area();
+            Assert.assertTrue(expected.size() <= 1);
+            Assert.assertEquals(expectedArea, actualArea, 1e-9 * 1000 * 1000 * SCALE * SCALE);
+            if (!actual.isEmpty()) {
+                Assert.assertTrue(actualArea > 0);
+            }
+        }
+    }
+
+    @Test
+    public void polyTreeResultTest() {
+        Path subject = rectangle(0, 0, 100, 100);
+        Path clip = new Path();
+        clip.add(new Point.LongPoint(50, -20));
+        clip.add(new Point.LongPoint(120, 50));
+        clip.add(new Point.LongPoint(50, 120));
+        clip.add(new Point.LongPoint(-20, 50));
+
+        ConvexClipper clipper = new ConvexClipper();
+        clipper.addPath(subject, PolyType.SUBJECT, true);
+        clipper.addPath(clip, PolyType.CLIP, true);
+        PolyTree polyTree = new PolyTree();
+        Assert.assertTrue(clipper.execute(ClipType.INTERSECTION, polyTree, PolyFillType.NON_ZERO,
+                PolyFillType.EVEN_ODD));
+
+        Assert.assertEquals(1, polyTree.getTotalSize());
+        PolyNode node = polyTree.getFirst();
+        Assert.assertFalse(node.isOpen());
+        Assert.assertEquals(0, node.getChildCount());
+        Assert.assertEquals(8, node.getContour().size());
+        Assert.assertEquals(8200, new Path(node.getContour()).area(), 0);
+    }
+
+    @Test
+    public void nonConvexSubjectFallbackTest() {
+        Path subject = new Path();
+        subject.add(new Point.LongPoint(0, 0));
+        subject.add(new Point.LongPoint(100, 0));
+        subject.add(new Point.LongPoint(100, 40));
+        subject.add(new Point.LongPoint(40, 40));
+        subject.add(new Point.LongPoint(40, 100));
+        subject.add(new Point.LongPoint(0, 100));
+        Path clip = rectangle(20, 20, 80, 80);
+
+        Paths expected = executeIntersection(new DefaultClipper(), subject, clip, PolyFillType.NON_ZERO);
+        Paths actual = executeIntersection(new ConvexClipper(), subject, clip, PolyFillType.NON_ZERO);
+
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void unionFallbackTest() {
+        ConvexClipper clipper = new ConvexClipper();
+        clipper.addPath(rectangle(0, 0, 100, 100), PolyType.SUBJECT, true);
+        clipper.addPath(rectangle(50, 50, 150, 150), PolyType.CLIP, true);
+        Paths actual = new Paths();
+        clipper.execute(ClipType.UNION, actual);
+
+        DefaultClipper defaultClipper = new DefaultClipper();
+        defaultClipper.addPath(rectangle(0, 0, 100, 100), PolyType.SUBJECT, true);
+        defaultClipper.addPath(rectangle(50, 50, 150, 150), PolyType.CLIP, true);
+        Paths expected = new Paths();
+        defaultClipper.execute(ClipType.UNION, expected);
+
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void degeneratePathIsNotAddedTest() {
+        Path line = new Path();
+        line.add(new Point.LongPoint(0, 0));
+        line.add(new Point.LongPoint(50, 50));
+        line.add(new Point.LongPoint(100, 100));
+        line.add(new Point.LongPoint(100, 100));
+
+        ConvexClipper clipper = new ConvexClipper();
+        Assert.assertFalse(clipper.addPath(line, PolyType.CLIP, true));
+        Assert.assertTrue(clipper.addPath(line, PolyType.SUBJECT, false));
+    }
+
+    @Test
+    public void openClipPathTest() {
+        ConvexClipper clipper = new ConvexClipper();
+        Assert.assertThrows(IllegalStateException.class,
+                () -> clipper.addPath(rectangle(0, 0, 10, 10), PolyType.CLIP, false));
+    }
+
+    @Test
+    public void clearTest() {
+        ConvexClipper clipper = new ConvexClipper();
+        clipper.addPath(rectangle(0, 0, 100, 100), PolyType.SUBJECT, true);
+        clipper.addPath(rectangle(50, 50, 150, 150), PolyType.CLIP, true);
+        clipper.clear();
+        Paths actual = new Paths();
+        clipper.execute(ClipType.INTERSECTION, actual);
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    private static Paths executeIntersection(IClipper clipper, Path subject, Path clip, PolyFillType clipFillType) {
+        clipper.addPath(subject, PolyType.SUBJECT, true);
+        clipper.addPath(clip, PolyType.CLIP, true);
+        Paths solution = new Paths();
+        Assert.assertTrue(clipper.execute(ClipType.INTERSECTION, solution, PolyFillType.NON_ZERO, clipFillType));
+        return solution;
+    }
+
+    private static Path rectangle(long left, long bottom, long right, long top) {
+        Path path = new Path();
+        path.add(new Point.LongPoint(left, bottom));
+        path.add(new Point.LongPoint(right, bottom));
+        path.add(new Point.LongPoint(right, top));
+        path.add(new Point.LongPoint(left, top));
+        return path;
+    }
+
+    private static Path randomConvexPolygon(Random random) {
+        double centerX = random.nextDouble() * 1000;
+        double centerY = random.nextDouble() * 1000;
+        double radius = 50 + random.nextDouble() * 500;
+        int count = 3 + random.nextInt(8);
+        double[] angles = new double[count];
+        for (int i = 0; i < count; i++) {
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        }
+        Arrays.sort(angles);
+        Path path = new Path();
+        for (double angle : angles) {
+            path.add(new Point.LongPoint(Math.round((centerX + radius * Math.cos(angle)) * SCALE),
+                    Math.round((centerY + radius * Math.sin(angle)) * SCALE)));
+        }
+        return path;
+    }
+
+    private static List<String> toSortedList(Path path) {
+        List<String> points = new ArrayList<>();
+        for (Point.LongPoint point : path) {
+            points.add(point.getX() + " " + point.getY());
+        }
+        Collections.sort(points);
+        return points;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class ColumnarTextExtractionListenerTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/parser/";
+
+    // "Hello" in Helvetica 12 at (100, 700) and "World" in Times-Bold 10 at (50, 600)
+    private static final String TWO_FONTS = sourceFolder + "ColumnarTextExtractionListenerTest/twoFonts.pdf";
+
+    @Test
+    public void textRunsTest() throws IOException {
+        ColumnarTextPage page = extract(TWO_FONTS, new ColumnarTextExtractionListener());
+
+        Assert.assertEquals(2, page.getRunCount());
+        Assert.assertEquals("Hello", page.getText(0));
+        Assert.assertEquals("World", page.getText(1));
+        Assert.assertEquals(0, page.getTextOffset(0));
+        Assert.assertEquals(5, page.getTextOffset(1));
+        Assert.assertEquals(5, page.getTextLength(1));
+        Assert.assertArrayEquals("HelloWorld".toCharArray(), page.getCharacters());
+
+        Assert.assertEquals(100, page.getStartX(0), 1e-4);
+        Assert.assertEquals(700, page.getStartY(0), 1e-4);
+        Assert.assertEquals(700, page.getEndY(0), 1e-4);
+        Assert.assertTrue(page.getEndX(0) > page.getStartX(0));
+        Assert.assertEquals(50, page.getStartX(1), 1e-4);
+        Assert.assertEquals(600, page.getStartY(1), 1e-4);
+
+        Assert.assertEquals(12, page.getFontSize(0), 1e-4);
+        Assert.assertEquals(10, page.getFontSize(1), 1e-4);
+        Assert.assertTrue(page.getAscent(0) > 0);
+        Assert.assertTrue(page.getDescent(0) < 0);
+        Assert.assertTrue(page.getAscent(0) > page.getAscent(1));
+
+        Assert.assertEquals(2, page.getFontCount());
+        Assert.assertEquals("Helvetica", page.getFontName(page.getFontId(0)));
+        Assert.assertEquals("Times-Bold", page.getFontName(page.getFontId(1)));
+    }
+
+    @Test
+    public void splitIntoGlyphsTest() throws IOException {
+        ColumnarTextExtractionListener listener = new ColumnarTextExtractionListener().setSplitIntoGlyphs(true);
+        Assert.assertTrue(listener.isSplitIntoGlyphs());
+        ColumnarTextPage page = extract(TWO_FONTS, listener);
+
+        Assert.assertEquals(10, page.getRunCount());
+        Assert.assertEquals("H", page.getText(0));
+        Assert.assertEquals("d", page.getText(9));
+        for (int i = 1; i < 5; i++) {
+            Assert.assertEquals(page.getEndX(i - 1), page.getStartX(i), 1e-4);
+            Assert.assertEquals(page.getFontId(0), page.getFontId(i));
+        }
+    }
+
+    @Test
+    public void resetTest() throws IOException {
+        ColumnarTextExtractionListener listener = new ColumnarTextExtractionListener();
+        extract(TWO_FONTS, listener);
+        listener.reset();
+        ColumnarTextPage page = listener.getResult();
+        Assert.assertEquals(0, page.getRunCount());
+        Assert.assertEquals(0, page.getFontCount());
+        Assert.assertEquals(0, page.getCharacters().length);
+    }
+
+    @Test
+    public void writeAndReadTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder
+                + "LocationExtractionTest/aliceInWonderland.pdf"))) {
+            ColumnarTextExtractionListener listener = new ColumnarTextExtractionListener();
+            new PdfCanvasProcessor(listener).processPageContent(pdfDocument.getPage(1));
+            ColumnarTextPage page = listener.getResult();
+            Assert.assertTrue(page.getRunCount() > 100);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            page.writeTo(baos);
+            ColumnarTextPage read = ColumnarTextPage.readFrom(new ByteArrayInputStream(baos.toByteArray()));
+
+            assertEquals(page, read);
+        }
+    }
+
+    @Test
+    public void writeAndReadEmptyPageTest() throws IOException {
+        ColumnarTextPage page = new ColumnarTextExtractionListener().getResult();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        page.writeTo(baos);
+        assertEquals(page, ColumnarTextPage.readFrom(new ByteArrayInputStream(baos.toByteArray())));
+    }
+
+    @Test
+    public void readInvalidDataTest() {
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> ColumnarTextPage.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 0, 0, 0, 1})));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                "unknown format"), e.getMessage());
+    }
+
+    @Test
+    public void readUnsupportedVersionTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ColumnarTextExtractionListener().getResult().writeTo(baos);
+        byte[] bytes = baos.toByteArray();
+        bytes[7] = 2;
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> ColumnarTextPage.readFrom(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                "unsupported version 2"), e.getMessage());
+    }
+
+    @Test
+    public void readCorruptedRunCountTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ColumnarTextExtractionListener().getResult().writeTo(baos);
+        byte[] bytes = baos.toByteArray();
+        // the run count follows the magic number and the version
+        bytes[8] = 0x7f;
+        bytes[9] = (byte) 0xff;
+        bytes[10] = (byte) 0xff;
+        bytes[11] = (byte) 0xfe;
+        // the stream ends long before the declared runs, nothing is allocated for them up front
+        Assert.assertThrows(EOFException.class, () -> ColumnarTextPage.readFrom(new ByteArrayInputStream(bytes)));
+
+        bytes[11] = (byte) 0xff;
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> ColumnarTextPage.readFrom(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_COLUMNAR_TEXT_DATA,
+                "count 2147483647 is too large"), e.getMessage());
+    }
+
+    private static ColumnarTextPage extract(String fileName, ColumnarTextExtractionListener listener)
+            throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(fileName))) {
+            new PdfCanvasProcessor(listener).processPageContent(pdfDocument.getPage(1));
+            return listener.getResult();
+        }
+    }
+
+    private static void assertEquals(ColumnarTextPage expected, ColumnarTextPage actual) {
+        Assert.assertEquals(expected.getRunCount(), actual.getRunCount());
+        Assert.assertEquals(expected.getFontCount(), actual.getFontCount());
+        for (int i = 0; i < expected.getFontCount(); i++) {
+            Assert.assertEquals(expected.getFontName(i), actual.getFontName(i));
+        }
+        for (int i = 0; i < expected.getRunCount(); i++) {
+            Assert.assertEquals(expected.getStartX(i), actual.getStartX(i), 0);
+            Assert.assertEquals(expected.getStartY(i), actual.getStartY(i), 0);
+            Assert.assertEquals(expected.getEndX(i), actual.getEndX(i), 0);
+            Assert.assertEquals(expected.getEndY(i), actual.getEndY(i), 0);
+            Assert.assertEquals(expected.getAscent(i), actual.getAscent(i), 0);
+            Assert.assertEquals(expected.getDescent(i), actual.getDescent(i), 0);
+            Assert.assertEquals(expected.getFontSize(i), actual.getFontSize(i), 0);
+            Assert.assertEquals(expected.getFontId(i), actual.getFontId(i));
+            Assert.assertEquals(expected.getText(i), actual.getText(i));
+        }
+        Assert.assertArrayEquals(expected.getCharacters(), actual.getCharacters());
+    }
+}
@@ -0,0 +1,266 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class GlyphPositionIndexListenerTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/parser/";
+
+    // "Second" in Times-Bold 10 at (50, 600) is rendered before "Hello World" in Helvetica 12 at (100, 700)
+    private static final String REVERSED_LINES = sourceFolder
+            + "GlyphPositionIndexListenerTest/linesInReversedOrder.pdf";
+
+    @Test
+    public void glyphsInTextOrderTest() throws IOException {
+        GlyphPositionIndex index = extract(REVERSED_LINES, new GlyphPositionIndexListener());
+
+        Assert.assertEquals("Hello World\nSecond", index.getText());
+        Assert.assertEquals(17, index.getGlyphCount());
+        Assert.assertEquals(-1, index.getGlyphIndex(11));
+        Assert.assertEquals(5, index.getGlyphIndex(5));
+        Assert.assertEquals(11, index.getGlyphIndex(12));
+        Assert.assertEquals(0, index.getLine(10));
+        Assert.assertEquals(1, index.getLine(11));
+
+        float[] quad = index.getQuad(0);
+        Assert.assertEquals(8, quad.length);
+        // descent line start and end, ascent line end and start
+        Assert.assertEquals(100, quad[0], 1e-4);
+        Assert.assertTrue(quad[1] < 700);
+        Assert.assertEquals(quad[1], quad[3], 1e-4);
+        Assert.assertTrue(quad[2] > quad[0]);
+        Assert.assertEquals(quad[2], quad[4], 1e-4);
+        Assert.assertTrue(quad[5] > 700);
+        Assert.assertEquals(100, quad[6], 1e-4);
+        Assert.assertEquals(index.getQuad(1)[0], quad[2], 1e-4);
+
+        Rectangle boundingBox = index.getBoundingBox(0);
+        Assert.assertEquals(100, boundingBox.getX(), 1e-4);
+        Assert.assertEquals(quad[1], boundingBox.getY(), 1e-4);
+        Assert.assertEquals(quad[5], boundingBox.getTop(), 1e-4);
+    }
+
+    @Test
+    public void rectanglesTest() throws IOException {
+        GlyphPositionIndex index = extract(REVERSED_LINES, new GlyphPositionIndexListener());
+
+        List<Rectangle> rectangles = index.getRectangles(6, 11);
+        Assert.assertEquals(1, rectangles.size());
+        Assert.assertTrue(rectangles.get(0).equalsWithEpsilon(
+                Rectangle.getCommonRectangle(index.getBoundingBox(6), index.getBoundingBox(10))));
+
+        rectangles = index.getRectangles(6, 14);
+        Assert.assertEquals(2, rectangles.size());
+        Assert.assertEquals(index.getBoundingBox(6).getX(), rectangles.get(0).getX(), 1e-4);
+        Assert.assertEquals(50, rectangles.get(1).getX(), 1e-4);
+
+        Assert.assertTrue(index.getRectangles(11, 12).isEmpty());
+        Assert.assertTrue(index.getRectangles(3, 3).isEmpty());
+        Assert.assertEquals(2, index.getRectangles(-5, 100).size());
+    }
+
+    @Test
+    public void sameRectanglesAsRegexStrategyTest() throws IOException {
+        Pattern pattern = Pattern.compile("Alice|the");
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder
+                + "LocationExtractionTest/aliceInWonderland.pdf"))) {
+            for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+                RegexBasedLocationExtractionStrategy strategy = new RegexBasedLocationExtractionStrategy(pattern);
+                new PdfCanvasProcessor(strategy).processPageContent(pdfDocument.getPage(pageNumber));
+                TreeSet<String> expected = new TreeSet<>();
+                for (IPdfTextLocation location : strategy.getResultantLocations()) {
+                    expected.add(toString(location.getRectangle()));
+                }
+
+                GlyphPositionIndexListener listener = new GlyphPositionIndexListener();
+                new PdfCanvasProcessor(listener).processPageContent(pdfDocument.getPage(pageNumber));
+                GlyphPositionIndex index = listener.getResult();
+                TreeSet<String> actual = new TreeSet<>();
+                Matcher matcher = pattern.matcher(index.getText());
+                while (matcher.find()) {
+                    for (Rectangle rectangle : index.getRectangles(matcher.start(), matcher.end())) {
+                        actual.add(toString(rectangle));
+                    }
+                }
+
+                Assert.assertFalse(expected.isEmpty());
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void resetTest() throws IOException {
+        GlyphPositionIndexListener listener = new GlyphPositionIndexListener();
+        extract(REVERSED_LINES, listener);
+        listener.reset();
+        GlyphPositionIndex index = listener.getResult();
+        Assert.assertEquals(0, index.getGlyphCount());
+        Assert.assertEquals("", index.getText());
+        Assert.assertTrue(index.getRectangles(0, 1).isEmpty());
+    }
+
+    @Test
+    public void writeAndReadTest() throws IOException {
+        List<GlyphPositionIndex> indexes = new ArrayList<>();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder
+                + "LocationExtractionTest/aliceInWonderland.pdf"))) {
+            GlyphPositionIndexListener listener = new GlyphPositionIndexListener();
+            for (int pageNumber = 1; pageNumber <= 2; pageNumber++) {
+                new PdfCanvasProcessor(listener).processPageContent(pdfDocument.getPage(pageNumber));
+                GlyphPositionIndex index = listener.getResult();
+                listener.reset();
+                Assert.assertTrue(index.getGlyphCount() > 100);
+                index.writeTo(baos);
+                indexes.add(index);
+            }
+        }
+
+        // the indexes of several pages can be written one after another
+        ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+        for (GlyphPositionIndex index : indexes) {
+            assertEquals(index, GlyphPositionIndex.readFrom(bais));
+        }
+        Assert.assertEquals(0, bais.available());
+    }
+
+    @Test
+    public void readInvalidDataTest() {
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> GlyphPositionIndex.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 0, 0, 0, 1})));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_GLYPH_POSITION_INDEX_DATA,
+                "unknown format"), e.getMessage());
+    }
+
+    @Test
+    public void readInconsistentDataTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        extract(REVERSED_LINES, new GlyphPositionIndexListener()).writeTo(baos);
+        byte[] bytes = baos.toByteArray();
+        // the glyph of the first character, following the header and the text
+        int offset = 16 + 2 * 18;
+        bytes[offset] = 0x7f;
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> GlyphPositionIndex.readFrom(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_GLYPH_POSITION_INDEX_DATA,
+                "inconsistent character 0"), e.getMessage());
+    }
+
+    @Test
+    public void readCorruptedCountsTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        extract(REVERSED_LINES, new GlyphPositionIndexListener()).writeTo(baos);
+        byte[] bytes = baos.toByteArray();
+        // the text length follows the magic number and the version, the stream ends long before the declared text
+        bytes[8] = 0x7f;
+        Assert.assertThrows(EOFException.class, () -> GlyphPositionIndex.readFrom(new ByteArrayInputStream(bytes)));
+
+        bytes[8] = 0;
+        // the glyph count follows the text length
+        bytes[12] = 0x7f;
+        bytes[13] = (byte) 0xff;
+        bytes[14] = (byte) 0xff;
+        bytes[15] = (byte) 0xff;
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> GlyphPositionIndex.readFrom(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(MessageFormatUtil.format(KernelExceptionMessageConstant.INVALID_GLYPH_POSITION_INDEX_DATA,
+                "glyph count 2147483647 is too large"), e.getMessage());
+    }
+
+    private static GlyphPositionIndex extract(String fileName, GlyphPositionIndexListener listener)
+            throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(fileName))) {
+            new PdfCanvasProcessor(listener).processPageContent(pdfDocument.getPage(1));
+            return listener.getResult();
+        }
+    }
+
+    private static String toString(Rectangle rectangle) {
+        return MessageFormatUtil.format("{0} {1} {2} {3}", rectangle.getX(), rectangle.getY(),
+                rectangle.getWidth(), rectangle.getHeight());
+    }
+
+    private static void assertEquals(GlyphPositionIndex expected, GlyphPositionIndex actual) {
+        Assert.assertEquals(expected.getText(), actual.getText());
+        Assert.assertEquals(expected.getGlyphCount(), actual.getGlyphCount());
+        for (int i = 0; i < expected.getText().length(); i++) {
+            Assert.assertEquals(expected.getGlyphIndex(i), actual.getGlyphIndex(i));
+        }
+        for (int i = 0; i < expected.getGlyphCount(); i++) {
+            Assert.assertArrayEquals(expected.getQuad(i), actual.getQuad(i), 0);
+            Assert.assertEquals(expected.getLine(i), actual.getLine(i));
+        }
+        List<Rectangle> expectedRectangles = expected.getRectangles(0, expected.getText().length());
+        List<Rectangle> actualRectangles = actual.getRectangles(0, actual.getText().length());
+        Assert.assertEquals(expectedRectangles.size(), actualRectangles.size());
+        for (int i = 0; i < expectedRectangles.size(); i++) {
+            Assert.assertTrue(expectedRectangles.get(i).equalsWithEpsilon(actualRectangles.get(i)));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class IndexedLocationTextExtractionStrategyTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/parser/";
+
+    @Test
+    public void diacriticShiftedLessThanTwoTest() throws IOException {
+        assertSameText(sourceFolder + "PdfTextExtractorTest/diacriticShiftedLessThanTwo.pdf", false);
+    }
+
+    @Test
+    public void diacriticShiftedMoreThanTwoTest() throws IOException {
+        assertSameText(sourceFolder + "PdfTextExtractorTest/diacriticShiftedMoreThanTwo.pdf", false);
+    }
+
+    @Test
+    public void indicTextTest() throws IOException {
+        assertSameText(sourceFolder + "IndicTextExtractionTest/test01.pdf", false);
+        assertSameText(sourceFolder + "IndicTextExtractionTest/test02.pdf", false);
+    }
+
+    @Test
+    public void rightToLeftTextTest() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            assertSameText(sourceFolder + "BidiTextExtractionTest/in0" + i + ".pdf", true);
+        }
+    }
+
+    @Test
+    public void multiPageTextTest() throws IOException {
+        assertSameText(sourceFolder + "LocationExtractionTest/aliceInWonderland.pdf", false);
+    }
+
+    @Test
+    public void sameMarkBasesForRandomChunksTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            List<TextChunk> chunks = createRandomChunks(random, 2000);
+            int[] expected = new LocationTextExtractionStrategy().findMarkBases(chunks);
+            int[] actual = new IndexedLocationTextExtractionStrategy().findMarkBases(chunks);
+            Assert.assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void markIsAttachedToFirstContainingChunkTest() {
+        List<TextChunk> chunks = new ArrayList<>();
+        chunks.add(createChunk(0, 100, 10, 100));
+        chunks.add(createChunk(105, 100, 120, 100));
+        // Both chunks below contain the mark, the first of them in rendering order is chosen
+        chunks.add(createChunk(110, 101, 110, 101));
+        chunks.add(createChunk(100, 102, 200, 102));
+        // Too far from any line
+        chunks.add(createChunk(5, 110, 5, 110));
+        // Wide chunk
+        chunks.add(createChunk(-1000, 50, 1000, 50));
+        chunks.add(createChunk(500, 51, 500, 51));
+
+        int[] markBases = new IndexedLocationTextExtractionStrategy().findMarkBases(chunks);
+        Assert.assertArrayEquals(new int[] {-1, -1, 1, -1, -1, -1, 5}, markBases);
+        Assert.assertArrayEquals(new LocationTextExtractionStrategy().findMarkBases(chunks), markBases);
+    }
+
+    @Test
+    public void chunksWithExtremeCoordinatesTest() {
+        List<TextChunk> chunks = new ArrayList<>();
+        chunks.add(createChunk(Float.NEGATIVE_INFINITY, 10, Float.POSITIVE_INFINITY, 10));
+        chunks.add(createChunk(Float.NaN, 10, 5, 10));
+        chunks.add(createChunk(3, 10, 3, 10));
+        chunks.add(createChunk(0, Float.MAX_VALUE, 10, Float.MAX_VALUE));
+        chunks.add(createChunk(5, -Float.MAX_VALUE, 5, -Float.MAX_VALUE));
+        chunks.add(createChunk(Float.MAX_VALUE, 20, Float.MAX_VALUE, 20));
+        chunks.add(createChunk(Float.NaN, 20, Float.NaN, 20));
+
+        Assert.assertArrayEquals(new LocationTextExtractionStrategy().findMarkBases(chunks),
+                new IndexedLocationTextExtractionStrategy().findMarkBases(chunks));
+    }
+
+    private static void assertSameText(String src, boolean rightToLeft) throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(src))) {
+            for (int i = 1; i <= pdfDocument.getNumberOfPages(); i++) {
+                String expected = PdfTextExtractor.getTextFromPage(pdfDocument.getPage(i),
+                        new LocationTextExtractionStrategy().setRightToLeftRunDirection(rightToLeft));
+                String actual = PdfTextExtractor.getTextFromPage(pdfDocument.getPage(i),
+                        new IndexedLocationTextExtractionStrategy().setRightToLeftRunDirection(rightToLeft));
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+
+    private static List<TextChunk> createRandomChunks(Random random, int count) {
+        List<TextChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float x = random.nextInt(6000) / 10f;
+            float y = random.nextInt(100) * 1.5f;
+            int kind = random.nextInt(10);
+            if (kind < 4) {
+                // Mark
+                chunks.add(createChunk(x, y, x, y));
+            } else if (kind == 4) {
+                // Right to left or rotated chunk
+                chunks.add(createChunk(x, y, x - random.nextInt(50), y));
+            } else if (kind == 5) {
+                // Long chunk
+                chunks.add(createChunk(x, y, x + random.nextInt(2000), y));
+            } else {
+                chunks.add(createChunk(x, y, x + random.nextInt(50) / 2f, y));
+            }
+        }
+        return chunks;
+    }
+
+    private static TextChunk createChunk(float startX, float startY, float endX, float endY) {
+        return new TextChunk("a", new TextChunkLocationDefaultImp(new Vector(startX, startY, 0),
+                new Vector(endX, endY, 0), 3));
+    }
+}
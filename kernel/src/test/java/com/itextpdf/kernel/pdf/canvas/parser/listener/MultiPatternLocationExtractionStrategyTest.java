@@ -0,0 +1,150 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.listener;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.RegexBasedLocationExtractionStrategy.TextMatch;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class MultiPatternLocationExtractionStrategyTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/parser/";
+
+    @Test
+    public void overlappingMatchesTest() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("he", "she", "hers", "his"), false);
+        List<TextMatch> matches = matcher.findMatches("ushers");
+
+        Assert.assertEquals(3, matches.size());
+        assertMatch(matches.get(0), 1, 4, "she");
+        assertMatch(matches.get(1), 2, 4, "he");
+        assertMatch(matches.get(2), 2, 6, "hers");
+    }
+
+    @Test
+    public void repeatedMatchesTest() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("aa", "a"), false);
+        List<TextMatch> matches = matcher.findMatches("baaa");
+
+        Assert.assertEquals(5, matches.size());
+        assertMatch(matches.get(0), 1, 2, "a");
+        assertMatch(matches.get(1), 1, 3, "aa");
+        assertMatch(matches.get(2), 2, 3, "a");
+        assertMatch(matches.get(3), 2, 4, "aa");
+        assertMatch(matches.get(4), 3, 4, "a");
+    }
+
+    @Test
+    public void ignoreCaseTest() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.singletonList("AlIcE"), true);
+        List<TextMatch> matches = matcher.findMatches("ALICE and alice");
+
+        Assert.assertEquals(2, matches.size());
+        assertMatch(matches.get(0), 0, 5, "ALICE");
+        assertMatch(matches.get(1), 10, 15, "alice");
+        Assert.assertTrue(new MultiPatternMatcher(Collections.singletonList("AlIcE"), false)
+                .findMatches("ALICE and alice").isEmpty());
+    }
+
+    @Test
+    public void emptyTermsTest() {
+        Assert.assertTrue(new MultiPatternMatcher(Arrays.asList("", ""), false).findMatches("text").isEmpty());
+        Assert.assertTrue(new MultiPatternMatcher(Collections.<String>emptyList(), false).findMatches("text").isEmpty());
+    }
+
+    @Test
+    public void sameLocationsAsRegexTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder
+                + "LocationExtractionTest/aliceInWonderland.pdf"))) {
+            RegexBasedLocationExtractionStrategy regexStrategy = new RegexBasedLocationExtractionStrategy("Alice|rabbit");
+            new PdfCanvasProcessor(regexStrategy).processPageContent(pdfDocument.getPage(1));
+            MultiPatternLocationExtractionStrategy strategy =
+                    new MultiPatternLocationExtractionStrategy(Arrays.asList("Alice", "rabbit"));
+            new PdfCanvasProcessor(strategy).processPageContent(pdfDocument.getPage(1));
+
+            List<IPdfTextLocation> expected = new ArrayList<>(regexStrategy.getResultantLocations());
+            List<IPdfTextLocation> actual = new ArrayList<>(strategy.getResultantLocations());
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(expected.get(i).getText(), actual.get(i).getText());
+                Assert.assertTrue(expected.get(i).getRectangle().equalsWithEpsilon(actual.get(i).getRectangle()));
+            }
+        }
+    }
+
+    @Test
+    public void sharedTermsTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(sourceFolder
+                + "LocationExtractionTest/aliceInWonderland.pdf"))) {
+            MultiPatternLocationExtractionStrategy first =
+                    new MultiPatternLocationExtractionStrategy(Arrays.asList("alice", "rabbit"), true);
+            new PdfCanvasProcessor(first).processPageContent(pdfDocument.getPage(1));
+            MultiPatternLocationExtractionStrategy second = new MultiPatternLocationExtractionStrategy(first);
+            new PdfCanvasProcessor(second).processPageContent(pdfDocument.getPage(1));
+
+            Assert.assertFalse(first.getResultantLocations().isEmpty());
+            Assert.assertEquals(first.getResultantLocations().size(), second.getResultantLocations().size());
+        }
+    }
+
+    private static void assertMatch(TextMatch match, int start, int end, String text) {
+        Assert.assertEquals(start, match.start);
+        Assert.assertEquals(end, match.end);
+        Assert.assertEquals(text, match.text);
+    }
+}
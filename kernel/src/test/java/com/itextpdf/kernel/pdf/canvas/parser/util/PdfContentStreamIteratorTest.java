@@ -0,0 +1,213 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.canvas.parser.util;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.LocationTextExtractionStrategy;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfContentStreamIteratorTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/parser/";
+
+    // a page consisting of a compressed content stream, a content stream without trailing whitespace
+    // and an uncompressed content stream
+    private static final String THREE_CONTENT_STREAMS =
+            sourceFolder + "PdfContentStreamIteratorTest/threeContentStreams.pdf";
+
+    private static final String inlineImagesFolder =
+            "./src/test/resources/com/itextpdf/kernel/pdf/canvas/parser/InlineImageExtractionTest/";
+
+    @Test
+    public void inlineImagesTest() throws IOException {
+        assertSameOperations(inlineImagesFolder + "inlineImageExtraction.pdf");
+        assertSameOperations(inlineImagesFolder + "docWithInlineImage.pdf");
+    }
+
+    @Test
+    public void textContentTest() throws IOException {
+        assertSameOperations(sourceFolder + "LocationExtractionTest/aliceInWonderland.pdf");
+        assertSameOperations(sourceFolder + "PdfCanvasParserTest/innerArraysInContentStream.pdf");
+    }
+
+    @Test
+    public void operatorAndOperandsTest() throws IOException {
+        byte[] content = "q 1 0 0 1 10 20 cm [1 2] 0 d Q".getBytes(StandardCharsets.ISO_8859_1);
+        PdfContentStreamIterator iterator = new PdfContentStreamIterator(new ByteArrayInputStream(content),
+                new PdfResources());
+
+        Assert.assertTrue(iterator.next());
+        Assert.assertEquals("q", iterator.getOperator().toString());
+        Assert.assertEquals(1, iterator.getOperands().size());
+        Assert.assertTrue(iterator.next());
+        Assert.assertEquals("cm", iterator.getOperator().toString());
+        Assert.assertEquals(7, iterator.getOperands().size());
+        List<PdfObject> operands = iterator.getOperands();
+        Assert.assertTrue(iterator.next());
+        Assert.assertEquals("d", iterator.getOperator().toString());
+        Assert.assertSame(operands, iterator.getOperands());
+        Assert.assertTrue(iterator.getOperands().get(0).isArray());
+        Assert.assertTrue(iterator.next());
+        Assert.assertEquals("Q", iterator.getOperator().toString());
+        Assert.assertFalse(iterator.next());
+        Assert.assertNull(iterator.getOperator());
+        Assert.assertTrue(iterator.getOperands().isEmpty());
+        iterator.close();
+    }
+
+    @Test
+    public void contentInputStreamTest() throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(THREE_CONTENT_STREAMS));
+        PdfPage page = pdfDocument.getFirstPage();
+        Assert.assertEquals(3, page.getContentStreamCount());
+
+        InputStream contentStream = page.getContentInputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        int count;
+        while ((count = contentStream.read(buffer)) != -1) {
+            baos.write(buffer, 0, count);
+        }
+        contentStream.close();
+
+        Assert.assertArrayEquals(page.getContentBytes(), baos.toByteArray());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void incrementalProcessingTest() throws IOException {
+        assertSameText(sourceFolder + "LocationExtractionTest/aliceInWonderland.pdf");
+        assertSameText(new PdfDocument(new PdfReader(THREE_CONTENT_STREAMS)));
+    }
+
+    @Test
+    public void modifiedContentStreamTest() throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(THREE_CONTENT_STREAMS),
+                new PdfWriter(new ByteArrayOutputStream()));
+        PdfPage page = pdfDocument.getFirstPage();
+        page.getContentStream(1).setData("BT /F1 12 Tf 10 10 Td (modified) Tj ET".getBytes(StandardCharsets.ISO_8859_1));
+
+        assertSameOperations(page);
+        pdfDocument.close();
+    }
+
+    private static void assertSameOperations(String fileName) throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(fileName));
+        for (int i = 1; i <= pdfDocument.getNumberOfPages(); i++) {
+            assertSameOperations(pdfDocument.getPage(i));
+        }
+        pdfDocument.close();
+    }
+
+    private static void assertSameOperations(PdfPage page) throws IOException {
+        PdfCanvasParser parser = new PdfCanvasParser(new PdfTokenizer(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createSource(page.getContentBytes()))), page.getResources());
+        List<String> expected = new ArrayList<>();
+        List<PdfObject> operands = new ArrayList<>();
+        while (!parser.parse(operands).isEmpty()) {
+            expected.add(toString(operands));
+        }
+
+        List<String> actual = new ArrayList<>();
+        PdfContentStreamIterator iterator = new PdfContentStreamIterator(page);
+        while (iterator.next()) {
+            actual.add(toString(iterator.getOperands()));
+        }
+        iterator.close();
+
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, actual);
+    }
+
+    private static void assertSameText(String fileName) throws IOException {
+        assertSameText(new PdfDocument(new PdfReader(fileName)));
+    }
+
+    private static void assertSameText(PdfDocument pdfDocument) {
+        for (int i = 1; i <= pdfDocument.getNumberOfPages(); i++) {
+            LocationTextExtractionStrategy expected = new LocationTextExtractionStrategy();
+            new PdfCanvasProcessor(expected).processPageContent(pdfDocument.getPage(i));
+            LocationTextExtractionStrategy actual = new LocationTextExtractionStrategy();
+            new PdfCanvasProcessor(actual).setIncrementalContentParsing(true)
+                    .processPageContent(pdfDocument.getPage(i));
+            Assert.assertEquals(expected.getResultantText(), actual.getResultantText());
+        }
+        pdfDocument.close();
+    }
+
+    private static String toString(List<PdfObject> operands) {
+        StringBuilder sb = new StringBuilder();
+        for (PdfObject operand : operands) {
+            if (operand.isStream()) {
+                sb.append(Arrays.toString(((PdfStream) operand).getBytes(false)));
+            }
+            sb.append(operand).append(' ');
+        }
+        return sb.toString();
+    }
+}
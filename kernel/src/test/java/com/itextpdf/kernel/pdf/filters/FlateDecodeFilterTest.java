@@ -0,0 +1,119 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class FlateDecodeFilterTest extends ExtendedITextTest {
+
+    @Test
+    public void flateDecodeIncrementallyTest() throws IOException {
+        byte[] content = createContent(100000);
+        byte[] encoded = deflate(content);
+
+        Assert.assertArrayEquals(content,
+                readAll(FlateDecodeFilter.flateDecodeIncrementally(new ByteArrayInputStream(encoded))));
+    }
+
+    @Test
+    public void flateDecodeIncrementallyTruncatedTest() throws IOException {
+        byte[] content = createContent(100000);
+        byte[] encoded = deflate(content);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+        byte[] decoded = readAll(FlateDecodeFilter.flateDecodeIncrementally(new ByteArrayInputStream(truncated)));
+        byte[] nonStrictDecoded = FlateDecodeFilter.flateDecode(truncated, false);
+        Assert.assertTrue(decoded.length > 0);
+        Assert.assertTrue(decoded.length <= nonStrictDecoded.length);
+        Assert.assertArrayEquals(Arrays.copyOf(content, decoded.length), decoded);
+    }
+
+    @Test
+    public void flateDecodeIncrementallyCorruptedTest() throws IOException {
+        byte[] corrupted = new byte[] {1, 2, 3, 4, 5, 6, 7, 8};
+
+        InputStream stream = FlateDecodeFilter.flateDecodeIncrementally(new ByteArrayInputStream(corrupted));
+        Assert.assertEquals(-1, stream.read());
+        Assert.assertEquals(-1, stream.read());
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ("0123456789 re f\n".charAt(i % 16) + i / 1000 % 3);
+        }
+        return content;
+    }
+
+    private static byte[] deflate(byte[] content) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DeflaterOutputStream zip = new DeflaterOutputStream(baos);
+        zip.write(content);
+        zip.close();
+        return baos.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            baos.write(buffer, 0, count);
+        }
+        stream.close();
+        return baos.toByteArray();
+    }
+}
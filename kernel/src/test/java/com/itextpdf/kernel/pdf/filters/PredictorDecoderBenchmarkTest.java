@@ -0,0 +1,153 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.PerformanceTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(PerformanceTest.class)
+public class PredictorDecoderBenchmarkTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/pdf/filters/PredictorDecoderBenchmarkTest/";
+
+    private static final int WARM_UP_ITERATIONS = 100;
+
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void xrefStreamsTest() throws IOException {
+        benchmark("pdf_open_parameters.pdf");
+    }
+
+    @Test
+    public void imageStreamsTest() throws IOException {
+        benchmark("docWithDifferentImages.pdf");
+    }
+
+    private static void benchmark(String fileName) throws IOException {
+        List<byte[]> data = new ArrayList<>();
+        List<PdfDictionary> params = new ArrayList<>();
+        collectPredictorStreams(sourceFolder + fileName, data, params);
+        Assert.assertFalse(data.isEmpty());
+
+        long totalBytes = 0;
+        for (int i = 0; i < data.size(); i++) {
+            byte[] expected = decodeReference(data.get(i), params.get(i));
+            Assert.assertArrayEquals(expected, FlateDecodeFilter.decodePredictor(data.get(i), params.get(i)));
+            totalBytes += data.get(i).length;
+        }
+
+        for (int iteration = 0; iteration < WARM_UP_ITERATIONS; iteration++) {
+            for (int i = 0; i < data.size(); i++) {
+                decodeReference(data.get(i), params.get(i));
+                FlateDecodeFilter.decodePredictor(data.get(i), params.get(i));
+            }
+        }
+        long referenceTime = 0;
+        long optimizedTime = 0;
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < data.size(); i++) {
+                decodeReference(data.get(i), params.get(i));
+            }
+            referenceTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < data.size(); i++) {
+                FlateDecodeFilter.decodePredictor(data.get(i), params.get(i));
+            }
+            optimizedTime += System.nanoTime() - start;
+        }
+        System.out.println(fileName + ": " + data.size() + " predictor streams, " + totalBytes + " bytes, row by row "
+                + referenceTime / ITERATIONS / 1000 + " us, optimized " + optimizedTime / ITERATIONS / 1000 + " us");
+    }
+
+    private static void collectPredictorStreams(String fileName, List<byte[]> data, List<PdfDictionary> params)
+            throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(fileName));
+        for (int i = 1; i < pdfDocument.getNumberOfPdfObjects(); i++) {
+            PdfObject object = pdfDocument.getPdfObject(i);
+            if (object == null || !object.isStream()) {
+                continue;
+            }
+            PdfStream stream = (PdfStream) object;
+            PdfDictionary decodeParams = stream.getAsDictionary(PdfName.DecodeParms);
+            if (PdfName.FlateDecode.equals(stream.getAsName(PdfName.Filter)) && decodeParams != null
+                    && decodeParams.getAsNumber(PdfName.Predictor) != null) {
+                data.add(FlateDecodeFilter.flateDecode(stream.getBytes(false), false));
+                params.add(decodeParams);
+            }
+        }
+        pdfDocument.close();
+    }
+
+    private static byte[] decodeReference(byte[] in, PdfDictionary decodeParams) {
+        int predictor = decodeParams.getAsNumber(PdfName.Predictor).intValue();
+        if (predictor < 10) {
+            return in;
+        }
+        int columns = getNumberOrDefault(decodeParams, PdfName.Columns, 1);
+        int colors = getNumberOrDefault(decodeParams, PdfName.Colors, 1);
+        int bpc = getNumberOrDefault(decodeParams, PdfName.BitsPerComponent, 8);
+        return PredictorDecoderTest.decodeReference(in, colors * bpc / 8, (colors * columns * bpc + 7) / 8);
+    }
+
+    private static int getNumberOrDefault(PdfDictionary dictionary, PdfName key, int defaultValue) {
+        PdfNumber number = dictionary.getAsNumber(key);
+        return number == null ? defaultValue : number.intValue();
+    }
+}
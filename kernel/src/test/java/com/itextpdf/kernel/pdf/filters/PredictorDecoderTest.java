@@ -0,0 +1,192 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class PredictorDecoderTest extends ExtendedITextTest {
+
+    @Test
+    public void pngFiltersTest() {
+        byte[] in = {
+                0, 1, 2, 3, 4,
+                1, 1, 2, 3, 4,
+                2, 1, 1, 1, 1,
+                3, 10, 20, 30, 40,
+                4, 1, 1, 1, 1
+        };
+        byte[] expected = {
+                1, 2, 3, 4,
+                1, 2, 4, 6,
+                2, 3, 5, 7,
+                11, 21, 38, 54,
+                12, 22, 39, 55
+        };
+
+        Assert.assertArrayEquals(expected, FlateDecodeFilter.decodePredictor(in, createParams(15, 2, 2, 8)));
+    }
+
+    @Test
+    public void incompleteLastRowTest() {
+        byte[] in = {2, 1, 2, 3, 2, 1};
+
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, FlateDecodeFilter.decodePredictor(in, createParams(12, 3, 1, 8)));
+    }
+
+    @Test
+    public void unknownPngFilterTest() {
+        byte[] in = {0, 1, 2, 5, 1, 2};
+
+        Exception e = Assert.assertThrows(PdfException.class,
+                () -> FlateDecodeFilter.decodePredictor(in, createParams(12, 2, 1, 8)));
+        Assert.assertEquals(KernelExceptionMessageConstant.PNG_FILTER_UNKNOWN, e.getMessage());
+    }
+
+    @Test
+    public void tiffPredictorTest() {
+        byte[] in = {1, 2, 3, 1, 1, 1, 10, 20, 30, 1, 1, 1};
+
+        Assert.assertArrayEquals(new byte[] {1, 2, 3, 2, 3, 4, 10, 20, 30, 11, 21, 31},
+                FlateDecodeFilter.decodePredictor(in, createParams(2, 2, 3, 8)));
+    }
+
+    @Test
+    public void randomDataTest() {
+        Random random = new Random(42);
+        int[][] formats = {{1, 8}, {3, 8}, {4, 8}, {1, 16}, {3, 16}, {2, 8}, {1, 1}, {1, 4}, {3, 2}};
+        for (int[] format : formats) {
+            int colors = format[0];
+            int bpc = format[1];
+            for (int columns = 1; columns < 40; columns += 7) {
+                int bytesPerRow = (colors * columns * bpc + 7) / 8;
+                byte[] in = new byte[(bytesPerRow + 1) * 9 + random.nextInt(bytesPerRow + 1)];
+                random.nextBytes(in);
+                for (int row = 0; row < 9; row++) {
+                    in[row * (bytesPerRow + 1)] = (byte) random.nextInt(5);
+                }
+
+                byte[] expected = decodeReference(in, colors * bpc / 8, bytesPerRow);
+                byte[] actual = FlateDecodeFilter.decodePredictor(in, createParams(15, columns, colors, bpc));
+                Assert.assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    static PdfDictionary createParams(int predictor, int columns, int colors, int bpc) {
+        PdfDictionary params = new PdfDictionary();
+        params.put(PdfName.Predictor, new PdfNumber(predictor));
+        params.put(PdfName.Columns, new PdfNumber(columns));
+        params.put(PdfName.Colors, new PdfNumber(colors));
+        params.put(PdfName.BitsPerComponent, new PdfNumber(bpc));
+        return params;
+    }
+
+    /**
+     * The row by row implementation of the PNG predictors which was used before, kept as a reference.
+     */
+    static byte[] decodeReference(byte[] in, int bytesPerPixel, int bytesPerRow) {
+        int numRows = in.length / (bytesPerRow + 1);
+        byte[] out = new byte[numRows * bytesPerRow];
+        byte[] curr = new byte[bytesPerRow];
+        byte[] prior = new byte[bytesPerRow];
+        for (int row = 0; row < numRows; row++) {
+            int filter = in[row * (bytesPerRow + 1)] & 0xff;
+            System.arraycopy(in, row * (bytesPerRow + 1) + 1, curr, 0, bytesPerRow);
+            switch (filter) {
+                case 0:
+                    break;
+                case 1:
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        curr[i] += curr[i - bytesPerPixel];
+                    }
+                    break;
+                case 2:
+                    for (int i = 0; i < bytesPerRow; i++) {
+                        curr[i] += prior[i];
+                    }
+                    break;
+                case 3:
+                    for (int i = 0; i < bytesPerPixel; i++) {
+                        curr[i] += (byte) (prior[i] / 2);
+                    }
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        curr[i] += (byte) (((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff)) / 2);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < bytesPerPixel; i++) {
+                        curr[i] += prior[i];
+                    }
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        int a = curr[i - bytesPerPixel] & 0xff;
+                        int b = prior[i] & 0xff;
+                        int c = prior[i - bytesPerPixel] & 0xff;
+                        int p = a + b - c;
+                        int pa = Math.abs(p - a);
+                        int pb = Math.abs(p - b);
+                        int pc = Math.abs(p - c);
+                        curr[i] += (byte) (pa <= pb && pa <= pc ? a : (pb <= pc ? b : c));
+                    }
+                    break;
+            }
+            System.arraycopy(curr, 0, out, row * bytesPerRow, bytesPerRow);
+            byte[] tmp = prior;
+            prior = curr;
+            curr = tmp;
+        }
+        return out;
+    }
+}
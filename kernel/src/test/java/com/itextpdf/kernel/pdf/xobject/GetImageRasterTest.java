@@ -0,0 +1,115 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.xobject;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class GetImageRasterTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/pdf/xobject/GetImageRasterTest/";
+
+    @Test
+    public void dctDecodeTest() throws IOException {
+        ImageRaster raster = getRaster("dctdecode.pdf", "im1");
+        Assert.assertEquals(247, raster.getWidth());
+        Assert.assertEquals(110, raster.getHeight());
+        Assert.assertEquals(3, raster.getNumberOfComponents());
+        Assert.assertEquals(8, raster.getBitsPerComponent());
+        Assert.assertEquals(247 * 110 * 3, raster.getSamples().length);
+        Assert.assertEquals(14738169, sum(raster.getSamples()));
+    }
+
+    @Test
+    public void multiStageFilterTest() throws IOException {
+        // FlateDecode followed by DCTDecode
+        ImageRaster raster = getRaster("multistagefilter1.pdf", "Obj13");
+        Assert.assertEquals(1275, raster.getWidth());
+        Assert.assertEquals(1650, raster.getHeight());
+        Assert.assertEquals(1, raster.getNumberOfComponents());
+        Assert.assertEquals(1275 * 1650, raster.getSamples().length);
+        Assert.assertEquals(536182529, sum(raster.getSamples()));
+    }
+
+    @Test
+    public void flateDecodeRgbTest() throws IOException {
+        ImageRaster raster = getRaster("img_rgb.pdf", "Im1");
+        Assert.assertEquals(3, raster.getNumberOfComponents());
+        Assert.assertEquals(8, raster.getBitsPerComponent());
+        Assert.assertEquals(raster.getBytesPerRow() * raster.getHeight(), raster.getSamples().length);
+    }
+
+    @Test
+    public void indexedTest() throws IOException {
+        ImageRaster raster = getRaster("img_indexed.pdf", "Im1");
+        Assert.assertEquals(1, raster.getNumberOfComponents());
+        Assert.assertEquals(raster.getBytesPerRow() * raster.getHeight(), raster.getSamples().length);
+    }
+
+    private static ImageRaster getRaster(String fileName, String name) throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(SOURCE_FOLDER + fileName))) {
+            PdfStream stream = pdfDocument.getPage(1).getResources().getResource(PdfName.XObject)
+                    .getAsStream(new PdfName(name));
+            return new PdfImageXObject(stream).getRaster();
+        }
+    }
+
+    private static long sum(byte[] bytes) {
+        long sum = 0;
+        for (byte b : bytes) {
+            sum += b & 0xff;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.xobject;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.PixelBufferMode;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PixelBufferModeTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/pdf/xobject/PixelBufferModeTest/";
+
+    @Test
+    public void pngTest() throws IOException {
+        compareModes("img_calrgb.png");
+    }
+
+    @Test
+    public void interlacedPngTest() throws IOException {
+        compareModes("interlaced.png");
+    }
+
+    @Test
+    public void pngWithAlphaTest() throws IOException {
+        compareModes("rgba8Bpc.png");
+    }
+
+    @Test
+    public void indexedPngWithAlphaTest() throws IOException {
+        compareModes("indexed2BpcWithAlphaChannel.png");
+    }
+
+    @Test
+    public void bilevelPngTest() throws IOException {
+        // bilevel images are CCITT compressed, so the chunks are read row by row and are not kept
+        ImageData arrayImage = ImageDataFactory.create(sourceFolder + "bw.png", false, PixelBufferMode.ARRAY);
+        for (PixelBufferMode mode : new PixelBufferMode[] {PixelBufferMode.CHUNKED, PixelBufferMode.DIRECT}) {
+            ImageData image = ImageDataFactory.create(sourceFolder + "bw.png", false, mode);
+            Assert.assertNull(image.getChunkedData());
+            Assert.assertArrayEquals(arrayImage.getData(), image.getData());
+        }
+    }
+
+    @Test
+    public void tiffTest() throws IOException {
+        compareModes("img_cmyk.tif");
+    }
+
+    @Test
+    public void gifTest() throws IOException {
+        compareModes("anon.gif");
+    }
+
+    @Test
+    public void bmpTest() throws IOException {
+        compareModes("itext.bmp");
+    }
+
+    @Test
+    public void indexedBmpTest() throws IOException {
+        compareModes("smpl.bmp");
+    }
+
+    @Test
+    public void rle8BmpTest() throws IOException {
+        byte[] expected = new byte[] {3, 3, 3, 3, 3, 3, 0, 0, 0, 0, 0, 0, 2, 2, 0, 0, 0, 0, 1, 1, 1, 2, 3, 1};
+        for (PixelBufferMode mode : PixelBufferMode.values()) {
+            Assert.assertArrayEquals(expected,
+                    ImageDataFactory.create(sourceFolder + "rle8.bmp", false, mode).getData());
+        }
+        compareModes("rle8.bmp");
+    }
+
+    @Test
+    public void rle4BmpTest() throws IOException {
+        byte[] expected = new byte[] {0x00, 0x03, 0x30, 0x11, 0x00, 0x00, 0x23, 0x23, 0x23, 0x12, 0x13, 0x12};
+        for (PixelBufferMode mode : PixelBufferMode.values()) {
+            Assert.assertArrayEquals(expected,
+                    ImageDataFactory.create(sourceFolder + "rle4.bmp", false, mode).getData());
+        }
+        compareModes("rle4.bmp");
+    }
+
+    @Test
+    public void rawImageTest() throws IOException {
+        byte[] pixels = new byte[300 * 200 * 3];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) i;
+        }
+        ImageData image = ImageDataFactory.create(300, 200, 3, 8, pixels, null);
+
+        Assert.assertNull(image.getChunkedData());
+        Assert.assertSame(pixels, image.getData());
+        Assert.assertArrayEquals(pixels, writeAndReadImage(image));
+    }
+
+    @Test
+    public void imageInSeveralDocumentsTest() throws IOException {
+        ImageData image = ImageDataFactory.create(sourceFolder + "img_calrgb.png", false, PixelBufferMode.DIRECT);
+        byte[] first = writeAndReadImage(image);
+        byte[] second = writeAndReadImage(image);
+
+        Assert.assertNotNull(image.getChunkedData());
+        Assert.assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void getDataKeepsArrayTest() throws IOException {
+        ImageData image = ImageDataFactory.create(sourceFolder + "img_calrgb.png", false, PixelBufferMode.CHUNKED);
+        Assert.assertNotNull(image.getChunkedData());
+
+        byte[] data = image.getData();
+        Assert.assertNull(image.getChunkedData());
+        Assert.assertSame(data, image.getData());
+    }
+
+    @Test
+    public void nullModeTest() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ImageDataFactory.create(sourceFolder + "img_calrgb.png", false, null));
+    }
+
+    private static void compareModes(String fileName) throws IOException {
+        ImageData arrayImage = ImageDataFactory.create(sourceFolder + fileName, false, PixelBufferMode.ARRAY);
+        Assert.assertNull(arrayImage.getChunkedData());
+        byte[] expected = writeAndReadImage(arrayImage);
+        byte[] expectedData = arrayImage.getData();
+
+        for (PixelBufferMode mode : new PixelBufferMode[] {PixelBufferMode.CHUNKED, PixelBufferMode.DIRECT}) {
+            ImageData image = ImageDataFactory.create(sourceFolder + fileName, false, mode);
+            Assert.assertNotNull(image.getChunkedData());
+            Assert.assertEquals(mode == PixelBufferMode.DIRECT, image.getChunkedData().isDirect());
+            Assert.assertArrayEquals(expected, writeAndReadImage(image));
+            Assert.assertArrayEquals(expectedData, image.getData());
+        }
+    }
+
+    private static byte[] writeAndReadImage(ImageData image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos));
+        PdfImageXObject xObject = new PdfImageXObject(image);
+        pdfDocument.addNewPage().getResources().addImage(xObject);
+        pdfDocument.close();
+
+        PdfDocument readDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfStream stream = readDocument.getFirstPage().getResources().getResource(PdfName.XObject)
+                .getAsStream(new PdfName("Im1"));
+        byte[] bytes = stream.getBytes();
+        readDocument.close();
+        return bytes;
+    }
+}
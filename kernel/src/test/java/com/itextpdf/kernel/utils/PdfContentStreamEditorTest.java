@@ -0,0 +1,461 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2022 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.utils;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.CanvasTag;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfContentStreamIterator;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class PdfContentStreamEditorTest extends ExtendedITextTest {
+
+    private static final String SOURCE_FOLDER = "./src/test/resources/com/itextpdf/kernel/utils/PdfContentStreamEditorTest/";
+    private static final String DESTINATION_FOLDER = "./target/test/com/itextpdf/kernel/utils/PdfContentStreamEditorTest/";
+
+    // an image XObject /Im1, an inline image, a form XObject /Fm1, a red rectangle, the text "Hello"
+    // and the text "Watermark" marked as a watermark artifact
+    private static final String DOCUMENT = SOURCE_FOLDER + "imagesFormTextAndWatermark.pdf";
+
+    private static final String ALICE_IN_WONDERLAND =
+            "./src/test/resources/com/itextpdf/kernel/parser/LocationExtractionTest/aliceInWonderland.pdf";
+
+    private static final String INLINE_IMAGES =
+            "./src/test/resources/com/itextpdf/kernel/pdf/canvas/parser/InlineImageExtractionTest/"
+                    + "docWithInlineImage.pdf";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createOrClearDestinationFolder(DESTINATION_FOLDER);
+    }
+
+    @Test
+    public void documentInReadingModeTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(INLINE_IMAGES))) {
+            Exception e = Assert.assertThrows(PdfException.class, () -> new PdfContentStreamEditor(pdfDocument));
+            Assert.assertEquals(KernelExceptionMessageConstant.CANNOT_EDIT_CONTENT_OF_DOCUMENT_OPENED_IN_READING_MODE,
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void passThroughFilterKeepsOperationsTest() throws IOException {
+        assertOperationsKept(INLINE_IMAGES, DESTINATION_FOLDER + "passThroughFilterKeepsInlineImages.pdf");
+        assertOperationsKept(DOCUMENT, DESTINATION_FOLDER + "passThroughFilterKeepsOperations.pdf");
+    }
+
+    @Test
+    public void removeTextTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "removeText.pdf";
+        edit(DOCUMENT, dest, editor -> editor.addFilter((operator, operands, context, next) -> {
+            if (!context.isInTextObject()) {
+                next.write(operands);
+            }
+        }));
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            Assert.assertEquals("", PdfTextExtractor.getTextFromPage(pdfDocument.getPage(1)));
+            List<String> operations = readOperations(pdfDocument, 1);
+            Assert.assertFalse(operations.contains("BT"));
+            Assert.assertTrue(operations.contains("/Im1 Do"));
+        }
+    }
+
+    @Test
+    public void dropImagesTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "dropImages.pdf";
+        edit(DOCUMENT, dest, editor -> editor.addFilter((operator, operands, context, next) -> {
+            if ("EI".equals(operator.toString())) {
+                return;
+            }
+            if ("Do".equals(operator.toString())) {
+                PdfObject xObject = context.getResources().getResourceObject(PdfName.XObject,
+                        (PdfName) operands.get(0));
+                if (xObject instanceof PdfStream
+                        && PdfName.Image.equals(((PdfStream) xObject).getAsName(PdfName.Subtype))) {
+                    return;
+                }
+            }
+            next.write(operands);
+        }));
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            List<String> operations = readOperations(pdfDocument, 1);
+            Assert.assertFalse(operations.contains("/Im1 Do"));
+            Assert.assertTrue(operations.contains("/Fm1 Do"));
+            for (String operation : operations) {
+                Assert.assertFalse(operation.endsWith("EI"));
+            }
+            Assert.assertEquals("Hello\nWatermark", PdfTextExtractor.getTextFromPage(pdfDocument.getPage(1)));
+        }
+    }
+
+    @Test
+    public void changeColorsTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "changeColors.pdf";
+        edit(DOCUMENT, dest, editor -> editor
+                .addFilter((operator, operands, context, next) -> {
+                    if ("rg".equals(operator.toString())) {
+                        next.write(Arrays.<PdfObject>asList(new PdfNumber(0), new PdfNumber(0), new PdfNumber(1),
+                                operator));
+                    } else {
+                        next.write(operands);
+                    }
+                })
+                // the operations written by a filter are passed to the next one
+                .addFilter((operator, operands, context, next) -> {
+                    if ("rg".equals(operator.toString())) {
+                        next.write(Arrays.<PdfObject>asList(new PdfLiteral("q")));
+                        next.write(operands);
+                        next.write(Arrays.<PdfObject>asList(new PdfLiteral("Q")));
+                    } else {
+                        next.write(operands);
+                    }
+                }));
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            List<String> operations = readOperations(pdfDocument, 1);
+            int index = operations.indexOf("0 0 1 rg");
+            Assert.assertTrue(index > 0);
+            Assert.assertEquals("q", operations.get(index - 1));
+            Assert.assertEquals("Q", operations.get(index + 1));
+            Assert.assertFalse(operations.contains("1 0 0 rg"));
+        }
+    }
+
+    @Test
+    public void removeWatermarkArtifactTest() throws IOException {
+        String dest = DESTINATION_FOLDER + "removeWatermarkArtifact.pdf";
+        edit(DOCUMENT, dest, editor -> editor.addFilter((operator, operands, context, next) -> {
+            for (CanvasTag tag : context.getMarkedContentStack()) {
+                if (PdfName.Artifact.equals(tag.getRole())
+                        && PdfName.Watermark.equals(tag.getProperty(PdfName.Subtype))) {
+                    return;
+                }
+            }
+            next.write(operands);
+        }));
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            Assert.assertEquals("Hello", PdfTextExtractor.getTextFromPage(pdfDocument.getPage(1)));
+            for (String operation : readOperations(pdfDocument, 1)) {
+                Assert.assertFalse(operation.endsWith("BDC"));
+                Assert.assertFalse(operation.endsWith("EMC"));
+            }
+        }
+    }
+
+    @Test
+    public void contextAttributesArePerPageTest() throws IOException {
+        // counts the operations of each page and writes the count at the end of the page
+        IContentStreamFilter countingFilter = (operator, operands, context, next) -> {
+            Integer count = (Integer) context.getAttribute("count");
+            context.setAttribute("count", count == null ? 1 : count + 1);
+            next.write(operands);
+        };
+        IContentStreamFilter textRemovingFilter = (operator, operands, context, next) -> {
+            if (context.isInTextObject()) {
+                Assert.assertEquals(Boolean.TRUE, context.getAttribute("text"));
+                return;
+            }
+            next.write(operands);
+            context.setAttribute("text", Boolean.TRUE);
+        };
+        String dest = DESTINATION_FOLDER + "contextAttributesArePerPage.pdf";
+        edit(ALICE_IN_WONDERLAND, dest, editor -> editor
+                .addFilter(countingFilter)
+                .addFilter(textRemovingFilter)
+                .setParallelism(4));
+        try (PdfDocument original = new PdfDocument(new PdfReader(ALICE_IN_WONDERLAND));
+                PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            for (int i = 1; i <= pdfDocument.getNumberOfPages(); i++) {
+                Assert.assertEquals("", PdfTextExtractor.getTextFromPage(pdfDocument.getPage(i)));
+                List<String> originalOperations = readOperations(original, i);
+                int textOperations = 0;
+                boolean inTextObject = false;
+                for (String operation : originalOperations) {
+                    inTextObject |= "BT".equals(operation);
+                    if (inTextObject) {
+                        textOperations++;
+                    }
+                    inTextObject &= !"ET".equals(operation);
+                }
+                Assert.assertEquals(originalOperations.size() - textOperations, readOperations(pdfDocument, i).size());
+            }
+        }
+    }
+
+    @Test
+    public void parallelEditingTest() throws IOException {
+        IContentStreamFilter filter = (operator, operands, context, next) -> {
+            if (!"TJ".equals(operator.toString()) || context.getPageNumber() % 2 == 0) {
+                next.write(operands);
+            }
+        };
+        String sequentialDest = DESTINATION_FOLDER + "parallelEditingSequential.pdf";
+        String parallelDest = DESTINATION_FOLDER + "parallelEditingParallel.pdf";
+        edit(ALICE_IN_WONDERLAND, sequentialDest, editor -> editor.addFilter(filter).setParallelism(1));
+        edit(ALICE_IN_WONDERLAND, parallelDest, editor -> editor.addFilter(filter).setParallelism(8));
+        try (PdfDocument sequentialDocument = new PdfDocument(new PdfReader(sequentialDest));
+                PdfDocument parallelDocument = new PdfDocument(new PdfReader(parallelDest))) {
+            Assert.assertEquals(sequentialDocument.getNumberOfPages(), parallelDocument.getNumberOfPages());
+            for (int i = 1; i <= sequentialDocument.getNumberOfPages(); i++) {
+                Assert.assertArrayEquals(sequentialDocument.getPage(i).getContentBytes(),
+                        parallelDocument.getPage(i).getContentBytes());
+                Assert.assertEquals(i % 2 == 0,
+                        !PdfTextExtractor.getTextFromPage(parallelDocument.getPage(i)).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void parallelEditingOfPagedFileTest() throws IOException {
+        // files larger than 64 MB aren't mapped at once, so the pages are read through the paged buffers
+        // which are shared by all the views of the file
+        long pagingThreshold = 1 << 26;
+        String src = DESTINATION_FOLDER + "pagedFile.pdf";
+        createPagedFile(src, pagingThreshold);
+        Assert.assertTrue(new File(src).length() > pagingThreshold);
+
+        IContentStreamFilter filter = (operator, operands, context, next) -> {
+            if (!"Tj".equals(operator.toString()) || context.getPageNumber() % 2 == 0) {
+                next.write(operands);
+            }
+        };
+        String sequentialDest = DESTINATION_FOLDER + "pagedFileSequential.pdf";
+        String parallelDest = DESTINATION_FOLDER + "pagedFileParallel.pdf";
+        edit(src, sequentialDest, editor -> editor.addFilter(filter).setParallelism(1));
+        edit(src, parallelDest, editor -> editor.addFilter(filter).setParallelism(8));
+        try (PdfDocument sequentialDocument = new PdfDocument(new PdfReader(sequentialDest));
+                PdfDocument parallelDocument = new PdfDocument(new PdfReader(parallelDest))) {
+            Assert.assertEquals(sequentialDocument.getNumberOfPages(), parallelDocument.getNumberOfPages());
+            for (int i = 1; i <= sequentialDocument.getNumberOfPages(); i++) {
+                Assert.assertArrayEquals(sequentialDocument.getPage(i).getContentBytes(),
+                        parallelDocument.getPage(i).getContentBytes());
+            }
+        }
+    }
+
+    @Test
+    public void resourcesAreLoadedBeforeParallelEditingTest() throws IOException {
+        final Thread editingThread = Thread.currentThread();
+        final AtomicInteger objectsReadByWorkers = new AtomicInteger();
+        PdfReader reader = new PdfReader(ALICE_IN_WONDERLAND) {
+            @Override
+            protected PdfObject readObject(PdfIndirectReference reference) {
+                if (Thread.currentThread() != editingThread) {
+                    objectsReadByWorkers.incrementAndGet();
+                }
+                return super.readObject(reference);
+            }
+        };
+        final Set<PdfObject> visitedObjects = Collections.synchronizedSet(new HashSet<>());
+        try (PdfDocument pdfDocument = new PdfDocument(reader, new PdfWriter(new ByteArrayOutputStream()))) {
+            new PdfContentStreamEditor(pdfDocument)
+                    .addFilter((operator, operands, context, next) -> {
+                        if ("Tf".equals(operator.toString())) {
+                            PdfDictionary fonts = context.getResources().getResource(PdfName.Font);
+                            visitAll(fonts.getAsDictionary((PdfName) operands.get(0)), visitedObjects);
+                        }
+                        next.write(operands);
+                    })
+                    .setParallelism(4)
+                    .editPages();
+        }
+        Assert.assertFalse(visitedObjects.isEmpty());
+        Assert.assertEquals(0, objectsReadByWorkers.get());
+    }
+
+    @Test
+    public void filterFailureTest() throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(ALICE_IN_WONDERLAND),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+            PdfContentStreamEditor editor = new PdfContentStreamEditor(pdfDocument)
+                    .addFilter((operator, operands, context, next) -> {
+                        if (context.getPageNumber() == 5) {
+                            throw new IllegalStateException("failure");
+                        }
+                        next.write(operands);
+                    })
+                    .setParallelism(4);
+            Exception e = Assert.assertThrows(IllegalStateException.class, () -> editor.editPages());
+            Assert.assertEquals("failure", e.getMessage());
+        }
+    }
+
+    private static void visitAll(PdfObject object, Set<PdfObject> visitedObjects) {
+        if (!visitedObjects.add(object)) {
+            return;
+        }
+        if (object instanceof PdfDictionary) {
+            PdfDictionary dictionary = (PdfDictionary) object;
+            for (PdfName key : dictionary.keySet()) {
+                visitAll(dictionary.get(key), visitedObjects);
+            }
+        } else if (object instanceof PdfArray) {
+            PdfArray array = (PdfArray) object;
+            for (int i = 0; i < array.size(); i++) {
+                visitAll(array.get(i), visitedObjects);
+            }
+        }
+    }
+
+    private static void assertOperationsKept(String src, String dest) throws IOException {
+        edit(src, dest, editor -> editor.addFilter((operator, operands, context, next) -> next.write(operands)));
+        try (PdfDocument original = new PdfDocument(new PdfReader(src));
+                PdfDocument pdfDocument = new PdfDocument(new PdfReader(dest))) {
+            for (int i = 1; i <= original.getNumberOfPages(); i++) {
+                Assert.assertEquals(readOperations(original, i), readOperations(pdfDocument, i));
+                Assert.assertEquals(PdfTextExtractor.getTextFromPage(original.getPage(i)),
+                        PdfTextExtractor.getTextFromPage(pdfDocument.getPage(i)));
+            }
+        }
+    }
+
+    private static void edit(String src, String dest, Consumer<PdfContentStreamEditor> configuration)
+            throws IOException {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(src), new PdfWriter(dest))) {
+            PdfContentStreamEditor editor = new PdfContentStreamEditor(pdfDocument);
+            configuration.accept(editor);
+            editor.editPages();
+        }
+    }
+
+    private static List<String> readOperations(PdfDocument pdfDocument, int pageNumber) throws IOException {
+        List<String> operations = new ArrayList<>();
+        try (PdfContentStreamIterator iterator = new PdfContentStreamIterator(pdfDocument.getPage(pageNumber))) {
+            while (iterator.next()) {
+                StringBuilder operation = new StringBuilder();
+                for (PdfObject operand : iterator.getOperands()) {
+                    if (operation.length() > 0) {
+                        operation.append(' ');
+                    }
+                    if (operand instanceof PdfStream) {
+                        PdfStream inlineImage = (PdfStream) operand;
+                        byte[] imageBytes = inlineImage.getBytes(false);
+                        int length = imageBytes.length;
+                        // the whitespace before EI is a part of the filtered image bytes
+                        while (inlineImage.containsKey(PdfName.Filter) && length > 0
+                                && PdfTokenizer.isWhitespace(imageBytes[length - 1])) {
+                            length--;
+                        }
+                        operation.append(new PdfDictionary(inlineImage)).append(' ')
+                                .append(Arrays.toString(Arrays.copyOf(imageBytes, length)));
+                    } else {
+                        operation.append(operand);
+                    }
+                }
+                operations.add(operation.toString());
+            }
+        }
+        return operations;
+    }
+
+    private static void createPagedFile(String dest, long minFileSize) throws IOException {
+        Random random = new Random(0);
+        int numberOfPages = 128;
+        int paddingSize = (int) (minFileSize / numberOfPages) + 1;
+        // the consecutive pages are created far from each other, so reading them switches between the buffers
+        int stride = 8;
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(dest))) {
+            for (int i = 0; i < numberOfPages; i++) {
+                int index = 1;
+                for (int j = 0; j < i; j++) {
+                    if (j % stride < i % stride || j % stride == i % stride && j < i) {
+                        index++;
+                    }
+                }
+                PdfPage page = pdfDocument.addNewPage(index);
+                PdfCanvas canvas = new PdfCanvas(page);
+                canvas.beginText().setFontAndSize(PdfFontFactory.createFont(StandardFonts.HELVETICA), 6);
+                for (int line = 0; line < 400; line++) {
+                    canvas.setTextMatrix(36 + line % 4 * 140, 800 - 7 * (line / 4))
+                            .showText("Page " + i + ", line " + line + ": " + random.nextInt());
+                }
+                canvas.endText();
+                // incompressible bytes spread the content streams over the whole file
+                byte[] padding = new byte[paddingSize];
+                random.nextBytes(padding);
+                PdfStream paddingStream = new PdfStream(padding);
+                paddingStream.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
+                page.getPdfObject().put(new PdfName("Padding"), paddingStream.makeIndirect(pdfDocument));
+                paddingStream.flush();
+                page.flush();
+            }
+        }
+    }
+}